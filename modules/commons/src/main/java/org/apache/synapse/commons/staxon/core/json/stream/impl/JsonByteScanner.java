@@ -0,0 +1,618 @@
+/**
+ * Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ * <p/>
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.commons.staxon.core.json.stream.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Scanner reading UTF-8 encoded JSON directly from an <code>InputStream</code>. It produces the
+ * same symbols as {@link JsonScanner} (with <code>rootObject</code> set) or {@link JsonScanner2},
+ * but without decoding the whole stream into characters first: structural characters, literals
+ * and numbers are matched on the raw bytes and only string contents are decoded.
+ * <p/>
+ * Field names are looked up in a small cache, so a name that repeats through the payload, such
+ * as the keys of the objects in a large array, is created once rather than for every occurrence.
+ */
+final class JsonByteScanner implements JsonStreamSourceImpl.Scanner {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * number of cached field names, must be a power of two
+     */
+    private static final int NAME_CACHE_SIZE = 256;
+
+    /**
+     * longer field names are not cached
+     */
+    private static final int MAX_NAME_LENGTH = 64;
+
+    private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+    private final InputStream input;
+    private final boolean rootObject;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    /* number of bytes discarded from the start of the buffer */
+    private int bufferOffset;
+    /* difference between decoded characters and bytes of multi-byte sequences read so far */
+    private int charAdjust;
+
+    private char[] chars = new char[64];
+    private int length;
+    private final String[] names = new String[NAME_CACHE_SIZE];
+
+    /* length of the sequence decoded by the last decodeCodePoint() call */
+    private int sequenceLength;
+
+    private int line;
+    private int lineStart;
+    private boolean afterCarriageReturn;
+    private int tokenOffset;
+    private int tokenLine;
+    private int tokenColumn;
+
+    private String text = null;
+    private Symbol lastSymbol = null;
+    private boolean[] arrays = new boolean[32];
+    private int arrayDepth;
+
+    /**
+     * @param input      UTF-8 encoded JSON
+     * @param rootObject whether to wrap the document in a <code>jsonObject</code> object and an
+     *                   anonymous root array in a <code>jsonArray</code> object, as
+     *                   {@link JsonScanner} does
+     */
+    JsonByteScanner(InputStream input, boolean rootObject) {
+        this.input = input;
+        this.rootObject = rootObject;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getCharOffset() {
+        return tokenOffset;
+    }
+
+    public int getLineNumber() {
+        return tokenLine;
+    }
+
+    public int getColumnNumber() {
+        return tokenColumn;
+    }
+
+    public void close() throws IOException {
+        input.close();
+    }
+
+    public Symbol nextSymbol() throws IOException {
+        if (lastSymbol != null) {
+            switch (lastSymbol) {
+                case SO_OBJECT:
+                    lastSymbol = Symbol.SO_OBJECT_COL;
+                    text = Constants.OBJECT;
+                    return Symbol.STRING;
+                case SO_OBJECT_COL:
+                    lastSymbol = Symbol.SO_OBJECT_END;
+                    text = null;
+                    return Symbol.COLON;
+                case SO_OBJECT_END:
+                    lastSymbol = Symbol.START_OBJECT;
+                    text = null;
+                    return Symbol.START_OBJECT;
+                case EOF_OBJ:
+                    lastSymbol = Symbol.EOF;
+                    text = null;
+                    return Symbol.EOF;
+                case SO_ARRAY:
+                    lastSymbol = Symbol.SO_COLON_1;
+                    text = Constants.ARRAY;
+                    return Symbol.STRING;
+                case SO_COLON_1:
+                    lastSymbol = Symbol.SO_ELEMENT;
+                    text = null;
+                    return Symbol.COLON;
+                case SO_ELEMENT:
+                    lastSymbol = Symbol.SO_COLON_2;
+                    text = null;
+                    return Symbol.START_OBJECT;
+                case SO_COLON_2:
+                    lastSymbol = Symbol.SO_END;
+                    text = Constants.ARRAY_ELEM;
+                    return Symbol.STRING;
+                case SO_END:
+                    lastSymbol = Symbol.SO_END_2;
+                    text = null;
+                    return Symbol.COLON;
+                case SO_END_2:
+                    lastSymbol = Symbol.START_ARRAY;
+                    text = null;
+                    return Symbol.START_ARRAY;
+                case SO_ARRAY_END:
+                    lastSymbol = Symbol.SO_ARRAY_END_2;
+                    text = null;
+                    return Symbol.END_OBJECT;
+                case SO_ARRAY_END_2:
+                    lastSymbol = Symbol.END_ARRAY;
+                    text = null;
+                    return Symbol.END_OBJECT;
+                default:
+                    break;
+            }
+        }
+        return scan();
+    }
+
+    private Symbol scan() throws IOException {
+        skipWhitespace();
+        markToken();
+        if (pos >= limit && !fill(1)) {
+            return endOfInput();
+        }
+        switch (buffer[pos]) {
+            case ',':
+                pos++;
+                text = null;
+                lastSymbol = Symbol.COMMA;
+                return Symbol.COMMA;
+            case ':':
+                pos++;
+                text = null;
+                lastSymbol = Symbol.COLON;
+                return Symbol.COLON;
+            case '[':
+                pos++;
+                text = null;
+                if (lastSymbol == Symbol.START_ARRAY || lastSymbol == Symbol.COMMA
+                        || (rootObject && lastSymbol == null)) {
+                    pushArray(true);
+                    lastSymbol = Symbol.SO_ARRAY;
+                    return Symbol.START_OBJECT;
+                }
+                pushArray(false);
+                lastSymbol = Symbol.START_ARRAY;
+                return Symbol.START_ARRAY;
+            case ']':
+                if (arrayDepth == 0) {
+                    throw new IOException("Unexpected symbol: " + Symbol.END_ARRAY);
+                }
+                pos++;
+                text = null;
+                lastSymbol = arrays[--arrayDepth] ? Symbol.SO_ARRAY_END : Symbol.END_ARRAY;
+                return Symbol.END_ARRAY;
+            case '{':
+                pos++;
+                text = null;
+                lastSymbol = rootObject && lastSymbol == null ? Symbol.SO_OBJECT : Symbol.START_OBJECT;
+                return Symbol.START_OBJECT;
+            case '}':
+                pos++;
+                text = null;
+                lastSymbol = Symbol.END_OBJECT;
+                return Symbol.END_OBJECT;
+            case '"':
+                pos++;
+                return string();
+            case 'n':
+                return literal("null", Symbol.NULL);
+            case 't':
+                return literal("true", Symbol.TRUE);
+            case 'f':
+                return literal("false", Symbol.FALSE);
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                return number();
+            default:
+                throw illegalCharacter();
+        }
+    }
+
+    private Symbol endOfInput() {
+        text = null;
+        if (rootObject) {
+            lastSymbol = Symbol.EOF_OBJ;
+            return Symbol.END_OBJECT;
+        }
+        lastSymbol = Symbol.EOF;
+        return Symbol.EOF;
+    }
+
+    private Symbol literal(String literal, Symbol symbol) throws IOException {
+        int n = literal.length();
+        if (limit - pos >= n || fill(n)) {
+            int i = 1;
+            while (i < n && buffer[pos + i] == literal.charAt(i)) {
+                i++;
+            }
+            if (i == n) {
+                pos += n;
+                text = literal;
+                lastSymbol = symbol;
+                return symbol;
+            }
+        }
+        throw illegalCharacter();
+    }
+
+    private Symbol number() throws IOException {
+        length = 0;
+        if (buffer[pos] == '-') {
+            if (!isDigit(peek(1))) {
+                throw illegalCharacter();
+            }
+            append('-');
+            pos++;
+        }
+        if (buffer[pos] == '0') {
+            append('0');
+            pos++;
+        } else {
+            digits();
+        }
+        if (peek(0) == '.' && isDigit(peek(1))) {
+            append('.');
+            pos++;
+            digits();
+        }
+        int exponent = peek(0);
+        if (exponent == 'e' || exponent == 'E') {
+            int next = peek(1);
+            if (isDigit(next)) {
+                append((char) exponent);
+                pos++;
+                digits();
+            } else if ((next == '+' || next == '-') && isDigit(peek(2))) {
+                append((char) exponent);
+                append((char) next);
+                pos += 2;
+                digits();
+            }
+        }
+        text = new String(chars, 0, length);
+        lastSymbol = Symbol.NUMBER;
+        return Symbol.NUMBER;
+    }
+
+    private void digits() throws IOException {
+        int c;
+        while (isDigit(c = peek(0))) {
+            append((char) c);
+            pos++;
+        }
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private Symbol string() throws IOException {
+        length = 0;
+        while (true) {
+            if (pos >= limit && !fill(1)) {
+                // unterminated string, treated as the end of input like the generated scanners do
+                return endOfInput();
+            }
+            // copy runs of plain ASCII characters straight from the buffer
+            int p = pos;
+            int end = limit;
+            byte[] bytes = buffer;
+            ensureCapacity(length + end - p);
+            char[] c = chars;
+            int n = length;
+            while (p < end) {
+                int b = bytes[p];
+                if (b < 0 || b == '"' || b == '\\' || b == '\n' || b == '\r') {
+                    break;
+                }
+                c[n++] = (char) b;
+                p++;
+            }
+            pos = p;
+            length = n;
+            if (p == end) {
+                continue;
+            }
+
+            int b = bytes[p];
+            if (b == '"') {
+                pos++;
+                break;
+            } else if (b == '\\') {
+                escape();
+            } else if (b < 0) {
+                int codePoint = decodeCodePoint();
+                pos += sequenceLength;
+                if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    append(Character.highSurrogate(codePoint));
+                    append(Character.lowSurrogate(codePoint));
+                    charAdjust += 2 - sequenceLength;
+                } else {
+                    append((char) codePoint);
+                    charAdjust += 1 - sequenceLength;
+                }
+            } else {
+                // line breaks are not allowed inside strings
+                throw illegalCharacter();
+            }
+        }
+
+        lastSymbol = Symbol.STRING;
+        skipWhitespace();
+        if ((pos < limit || fill(1)) && buffer[pos] == ':') {
+            text = name();
+        } else {
+            text = new String(chars, 0, length);
+        }
+        return Symbol.STRING;
+    }
+
+    private void escape() throws IOException {
+        if (limit - pos < 2 && !fill(2)) {
+            throw illegalCharacter();
+        }
+        switch (buffer[pos + 1]) {
+            case '"':
+                append('"');
+                break;
+            case '\\':
+                append('\\');
+                break;
+            case '/':
+                append('/');
+                break;
+            case 'b':
+                append('\b');
+                break;
+            case 'f':
+                append('\f');
+                break;
+            case 'n':
+                append('\n');
+                break;
+            case 'r':
+                append('\r');
+                break;
+            case 't':
+                append('\t');
+                break;
+            case 'u':
+                if (limit - pos < 6 && !fill(6)) {
+                    throw illegalCharacter();
+                }
+                int value = 0;
+                for (int i = pos + 2; i < pos + 6; i++) {
+                    int digit = Character.digit(buffer[i], 16);
+                    if (digit < 0) {
+                        throw illegalCharacter();
+                    }
+                    value = (value << 4) | digit;
+                }
+                append((char) value);
+                pos += 6;
+                return;
+            default:
+                throw illegalCharacter();
+        }
+        pos += 2;
+    }
+
+    /**
+     * Decodes the UTF-8 sequence starting at the current position, without consuming it. Malformed
+     * sequences decode to the replacement character, as with an <code>InputStreamReader</code>.
+     *
+     * @return the code point, with its length in bytes stored in <code>sequenceLength</code>
+     */
+    private int decodeCodePoint() throws IOException {
+        int lead = buffer[pos] & 0xFF;
+        int continuations;
+        int codePoint;
+        int min;
+        if ((lead & 0xE0) == 0xC0) {
+            continuations = 1;
+            codePoint = lead & 0x1F;
+            min = 0x80;
+        } else if ((lead & 0xF0) == 0xE0) {
+            continuations = 2;
+            codePoint = lead & 0x0F;
+            min = 0x800;
+        } else if ((lead & 0xF8) == 0xF0) {
+            continuations = 3;
+            codePoint = lead & 0x07;
+            min = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+        } else {
+            sequenceLength = 1;
+            return REPLACEMENT_CHARACTER;
+        }
+        sequenceLength = 1;
+        if (limit - pos <= continuations && !fill(continuations + 1)) {
+            return REPLACEMENT_CHARACTER;
+        }
+        for (int i = 1; i <= continuations; i++) {
+            int b = buffer[pos + i];
+            if ((b & 0xC0) != 0x80) {
+                return REPLACEMENT_CHARACTER;
+            }
+            codePoint = (codePoint << 6) | (b & 0x3F);
+        }
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+                || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            return REPLACEMENT_CHARACTER;
+        }
+        sequenceLength = continuations + 1;
+        return codePoint;
+    }
+
+    private IOException illegalCharacter() throws IOException {
+        lastSymbol = null;
+        int b = buffer[pos];
+        String character = b >= 0 ? String.valueOf((char) b) : new String(Character.toChars(decodeCodePoint()));
+        return new IOException("Illegal character: <" + character + ">");
+    }
+
+    /**
+     * Returns the field name held in the character buffer, reusing the instance created for an
+     * earlier occurrence of the same name if it is still cached
+     */
+    private String name() {
+        int n = length;
+        if (n > MAX_NAME_LENGTH) {
+            return new String(chars, 0, n);
+        }
+        char[] c = chars;
+        int hash = 0;
+        for (int i = 0; i < n; i++) {
+            hash = 31 * hash + c[i];
+        }
+        int index = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+        String name = names[index];
+        if (name != null && name.length() == n && name.hashCode() == hash) {
+            int i = 0;
+            while (i < n && name.charAt(i) == c[i]) {
+                i++;
+            }
+            if (i == n) {
+                return name;
+            }
+        }
+        name = new String(c, 0, n);
+        names[index] = name;
+        return name;
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (pos < limit || fill(1)) {
+            switch (buffer[pos]) {
+                case ' ':
+                case '\t':
+                case '\b':
+                    pos++;
+                    afterCarriageReturn = false;
+                    break;
+                case '\n':
+                    pos++;
+                    if (afterCarriageReturn) {
+                        lineStart = charOffset();
+                    } else {
+                        newLine();
+                    }
+                    afterCarriageReturn = false;
+                    break;
+                case '\r':
+                    pos++;
+                    newLine();
+                    afterCarriageReturn = true;
+                    break;
+                default:
+                    return;
+            }
+        }
+    }
+
+    private void newLine() {
+        line++;
+        lineStart = charOffset();
+    }
+
+    private void markToken() {
+        afterCarriageReturn = false;
+        tokenOffset = charOffset();
+        tokenLine = line;
+        tokenColumn = tokenOffset - lineStart;
+    }
+
+    private int charOffset() {
+        return bufferOffset + pos + charAdjust;
+    }
+
+    /**
+     * Returns the byte at the given distance from the current position, or -1 past the end of input
+     */
+    private int peek(int ahead) throws IOException {
+        if (pos + ahead >= limit && !fill(ahead + 1)) {
+            return -1;
+        }
+        return buffer[pos + ahead];
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer and reads until at least
+     * <code>required</code> bytes are available
+     *
+     * @return false if the input ended first
+     */
+    private boolean fill(int required) throws IOException {
+        if (pos > 0) {
+            int remaining = limit - pos;
+            System.arraycopy(buffer, pos, buffer, 0, remaining);
+            bufferOffset += pos;
+            pos = 0;
+            limit = remaining;
+        }
+        while (limit < required && !eof) {
+            int read = input.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+        return limit >= required;
+    }
+
+    private void append(char c) {
+        if (length == chars.length) {
+            ensureCapacity(length + 1);
+        }
+        chars[length++] = c;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > chars.length) {
+            char[] expanded = new char[Math.max(capacity, chars.length * 2)];
+            System.arraycopy(chars, 0, expanded, 0, length);
+            chars = expanded;
+        }
+    }
+
+    private void pushArray(boolean anonymous) {
+        if (arrayDepth == arrays.length) {
+            boolean[] expanded = new boolean[arrays.length * 2];
+            System.arraycopy(arrays, 0, expanded, 0, arrayDepth);
+            arrays = expanded;
+        }
+        arrays[arrayDepth++] = anonymous;
+    }
+}
@@ -65,7 +65,12 @@ public class JsonStreamFactoryImpl extends JsonStreamFactory {
 
     @Override
     public JsonStreamSource createJsonStreamSource(InputStream input, Constants.SCANNER scanner) throws IOException {
-        return createJsonStreamSource(new InputStreamReader(input, "UTF-8"), scanner);
+        if (scanner == Constants.SCANNER.SCANNER_1) {
+            return new JsonStreamSourceImpl(new JsonByteScanner(input, true), false);
+        } else if (scanner == Constants.SCANNER.SCANNER_2) {
+            return new JsonStreamSourceImpl(new JsonByteScanner(input, false), false);
+        }
+        return createJsonStreamSource(new InputStreamReader(input, "UTF-8"));
     }
 
     @Override
@@ -0,0 +1,123 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.apache.synapse.commons.vfs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a local file through its {@link FileChannel}. The content of a VFS file is read through a
+ * chain of buffered streams, each copying the data on the heap. Reads of at least a chunk go from
+ * the channel straight in to the array of the reader, smaller reads are served from a heap buffer
+ * of one chunk. The channel reads through the temporary direct buffer the JDK keeps per thread, so
+ * no direct memory is allocated for each file opened.
+ */
+final class FileChannelInputStream extends InputStream {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    FileChannelInputStream(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        // small files do not need a full chunk
+        buffer = ByteBuffer.allocate((int) Math.max(1, Math.min(channel.size(), CHUNK_SIZE)));
+        buffer.flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining() && len >= buffer.capacity()) {
+            return readFully(ByteBuffer.wrap(b, off, len));
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int read = Math.min(len, buffer.remaining());
+        buffer.get(b, off, read);
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        int skipped = (int) Math.min(n, buffer.remaining());
+        buffer.position(buffer.position() + skipped);
+        long position = channel.position();
+        long target = Math.min(channel.size(), position + n - skipped);
+        if (target > position) {
+            channel.position(target);
+            return skipped + target - position;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        long available = buffer.remaining() + Math.max(0, channel.size() - channel.position());
+        return (int) Math.min(available, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return false at the end of the file
+     */
+    private boolean fill() throws IOException {
+        if (buffer.hasRemaining()) {
+            return true;
+        }
+        buffer.clear();
+        int read = readFully(buffer);
+        buffer.flip();
+        return read > 0;
+    }
+
+    /**
+     * @return the number of bytes read in to the buffer, or -1 at the end of the file
+     */
+    private int readFully(ByteBuffer target) throws IOException {
+        int read;
+        do {
+            read = channel.read(target);
+        } while (read == 0);
+        return read;
+    }
+}
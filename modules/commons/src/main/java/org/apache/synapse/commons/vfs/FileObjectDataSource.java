@@ -29,7 +29,8 @@ import java.io.OutputStream;
 /**
  * Data source that reads data from a VFS {@link FileObject}.
  * This class is similar to VFS' own FileObjectDataSource implementation, but in addition
- * implements {@link SizeAwareDataSource}.
+ * implements {@link SizeAwareDataSource}, and reads local files straight from their file channel
+ * (see {@link VFSUtils#getInputStream(FileObject)}).
  */
 public class FileObjectDataSource implements SizeAwareDataSource {
     
@@ -58,7 +59,7 @@ public class FileObjectDataSource implements SizeAwareDataSource {
     }
 
     public InputStream getInputStream() throws IOException {
-        return file.getContent().getInputStream();
+        return VFSUtils.getInputStream(file);
     }
 
     public OutputStream getOutputStream() throws IOException {
@@ -150,6 +150,14 @@ public final class VFSConstants {
      * This specify the file count that will be processed in a cycle/batch 
      * */    
     public static final String TRANSPORT_FILE_COUNT = "transport.vfs.FileProcessCount";
+
+    /**
+     * This specify the number of threads that process the files of a directory concurrently,
+     * defaults to 1 which processes the files one at a time in the order they were sorted. Only the
+     * files of a local directory are processed concurrently, remote file systems are not thread safe
+     * */
+    public static final String TRANSPORT_FILE_PROCESS_THREADS = "transport.vfs.FileProcessThreads";
+    public static final int DEFAULT_TRANSPORT_FILE_PROCESS_THREADS = 1;
     
     /**
      * Lock release true/false
@@ -192,6 +200,8 @@ public final class VFSConstants {
     public static final String FILE_NAME = "FILE_NAME";
     public static final String FILE_LENGTH = "FILE_LENGTH";
     public static final String LAST_MODIFIED = "LAST_MODIFIED";
+    // offset in the file just past the records of a message, when files are split in to records
+    public static final String RECORD_OFFSET = "RECORD_OFFSET";
 
     // identifies the scheme in use, i.e. file, ftp, sftp, http etc..
     public static final String SCHEME = "VFS_SCHEME";
@@ -202,6 +212,7 @@ public final class VFSConstants {
     public static final String SCHEME_SFTP = "sftp";
     public static final String SCHEME_FTP = "ftp";
     public static final String SCHEME_FTPS = "ftps";
+    public static final String SCHEME_FILE = "file";
     // sftp scheme file option list
     public static enum SFTP_FILE_OPTION {Identities, UserDirIsRoot, IdentityPassPhrase};
     
@@ -219,6 +230,74 @@ public final class VFSConstants {
 
     public static final String CLUSTER_AWARE = "transport.vfs.ClusterAware";
 
+    /**
+     * Pick up the files created in a local directory as soon as they are complete, instead of at the next poll.
+     * Polls keep running at the poll interval to pick up any file the watcher missed
+     */
+    public static final String TRANSPORT_FILE_WATCH_DIRECTORY = "transport.vfs.WatchDirectory";
+
+    /**
+     * Time in milliseconds for which a watched file should neither change size nor be written to, before it is
+     * considered complete
+     */
+    public static final String TRANSPORT_FILE_WATCH_STABILITY_INTERVAL = "transport.vfs.WatchStabilityInterval";
+    public static final int DEFAULT_TRANSPORT_FILE_WATCH_STABILITY_INTERVAL = 1000;
+
+    /**
+     * Maximum number of remote file systems (connections) kept open for reuse by the VFS sender and listener
+     */
+    public static final String TRANSPORT_FILE_SYSTEM_POOL_MAX_SIZE = "transport.vfs.FileSystemPoolMaxSize";
+    public static final int DEFAULT_TRANSPORT_FILE_SYSTEM_POOL_MAX_SIZE = 50;
+
+    /**
+     * Time in milliseconds after which an unused remote file system is closed
+     */
+    public static final String TRANSPORT_FILE_SYSTEM_POOL_MAX_IDLE_TIME = "transport.vfs.FileSystemPoolMaxIdleTime";
+    public static final long DEFAULT_TRANSPORT_FILE_SYSTEM_POOL_MAX_IDLE_TIME = 300000;
+
+    /**
+     * Time in milliseconds after which a remote file system is closed once it is no longer in use, -1 for no limit
+     */
+    public static final String TRANSPORT_FILE_SYSTEM_POOL_MAX_LIFETIME = "transport.vfs.FileSystemPoolMaxLifetime";
+    public static final long DEFAULT_TRANSPORT_FILE_SYSTEM_POOL_MAX_LIFETIME = 1800000;
+
+    /**
+     * Time in milliseconds a remote file system may stay unused before it is checked on its next use
+     */
+    public static final String TRANSPORT_FILE_SYSTEM_POOL_VALIDATION_INTERVAL =
+            "transport.vfs.FileSystemPoolValidationInterval";
+    public static final long DEFAULT_TRANSPORT_FILE_SYSTEM_POOL_VALIDATION_INTERVAL = 30000;
+
+    /**
+     * Split each file in to records injected as separate messages, instead of injecting the whole file as one
+     * message. One of line, delimiter or jsonArray (an element of the top level JSON array per record)
+     */
+    public static final String TRANSPORT_FILE_RECORD_SPLIT_MODE = "transport.vfs.RecordSplitMode";
+
+    /**
+     * The record delimiter when records are split by delimiter. \n, \r and \t are unescaped
+     */
+    public static final String TRANSPORT_FILE_RECORD_DELIMITER = "transport.vfs.RecordDelimiter";
+
+    /**
+     * Number of records injected together as one message
+     */
+    public static final String TRANSPORT_FILE_RECORD_BATCH_SIZE = "transport.vfs.RecordBatchSize";
+    public static final int DEFAULT_TRANSPORT_FILE_RECORD_BATCH_SIZE = 1;
+
+    /**
+     * Maximum number of record messages of a file being mediated at the same time
+     */
+    public static final String TRANSPORT_FILE_RECORD_MAX_IN_FLIGHT = "transport.vfs.RecordMaxInFlight";
+    public static final int DEFAULT_TRANSPORT_FILE_RECORD_MAX_IN_FLIGHT = 1;
+
+    /**
+     * Number of record messages after which the offset of the file processed so far is saved, so that the records
+     * already injected are skipped if the server stops before the file is complete. 0 disables checkpoints
+     */
+    public static final String TRANSPORT_FILE_RECORD_CHECKPOINT_INTERVAL = "transport.vfs.RecordCheckpointInterval";
+    public static final int DEFAULT_TRANSPORT_FILE_RECORD_CHECKPOINT_INTERVAL = 100;
+
     // The waiting time of the file before picking it up (in milliseconds)
     public static final String WAIT_TIME_BEFORE_READ = "transport.vfs.waitTimeBeforeRead";
 }
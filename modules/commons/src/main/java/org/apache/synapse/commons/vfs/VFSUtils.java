@@ -32,6 +32,7 @@ import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileSystemManager;
 import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.Selectors;
 import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
 import org.apache.commons.vfs2.provider.UriParser;
 import org.apache.commons.vfs2.provider.ftps.FtpsDataChannelProtectionLevel;
@@ -39,6 +40,7 @@ import org.apache.commons.vfs2.provider.ftps.FtpsFileSystemConfigBuilder;
 import org.apache.commons.vfs2.provider.ftps.FtpsMode;
 import org.apache.commons.vfs2.util.DelegatingFileSystemOptionsBuilder;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -486,6 +488,48 @@ public class VFSUtils {
         return true;
     }
 
+    /**
+     * Get the local file a VFS file object refers to
+     * @param fo the file object
+     * @return the local file, or null if the file object is not on the local file system
+     */
+    public static File getLocalFile(FileObject fo) {
+        if (!VFSConstants.SCHEME_FILE.equals(fo.getName().getScheme())) {
+            return null;
+        }
+        try {
+            // the local file system hands out the file itself instead of a copy
+            return fo.getFileSystem().replicateFile(fo, Selectors.SELECT_SELF);
+        } catch (FileSystemException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to get the local file of : " + fo.getName().getURI(), e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Open the content of a file for reading. A local file is read straight from its file channel
+     * through a heap buffer, or in to the array of the reader for large reads, instead of through
+     * the buffered streams of VFS.
+     * @param fo the file to read
+     * @return the content, to be closed by the caller
+     * @throws FileSystemException if the file can not be opened
+     */
+    public static InputStream getInputStream(FileObject fo) throws FileSystemException {
+        File localFile = getLocalFile(fo);
+        if (localFile != null) {
+            try {
+                return new FileChannelInputStream(localFile);
+            } catch (IOException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Unable to open the file channel of : " + localFile + ", reading it through VFS", e);
+                }
+            }
+        }
+        return fo.getContent().getInputStream();
+    }
+
     public static void releaseFail(FileSystemManager fsManager, FileObject fo) {
         releaseFail(fsManager, fo, null);
     }
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ * <p/>
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.commons.staxon.core.json.stream.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.synapse.commons.staxon.core.json.stream.impl.JsonStreamSourceImpl.Scanner;
+import org.apache.synapse.commons.staxon.core.json.stream.impl.JsonStreamSourceImpl.Scanner.Symbol;
+
+public class JsonByteScannerTest {
+
+    private static final String[] DOCUMENTS = {
+            "{\"alice\":\"bob\"}",
+            "{\"alice\" : { \"bob\" : \"charlie\" }, \"david\" : [ 1, -2.5, 3e10, -0.5E-3, true, false, null ]}",
+            "[1, [2, 3], [[4], {\"a\": [5]}], []]",
+            "[[\"x\"], [\"y\", [\"z\"]]]",
+            "{\"escaped\":\"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00e9\\u20AC\"}",
+            "{\"unicode\":\"caf\u00e9 \u20ac \uD83D\uDE00 \u65e5\u672c\"}",
+            "{\r\n\t\"lines\" :\r\n [\n  0,\r  10\n ]\r\n}",
+            "{\"empty\":{}, \"emptyArray\":[], \"emptyString\":\"\"}",
+            "\"text\"",
+            "123",
+            ""
+    };
+
+    @Test
+    public void testSameSymbolsAsJsonScanner() throws IOException {
+        for (String json : DOCUMENTS) {
+            Assert.assertEquals(json, scan(new JsonScanner(new StringReader(json))),
+                    scan(new JsonByteScanner(utf8(json), true)));
+        }
+    }
+
+    @Test
+    public void testSameSymbolsAsJsonScanner2() throws IOException {
+        for (String json : DOCUMENTS) {
+            Assert.assertEquals(json, scan(new JsonScanner2(new StringReader(json))),
+                    scan(new JsonByteScanner(utf8(json), false)));
+        }
+    }
+
+    @Test
+    public void testBufferBoundaries() throws IOException {
+        for (String json : DOCUMENTS) {
+            Assert.assertEquals(json, scan(new JsonScanner(new StringReader(json))),
+                    scan(new JsonByteScanner(new TrickleInputStream(utf8(json)), true)));
+        }
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            builder.append(i == 0 ? "" : ",").append("{\"id\":").append(i)
+                    .append(",\"name\":\"\u00fcser-").append(i).append("\"}");
+        }
+        String json = builder.append(']').toString();
+        Assert.assertEquals(scan(new JsonScanner(new StringReader(json))),
+                scan(new JsonByteScanner(utf8(json), true)));
+    }
+
+    @Test
+    public void testNamesReused() throws IOException {
+        Scanner scanner = new JsonByteScanner(utf8("[{\"id\":\"id\"},{\"id\":\"id\"}]"), false);
+        List<String> names = new ArrayList<String>();
+        List<String> values = new ArrayList<String>();
+        Symbol previous = null;
+        for (Symbol symbol = scanner.nextSymbol(); symbol != Symbol.EOF; symbol = scanner.nextSymbol()) {
+            if (symbol == Symbol.STRING) {
+                if (previous == Symbol.COLON) {
+                    values.add(scanner.getText());
+                } else {
+                    names.add(scanner.getText());
+                }
+            }
+            previous = symbol;
+        }
+        Assert.assertEquals(2, names.size());
+        Assert.assertSame(names.get(0), names.get(1));
+        Assert.assertEquals(values.get(0), values.get(1));
+        Assert.assertNotSame(values.get(0), values.get(1));
+    }
+
+    @Test
+    public void testLocation() throws IOException {
+        Scanner scanner = new JsonByteScanner(utf8("{\"\u00e9\":\r\n  true}"), false);
+        Assert.assertEquals(Symbol.START_OBJECT, scanner.nextSymbol());
+        Assert.assertEquals(Symbol.STRING, scanner.nextSymbol());
+        Assert.assertEquals(Symbol.COLON, scanner.nextSymbol());
+        Assert.assertEquals(4, scanner.getCharOffset());
+        Assert.assertEquals(Symbol.TRUE, scanner.nextSymbol());
+        Assert.assertEquals(1, scanner.getLineNumber());
+        Assert.assertEquals(2, scanner.getColumnNumber());
+        Assert.assertEquals(9, scanner.getCharOffset());
+    }
+
+    @Test
+    public void testIllegalCharacter() throws IOException {
+        String[] documents = {"{\"a\":tru}", "{\"a\":-}", "{\"a\":\"\\x\"}", "{\"a\":'b'}", "{\"a\":\u00e9}"};
+        for (String json : documents) {
+            String expected = null;
+            try {
+                scan(new JsonScanner2(new StringReader(json)));
+                Assert.fail(json);
+            } catch (IOException e) {
+                expected = e.getMessage();
+            }
+            try {
+                scan(new JsonByteScanner(utf8(json), false));
+                Assert.fail(json);
+            } catch (IOException e) {
+                Assert.assertEquals(expected, e.getMessage());
+            }
+        }
+    }
+
+    private static List<String> scan(Scanner scanner) throws IOException {
+        List<String> symbols = new ArrayList<String>();
+        Symbol symbol;
+        do {
+            symbol = scanner.nextSymbol();
+            symbols.add(scanner.getText() == null ? symbol.toString() : symbol + "(" + scanner.getText() + ")");
+        } while (symbol != Symbol.EOF);
+        return symbols;
+    }
+
+    private static InputStream utf8(String json) throws IOException {
+        return new ByteArrayInputStream(json.getBytes("UTF-8"));
+    }
+
+    /**
+     * Returns a single byte per read, so that every token crosses a buffer refill
+     */
+    private static class TrickleInputStream extends InputStream {
+
+        private final InputStream in;
+
+        TrickleInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return in.read(b, off, Math.min(1, len));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.commons.vfs;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Unit tests for reading local files with FileChannelInputStream through VFSUtils.
+ */
+public class FileChannelInputStreamTest {
+
+    private File file;
+    private byte[] content;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("vfs-channel", ".bin").toFile();
+        content = new byte[FileChannelInputStream.CHUNK_SIZE * 2 + 123];
+        new Random(1).nextBytes(content);
+        FileUtils.writeByteArrayToFile(file, content);
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(file);
+    }
+
+    @Test
+    public void testReadAcrossChunks() throws Exception {
+        try (InputStream in = new FileChannelInputStream(file)) {
+            Assert.assertEquals(content.length, in.available());
+            Assert.assertEquals(content[0] & 0xff, in.read());
+            byte[] rest = IOUtils.toByteArray(in);
+            Assert.assertEquals(content.length - 1, rest.length);
+            for (int i = 0; i < rest.length; i++) {
+                Assert.assertEquals(content[i + 1], rest[i]);
+            }
+            Assert.assertEquals(-1, in.read());
+            Assert.assertEquals(0, in.available());
+        }
+    }
+
+    @Test
+    public void testReadChunks() throws Exception {
+        try (InputStream in = new FileChannelInputStream(file)) {
+            byte[] read = new byte[content.length];
+            int offset = 0;
+            int count;
+            while ((count = in.read(read, offset, Math.min(FileChannelInputStream.CHUNK_SIZE,
+                                                             read.length - offset))) > 0) {
+                offset += count;
+            }
+            Assert.assertEquals(content.length, offset);
+            Assert.assertArrayEquals(content, read);
+            Assert.assertEquals(-1, in.read(new byte[FileChannelInputStream.CHUNK_SIZE]));
+        }
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        try (InputStream in = new FileChannelInputStream(file)) {
+            in.read();
+            Assert.assertEquals(FileChannelInputStream.CHUNK_SIZE + 10, in.skip(FileChannelInputStream.CHUNK_SIZE + 10));
+            Assert.assertEquals(content[FileChannelInputStream.CHUNK_SIZE + 11] & 0xff, in.read());
+            Assert.assertEquals(content.length - FileChannelInputStream.CHUNK_SIZE - 12, in.skip(content.length));
+            Assert.assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        FileUtils.writeByteArrayToFile(file, new byte[0]);
+        try (InputStream in = new FileChannelInputStream(file)) {
+            Assert.assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testLocalFilesReadThroughChannel() throws Exception {
+        FileObject local = VFS.getManager().resolveFile(file.toURI().toString());
+        Assert.assertEquals(file.getCanonicalFile(), VFSUtils.getLocalFile(local).getCanonicalFile());
+        try (InputStream in = VFSUtils.getInputStream(local)) {
+            Assert.assertTrue(in instanceof FileChannelInputStream);
+            Assert.assertArrayEquals(content, IOUtils.toByteArray(in));
+        }
+
+        FileObject ram = VFS.getManager().resolveFile("ram://vfs-channel/test.bin");
+        try (OutputStream out = ram.getContent().getOutputStream()) {
+            out.write(content);
+        }
+        Assert.assertNull(VFSUtils.getLocalFile(ram));
+        try (InputStream in = VFSUtils.getInputStream(ram)) {
+            Assert.assertFalse(in instanceof FileChannelInputStream);
+            Assert.assertArrayEquals(content, IOUtils.toByteArray(in));
+        } finally {
+            ram.delete();
+        }
+    }
+}
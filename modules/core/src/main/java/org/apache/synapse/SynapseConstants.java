@@ -336,6 +336,31 @@ public final class SynapseConstants {
 
     /** Property name to store the endpoint_log that stores the history */
     public static final String ENDPOINT_LOG = "endpoint_log";     
+
+    /** Property name to store the concurrency permit held by a message sent through an endpoint */
+    public static final String ENDPOINT_CONCURRENCY_PERMIT = "_ENDPOINT_CONCURRENCY_PERMIT";
+
+    /** Property name to store the state shared by a hedged request and its hedge */
+    public static final String HEDGED_REQUEST = "_HEDGED_REQUEST";
+
+    /** Property to mark a request as safe to be sent more than once, so that it can be hedged */
+    public static final String IDEMPOTENT_REQUEST = "IDEMPOTENT_REQUEST";
+
+    /** Property name to store the response cache lookup of a message sent through an endpoint */
+    public static final String ENDPOINT_RESPONSE_CACHE_REQUEST = "_ENDPOINT_RESPONSE_CACHE_REQUEST";
+
+    /** Maximum total size in bytes of the responses held by the endpoint response cache */
+    public static final String ENDPOINT_RESPONSE_CACHE_SIZE = "synapse.endpoint.response.cache.size";
+
+    /** Maximum size in bytes of a single response held by the endpoint response cache */
+    public static final String ENDPOINT_RESPONSE_CACHE_MAX_ENTRY_SIZE =
+            "synapse.endpoint.response.cache.max.entry.size";
+
+    /** Maximum number of idle Transformers kept for each compiled XSLT stylesheet */
+    public static final String XSLT_TRANSFORMER_POOL_SIZE = "synapse.xslt.transformer.pool.size";
+
+    /** Maximum number of idle Validators kept for each compiled XML schema of a validate mediator */
+    public static final String VALIDATOR_POOL_SIZE = "synapse.validate.validator.pool.size";
     
     /** A name to use for anonymous endpoints */
     public static final String ANONYMOUS_ENDPOINT = "AnonymousEndpoint";
@@ -487,6 +512,7 @@ public final class SynapseConstants {
     public static final int ENDPOINT_ADDRESS_NONE_READY = 303001;
     public static final int ENDPOINT_WSDL_NONE_READY = 303002;
     public static final int ENDPOINT_AUTH_FAILURE = 303003;
+    public static final int ENDPOINT_CONCURRENCY_LIMIT_EXCEEDED = 303004;
     // Failure on endpoint in the session 
     public static final int ENDPOINT_SAL_NOT_READY = 309001;
     public static final int ENDPOINT_SAL_INVALID_PATH = 309002;
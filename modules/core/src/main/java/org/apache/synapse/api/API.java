@@ -39,6 +39,8 @@ import org.apache.synapse.commons.CorrelationConstants;
 import org.apache.synapse.config.xml.rest.VersionStrategyFactory;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.metrics.MetricsConstants;
+import org.apache.synapse.metrics.MetricsRegistry;
 import org.apache.synapse.api.dispatch.DispatcherHelper;
 import org.apache.synapse.api.dispatch.RESTDispatcher;
 import org.apache.synapse.api.version.DefaultStrategy;
@@ -348,6 +350,9 @@ public class API extends AbstractRequestProcessor implements ManagedLifecycle, A
 
         auditDebug("Processing message with ID: " + synCtx.getMessageID() + " through the " +
                     "API: " + name);
+        if (MetricsRegistry.isEnabled() && !synCtx.isResponse()) {
+            synCtx.setProperty(MetricsConstants.API_REQUEST_START_TIME, System.nanoTime());
+        }
         synCtx.setProperty(RESTConstants.PROCESSED_API, this);
         synCtx.setProperty(RESTConstants.SYNAPSE_REST_API, getName());
         synCtx.setProperty(RESTConstants.SYNAPSE_REST_API_VERSION, versionStrategy.getVersion());
@@ -47,6 +47,7 @@ import org.apache.synapse.rest.RESTConstants;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
 import org.apache.synapse.util.swagger.SchemaValidationUtils;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -93,6 +94,11 @@ public class Resource extends AbstractRequestProcessor implements ManagedLifecyc
      */
     private DispatcherHelper dispatcherHelper;
 
+    /**
+     * Label under which the metrics of this resource are recorded, built on first use
+     */
+    private volatile String metricsLabel;
+
     public Resource() {
         super(UIDGenerator.generateUID());
     }
@@ -153,6 +159,7 @@ public class Resource extends AbstractRequestProcessor implements ManagedLifecyc
         for (RESTConstants.METHODS allowedMethod : RESTConstants.METHODS.values()) {
             if (allowedMethod.name().equals(method)) {
                 methods.add(method);
+                metricsLabel = null;
                 return true;
             }
         }
@@ -189,6 +196,42 @@ public class Resource extends AbstractRequestProcessor implements ManagedLifecyc
 
     public void setDispatcherHelper(DispatcherHelper dispatcherHelper) {
         this.dispatcherHelper = dispatcherHelper;
+        metricsLabel = null;
+    }
+
+    /**
+     * Label the resource by its uri-template or url-mapping and its methods, since the resource name is generated.
+     *
+     * @return resource label, such as "/orders/{id} GET,PUT"
+     */
+    public String getMetricsLabel() {
+        String label = metricsLabel;
+        if (label == null) {
+            label = createMetricsLabel();
+            metricsLabel = label;
+        }
+        return label;
+    }
+
+    private String createMetricsLabel() {
+        StringBuilder label = new StringBuilder();
+        if (dispatcherHelper != null) {
+            label.append(dispatcherHelper.getString());
+        } else {
+            label.append('/');
+        }
+        String[] methods = getMethods();
+        if (methods.length > 0) {
+            Arrays.sort(methods);
+            label.append(' ');
+            for (int i = 0; i < methods.length; i++) {
+                if (i > 0) {
+                    label.append(',');
+                }
+                label.append(methods[i]);
+            }
+        }
+        return label.toString();
     }
 
     public String getContentType() {
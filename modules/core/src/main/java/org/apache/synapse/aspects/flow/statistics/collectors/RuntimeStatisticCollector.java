@@ -54,6 +54,26 @@ public abstract class RuntimeStatisticCollector {
      */
     private static boolean isCollectingPayloads;
 
+    /**
+     * Fraction of the message flows whose payloads are collected.
+     */
+    private static double payloadSampleRate = 1.0;
+
+    /**
+     * Are payloads published only for faulty or slow message flows.
+     */
+    private static boolean isPayloadErrorOrSlowOnly;
+
+    /**
+     * Duration in milliseconds above which a message flow is considered slow.
+     */
+    private static long payloadSlowThreshold = -1;
+
+    /**
+     * Maximum length of a collected payload.
+     */
+    private static int payloadMaxLength = -1;
+
     /**
      * Is message context property collection enabled in synapse.properties file.
      */
@@ -100,6 +120,18 @@ public abstract class RuntimeStatisticCollector {
                 log.debug("Payload collecting is not enabled in \'synapse.properties\' file.");
             }
 
+            payloadSampleRate = Double.parseDouble(SynapsePropertiesLoader.getPropertyValue(
+                    StatisticsConstants.TRACE_PAYLOAD_SAMPLE_RATE,
+                    StatisticsConstants.TRACE_PAYLOAD_DEFAULT_SAMPLE_RATE));
+            isPayloadErrorOrSlowOnly = SynapsePropertiesLoader.getBooleanProperty(
+                    StatisticsConstants.TRACE_PAYLOAD_ERROR_OR_SLOW_ONLY, false);
+            payloadSlowThreshold = Long.parseLong(SynapsePropertiesLoader.getPropertyValue(
+                    StatisticsConstants.TRACE_PAYLOAD_SLOW_THRESHOLD,
+                    StatisticsConstants.TRACE_PAYLOAD_DEFAULT_SLOW_THRESHOLD));
+            payloadMaxLength = Integer.parseInt(SynapsePropertiesLoader.getPropertyValue(
+                    StatisticsConstants.TRACE_PAYLOAD_MAX_LENGTH,
+                    StatisticsConstants.TRACE_PAYLOAD_DEFAULT_MAX_LENGTH));
+
             isCollectingProperties =
                 SynapsePropertiesLoader.getBooleanProperty(StatisticsConstants.COLLECT_MESSAGE_PROPERTIES, false);
 
@@ -205,6 +237,42 @@ public abstract class RuntimeStatisticCollector {
         return isStatisticsEnabled && isCollectingPayloads;
     }
 
+    /**
+     * Return the fraction of the message flows whose payloads are collected.
+     *
+     * @return payload sample rate, between 0.0 and 1.0.
+     */
+    public static double getPayloadSampleRate() {
+        return payloadSampleRate;
+    }
+
+    /**
+     * Return whether payloads are published only for message flows that faulted or were slow.
+     *
+     * @return true if payloads of successful and fast message flows are dropped.
+     */
+    public static boolean isPayloadErrorOrSlowOnly() {
+        return isPayloadErrorOrSlowOnly;
+    }
+
+    /**
+     * Return the duration above which a message flow is considered slow.
+     *
+     * @return threshold in milliseconds, or a non positive value if no flow is considered slow.
+     */
+    public static long getPayloadSlowThreshold() {
+        return payloadSlowThreshold;
+    }
+
+    /**
+     * Return the maximum number of characters kept of a collected payload.
+     *
+     * @return maximum payload length, or a non positive value if payloads are not truncated.
+     */
+    public static int getPayloadMaxLength() {
+        return payloadMaxLength;
+    }
+
     /**
      * Return whether collecting message-properties is enabled.
      *
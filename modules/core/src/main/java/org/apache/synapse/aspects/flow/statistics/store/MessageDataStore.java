@@ -24,16 +24,29 @@ import org.apache.synapse.aspects.flow.statistics.log.StatisticsReportingEventHo
 import org.apache.synapse.aspects.flow.statistics.util.StatisticsConstants;
 import org.apache.synapse.config.SynapseConfiguration;
 
+import java.util.Collection;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * MessageDataCollector contains the non-blocking queue and utility methods to store and retrieve elements from the
  * queue.
+ * <p>
+ * The number of queued events is counted as they are added and removed, since the size of the queue itself can only
+ * be found by walking through all the queued events. The numbers of enqueued, dropped and published events are
+ * counted as well.
  */
 public class MessageDataStore {
 
     private static Log log = LogFactory.getLog(MessageDataStore.class);
+
+    /**
+     * A full queue drops events for every message mediated until the publisher catches up, so only every this many
+     * dropped events is reported, starting with the first one.
+     */
+    private static final long DROPPED_EVENTS_LOG_INTERVAL = 10000;
+
     /**
      * Queue which holds event holder objects with collected events.
      */
@@ -42,12 +55,23 @@ public class MessageDataStore {
     private String queueEvictionPolicy;
     private long maxStaticsReportingQueueSize;
 
+    private final AtomicLong queueSize = new AtomicLong();
+    private final AtomicLong enqueuedEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong publishedEvents = new AtomicLong();
+
     public MessageDataStore(SynapseConfiguration synCfg) {
         queue = new ConcurrentLinkedQueue<>();
         queueEvictionPolicy = synCfg.getProperty(StatisticsConstants.STATISTIC_REPORTING_QUEUE_EVICTION_POLICY,
                                                  StatisticsConstants.QUEUE_EVICTION_POLICY_NEW_MESSAGES);
         maxStaticsReportingQueueSize = synCfg.getProperty(StatisticsConstants.STATISTIC_REPORTING_QUEUE_SIZE,
                                                           StatisticsConstants.MAX_STATISTIC_REPORTING_QUEUE_SIZE);
+        if (maxStaticsReportingQueueSize < 0) {
+            log.warn("Invalid " + StatisticsConstants.STATISTIC_REPORTING_QUEUE_SIZE + " : "
+                     + maxStaticsReportingQueueSize + ", using the default value : "
+                     + StatisticsConstants.MAX_STATISTIC_REPORTING_QUEUE_SIZE);
+            maxStaticsReportingQueueSize = StatisticsConstants.MAX_STATISTIC_REPORTING_QUEUE_SIZE;
+        }
     }
 
     /**
@@ -56,15 +80,17 @@ public class MessageDataStore {
      * @param statisticsReportingEventHolder StatisticReportingLog to be stored in the queue
      */
     public void enqueue(StatisticsReportingEventHolder statisticsReportingEventHolder) {
-        if (queue.size() > maxStaticsReportingQueueSize) {
+        if (queueSize.get() > maxStaticsReportingQueueSize) {
             // This will does not add anymore
             if (queueEvictionPolicy.equals(StatisticsConstants.QUEUE_EVICTION_POLICY_NEW_MESSAGES)) {
-                log.warn("Dropping new statistic messages since the queue is full");
+                eventDropped("Dropping new statistic messages since the queue is full");
                 return;
             } else if (queueEvictionPolicy.equals(StatisticsConstants.QUEUE_EVICTION_POLICY_OLD_MESSAGES)) {
                 // This will dequeue old messages and enqueue new messages
-                log.warn("Dropping old statistic messages since the queue is full");
-                queue.poll();
+                if (queue.poll() != null) {
+                    queueSize.decrementAndGet();
+                    eventDropped("Dropping old statistic messages since the queue is full");
+                }
             }
         }
         try {
@@ -72,11 +98,20 @@ public class MessageDataStore {
                 log.debug("Adding eventHolder: " + statisticsReportingEventHolder);
             }
             queue.add(statisticsReportingEventHolder);
+            queueSize.incrementAndGet();
+            enqueuedEvents.incrementAndGet();
         } catch (Exception e) {
             log.error("Error adding statistic event holder to the Queue. Dropping statistics events.");
         }
     }
 
+    private void eventDropped(String message) {
+        long dropped = droppedEvents.incrementAndGet();
+        if (dropped % DROPPED_EVENTS_LOG_INTERVAL == 1) {
+            log.warn(message + ", " + dropped + " statistic messages dropped so far");
+        }
+    }
+
     /**
      * Removes and return StatisticReportingLog from the queue
      *
@@ -88,11 +123,69 @@ public class MessageDataStore {
             if (log.isDebugEnabled()) {
                 log.debug("Polling statistics event holder object from the Queue");
             }
-            return queue.poll();
+            StatisticsReportingEventHolder eventHolder = queue.poll();
+            if (eventHolder != null) {
+                queueSize.decrementAndGet();
+                publishedEvents.incrementAndGet();
+            }
+            return eventHolder;
         } catch (Exception e) {
             log.error("Error polling statistics event holder objects from Queue");
             return null;
         }
     }
 
+    /**
+     * Removes up to maxEvents of the oldest StatisticReportingLogs from the queue, so that a publisher can take a
+     * batch of events at once
+     *
+     * @param eventHolders collection to add the removed StatisticReportingLogs to
+     * @param maxEvents    maximum number of StatisticReportingLogs to remove
+     * @return number of StatisticReportingLogs removed
+     */
+    public int dequeue(Collection<? super StatisticsReportingEventHolder> eventHolders, int maxEvents) {
+        if (log.isDebugEnabled()) {
+            log.debug("Polling up to " + maxEvents + " statistics event holder objects from the Queue");
+        }
+        int count = 0;
+        StatisticsReportingEventHolder eventHolder;
+        while (count < maxEvents && (eventHolder = queue.poll()) != null) {
+            eventHolders.add(eventHolder);
+            count++;
+        }
+        if (count > 0) {
+            queueSize.addAndGet(-count);
+            publishedEvents.addAndGet(count);
+        }
+        return count;
+    }
+
+    /**
+     * @return number of StatisticReportingLogs waiting in the queue
+     */
+    public long size() {
+        return queueSize.get();
+    }
+
+    /**
+     * @return number of StatisticReportingLogs added to the queue
+     */
+    public long getEnqueuedEventCount() {
+        return enqueuedEvents.get();
+    }
+
+    /**
+     * @return number of StatisticReportingLogs dropped because the queue was full
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * @return number of StatisticReportingLogs taken from the queue by the publisher
+     */
+    public long getPublishedEventCount() {
+        return publishedEvents.get();
+    }
+
 }
@@ -23,6 +23,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.SynapseException;
 import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.management.TelemetryConstants;
 import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.management.OpenTelemetryManager;
+import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.management.SpanProcessorFactory;
 import org.apache.synapse.config.SynapsePropertiesLoader;
 
 /**
@@ -84,4 +85,13 @@ public class OpenTelemetryManagerHolder {
     public static OpenTelemetryManager getOpenTelemetryManager() {
         return openTelemetryManager;
     }
+
+    /**
+     * Returns the number of finished spans dropped because the export queue was full.
+     *
+     * @return number of dropped spans
+     */
+    public static long getDroppedSpanCount() {
+        return SpanProcessorFactory.getDroppedSpanCount();
+    }
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2022 WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.management;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.config.SynapsePropertiesLoader;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the span processor through which finished spans reach an exporter. Spans are queued in a bounded queue
+ * and exported in batches from a background thread, so that mediation threads never wait for the exporter. Spans
+ * finished while the queue is full are dropped and counted.
+ */
+public final class SpanProcessorFactory {
+
+    private static final Log logger = LogFactory.getLog(SpanProcessorFactory.class);
+
+    /**
+     * A collector that is down or slow makes every traced message drop spans, so the export queue reports the first
+     * dropped span and then every this many more, rather than one warning per span.
+     */
+    private static final long DROPPED_SPANS_LOG_INTERVAL = 10000;
+
+    /** spans dropped by all the span processors created, including those of managers already closed */
+    private static final AtomicLong totalDroppedSpans = new AtomicLong();
+
+    private SpanProcessorFactory() {}
+
+    static SpanProcessor createSpanProcessor(SpanExporter spanExporter) {
+        int maxQueueSize = getPositiveIntProperty(TelemetryConstants.OPENTELEMETRY_EXPORT_QUEUE_SIZE,
+                TelemetryConstants.DEFAULT_OPENTELEMETRY_EXPORT_QUEUE_SIZE);
+        int maxExportBatchSize = getPositiveIntProperty(TelemetryConstants.OPENTELEMETRY_EXPORT_BATCH_SIZE,
+                TelemetryConstants.DEFAULT_OPENTELEMETRY_EXPORT_BATCH_SIZE);
+        int scheduleDelay = getPositiveIntProperty(TelemetryConstants.OPENTELEMETRY_EXPORT_SCHEDULE_DELAY,
+                TelemetryConstants.DEFAULT_OPENTELEMETRY_EXPORT_SCHEDULE_DELAY);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Exporting spans in batches of " + maxExportBatchSize + " every " + scheduleDelay
+                    + " ms, queueing at most " + maxQueueSize + " spans");
+        }
+        return new DropCountingSpanProcessor(spanExporter, maxQueueSize, maxExportBatchSize, scheduleDelay);
+    }
+
+    /**
+     * Returns the number of finished spans dropped since the server started, because the export queue of their
+     * span processor was full.
+     *
+     * @return number of dropped spans
+     */
+    public static long getDroppedSpanCount() {
+        return totalDroppedSpans.get();
+    }
+
+    private static int getPositiveIntProperty(String name, int defaultValue) {
+        String value = SynapsePropertiesLoader.getPropertyValue(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int intValue = Integer.parseInt(value.trim());
+            if (intValue > 0) {
+                return intValue;
+            }
+        } catch (NumberFormatException ignore) {
+            // fall through
+        }
+        logger.warn("Invalid value " + value + " for " + name + ", using the default value " + defaultValue);
+        return defaultValue;
+    }
+
+    /**
+     * Queues finished spans in a BatchSpanProcessor and counts the spans dropped because the queue is full. The
+     * spans waiting for the exporter are counted here, and a span that would overflow the queue is dropped before
+     * it reaches the BatchSpanProcessor, which therefore never drops spans silently.
+     */
+    static final class DropCountingSpanProcessor implements SpanProcessor {
+
+        private final SpanProcessor batchSpanProcessor;
+        private final int maxQueueSize;
+
+        /** spans handed to the BatchSpanProcessor and not yet taken by the exporter */
+        private final AtomicInteger queuedSpans = new AtomicInteger();
+        private final AtomicLong droppedSpans = new AtomicLong();
+
+        DropCountingSpanProcessor(SpanExporter spanExporter, int maxQueueSize, int maxExportBatchSize,
+                                  long scheduleDelay) {
+            this.maxQueueSize = maxQueueSize;
+            this.batchSpanProcessor = BatchSpanProcessor.builder(new DequeueingSpanExporter(spanExporter))
+                    .setMaxQueueSize(maxQueueSize)
+                    .setMaxExportBatchSize(Math.min(maxExportBatchSize, maxQueueSize))
+                    .setScheduleDelay(scheduleDelay, TimeUnit.MILLISECONDS)
+                    .build();
+        }
+
+        @Override
+        public void onStart(Context parentContext, ReadWriteSpan span) {
+            batchSpanProcessor.onStart(parentContext, span);
+        }
+
+        @Override
+        public boolean isStartRequired() {
+            return batchSpanProcessor.isStartRequired();
+        }
+
+        @Override
+        public void onEnd(ReadableSpan span) {
+            if (!span.getSpanContext().isSampled()) {
+                return;
+            }
+            if (queuedSpans.incrementAndGet() > maxQueueSize) {
+                queuedSpans.decrementAndGet();
+                long dropped = droppedSpans.incrementAndGet();
+                totalDroppedSpans.incrementAndGet();
+                if (dropped % DROPPED_SPANS_LOG_INTERVAL == 1) {
+                    logger.warn("Dropping finished spans since the export queue is full, " + dropped
+                            + " spans dropped so far");
+                }
+                return;
+            }
+            batchSpanProcessor.onEnd(span);
+        }
+
+        @Override
+        public boolean isEndRequired() {
+            return true;
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return batchSpanProcessor.shutdown();
+        }
+
+        @Override
+        public CompletableResultCode forceFlush() {
+            return batchSpanProcessor.forceFlush();
+        }
+
+        /**
+         * @return number of finished spans dropped because the export queue was full
+         */
+        long getDroppedSpanCount() {
+            return droppedSpans.get();
+        }
+
+        /**
+         * Exporter through which the BatchSpanProcessor exports, so that the spans it takes from its queue are no
+         * longer counted as queued.
+         */
+        private final class DequeueingSpanExporter implements SpanExporter {
+
+            private final SpanExporter spanExporter;
+
+            private DequeueingSpanExporter(SpanExporter spanExporter) {
+                this.spanExporter = spanExporter;
+            }
+
+            @Override
+            public CompletableResultCode export(Collection<SpanData> spans) {
+                queuedSpans.addAndGet(-spans.size());
+                return spanExporter.export(spans);
+            }
+
+            @Override
+            public CompletableResultCode flush() {
+                return spanExporter.flush();
+            }
+
+            @Override
+            public CompletableResultCode shutdown() {
+                return spanExporter.shutdown();
+            }
+        }
+    }
+}
@@ -44,6 +44,24 @@ public class TelemetryConstants {
      * OpenTelemetry port.
      */
     public static final String OPENTELEMETRY_PORT = "opentelemetry.port";
+
+    /**
+     * Maximum number of finished spans queued for export. Spans finished while the queue is full are dropped.
+     */
+    public static final String OPENTELEMETRY_EXPORT_QUEUE_SIZE = "opentelemetry.export.queue.size";
+
+    /**
+     * Maximum number of spans exported at once.
+     */
+    public static final String OPENTELEMETRY_EXPORT_BATCH_SIZE = "opentelemetry.export.batch.size";
+
+    /**
+     * Interval in milliseconds between two exports of queued spans.
+     */
+    public static final String OPENTELEMETRY_EXPORT_SCHEDULE_DELAY = "opentelemetry.export.schedule.delay";
+    public static final int DEFAULT_OPENTELEMETRY_EXPORT_QUEUE_SIZE = 2048;
+    public static final int DEFAULT_OPENTELEMETRY_EXPORT_BATCH_SIZE = 512;
+    public static final int DEFAULT_OPENTELEMETRY_EXPORT_SCHEDULE_DELAY = 5000;
     public static final String DEFAULT_OPENTELEMETRY_CLASS = "org.apache.synapse.aspects.flow.statistics.tracing" +
             ".opentelemetry.management.JaegerTelemetryManager";
     public static final String USER_DEFINED_NAME = System.getenv("SERVICE_NAME");
@@ -316,8 +316,7 @@ public class SpanHandler implements OpenTelemetrySpanHandler {
     public void handleCloseFlowForcefully(BasicStatisticDataUnit basicStatisticDataUnit, MessageContext synCtx) {
         TracingScope tracingScope = tracingScopeManager.getTracingScope(synCtx);
         SpanStore spanStore = tracingScope.getSpanStore();
-        String spanWrapperId = TracingUtils.extractId(basicStatisticDataUnit);
-        SpanWrapper spanWrapper = spanStore.getSpanWrapper(spanWrapperId);
+        SpanWrapper spanWrapper = spanStore.getSpanWrapper(basicStatisticDataUnit.getCurrentIndex());
 
         // finish the current span
         handleCloseEvent(basicStatisticDataUnit, synCtx, false);
@@ -375,8 +374,7 @@ public class SpanHandler implements OpenTelemetrySpanHandler {
                             MessageContext synCtx,
                             SpanStore spanStore,
                             TracingScope tracingScope, boolean isError) {
-        String spanWrapperId = TracingUtils.extractId(basicStatisticDataUnit);
-        SpanWrapper spanWrapper = spanStore.getSpanWrapper(spanWrapperId);
+        SpanWrapper spanWrapper = spanStore.getSpanWrapper(basicStatisticDataUnit.getCurrentIndex());
         //Set the statistic data unit of the close event into the span wrapper
         if (spanWrapper != null && (basicStatisticDataUnit instanceof StatisticDataUnit)) {
             spanWrapper.setCloseEventStatisticDataUnit((StatisticDataUnit) basicStatisticDataUnit);
@@ -18,13 +18,14 @@
 
 package org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.management.helpers;
 
+import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.trace.Span;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.aspects.flow.statistics.data.raw.StatisticDataUnit;
-import org.apache.synapse.aspects.flow.statistics.data.raw.StatisticsLog;
 import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.OpenTelemetryManagerHolder;
 import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.management.TelemetryConstants;
 import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.models.SpanWrapper;
+import org.apache.synapse.aspects.flow.statistics.util.StatisticsConstants;
 import org.apache.synapse.commons.CorrelationConstants;
 
 /**
@@ -32,6 +33,44 @@ import org.apache.synapse.commons.CorrelationConstants;
  */
 public class SpanTagger {
 
+    /*
+     * Attribute keys are created once, rather than for each attribute of each span.
+     */
+    private static final AttributeKey<String> BEFORE_PAYLOAD =
+            AttributeKey.stringKey(TelemetryConstants.BEFORE_PAYLOAD_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> AFTER_PAYLOAD =
+            AttributeKey.stringKey(TelemetryConstants.AFTER_PAYLOAD_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> BEFORE_CONTEXT_PROPERTY_MAP =
+            AttributeKey.stringKey(TelemetryConstants.BEFORE_CONTEXT_PROPERTY_MAP_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> AFTER_CONTEXT_PROPERTY_MAP =
+            AttributeKey.stringKey(TelemetryConstants.AFTER_CONTEXT_PROPERTY_MAP_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> BEFORE_CONTEXT_VARIABLE_MAP =
+            AttributeKey.stringKey(TelemetryConstants.BEFORE_CONTEXT_VARIABLE_MAP_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> AFTER_CONTEXT_VARIABLE_MAP =
+            AttributeKey.stringKey(TelemetryConstants.AFTER_CONTEXT_VARIABLE_MAP_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> PROPERTY_MEDIATOR_VALUE =
+            AttributeKey.stringKey(TelemetryConstants.PROPERTY_MEDIATOR_VALUE_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> COMPONENT_NAME =
+            AttributeKey.stringKey(TelemetryConstants.COMPONENT_NAME_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> COMPONENT_TYPE =
+            AttributeKey.stringKey(TelemetryConstants.COMPONENT_TYPE_ATTRIBUTE_KEY);
+    private static final AttributeKey<Long> THREAD_ID =
+            AttributeKey.longKey(TelemetryConstants.THREAD_ID_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> COMPONENT_ID =
+            AttributeKey.stringKey(TelemetryConstants.COMPONENT_ID_ATTRIBUTE_KEY);
+    private static final AttributeKey<Long> HASHCODE =
+            AttributeKey.longKey(TelemetryConstants.HASHCODE_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> TRANSPORT_HEADERS =
+            AttributeKey.stringKey(TelemetryConstants.TRANSPORT_HEADERS_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> STATUS_CODE =
+            AttributeKey.stringKey(TelemetryConstants.STATUS_CODE_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> STATUS_DESCRIPTION =
+            AttributeKey.stringKey(TelemetryConstants.STATUS_DESCRIPTION_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> ENDPOINT =
+            AttributeKey.stringKey(TelemetryConstants.ENDPOINT_ATTRIBUTE_KEY);
+    private static final AttributeKey<String> CORRELATION_ID =
+            AttributeKey.stringKey(TelemetryConstants.CORRELATION_ID_ATTRIBUTE_KEY);
+
     /**
      * Prevents Instantiation.
      */
@@ -44,98 +83,90 @@ public class SpanTagger {
      * @param synCtx Synapse message context
      */
     public static void setSpanTags(SpanWrapper spanWrapper, MessageContext synCtx) {
-        StatisticsLog openStatisticsLog = new StatisticsLog(spanWrapper.getStatisticDataUnit());
+        StatisticDataUnit openStatisticDataUnit = spanWrapper.getStatisticDataUnit();
+        StatisticDataUnit closeStatisticDataUnit = spanWrapper.getCloseEventStatisticDataUnit();
         Span span = spanWrapper.getSpan();
-        if (OpenTelemetryManagerHolder.isCollectingPayloads() || OpenTelemetryManagerHolder.isCollectingProperties()
-                || OpenTelemetryManagerHolder.isCollectingVariables()) {
-            if (OpenTelemetryManagerHolder.isCollectingPayloads()) {
-                if(openStatisticsLog.getBeforePayload() != null) {
-                    span.setAttribute(TelemetryConstants.BEFORE_PAYLOAD_ATTRIBUTE_KEY,
-                            openStatisticsLog.getBeforePayload());
-                }
-                StatisticDataUnit statisticDataUnit = spanWrapper.getCloseEventStatisticDataUnit();
-                if (statisticDataUnit != null) {
-                    if (statisticDataUnit.getPayload() != null) {
-                        span.setAttribute(TelemetryConstants.AFTER_PAYLOAD_ATTRIBUTE_KEY,
-                                statisticDataUnit.getPayload());
-                    }
-                } else if (openStatisticsLog.getBeforePayload() !=null){
-                    //This means a close event hasn't been triggered so payload is equal to before payload
-                    span.setAttribute(TelemetryConstants.AFTER_PAYLOAD_ATTRIBUTE_KEY,
-                            openStatisticsLog.getBeforePayload());
+        if (OpenTelemetryManagerHolder.isCollectingPayloads()) {
+            if (openStatisticDataUnit.getPayload() != null) {
+                span.setAttribute(BEFORE_PAYLOAD, openStatisticDataUnit.getPayload());
+            }
+            if (closeStatisticDataUnit != null) {
+                if (closeStatisticDataUnit.getPayload() != null) {
+                    span.setAttribute(AFTER_PAYLOAD, closeStatisticDataUnit.getPayload());
                 }
+            } else if (openStatisticDataUnit.getPayload() != null) {
+                //This means a close event hasn't been triggered so payload is equal to before payload
+                span.setAttribute(AFTER_PAYLOAD, openStatisticDataUnit.getPayload());
             }
+        }
 
-            if (OpenTelemetryManagerHolder.isCollectingProperties()) {
-                if (spanWrapper.getStatisticDataUnit().getContextPropertyMap() != null) {
-                    span.setAttribute(TelemetryConstants.BEFORE_CONTEXT_PROPERTY_MAP_ATTRIBUTE_KEY,
-                            spanWrapper.getStatisticDataUnit().getContextPropertyMap().toString());
-                }
-                if (spanWrapper.getCloseEventStatisticDataUnit() != null) {
-                    if (spanWrapper.getCloseEventStatisticDataUnit().getContextPropertyMap() != null) {
-                        span.setAttribute(TelemetryConstants.AFTER_CONTEXT_PROPERTY_MAP_ATTRIBUTE_KEY,
-                                spanWrapper.getCloseEventStatisticDataUnit().getContextPropertyMap().toString());
-                    }
-                } else if (openStatisticsLog.getContextPropertyMap() != null) {
-                    span.setAttribute(TelemetryConstants.AFTER_CONTEXT_PROPERTY_MAP_ATTRIBUTE_KEY,
-                            openStatisticsLog.getContextPropertyMap().toString());
+        if (OpenTelemetryManagerHolder.isCollectingProperties()) {
+            if (openStatisticDataUnit.getContextPropertyMap() != null) {
+                span.setAttribute(BEFORE_CONTEXT_PROPERTY_MAP,
+                        openStatisticDataUnit.getContextPropertyMap().toString());
+            }
+            if (closeStatisticDataUnit != null) {
+                if (closeStatisticDataUnit.getContextPropertyMap() != null) {
+                    span.setAttribute(AFTER_CONTEXT_PROPERTY_MAP,
+                            closeStatisticDataUnit.getContextPropertyMap().toString());
                 }
-                if (spanWrapper.getCloseEventStatisticDataUnit() != null &&
-                        spanWrapper.getCloseEventStatisticDataUnit().getPropertyValue() != null) {
-                    span.setAttribute(TelemetryConstants.PROPERTY_MEDIATOR_VALUE_ATTRIBUTE_KEY,
-                            spanWrapper.getCloseEventStatisticDataUnit().getPropertyValue());
+                if (closeStatisticDataUnit.getPropertyValue() != null) {
+                    span.setAttribute(PROPERTY_MEDIATOR_VALUE, closeStatisticDataUnit.getPropertyValue());
                 }
+            } else if (openStatisticDataUnit.getContextPropertyMap() != null) {
+                span.setAttribute(AFTER_CONTEXT_PROPERTY_MAP,
+                        openStatisticDataUnit.getContextPropertyMap().toString());
             }
+        }
 
-            if (OpenTelemetryManagerHolder.isCollectingVariables()) {
-                if (spanWrapper.getStatisticDataUnit().getContextVariableMap() != null) {
-                    span.setAttribute(TelemetryConstants.BEFORE_CONTEXT_VARIABLE_MAP_ATTRIBUTE_KEY,
-                            spanWrapper.getStatisticDataUnit().getContextVariableMap().toString());
-                }
-                if (spanWrapper.getCloseEventStatisticDataUnit() != null) {
-                    if (spanWrapper.getCloseEventStatisticDataUnit().getContextVariableMap() != null) {
-                        span.setAttribute(TelemetryConstants.AFTER_CONTEXT_VARIABLE_MAP_ATTRIBUTE_KEY,
-                                spanWrapper.getCloseEventStatisticDataUnit().getContextVariableMap().toString());
-                    }
-                } else if (openStatisticsLog.getContextVariableMap() != null) {
-                    span.setAttribute(TelemetryConstants.AFTER_CONTEXT_VARIABLE_MAP_ATTRIBUTE_KEY,
-                            openStatisticsLog.getContextVariableMap().toString());
+        if (OpenTelemetryManagerHolder.isCollectingVariables()) {
+            if (openStatisticDataUnit.getContextVariableMap() != null) {
+                span.setAttribute(BEFORE_CONTEXT_VARIABLE_MAP,
+                        openStatisticDataUnit.getContextVariableMap().toString());
+            }
+            if (closeStatisticDataUnit != null) {
+                if (closeStatisticDataUnit.getContextVariableMap() != null) {
+                    span.setAttribute(AFTER_CONTEXT_VARIABLE_MAP,
+                            closeStatisticDataUnit.getContextVariableMap().toString());
                 }
+            } else if (openStatisticDataUnit.getContextVariableMap() != null) {
+                span.setAttribute(AFTER_CONTEXT_VARIABLE_MAP,
+                        openStatisticDataUnit.getContextVariableMap().toString());
             }
         }
-        if (openStatisticsLog.getComponentName() != null) {
-            span.setAttribute(TelemetryConstants.COMPONENT_NAME_ATTRIBUTE_KEY, openStatisticsLog.getComponentName());
+
+        if (openStatisticDataUnit.getComponentName() != null) {
+            span.setAttribute(COMPONENT_NAME, openStatisticDataUnit.getComponentName());
         }
-        if(openStatisticsLog.getComponentTypeToString() != null){
-            span.setAttribute(TelemetryConstants.COMPONENT_TYPE_ATTRIBUTE_KEY,
-                    openStatisticsLog.getComponentTypeToString());
+        String componentType = StatisticsConstants.getComponentTypeToString(openStatisticDataUnit.getComponentType());
+        if (componentType != null) {
+            span.setAttribute(COMPONENT_TYPE, componentType);
         }
-        span.setAttribute(TelemetryConstants.THREAD_ID_ATTRIBUTE_KEY, Thread.currentThread().getId());
-        if(openStatisticsLog.getComponentId() != null){
-            span.setAttribute(TelemetryConstants.COMPONENT_ID_ATTRIBUTE_KEY, openStatisticsLog.getComponentId());
+        span.setAttribute(THREAD_ID, Thread.currentThread().getId());
+        if (openStatisticDataUnit.getComponentId() != null) {
+            span.setAttribute(COMPONENT_ID, openStatisticDataUnit.getComponentId());
+        } else {
+            span.setAttribute(COMPONENT_ID, StatisticsConstants.HASH_CODE_NULL_COMPONENT);
         }
-        if(openStatisticsLog.getHashCode() != null){
-            span.setAttribute(TelemetryConstants.HASHCODE_ATTRIBUTE_KEY, openStatisticsLog.getHashCode());
+        if (openStatisticDataUnit.getHashCode() != null) {
+            span.setAttribute(HASHCODE, openStatisticDataUnit.getHashCode().longValue());
         }
-        if (openStatisticsLog.getTransportHeaderMap() != null) {
-            span.setAttribute(TelemetryConstants.TRANSPORT_HEADERS_ATTRIBUTE_KEY,
-                    openStatisticsLog.getTransportHeaderMap().toString());
+        if (openStatisticDataUnit.getTransportHeaderMap() != null) {
+            span.setAttribute(TRANSPORT_HEADERS, openStatisticDataUnit.getTransportHeaderMap().toString());
         }
 
-        if (openStatisticsLog.getStatusCode() != null) {
-            span.setAttribute(TelemetryConstants.STATUS_CODE_ATTRIBUTE_KEY, openStatisticsLog.getStatusCode());
+        if (openStatisticDataUnit.getStatusCode() != null) {
+            span.setAttribute(STATUS_CODE, openStatisticDataUnit.getStatusCode());
         }
-        if (openStatisticsLog.getStatusDescription() != null) {
-            span.setAttribute(TelemetryConstants.STATUS_DESCRIPTION_ATTRIBUTE_KEY,
-                    openStatisticsLog.getStatusDescription());
+        if (openStatisticDataUnit.getStatusDescription() != null) {
+            span.setAttribute(STATUS_DESCRIPTION, openStatisticDataUnit.getStatusDescription());
         }
-        if (openStatisticsLog.getEndpoint() != null) {
-            span.setAttribute(TelemetryConstants.ENDPOINT_ATTRIBUTE_KEY,
-                    String.valueOf(openStatisticsLog.getEndpoint().getJsonRepresentation()));
+        if (openStatisticDataUnit.getEndpoint() != null) {
+            span.setAttribute(ENDPOINT, String.valueOf(openStatisticDataUnit.getEndpoint().getJsonRepresentation()));
         }
-        if (synCtx.getProperty(CorrelationConstants.CORRELATION_ID) != null) {
-            span.setAttribute(TelemetryConstants.CORRELATION_ID_ATTRIBUTE_KEY,
-                    synCtx.getProperty(CorrelationConstants.CORRELATION_ID).toString());
+        Object correlationId = synCtx.getProperty(CorrelationConstants.CORRELATION_ID);
+        if (correlationId != null) {
+            span.setAttribute(CORRELATION_ID, correlationId.toString());
         }
     }
 }
@@ -119,7 +119,7 @@ public class ArtifactHolderBasedParentResolver extends AbstractParentResolver {
             if (!isAlreadyAParent(parent, child.getComponentId())) {
                 return parent;
             }
-            for (SpanWrapper spanWrapper : spanStore.getSpanWrappers().values()) {
+            for (SpanWrapper spanWrapper : spanStore.getSpanWrappers()) {
                 if (Objects.equals(parentComponentUniqueId, spanWrapper.getStatisticDataUnit().getComponentId()) &&
                         !isAlreadyAParent(spanWrapper, child.getComponentId())) {
                     return spanWrapper;
@@ -249,7 +249,7 @@ public class ArtifactHolderBasedParentResolver extends AbstractParentResolver {
                                                   SpanStore spanStore) {
         SpanWrapper messageFlowParent = null;
         if (child != null) {
-            messageFlowParent = spanStore.getSpanWrapper(String.valueOf(child.getParentIndex()));
+            messageFlowParent = spanStore.getSpanWrapper(child.getParentIndex());
         }
         while (messageFlowParent != null) {
             // Check whether any of the synCtx hash code - that the parent has gone through, is known
@@ -263,8 +263,7 @@ public class ArtifactHolderBasedParentResolver extends AbstractParentResolver {
                     return synCtxIdentityHashCode;
                 }
             }
-            messageFlowParent =
-                    spanStore.getSpanWrapper(String.valueOf(messageFlowParent.getStatisticDataUnit().getParentIndex()));
+            messageFlowParent = spanStore.getSpanWrapper(messageFlowParent.getStatisticDataUnit().getParentIndex());
         }
         return null;
     }
@@ -23,6 +23,8 @@ import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.manageme
 import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.stores.SpanStore;
 import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.models.SpanWrapper;
 
+import java.util.List;
+
 /**
  * Resolves the parent based on message flow index, that is explicitly contained by the statistic data unit.
  */
@@ -35,8 +37,7 @@ public class MessageFlowRepresentationBasedParentResolver extends AbstractParent
      * @return          Resolved parent span wrapper.
      */
     public static SpanWrapper resolveParent(StatisticDataUnit child, SpanStore spanStore) {
-        String parentId = String.valueOf(child.getParentIndex());
-        SpanWrapper parent = spanStore.getSpanWrapper(parentId);
+        SpanWrapper parent = spanStore.getSpanWrapper(child.getParentIndex());
         if (parent != null) {
             if (isEndpointOrInboundEndpoint(child)) {
                 /*
@@ -72,10 +73,9 @@ public class MessageFlowRepresentationBasedParentResolver extends AbstractParent
      * @return          Resolved parent span wrapper object.
      */
     private static SpanWrapper getLatestEligibleParent(SpanStore spanStore) {
-        Object[] spanWrapperKeys = spanStore.getSpanWrappers().keySet().toArray();
-        for (int i = spanWrapperKeys.length - 1; i >= 0; i--) {
-            String key = (String)spanWrapperKeys[i];
-            SpanWrapper spanWrapper = spanStore.getSpanWrapper(key);
+        List<SpanWrapper> spanWrappers = spanStore.getSpanWrappers();
+        for (int i = spanWrappers.size() - 1; i >= 0; i--) {
+            SpanWrapper spanWrapper = spanWrappers.get(i);
             if (isFlowContinuableMediator(spanWrapper.getStatisticDataUnit()) ||
                     isForeachMediator(spanWrapper.getStatisticDataUnit())) {
                 // Only a flow continuable mediator, or a for each mediator can be the parent
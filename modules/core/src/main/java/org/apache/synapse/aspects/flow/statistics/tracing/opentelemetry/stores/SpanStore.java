@@ -28,8 +28,8 @@ import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.models.C
 import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.models.SpanWrapper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -39,6 +39,9 @@ import java.util.Stack;
  * Stores information about the Spans.
  */
 public class SpanStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+
     /**
      * Contains the span which is in the most outer level, of a scope.
      * This can be either a Proxy Service, or an API.
@@ -47,10 +50,16 @@ public class SpanStore {
 
     /**
      * Contains all the Span Wrappers that have been started so far, in the order they have been started.
-     * Each Span Wrapper value is identified by its it Statistic Data Unit Component Index.
      * Span Wrappers are not removed when Spans finish.
      */
-    private Map<String, SpanWrapper> spanWrappers;
+    private List<SpanWrapper> spanWrappers;
+
+    /**
+     * Contains the same Span Wrappers as spanWrappers, each at the position of its Statistic Data Unit Component
+     * Index. Component indexes are handed out in sequence by the StatisticIdentityGenerator of the message flow,
+     * so that a Span Wrapper is looked up with an array access rather than by a key built from its index.
+     */
+    private SpanWrapper[] indexedSpanWrappers;
 
     /**
      * Contains references to Span Wrappers that have been started, and not yet finished.
@@ -75,7 +84,8 @@ public class SpanStore {
 
     public SpanStore() {
         this.outerLevelSpan = null;
-        this.spanWrappers = new LinkedHashMap<>();
+        this.spanWrappers = new ArrayList<>();
+        this.indexedSpanWrappers = new SpanWrapper[INITIAL_CAPACITY];
         this.activeSpanWrappers = new ArrayList<>();
         this.componentUniqueIdWiseSpanWrappers = new HashMap<>();
         this.continuationStateSequenceInfos = new Stack<>();
@@ -96,7 +106,7 @@ public class SpanStore {
                                       SpanWrapper parentSpanWrapper,
                                       MessageContext synCtx) {
         SpanWrapper spanWrapper = new SpanWrapper(spanId, activeSpan, statisticDataUnit, parentSpanWrapper);
-        spanWrappers.put(spanId, spanWrapper);
+        putSpanWrapper(statisticDataUnit.getCurrentIndex(), spanWrapper);
         spanWrapper.addKnownSynCtxHashCodeToAllParents(TracingUtils.getSystemIdentityHashCode(synCtx));
         if (parentSpanWrapper != null) {
             parentSpanWrapper.addChildComponentUniqueId(statisticDataUnit.getComponentId());
@@ -152,12 +162,51 @@ public class SpanStore {
         return this.outerLevelSpan;
     }
 
-    public Map<String, SpanWrapper> getSpanWrappers() {
+    /**
+     * Returns all the Span Wrappers that have been started so far, in the order they have been started.
+     * @return List of span wrappers
+     */
+    public List<SpanWrapper> getSpanWrappers() {
         return spanWrappers;
     }
 
+    /**
+     * Returns the Span Wrapper of the component at the given position of the message flow.
+     * @param componentIndex    Statistic Data Unit Component Index
+     * @return                  Span wrapper, or null if no span has been started for the component
+     */
+    public SpanWrapper getSpanWrapper(int componentIndex) {
+        if (componentIndex < 0 || componentIndex >= indexedSpanWrappers.length) {
+            return null;
+        }
+        return indexedSpanWrappers[componentIndex];
+    }
+
     public SpanWrapper getSpanWrapper(String spanWrapperId) {
-        return spanWrappers.get(spanWrapperId);
+        try {
+            return getSpanWrapper(Integer.parseInt(spanWrapperId));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void putSpanWrapper(int componentIndex, SpanWrapper spanWrapper) {
+        if (componentIndex < 0) {
+            spanWrappers.add(spanWrapper);
+            return;
+        }
+        if (componentIndex >= indexedSpanWrappers.length) {
+            indexedSpanWrappers = Arrays.copyOf(indexedSpanWrappers,
+                    Math.max(componentIndex + 1, indexedSpanWrappers.length * 2));
+        }
+        SpanWrapper existing = indexedSpanWrappers[componentIndex];
+        indexedSpanWrappers[componentIndex] = spanWrapper;
+        if (existing == null) {
+            spanWrappers.add(spanWrapper);
+        } else {
+            // A component started again keeps the position of its first start
+            spanWrappers.set(spanWrappers.indexOf(existing), spanWrapper);
+        }
     }
 
     public List<SpanWrapper> getActiveSpanWrappers() {
@@ -18,6 +18,7 @@
 package org.apache.synapse.aspects.flow.statistics.util;
 
 import org.apache.synapse.aspects.flow.statistics.collectors.RuntimeStatisticCollector;
+import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.OpenTelemetryManagerHolder;
 import org.apache.synapse.commons.jmx.MBeanRegistrar;
 
 public class MediationFlowController implements MediationFlowControllerMXBean {
@@ -30,4 +31,9 @@ public class MediationFlowController implements MediationFlowControllerMXBean {
         RuntimeStatisticCollector.setCollectingAllStatistics(state);
         return true;
     }
+
+    @Override
+    public long getDroppedSpanCount() {
+        return OpenTelemetryManagerHolder.getDroppedSpanCount();
+    }
 }
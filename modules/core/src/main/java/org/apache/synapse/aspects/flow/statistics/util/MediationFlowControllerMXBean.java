@@ -19,4 +19,6 @@ package org.apache.synapse.aspects.flow.statistics.util;
 
 public interface MediationFlowControllerMXBean {
     public boolean setCollectingAllStatistics(boolean state);
+
+    public long getDroppedSpanCount();
 }
@@ -125,8 +125,14 @@ public class StatisticDataCollectionHelper {
 		boolean isForceCollectPayload = "true".equals(messageContext.getProperty(
 				SynapseConstants.FORCE_COLLECT_PAYLOAD));
 		if (isCollectingTracing != null && isCollectingTracing) {
-			if (RuntimeStatisticCollector.isCollectingPayloads() && isContentAltering||isForceCollectPayload) {//Change to Other one
-				statisticDataUnit.setPayload(TracingDataCollectionHelper.collectPayload(messageContext));
+			if (RuntimeStatisticCollector.isCollectingPayloads() && isContentAltering
+					&& TracingDataCollectionHelper.isPayloadSampled(statisticDataUnit.getStatisticId(),
+					                                                RuntimeStatisticCollector.getPayloadSampleRate())
+					|| isForceCollectPayload) {
+				String payload = TracingDataCollectionHelper.truncatePayload(
+						TracingDataCollectionHelper.collectPayload(messageContext),
+						RuntimeStatisticCollector.getPayloadMaxLength());
+				statisticDataUnit.setPayload(TracingDataCollectionHelper.sharePayload(messageContext, payload));
 			}
 			if (RuntimeStatisticCollector.isCollectingProperties()) {
 				statisticDataUnit
@@ -70,6 +70,27 @@ public class StatisticsConstants {
 	 */
 	public final static String COLLECT_MESSAGE_VARIABLES = "mediation.flow.statistics.tracer.collect.variables";
 
+	/**
+	 * Fraction (0.0 - 1.0) of the message flows whose payloads are collected.
+	 */
+	public final static String TRACE_PAYLOAD_SAMPLE_RATE = "mediation.flow.statistics.tracer.payload.sample.rate";
+
+	/**
+	 * Publish collected payloads only for message flows that faulted or were slow.
+	 */
+	public final static String TRACE_PAYLOAD_ERROR_OR_SLOW_ONLY =
+			"mediation.flow.statistics.tracer.payload.error.or.slow.only";
+
+	/**
+	 * Duration in milliseconds above which a message flow is considered slow.
+	 */
+	public final static String TRACE_PAYLOAD_SLOW_THRESHOLD = "mediation.flow.statistics.tracer.payload.slow.threshold";
+
+	/**
+	 * Maximum number of characters of a collected payload, longer payloads are truncated.
+	 */
+	public final static String TRACE_PAYLOAD_MAX_LENGTH = "mediation.flow.statistics.tracer.payload.max.length";
+
 	/**
 	 * Enable statistics collecting for all artifacts
 	 */
@@ -150,6 +171,21 @@ public class StatisticsConstants {
 	 */
 	public static final String FLOW_STATISTICS_DEFAULT_EVENT_CLEAN_INTERVAL = "15000";
 
+	/**
+	 * By default payloads of all the traced message flows are collected.
+	 */
+	public static final String TRACE_PAYLOAD_DEFAULT_SAMPLE_RATE = "1.0";
+
+	/**
+	 * By default a message flow is never considered slow.
+	 */
+	public static final String TRACE_PAYLOAD_DEFAULT_SLOW_THRESHOLD = "-1";
+
+	/**
+	 * By default collected payloads are not truncated.
+	 */
+	public static final String TRACE_PAYLOAD_DEFAULT_MAX_LENGTH = "-1";
+
 	/**
 	 * Modes of closing statistic entry
 	 */
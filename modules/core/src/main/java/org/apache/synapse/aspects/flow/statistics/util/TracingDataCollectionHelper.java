@@ -41,6 +41,10 @@ import java.util.TreeMap;
  */
 public class TracingDataCollectionHelper {
 
+	private static final int SAMPLING_BUCKETS = 10000;
+
+	private static final String TRUNCATED = "...[truncated ";
+
 	/**
 	 * Extract payload from the synapse message context.
 	 *
@@ -67,6 +71,93 @@ public class TracingDataCollectionHelper {
 		return payload;
 	}
 
+	/**
+	 * Decide whether payloads of a message flow are collected. The decision is taken on the statistic id of the
+	 * flow, so that it is the same for every component of the flow, including cloned and response paths.
+	 *
+	 * @param statisticId statistic id of the message flow
+	 * @param sampleRate  fraction of the message flows whose payloads are collected
+	 * @return true if payloads of the message flow should be collected
+	 */
+	public static boolean isPayloadSampled(String statisticId, double sampleRate) {
+		if (sampleRate >= 1.0 || statisticId == null) {
+			return true;
+		}
+		if (sampleRate <= 0.0) {
+			return false;
+		}
+		return (statisticId.hashCode() & Integer.MAX_VALUE) % SAMPLING_BUCKETS < sampleRate * SAMPLING_BUCKETS;
+	}
+
+	/**
+	 * Truncate a collected payload to the given number of characters.
+	 *
+	 * @param payload   collected payload
+	 * @param maxLength maximum number of characters to keep, non positive values keep the whole payload
+	 * @return the payload, or its first maxLength characters followed by a truncation marker
+	 */
+	public static String truncatePayload(String payload, int maxLength) {
+		if (payload == null || maxLength <= 0 || payload.length() <= maxLength) {
+			return payload;
+		}
+		int end = maxLength;
+		if (Character.isHighSurrogate(payload.charAt(end - 1))) {
+			end--;
+		}
+		return payload.substring(0, end) + TRUNCATED + (payload.length() - end) + " characters]";
+	}
+
+	/**
+	 * Share a collected payload with the payload collected before it in the same message flow, when both have the
+	 * same content, so that a payload left unchanged by a component is held only once until the flow is published.
+	 *
+	 * @param messageContext synapse message context
+	 * @param payload        collected payload
+	 * @return the payload collected before, if it has the same content, otherwise the given payload
+	 */
+	public static String sharePayload(MessageContext messageContext, String payload) {
+		if (payload == null) {
+			return null;
+		}
+		Object indexingObject = messageContext.getProperty(StatisticsConstants.MEDIATION_FLOW_STATISTICS_INDEXING_OBJECT);
+		if (!(indexingObject instanceof UniqueIdentifierObject)) {
+			return payload;
+		}
+		UniqueIdentifierObject flow = (UniqueIdentifierObject) indexingObject;
+		String lastPayload = flow.getLastPayload();
+		if (payload.equals(lastPayload)) {
+			return lastPayload;
+		}
+		flow.setLastPayload(payload);
+		return payload;
+	}
+
+	/**
+	 * Decide whether the collected payloads of a completed message flow should be published. When only faulty
+	 * or slow flows are traced, payloads of the rest of the flows are dropped.
+	 *
+	 * @param messageFlowLogs statistic logs of the message flow
+	 * @param errorOrSlowOnly publish payloads only if the flow faulted or was slow
+	 * @param slowThreshold   duration in milliseconds above which the flow is slow, non positive to disable
+	 * @return true if the payloads should be published
+	 */
+	public static boolean isPayloadRetained(List<StatisticsLog> messageFlowLogs, boolean errorOrSlowOnly,
+	                                        long slowThreshold) {
+		if (!errorOrSlowOnly) {
+			return true;
+		}
+		StatisticsLog entryLog = messageFlowLogs.get(0);
+		if (slowThreshold > 0 && entryLog.getEndTime() - entryLog.getStartTime() >= slowThreshold) {
+			return true;
+		}
+		for (StatisticsLog statisticsLog : messageFlowLogs) {
+			if (statisticsLog != null && statisticsLog.getNoOfFaults() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Extract properties from the synapse message context.
 	 *
@@ -181,7 +272,15 @@ public class TracingDataCollectionHelper {
 		String flowId = messageFlowLogs.get(0).getMessageFlowId();
 		Integer entrypointHashcode = messageFlowLogs.get(0).getHashCode();
 
-		boolean isTracingEnabledForFlow = messageFlowLogs.get(0).isTracingEnabled();
+		// Payloads are published only if tracing is enabled for the flow (from UI) and, when only faulty or slow
+		// flows are traced, the flow faulted or was slow
+		boolean isPublishingPayloads = RuntimeStatisticCollector.isCollectingPayloads()
+				&& messageFlowLogs.get(0).isTracingEnabled()
+				&& isPayloadRetained(messageFlowLogs, RuntimeStatisticCollector.isPayloadErrorOrSlowOnly(),
+				                     RuntimeStatisticCollector.getPayloadSlowThreshold());
+
+		// Payloads by content, so that a payload left unchanged by a component is published only once
+		Map<String, PublishingPayload> payloadsByContent = new HashMap<>();
 
 		for (int index = 0; index < messageFlowLogs.size(); index++) {
 			StatisticsLog currentStatLog = messageFlowLogs.get(index);
@@ -192,13 +291,8 @@ public class TracingDataCollectionHelper {
 			// Add each event to Publishing Flow
 			publishingFlow.addEvent(new PublishingEvent(flowId, index, currentStatLog, entryPoint, entrypointHashcode));
 
-			// Skip the rest of things, if message tracing is disabled
-			if (!RuntimeStatisticCollector.isCollectingPayloads()) {
-				continue;
-			}
-
-			// Skip flow is tracing is not enabled for the flow (from UI)
-			if (!isTracingEnabledForFlow) {
+			// Skip the rest of things, if payloads of the flow are not published
+			if (!isPublishingPayloads) {
 				continue;
 			}
 
@@ -214,9 +308,13 @@ public class TracingDataCollectionHelper {
 
 			if (currentStatLog.getBeforePayload() == null) {
 				int parentIndex = currentStatLog.getImmediateParent();
-				StatisticsLog parentStatLog = messageFlowLogs.get(parentIndex);
+				StatisticsLog parentStatLog = parentIndex >= 0 && parentIndex < messageFlowLogs.size() ?
+				                              messageFlowLogs.get(parentIndex) : null;
 
-				if (parentStatLog.getAfterPayload().startsWith(REFER)) {
+				if (parentStatLog == null || parentStatLog.getAfterPayload() == null) {
+					// No payload was collected up to here, as in a flow whose payloads were not sampled
+					continue;
+				} else if (parentStatLog.getAfterPayload().startsWith(REFER)) {
 					// Parent also referring to after-payload
 					currentStatLog.setBeforePayload(parentStatLog.getAfterPayload());
 					currentStatLog.setAfterPayload(parentStatLog.getAfterPayload());
@@ -242,13 +340,13 @@ public class TracingDataCollectionHelper {
 			} else {
 
 				// For content altering components
-				PublishingPayload publishingPayloadBefore = new PublishingPayload();
-				publishingPayloadBefore.setPayload(currentStatLog.getBeforePayload());
+				PublishingPayload publishingPayloadBefore =
+						getPublishingPayload(payloadsByContent, currentStatLog.getBeforePayload());
 				publishingPayloadBefore.addEvent(new PublishingPayloadEvent(index, BEFORE_PAYLOAD));
 				payloadMap.put(BEFORE + index, publishingPayloadBefore);
 
-				PublishingPayload publishingPayloadAfter = new PublishingPayload();
-				publishingPayloadAfter.setPayload(currentStatLog.getAfterPayload());
+				PublishingPayload publishingPayloadAfter =
+						getPublishingPayload(payloadsByContent, currentStatLog.getAfterPayload());
 				publishingPayloadAfter.addEvent(new PublishingPayloadEvent(index, AFTER_PAYLOAD));
 				payloadMap.put(AFTER + index, publishingPayloadAfter);
 
@@ -258,8 +356,19 @@ public class TracingDataCollectionHelper {
 
 		publishingFlow.setMessageFlowId(flowId);
 		// Move all payloads to publishingFlow object
-		publishingFlow.setPayloads(payloadMap.values());
+		publishingFlow.setPayloads(payloadsByContent.values());
 
 		return publishingFlow;
 	}
+
+	private static PublishingPayload getPublishingPayload(Map<String, PublishingPayload> payloadsByContent,
+	                                                      String payload) {
+		PublishingPayload publishingPayload = payloadsByContent.get(payload);
+		if (publishingPayload == null) {
+			publishingPayload = new PublishingPayload();
+			publishingPayload.setPayload(payload);
+			payloadsByContent.put(payload, publishingPayload);
+		}
+		return publishingPayload;
+	}
 }
@@ -21,12 +21,15 @@ package org.apache.synapse.aspects.flow.statistics.util;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Provides indexes to components in the message flow.
+ * Provides indexes to components in the message flow. It also holds the payload last collected for the message flow,
+ * outside the message context properties, which are copied into stored messages and transport headers.
  */
 public class UniqueIdentifierObject {
 
 	AtomicInteger currentLevel = new AtomicInteger(0);
 
+	private volatile String lastPayload;
+
 	public int getNextIndex() {
 		return currentLevel.incrementAndGet();
 	}
@@ -34,4 +37,12 @@ public class UniqueIdentifierObject {
 	public int getCurrentLevel() {
 		return currentLevel.get();
 	}
+
+	String getLastPayload() {
+		return lastPayload;
+	}
+
+	void setLastPayload(String lastPayload) {
+		this.lastPayload = lastPayload;
+	}
 }
@@ -126,6 +126,24 @@ public class XMLConfigConstants {
 
     public static final String RETRY_CONFIG = "retryConfig";
 
+    public static final String CONCURRENCY_LIMIT = "concurrencyLimit";
+    public static final String CONCURRENCY_MAX = "maxConcurrency";
+    public static final String CONCURRENCY_MIN = "minConcurrency";
+    public static final String CONCURRENCY_QUEUE_SIZE = "queueSize";
+    public static final String CONCURRENCY_ADAPTIVE = "adaptive";
+    public static final String CONCURRENCY_REJECT_SEQUENCE = "rejectSequence";
+
+    public static final String RESPONSE_CACHE = "responseCache";
+    public static final String RESPONSE_CACHE_HEADERS = "headers";
+    public static final String RESPONSE_CACHE_DEFAULT_MAX_AGE = "defaultMaxAge";
+
+    public static final String HEDGING = "hedging";
+    public static final String HEDGING_PERCENTILE = "percentile";
+    public static final String HEDGING_MIN_DELAY = "minDelay";
+    public static final String HEDGING_MAX_DELAY = "maxDelay";
+    public static final String HEDGING_BUDGET = "budget";
+    public static final String HEDGING_IDEMPOTENT = "idempotent";
+
 	public static final String LOADBALANCE_POLICY = "policy";
 	public static final String LOADBALANCE_ALGORITHM = "algorithm";
 	public static final String BUILD_MESSAGE = "buildMessage";
@@ -32,6 +32,8 @@ import org.apache.synapse.util.xpath.SynapseXPath;
 import org.jaxen.JaxenException;
 
 import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.StringTokenizer;
 import java.util.regex.Pattern;
 
@@ -365,6 +367,96 @@ public class EndpointDefinitionFactory implements DefinitionFactory{
 
         }
 
+        OMElement concurrencyLimit = elem.getFirstChildWithName(new QName(
+            SynapseConstants.SYNAPSE_NAMESPACE, XMLConfigConstants.CONCURRENCY_LIMIT));
+
+        if (concurrencyLimit != null) {
+
+            OMElement maxConcurrency = concurrencyLimit.getFirstChildWithName(new QName(
+                SynapseConstants.SYNAPSE_NAMESPACE, XMLConfigConstants.CONCURRENCY_MAX));
+            if (maxConcurrency != null && maxConcurrency.getText() != null) {
+                try {
+                    definition.setMaxConcurrency(Integer.parseInt(maxConcurrency.getText().trim()));
+                } catch (NumberFormatException e) {
+                    handleException("The maximum concurrency should be specified " +
+                        "as a valid number : " + maxConcurrency.getText(), e);
+                }
+            }
+
+            OMElement minConcurrency = concurrencyLimit.getFirstChildWithName(new QName(
+                SynapseConstants.SYNAPSE_NAMESPACE, XMLConfigConstants.CONCURRENCY_MIN));
+            if (minConcurrency != null && minConcurrency.getText() != null) {
+                try {
+                    definition.setMinConcurrency(Integer.parseInt(minConcurrency.getText().trim()));
+                } catch (NumberFormatException e) {
+                    handleException("The minimum concurrency should be specified " +
+                        "as a valid number : " + minConcurrency.getText(), e);
+                }
+            }
+
+            OMElement queueSize = concurrencyLimit.getFirstChildWithName(new QName(
+                SynapseConstants.SYNAPSE_NAMESPACE, XMLConfigConstants.CONCURRENCY_QUEUE_SIZE));
+            if (queueSize != null && queueSize.getText() != null) {
+                try {
+                    definition.setConcurrencyQueueSize(Integer.parseInt(queueSize.getText().trim()));
+                } catch (NumberFormatException e) {
+                    handleException("The concurrency queue size should be specified " +
+                        "as a valid number : " + queueSize.getText(), e);
+                }
+            }
+
+            OMElement adaptive = concurrencyLimit.getFirstChildWithName(new QName(
+                SynapseConstants.SYNAPSE_NAMESPACE, XMLConfigConstants.CONCURRENCY_ADAPTIVE));
+            if (adaptive != null && adaptive.getText() != null) {
+                definition.setAdaptiveConcurrency(Boolean.parseBoolean(adaptive.getText().trim()));
+            }
+
+            OMElement rejectSequence = concurrencyLimit.getFirstChildWithName(new QName(
+                SynapseConstants.SYNAPSE_NAMESPACE, XMLConfigConstants.CONCURRENCY_REJECT_SEQUENCE));
+            if (rejectSequence != null && rejectSequence.getText() != null
+                    && !"".equals(rejectSequence.getText().trim())) {
+                definition.setConcurrencyRejectSequence(rejectSequence.getText().trim());
+            }
+
+            if (definition.getMaxConcurrency() <= 0) {
+                handleException("The maximum concurrency should be specified as a positive number " +
+                    "when the concurrency limit is configured");
+            }
+        }
+
+        OMElement responseCache = elem.getFirstChildWithName(new QName(
+            SynapseConstants.SYNAPSE_NAMESPACE, XMLConfigConstants.RESPONSE_CACHE));
+
+        if (responseCache != null) {
+
+            definition.setResponseCacheEnabled(true);
+
+            OMElement headers = responseCache.getFirstChildWithName(new QName(
+                SynapseConstants.SYNAPSE_NAMESPACE, XMLConfigConstants.RESPONSE_CACHE_HEADERS));
+            if (headers != null && headers.getText() != null) {
+                List<String> headerNames = new ArrayList<String>();
+                for (String header : headers.getText().split(",")) {
+                    if (!"".equals(header.trim())) {
+                        headerNames.add(header.trim());
+                    }
+                }
+                definition.setResponseCacheHeaders(headerNames);
+            }
+
+            OMElement defaultMaxAge = responseCache.getFirstChildWithName(new QName(
+                SynapseConstants.SYNAPSE_NAMESPACE,
+                XMLConfigConstants.RESPONSE_CACHE_DEFAULT_MAX_AGE));
+            if (defaultMaxAge != null && defaultMaxAge.getText() != null) {
+                try {
+                    definition.setResponseCacheDefaultMaxAge(
+                        Long.parseLong(defaultMaxAge.getText().trim()));
+                } catch (NumberFormatException e) {
+                    handleException("The default max age of the response cache should be " +
+                        "specified as a valid number : " + defaultMaxAge.getText(), e);
+                }
+            }
+        }
+
         return definition;
     }
 
@@ -230,5 +230,75 @@ public class EndpointDefinitionSerializer {
             retryConfig.addChild(errorCodes);
             element.addChild(retryConfig);
         }
+
+        if (endpointDefinition.getMaxConcurrency() > 0) {
+            OMElement concurrencyLimit = fac.createOMElement(XMLConfigConstants.CONCURRENCY_LIMIT,
+                    SynapseConstants.SYNAPSE_OMNAMESPACE);
+
+            OMElement maxConcurrency = fac.createOMElement(XMLConfigConstants.CONCURRENCY_MAX,
+                    SynapseConstants.SYNAPSE_OMNAMESPACE);
+            maxConcurrency.setText(Integer.toString(endpointDefinition.getMaxConcurrency()));
+            concurrencyLimit.addChild(maxConcurrency);
+
+            if (endpointDefinition.isAdaptiveConcurrency()) {
+                OMElement minConcurrency = fac.createOMElement(XMLConfigConstants.CONCURRENCY_MIN,
+                        SynapseConstants.SYNAPSE_OMNAMESPACE);
+                minConcurrency.setText(Integer.toString(endpointDefinition.getMinConcurrency()));
+                concurrencyLimit.addChild(minConcurrency);
+            }
+
+            if (endpointDefinition.getConcurrencyQueueSize() > 0) {
+                OMElement queueSize = fac.createOMElement(XMLConfigConstants.CONCURRENCY_QUEUE_SIZE,
+                        SynapseConstants.SYNAPSE_OMNAMESPACE);
+                queueSize.setText(Integer.toString(endpointDefinition.getConcurrencyQueueSize()));
+                concurrencyLimit.addChild(queueSize);
+            }
+
+            if (endpointDefinition.isAdaptiveConcurrency()) {
+                OMElement adaptive = fac.createOMElement(XMLConfigConstants.CONCURRENCY_ADAPTIVE,
+                        SynapseConstants.SYNAPSE_OMNAMESPACE);
+                adaptive.setText("true");
+                concurrencyLimit.addChild(adaptive);
+            }
+
+            if (endpointDefinition.getConcurrencyRejectSequence() != null) {
+                OMElement rejectSequence = fac.createOMElement(
+                        XMLConfigConstants.CONCURRENCY_REJECT_SEQUENCE,
+                        SynapseConstants.SYNAPSE_OMNAMESPACE);
+                rejectSequence.setText(endpointDefinition.getConcurrencyRejectSequence());
+                concurrencyLimit.addChild(rejectSequence);
+            }
+
+            element.addChild(concurrencyLimit);
+        }
+
+        if (endpointDefinition.isResponseCacheEnabled()) {
+            OMElement responseCache = fac.createOMElement(XMLConfigConstants.RESPONSE_CACHE,
+                    SynapseConstants.SYNAPSE_OMNAMESPACE);
+
+            if (!endpointDefinition.getResponseCacheHeaders().isEmpty()) {
+                OMElement headers = fac.createOMElement(XMLConfigConstants.RESPONSE_CACHE_HEADERS,
+                        SynapseConstants.SYNAPSE_OMNAMESPACE);
+                StringBuilder headerNames = new StringBuilder();
+                for (String header : endpointDefinition.getResponseCacheHeaders()) {
+                    if (headerNames.length() > 0) {
+                        headerNames.append(",");
+                    }
+                    headerNames.append(header);
+                }
+                headers.setText(headerNames.toString());
+                responseCache.addChild(headers);
+            }
+
+            if (endpointDefinition.getResponseCacheDefaultMaxAge() > 0) {
+                OMElement defaultMaxAge = fac.createOMElement(
+                        XMLConfigConstants.RESPONSE_CACHE_DEFAULT_MAX_AGE,
+                        SynapseConstants.SYNAPSE_OMNAMESPACE);
+                defaultMaxAge.setText(Long.toString(endpointDefinition.getResponseCacheDefaultMaxAge()));
+                responseCache.addChild(defaultMaxAge);
+            }
+
+            element.addChild(responseCache);
+        }
     }
 }
@@ -33,6 +33,7 @@ import org.apache.synapse.config.xml.MediatorPropertyFactory;
 import org.apache.synapse.endpoints.Endpoint;
 import org.apache.synapse.endpoints.IndirectEndpoint;
 import org.apache.synapse.endpoints.EndpointDefinition;
+import org.apache.synapse.endpoints.HedgingPolicy;
 import org.apache.synapse.PropertyInclude;
 import org.apache.synapse.mediators.MediatorProperty;
 import org.apache.synapse.endpoints.AbstractEndpoint;
@@ -321,6 +322,63 @@ public abstract class EndpointFactory implements XMLToObjectMapper {
      * @param endpoint actual endpoint to set the properties
      * @param endpointElement actual endpoint element
      */
+    /**
+     * Creates the hedging policy of a failover or load balance endpoint from its hedging element.
+     *
+     * &lt;hedging [percentile="95"] [minDelay="ms"] [maxDelay="ms"] [budget="0.1"]
+     *          [idempotent="true|false"]/&gt;
+     *
+     * @param listEndpointElement the failover or loadbalance element
+     * @return the hedging policy, or null if hedging is not configured
+     */
+    protected HedgingPolicy getHedgingPolicy(OMElement listEndpointElement) {
+
+        OMElement hedgingElement = listEndpointElement.getFirstChildWithName(
+                new QName(SynapseConstants.SYNAPSE_NAMESPACE, XMLConfigConstants.HEDGING));
+        if (hedgingElement == null) {
+            return null;
+        }
+
+        HedgingPolicy policy = new HedgingPolicy();
+        String percentile = hedgingElement.getAttributeValue(
+                new QName(XMLConfigConstants.HEDGING_PERCENTILE));
+        String minDelay = hedgingElement.getAttributeValue(
+                new QName(XMLConfigConstants.HEDGING_MIN_DELAY));
+        String maxDelay = hedgingElement.getAttributeValue(
+                new QName(XMLConfigConstants.HEDGING_MAX_DELAY));
+        String budget = hedgingElement.getAttributeValue(
+                new QName(XMLConfigConstants.HEDGING_BUDGET));
+        String idempotent = hedgingElement.getAttributeValue(
+                new QName(XMLConfigConstants.HEDGING_IDEMPOTENT));
+        try {
+            if (percentile != null) {
+                policy.setPercentile(Double.parseDouble(percentile.trim()));
+            }
+            if (minDelay != null) {
+                policy.setMinDelay(Long.parseLong(minDelay.trim()));
+            }
+            if (maxDelay != null) {
+                policy.setMaxDelay(Long.parseLong(maxDelay.trim()));
+            }
+            if (budget != null) {
+                policy.setBudget(Double.parseDouble(budget.trim()));
+            }
+        } catch (NumberFormatException e) {
+            handleException("The hedging percentile, delays and budget should be specified " +
+                    "as valid numbers", e);
+        }
+        if (policy.getPercentile() <= 0 || policy.getPercentile() > 100) {
+            handleException("The hedging percentile should be between 0 and 100 : " + percentile);
+        }
+        if (policy.getBudget() < 0 || policy.getBudget() > 1) {
+            handleException("The hedging budget should be a fraction between 0 and 1 : " + budget);
+        }
+        if (idempotent != null) {
+            policy.setIdempotent(Boolean.parseBoolean(idempotent.trim()));
+        }
+        return policy;
+    }
+
     protected void processProperties(PropertyInclude endpoint, OMElement endpointElement) {
         List<MediatorProperty> properties =
                 MediatorPropertyFactory.getMediatorProperties(endpointElement);
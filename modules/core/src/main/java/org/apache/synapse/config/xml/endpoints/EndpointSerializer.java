@@ -167,6 +167,30 @@ public abstract class EndpointSerializer {
     }
 
 
+    protected void serializeHedgingPolicy(HedgingPolicy policy, OMElement element) {
+        if (policy == null) {
+            return;
+        }
+        OMElement hedgingElement = fac.createOMElement(
+                XMLConfigConstants.HEDGING, SynapseConstants.SYNAPSE_OMNAMESPACE);
+        hedgingElement.addAttribute(XMLConfigConstants.HEDGING_PERCENTILE,
+                Double.toString(policy.getPercentile()), null);
+        if (policy.getMinDelay() > 0) {
+            hedgingElement.addAttribute(XMLConfigConstants.HEDGING_MIN_DELAY,
+                    Long.toString(policy.getMinDelay()), null);
+        }
+        if (policy.getMaxDelay() != Long.MAX_VALUE) {
+            hedgingElement.addAttribute(XMLConfigConstants.HEDGING_MAX_DELAY,
+                    Long.toString(policy.getMaxDelay()), null);
+        }
+        hedgingElement.addAttribute(XMLConfigConstants.HEDGING_BUDGET,
+                Double.toString(policy.getBudget()), null);
+        if (policy.isIdempotent()) {
+            hedgingElement.addAttribute(XMLConfigConstants.HEDGING_IDEMPOTENT, "true", null);
+        }
+        element.addChild(hedgingElement);
+    }
+
     protected void serializeProperties(PropertyInclude endpoint, OMElement element) {
         Collection<MediatorProperty> properties = endpoint.getProperties();
         if (properties != null && properties.size() > 0) {
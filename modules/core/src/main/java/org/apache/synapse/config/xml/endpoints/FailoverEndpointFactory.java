@@ -90,7 +90,9 @@ public class FailoverEndpointFactory extends EndpointFactory {
                     failoverEndpoint.setBuildMessageAtt(true);
                 }
             }
-            
+
+            failoverEndpoint.setHedgingPolicy(getHedgingPolicy(failoverElement));
+
             // process the parameters
             processProperties(failoverEndpoint, epConfig);
 
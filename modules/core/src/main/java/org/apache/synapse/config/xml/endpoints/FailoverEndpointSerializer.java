@@ -56,6 +56,8 @@ public class FailoverEndpointSerializer extends EndpointSerializer {
                     Boolean.toString(failoverEndpoint.isBuildMessageAtt()), null);
         }
 
+        serializeHedgingPolicy(failoverEndpoint.getHedgingPolicy(), failoverElement);
+
         if (failoverEndpoint.getChildren() != null) {
             for (Endpoint childEndpoint : failoverEndpoint.getChildren()) {
                 failoverElement.addChild(EndpointSerializer.getElementFromEndpoint(childEndpoint));
@@ -145,6 +145,8 @@ public final class LoadbalanceEndpointFactory extends EndpointFactory {
                 }
             }
 
+            loadbalanceEndpoint.setHedgingPolicy(getHedgingPolicy(loadbalanceElement));
+
             // process the parameters
             processProperties(loadbalanceEndpoint, epConfig);
 
@@ -66,6 +66,8 @@ public class LoadbalanceEndpointSerializer extends EndpointSerializer {
                     .addAttribute(XMLConfigConstants.BUILD_MESSAGE, Boolean.toString(loadbalanceEndpoint.isBuildMessageAtt()), null);
         }
 
+        serializeHedgingPolicy(loadbalanceEndpoint.getHedgingPolicy(), loadbalanceElement);
+
         // Serialize endpoint elements which are children of the loadbalance element
         if (loadbalanceEndpoint.getChildren() != null) {
             for (Endpoint childEndpoint : loadbalanceEndpoint.getChildren()) {
@@ -50,6 +50,7 @@ import org.apache.synapse.commons.CorrelationConstants;
 import org.apache.synapse.commons.throttle.core.ConcurrentAccessController;
 import org.apache.synapse.commons.throttle.core.ConcurrentAccessReplicator;
 import org.apache.synapse.endpoints.EndpointDefinition;
+import org.apache.synapse.endpoints.cache.ResponseCacheHandler;
 import org.apache.synapse.message.senders.blocking.BlockingMsgSender;
 import org.apache.synapse.rest.RESTConstants;
 import org.apache.synapse.transport.netty.BridgeConstants;
@@ -672,6 +673,12 @@ public class Axis2FlexibleMEPClient {
             }
         }
 
+        // a fresh response held by the endpoint response cache is delivered without sending
+        if (endpoint != null && endpoint.isResponseCacheEnabled() && !outOnlyMessage
+                && ResponseCacheHandler.lookup(endpoint, synapseOutMessageContext, axisOutMsgCtx, callback)) {
+            return;
+        }
+
         mepClient.execute(true);
     }
 
@@ -37,12 +37,16 @@ import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseException;
 import org.apache.synapse.SynapseHandler;
 import org.apache.synapse.api.API;
+import org.apache.synapse.api.Resource;
 import org.apache.synapse.commons.throttle.core.ConcurrentAccessController;
 import org.apache.synapse.commons.throttle.core.ConcurrentAccessReplicator;
 import org.apache.synapse.config.SynapsePropertiesLoader;
 import org.apache.synapse.endpoints.EndpointDefinition;
 import org.apache.synapse.inbound.InboundEndpointConstants;
 import org.apache.synapse.inbound.InboundResponseSender;
+import org.apache.synapse.metrics.MetricType;
+import org.apache.synapse.metrics.MetricsConstants;
+import org.apache.synapse.metrics.MetricsRegistry;
 import org.apache.synapse.rest.RESTConstants;
 import org.apache.synapse.transport.util.MessageHandlerProvider;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
@@ -127,7 +131,11 @@ public class Axis2Sender {
         }
 
         MessageContext messageContext = ((Axis2MessageContext) smc).getAxis2MessageContext();
-        
+
+        if (MetricsRegistry.isEnabled()) {
+            recordApiLatency(smc, messageContext);
+        }
+
         // fault processing code
         if (messageContext.isDoingREST() && messageContext.isFault() &&
             isMessagePayloadHasASOAPFault(messageContext)) {
@@ -266,6 +274,40 @@ public class Axis2Sender {
         return false;
     }
 
+    /**
+     * Record the time taken by the API and the resource that handled the request, to which a response is sent
+     *
+     * @param smc            synapse message context of the response
+     * @param messageContext axis2 message context of the response
+     */
+    private static void recordApiLatency(org.apache.synapse.MessageContext smc, MessageContext messageContext) {
+        Object startTime = smc.getProperty(MetricsConstants.API_REQUEST_START_TIME);
+        if (!(startTime instanceof Long)) {
+            return;
+        }
+        boolean isError = messageContext.isFault();
+        Object statusCode = messageContext.getProperty(NhttpConstants.HTTP_SC);
+        if (statusCode != null) {
+            try {
+                isError |= Integer.parseInt(statusCode.toString()) >= 500;
+            } catch (NumberFormatException ignore) {
+                // not an HTTP status code
+            }
+        }
+        String apiName = (String) smc.getProperty(RESTConstants.SYNAPSE_REST_API);
+        MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+        metricsRegistry.recordLatency(MetricType.API, apiName, (Long) startTime, isError);
+        Object api = smc.getProperty(RESTConstants.PROCESSED_API);
+        Object resourceName = smc.getProperty(RESTConstants.SYNAPSE_RESOURCE);
+        if (api instanceof API && resourceName != null) {
+            Resource resource = ((API) api).getResource(resourceName.toString());
+            if (resource != null) {
+                metricsRegistry.recordLatency(MetricType.RESOURCE, apiName + ":" + resource.getMetricsLabel(),
+                        (Long) startTime, isError);
+            }
+        }
+    }
+
     /**
      * This will ensure only one response is sent for a single request.
      * In HTTP request-response paradigm only a one response is allowed for a single request.
@@ -0,0 +1,163 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.core.axis2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the callbacks of the outgoing messages waiting for a response, keyed by the message ID.
+ * The store is split into shards, each with a concurrent map and an index of its callbacks ordered
+ * by their timeout. Adding and removing callbacks never takes a lock, and finding the expired
+ * callbacks only walks the head of each index up to the first callback that has not expired,
+ * instead of scanning every pending callback.
+ */
+public class CallbackStore {
+
+    private static final int MAX_SHARDS = 64;
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder size = new LongAdder();
+
+    public CallbackStore() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public CallbackStore(int concurrencyLevel) {
+        int shardCount = 1;
+        while (shardCount < concurrencyLevel && shardCount < MAX_SHARDS) {
+            shardCount <<= 1;
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        this.shardMask = shardCount - 1;
+    }
+
+    /**
+     * Adds a callback. The timeout of the callback must be set before it is added, since the
+     * callback is indexed by it.
+     *
+     * @param messageID ID of the outgoing message
+     * @param callback  callback to be invoked when the response arrives or the message times out
+     */
+    public void put(String messageID, AsyncCallback callback) {
+        Shard shard = shardFor(messageID);
+        Entry entry = new Entry(messageID, callback, sequence.getAndIncrement());
+        Entry previous = shard.callbacks.put(messageID, entry);
+        if (previous != null) {
+            shard.timeouts.remove(previous);
+        } else {
+            size.increment();
+        }
+        shard.timeouts.add(entry);
+    }
+
+    /**
+     * Removes the callback of the given message.
+     *
+     * @param messageID ID of the outgoing message
+     * @return the removed callback or null if there is no callback for the message
+     */
+    public AsyncCallback remove(String messageID) {
+        Shard shard = shardFor(messageID);
+        Entry entry = shard.callbacks.remove(messageID);
+        if (entry == null) {
+            return null;
+        }
+        size.decrement();
+        shard.timeouts.remove(entry);
+        return entry.callback;
+    }
+
+    public AsyncCallback get(String messageID) {
+        Entry entry = shardFor(messageID).callbacks.get(messageID);
+        return entry != null ? entry.callback : null;
+    }
+
+    public boolean containsKey(String messageID) {
+        return shardFor(messageID).callbacks.containsKey(messageID);
+    }
+
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * Returns the IDs of the messages whose callbacks have timed out at the given time, in the
+     * order of their timeouts within each shard. The callbacks are not removed from the store.
+     *
+     * @param currentTime time to compare the callback timeouts against
+     * @return message IDs of the expired callbacks
+     */
+    public List<String> getExpired(long currentTime) {
+        List<String> expired = new ArrayList<String>();
+        for (Shard shard : shards) {
+            for (Entry entry : shard.timeouts) {
+                if (entry.timeOutOn > currentTime) {
+                    break;
+                }
+                expired.add(entry.messageID);
+            }
+        }
+        return expired;
+    }
+
+    private Shard shardFor(String messageID) {
+        int hash = messageID.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & shardMask];
+    }
+
+    private static class Shard {
+        private final ConcurrentHashMap<String, Entry> callbacks = new ConcurrentHashMap<String, Entry>();
+        private final ConcurrentSkipListSet<Entry> timeouts = new ConcurrentSkipListSet<Entry>();
+    }
+
+    private static class Entry implements Comparable<Entry> {
+
+        private final String messageID;
+        private final AsyncCallback callback;
+        /** timeout is copied as the index ordering must not change while the entry is indexed */
+        private final long timeOutOn;
+        /** breaks ties between callbacks with the same timeout */
+        private final long sequence;
+
+        Entry(String messageID, AsyncCallback callback, long sequence) {
+            this.messageID = messageID;
+            this.callback = callback;
+            this.timeOutOn = callback.getTimeOutOn();
+            this.sequence = sequence;
+        }
+
+        public int compareTo(Entry other) {
+            if (timeOutOn != other.timeOutOn) {
+                return timeOutOn < other.timeOutOn ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+}
@@ -49,14 +49,19 @@ import org.apache.synapse.config.SynapseConfigUtils;
 import org.apache.synapse.config.SynapseConfiguration;
 import org.apache.synapse.endpoints.AbstractEndpoint;
 import org.apache.synapse.endpoints.Endpoint;
+import org.apache.synapse.endpoints.EndpointConcurrencyLimiter;
 import org.apache.synapse.endpoints.FailoverEndpoint;
+import org.apache.synapse.endpoints.HedgedRequest;
 import org.apache.synapse.endpoints.LoadbalanceEndpoint;
 import org.apache.synapse.endpoints.OAuthConfiguredHTTPEndpoint;
 import org.apache.synapse.endpoints.dispatch.Dispatcher;
 import org.apache.synapse.endpoints.auth.oauth.MessageCache;
 import org.apache.synapse.endpoints.auth.oauth.OAuthUtils;
+import org.apache.synapse.endpoints.cache.ResponseCacheHandler;
 import org.apache.synapse.mediators.MediatorFaultHandler;
 import org.apache.synapse.mediators.base.SequenceMediator;
+import org.apache.synapse.metrics.MetricType;
+import org.apache.synapse.metrics.MetricsRegistry;
 import org.apache.synapse.transport.netty.BridgeConstants;
 import org.apache.synapse.transport.util.MessageHandlerProvider;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
@@ -74,7 +79,7 @@ import java.util.Timer;
 
 /**
  * This is the message receiver that receives the responses for outgoing messages sent out
- * by Synapse. It holds a callbackStore that maps the [unique] messageID of each message to
+ * by Synapse. It holds a CallbackStore that maps the [unique] messageID of each message to
  * a callback object that gets executed on timeout or when a response is received (before timeout)
  *
  * The AnonymousServiceFactory uses this MessageReceiver for all Anonymous services created by it.
@@ -84,6 +89,9 @@ public class SynapseCallbackReceiver extends CallbackReceiver {
 
     private static final Log log = LogFactory.getLog(SynapseCallbackReceiver.class);
 
+    /** Callbacks of the outgoing messages waiting for a response, indexed by their timeouts */
+    private final CallbackStore pendingCallbacks = new CallbackStore();
+
     /**
      * Create the *single* instance of this class that would be used by all anonymous services
      * used for outgoing messaging.
@@ -94,7 +102,7 @@ public class SynapseCallbackReceiver extends CallbackReceiver {
                                    ServerContextInformation contextInformation) {
 
         // create the Timer object and a TimeoutHandler task
-        TimeoutHandler timeoutHandler = new TimeoutHandler(callbackStore, contextInformation);
+        TimeoutHandler timeoutHandler = new TimeoutHandler(pendingCallbacks, contextInformation);
         
         Timer timeOutTimer = synCfg.getSynapseTimer();
         long timeoutHandlerInterval = SynapseConfigUtils.getTimeoutHandlerInterval();
@@ -104,13 +112,13 @@ public class SynapseCallbackReceiver extends CallbackReceiver {
     }
 
     public int getCallbackCount() {
-        return callbackStore.size();
+        return pendingCallbacks.size();
     }
 
     public void addCallback(String MsgID, AxisCallback callback) {
-        callbackStore.put(MsgID, callback);
+        pendingCallbacks.put(MsgID, (AsyncCallback) callback);
         if (log.isDebugEnabled()) {
-            log.debug("Callback added. Total callbacks waiting for : " + callbackStore.size());
+            log.debug("Callback added. Total callbacks waiting for : " + pendingCallbacks.size());
         }
         org.apache.synapse.MessageContext synCtx = ((AsyncCallback) callback).getSynapseOutMsgCtx();
         if (RuntimeStatisticCollector.isStatisticsEnabled()) {
@@ -146,8 +154,9 @@ public class SynapseCallbackReceiver extends CallbackReceiver {
          */
         if (messageCtx.getProperty(NhttpConstants.HTTP_202_RECEIVED) != null && "true".equals(
                 messageCtx.getProperty(NhttpConstants.HTTP_202_RECEIVED))) {
-            if (callbackStore.containsKey(messageCtx.getMessageID())) {
-                AsyncCallback callback = (AsyncCallback) callbackStore.remove(messageCtx.getMessageID());
+            AsyncCallback callback = pendingCallbacks.remove(messageCtx.getMessageID());
+            if (callback != null) {
+                EndpointConcurrencyLimiter.release(callback.getSynapseOutMsgCtx(), true);
                 if (RuntimeStatisticCollector.isStatisticsEnabled()) {
                     CallbackStatisticCollector.callbackCompletionEvent(callback.getSynapseOutMsgCtx(),
                             messageCtx.getMessageID());
@@ -170,10 +179,10 @@ public class SynapseCallbackReceiver extends CallbackReceiver {
         }
 
         if (messageID != null) {
-            AsyncCallback callback = (AsyncCallback)callbackStore.remove(messageID);
+            AsyncCallback callback = pendingCallbacks.remove(messageID);
             if (log.isDebugEnabled()) {
                 log.debug("Callback removed for request message id : " + messageID +
-                        ". Pending callbacks count : " + callbackStore.size());
+                        ". Pending callbacks count : " + pendingCallbacks.size());
             }
 
             RelatesTo[] relates = messageCtx.getRelationships();
@@ -187,6 +196,8 @@ public class SynapseCallbackReceiver extends CallbackReceiver {
             if (callback != null) {
                 org.apache.synapse.MessageContext SynapseOutMsgCtx = callback.getSynapseOutMsgCtx();
                 ConcurrencyThrottlingUtils.decrementConcurrencyThrottleAccessController(SynapseOutMsgCtx);
+                EndpointConcurrencyLimiter.release(SynapseOutMsgCtx,
+                        !Boolean.TRUE.equals(messageCtx.getProperty(SynapseConstants.SENDING_FAULT)));
                 boolean isMarkedForRemoval = false;
                 synchronized (callback) {
                     if (callback.isMarkedForRemoval()) {
@@ -201,6 +212,17 @@ public class SynapseCallbackReceiver extends CallbackReceiver {
                     handleNoCallback(messageID, messageCtx);
                     return;
                 }
+                //another attempt of a hedged request has already completed it
+                if (!HedgedRequest.complete(SynapseOutMsgCtx,
+                        !Boolean.TRUE.equals(messageCtx.getProperty(SynapseConstants.SENDING_FAULT)))) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Discarding the response for hedged request message id : " + messageID);
+                    }
+                    return;
+                }
+                if (!Boolean.TRUE.equals(messageCtx.getProperty(SynapseConstants.SENDING_FAULT))) {
+                    ResponseCacheHandler.onResponse(SynapseOutMsgCtx, messageCtx);
+                }
                 messageCtx.removeProperty(PassThroughConstants.INTERNAL_EXCEPTION_ORIGIN);
                 if (RuntimeStatisticCollector.isStatisticsEnabled()) {
                     CallbackStatisticCollector.updateParentsForCallback(SynapseOutMsgCtx, messageID);
@@ -244,6 +266,22 @@ public class SynapseCallbackReceiver extends CallbackReceiver {
                 || relatesTo.equals("http://www.w3.org/2005/08/addressing/unspecified");
     }
 
+    /**
+     * Record the time taken by the endpoint, the request was sent to, to respond.
+     *
+     * @param synapseOutMsgCtx message context of the request
+     * @param callback         callback of the request
+     * @param isError          whether sending the request failed
+     */
+    private void recordEndpointLatency(org.apache.synapse.MessageContext synapseOutMsgCtx, AsyncCallback callback,
+                                       boolean isError) {
+        Stack faultStack = synapseOutMsgCtx.getFaultStack();
+        if (faultStack != null && !faultStack.isEmpty() && faultStack.peek() instanceof Endpoint) {
+            MetricsRegistry.getInstance().recordLatency(MetricType.ENDPOINT,
+                    ((Endpoint) faultStack.peek()).getName(), callback.getSendTime(), isError);
+        }
+    }
+
     /**
      * Handle the response or error (during a failed send) message received for an outgoing request
      *
@@ -292,6 +330,9 @@ public class SynapseCallbackReceiver extends CallbackReceiver {
                 MessageCache.getInstance().removeMessageContext(synapseOutMsgCtx.getMessageID());
 
         Object o = response.getProperty(SynapseConstants.SENDING_FAULT);
+        if (MetricsRegistry.isEnabled()) {
+            recordEndpointLatency(synapseOutMsgCtx, callback, Boolean.TRUE.equals(o));
+        }
         if (o != null && Boolean.TRUE.equals(o)) {
             //This path hits with a fault. Sequence mediator threads should not remove faultSequence.
             //SynapseCallbackReceiver thread should handle the faultStack.
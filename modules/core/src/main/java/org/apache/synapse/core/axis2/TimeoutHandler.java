@@ -33,6 +33,8 @@ import org.apache.synapse.aspects.flow.statistics.collectors.CallbackStatisticCo
 import org.apache.synapse.aspects.flow.statistics.collectors.RuntimeStatisticCollector;
 import org.apache.synapse.commons.CorrelationConstants;
 import org.apache.synapse.config.SynapseConfigUtils;
+import org.apache.synapse.endpoints.EndpointConcurrencyLimiter;
+import org.apache.synapse.endpoints.HedgedRequest;
 import org.apache.synapse.endpoints.dispatch.SALSessions;
 import org.apache.synapse.commons.logger.ContextAwareLogger;
 import org.apache.synapse.rest.RESTConstants;
@@ -45,7 +47,6 @@ import org.apache.synapse.util.ConcurrencyThrottlingUtils;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Stack;
 import java.util.TimerTask;
 
@@ -65,8 +66,8 @@ public class TimeoutHandler extends TimerTask {
 
     private static final Log log = LogFactory.getLog(TimeoutHandler.class);
 
-    /** The callback map - already a Collections.synchronized() hash map */
-    private final Map callbackStore;
+    /** The callback store - ordered by the callback timeouts, safe for concurrent use */
+    private final CallbackStore callbackStore;
     /** a lock to prevent concurrent execution while ensuring least overhead */
     private final Object lock = new Object();
     private boolean alreadyExecuting = false;
@@ -76,7 +77,7 @@ public class TimeoutHandler extends TimerTask {
     private ServerContextInformation contextInfo = null;
     private PassThroughConfiguration conf = PassThroughConfiguration.getInstance();
 
-    public TimeoutHandler(Map callbacks, ServerContextInformation contextInfo) {
+    public TimeoutHandler(CallbackStore callbacks, ServerContextInformation contextInfo) {
         this.callbackStore = callbacks;
         this.contextInfo = contextInfo;
         this.globalTimeout = SynapseConfigUtils.getGlobalTimeoutInterval();
@@ -115,165 +116,164 @@ public class TimeoutHandler extends TimerTask {
         // checks if callback store contains at least one entry before proceeding. otherwise getting
         // the time for doing nothing would be a inefficient task.
 
-        // we have to synchronize this on the callbackStore as iterators of thread safe collections
-        // are not thread safe. callbackStore can be modified
-        // concurrently by the SynapseCallbackReceiver.
-        synchronized(callbackStore) {
+        // the callback store is ordered by the callback timeouts, so only the expired callbacks are
+        // visited and the SynapseCallbackReceiver can keep adding and removing callbacks meanwhile.
+        if (callbackStore.size() > 0) {
 
-            if (callbackStore.size() > 0) {
+            long currentTime = currentTime();
+            boolean closeSocketOnEndpointTimeout = false;
+            List<String> toRemove = new ArrayList<String>();
 
-                long currentTime = currentTime();
-                boolean closeSocketOnEndpointTimeout = false;
-                List toRemove = new ArrayList();
+            for (String key : callbackStore.getExpired(currentTime)) {
 
-                for (Object key : callbackStore.keySet()) {
-
-                    AsyncCallback callback = (AsyncCallback) callbackStore.get(key);
-                    if (callback == null) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("There is no callback for key :" + key);
-                        }
-                        continue;
+                AsyncCallback callback = callbackStore.get(key);
+                if (callback == null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("There is no callback for key :" + key);
                     }
+                    continue;
+                }
 
-                    if (callback.getTimeOutOn() <= currentTime) {
+                if (callback.getTimeOutOn() <= currentTime) {
 
-                        synchronized (callback) {
-                            if (callback.isMarkedForRemoval()) {
-                                continue;
-                            }
-                            callback.setMarkedForRemoval();
-                            toRemove.add(key);
+                    synchronized (callback) {
+                        if (callback.isMarkedForRemoval()) {
+                            continue;
                         }
-                        if (!"true".equals(callback.getSynapseOutMsgCtx().getProperty(SynapseConstants.OUT_ONLY))) {
-                            org.apache.axis2.context.MessageContext axis2MessageContext = callback.getAxis2OutMsgCtx();
-                            String timeoutWarnLog = "Expiring message ID : " + key + "; dropping message after "
-                                    + callback.getTimeoutType().toString() + " of : "
-                                    + (callback.getTimeoutDuration() / 1000) + " seconds for "
-                                    + getEndpointLogMessage(callback.getSynapseOutMsgCtx(),
-                                    callback.getAxis2OutMsgCtx()) + ", "
-                                    + getServiceLogMessage(callback.getSynapseOutMsgCtx())
-                                    + "Correlation ID : " + callback.getAxis2OutMsgCtx().getProperty(
-                                    CorrelationConstants.CORRELATION_ID);
-                            if (conf.isCloseSocketOnEndpointTimeout()) {
-                                ContextAwareLogger.getLogger(axis2MessageContext, log, true)
-                                        .warn(timeoutWarnLog + ", Closing the Target Connection");
-                            } else {
-                                ContextAwareLogger.getLogger(axis2MessageContext, log, true)
-                                        .warn(timeoutWarnLog);
-                            }
+                        callback.setMarkedForRemoval();
+                        toRemove.add(key);
+                    }
+                    if (!"true".equals(callback.getSynapseOutMsgCtx().getProperty(SynapseConstants.OUT_ONLY))) {
+                        org.apache.axis2.context.MessageContext axis2MessageContext = callback.getAxis2OutMsgCtx();
+                        String timeoutWarnLog = "Expiring message ID : " + key + "; dropping message after "
+                                + callback.getTimeoutType().toString() + " of : "
+                                + (callback.getTimeoutDuration() / 1000) + " seconds for "
+                                + getEndpointLogMessage(callback.getSynapseOutMsgCtx(),
+                                callback.getAxis2OutMsgCtx()) + ", "
+                                + getServiceLogMessage(callback.getSynapseOutMsgCtx())
+                                + "Correlation ID : " + callback.getAxis2OutMsgCtx().getProperty(
+                                CorrelationConstants.CORRELATION_ID);
+                        if (conf.isCloseSocketOnEndpointTimeout()) {
+                            ContextAwareLogger.getLogger(axis2MessageContext, log, true)
+                                    .warn(timeoutWarnLog + ", Closing the Target Connection");
+                        } else {
+                            ContextAwareLogger.getLogger(axis2MessageContext, log, true)
+                                    .warn(timeoutWarnLog);
                         }
+                    }
 
-                        if (callback.getTimeOutAction() != SynapseConstants.NONE) {
-
-                            // activate the fault sequence of the current sequence mediator
-                            MessageContext msgContext = callback.getSynapseOutMsgCtx();
-                            org.apache.axis2.context.MessageContext axis2MessageContext = callback.getAxis2OutMsgCtx();
-
-                            /* Clear the pipe to prevent release of the associated writer buffer
-                               to the buffer factory.
-                               This is to prevent same buffer is getting released to both source
-                               and target buffer factories. Otherwise when a late response arrives,
-                               buffer is released to both factories and makes system unstable
-                            */
-                            ((Axis2MessageContext) msgContext).getAxis2MessageContext().
-                                    removeProperty(PassThroughConstants.PASS_THROUGH_PIPE);
-
-                            // add an error code to the message context, so that error sequences
-                            // can identify the cause of error
-                            msgContext.setProperty(SynapseConstants.ERROR_CODE,
-                                                   SynapseConstants.HANDLER_TIME_OUT);
-                            msgContext.setProperty(SynapseConstants.ERROR_MESSAGE,
-                                                   SEND_TIMEOUT_MESSAGE);
-                            NHttpServerConnection sourceConn = (NHttpServerConnection) axis2MessageContext.
-                                    getProperty(PassThroughConstants.PASS_THROUGH_SOURCE_CONNECTION);
-                            if (sourceConn != null && SourceContext.get(sourceConn).getState()
-                                    != ProtocolState.REQUEST_DONE) {
-                                //Suspend input to avoid invoking input ready method and set this property here
-                                //to avoid invoking the input ready method, while fault response is mediating through
-                                //the mediation since we have set REQUEST_DONE state in SourceHandler responseReady
-                                // method
-                                sourceConn.suspendInput();
-                                SourceContext sourceContext = (SourceContext) sourceConn.getContext().getAttribute
-                                        (TargetContext.CONNECTION_INFORMATION);
-                                if (sourceContext != null) {
-                                    sourceContext.setIsSourceRequestMarkedToBeDiscarded(true);
-                                }
-                                // This is to gurantee that the connection is closed after the response is sent and
-                                // not to release the buffer to the factory
-                                SourceContext.get(sourceConn).setShutDown(true);
-
-                                // We have to close the target connection since the request is invalid
-                                closeSocketOnEndpointTimeout = true;
+                    // a timed out attempt of a hedged request is dropped while another attempt is pending
+                    boolean processTimeout = HedgedRequest.complete(callback.getSynapseOutMsgCtx(), false);
+
+                    if (callback.getTimeOutAction() != SynapseConstants.NONE && processTimeout) {
+
+                        // activate the fault sequence of the current sequence mediator
+                        MessageContext msgContext = callback.getSynapseOutMsgCtx();
+                        org.apache.axis2.context.MessageContext axis2MessageContext = callback.getAxis2OutMsgCtx();
+
+                        /* Clear the pipe to prevent release of the associated writer buffer
+                           to the buffer factory.
+                           This is to prevent same buffer is getting released to both source
+                           and target buffer factories. Otherwise when a late response arrives,
+                           buffer is released to both factories and makes system unstable
+                        */
+                        ((Axis2MessageContext) msgContext).getAxis2MessageContext().
+                                removeProperty(PassThroughConstants.PASS_THROUGH_PIPE);
+
+                        // add an error code to the message context, so that error sequences
+                        // can identify the cause of error
+                        msgContext.setProperty(SynapseConstants.ERROR_CODE,
+                                               SynapseConstants.HANDLER_TIME_OUT);
+                        msgContext.setProperty(SynapseConstants.ERROR_MESSAGE,
+                                               SEND_TIMEOUT_MESSAGE);
+                        NHttpServerConnection sourceConn = (NHttpServerConnection) axis2MessageContext.
+                                getProperty(PassThroughConstants.PASS_THROUGH_SOURCE_CONNECTION);
+                        if (sourceConn != null && SourceContext.get(sourceConn).getState()
+                                != ProtocolState.REQUEST_DONE) {
+                            //Suspend input to avoid invoking input ready method and set this property here
+                            //to avoid invoking the input ready method, while fault response is mediating through
+                            //the mediation since we have set REQUEST_DONE state in SourceHandler responseReady
+                            // method
+                            sourceConn.suspendInput();
+                            SourceContext sourceContext = (SourceContext) sourceConn.getContext().getAttribute
+                                    (TargetContext.CONNECTION_INFORMATION);
+                            if (sourceContext != null) {
+                                sourceContext.setIsSourceRequestMarkedToBeDiscarded(true);
                             }
+                            // This is to gurantee that the connection is closed after the response is sent and
+                            // not to release the buffer to the factory
+                            SourceContext.get(sourceConn).setShutDown(true);
 
-                            /* Clear the NO_KEEPALIVE property to prevent closing response connection when going through
-                               the fault sequence due to end point time out. Since the axis2 message context used here
-                               is the same axis2 message context used in request path and the intention of this property
-                               is to Disable HTTP keep alive for outgoing requests. If it is required this can be put
-                               in fault sequence.
-                            */
-                            ((Axis2MessageContext) msgContext).getAxis2MessageContext().
-                                    removeProperty(PassThroughConstants.NO_KEEPALIVE);
-
-                            SOAPEnvelope soapEnvelope;
-                            if (msgContext.isSOAP11()) {
-                                soapEnvelope = OMAbstractFactory.
-                                        getSOAP11Factory().createSOAPEnvelope();
-                                soapEnvelope.addChild(
-                                        OMAbstractFactory.getSOAP11Factory().createSOAPBody());
-                            } else {
-                                soapEnvelope = OMAbstractFactory.
-                                        getSOAP12Factory().createSOAPEnvelope();
-                                soapEnvelope.addChild(
-                                        OMAbstractFactory.getSOAP12Factory().createSOAPBody());
-                            }
-                            try {
-                                msgContext.setEnvelope(soapEnvelope);
-                            } catch (Throwable ex) {
-                                ContextAwareLogger.getLogger(axis2MessageContext, log, true)
-                                        .error("Exception or Error occurred resetting SOAP Envelope", ex);
-                                continue;
-                            }
+                            // We have to close the target connection since the request is invalid
+                            closeSocketOnEndpointTimeout = true;
+                        }
 
-                            Stack<FaultHandler> faultStack = msgContext.getFaultStack();
-                            if (!faultStack.isEmpty()) {
-                                FaultHandler faultHandler = faultStack.pop();
-                                if (faultHandler != null) {
-                                    try {
-                                        faultHandler.handleFault(msgContext);
-                                    } catch (Throwable ex) {
-                                        ContextAwareLogger.getLogger(axis2MessageContext, log, true)
-                                                .warn("Exception or Error occurred while "
-                                                        + "executing the fault handler", ex);
-                                        continue;
-                                    }
+                        /* Clear the NO_KEEPALIVE property to prevent closing response connection when going through
+                           the fault sequence due to end point time out. Since the axis2 message context used here
+                           is the same axis2 message context used in request path and the intention of this property
+                           is to Disable HTTP keep alive for outgoing requests. If it is required this can be put
+                           in fault sequence.
+                        */
+                        ((Axis2MessageContext) msgContext).getAxis2MessageContext().
+                                removeProperty(PassThroughConstants.NO_KEEPALIVE);
+
+                        SOAPEnvelope soapEnvelope;
+                        if (msgContext.isSOAP11()) {
+                            soapEnvelope = OMAbstractFactory.
+                                    getSOAP11Factory().createSOAPEnvelope();
+                            soapEnvelope.addChild(
+                                    OMAbstractFactory.getSOAP11Factory().createSOAPBody());
+                        } else {
+                            soapEnvelope = OMAbstractFactory.
+                                    getSOAP12Factory().createSOAPEnvelope();
+                            soapEnvelope.addChild(
+                                    OMAbstractFactory.getSOAP12Factory().createSOAPBody());
+                        }
+                        try {
+                            msgContext.setEnvelope(soapEnvelope);
+                        } catch (Throwable ex) {
+                            ContextAwareLogger.getLogger(axis2MessageContext, log, true)
+                                    .error("Exception or Error occurred resetting SOAP Envelope", ex);
+                            continue;
+                        }
+
+                        Stack<FaultHandler> faultStack = msgContext.getFaultStack();
+                        if (!faultStack.isEmpty()) {
+                            FaultHandler faultHandler = faultStack.pop();
+                            if (faultHandler != null) {
+                                try {
+                                    faultHandler.handleFault(msgContext);
+                                } catch (Throwable ex) {
+                                    ContextAwareLogger.getLogger(axis2MessageContext, log, true)
+                                            .warn("Exception or Error occurred while "
+                                                    + "executing the fault handler", ex);
+                                    continue;
                                 }
                             }
                         }
                     }
                 }
+            }
 
-                for(Object key : toRemove) {
+            for(String key : toRemove) {
 
-                    AsyncCallback callback = (AsyncCallback) callbackStore.get(key);
-                    if (callback == null) {
-                        // we will get here if we get a response from the Backend while clearing callbacks
-                        continue;
-                    }
+                AsyncCallback callback = callbackStore.remove(key);
+                if (callback == null) {
+                    // we will get here if we get a response from the Backend while clearing callbacks
+                    continue;
+                }
 
-                    org.apache.synapse.MessageContext synapseOutMsgCtx = callback.getSynapseOutMsgCtx();
-                    ConcurrencyThrottlingUtils.decrementConcurrencyThrottleAccessController(synapseOutMsgCtx);
-                    callbackStore.remove(key);
-                    if (RuntimeStatisticCollector.isStatisticsEnabled()) {
-                        CallbackStatisticCollector.callbackCompletionEvent(callback.getSynapseOutMsgCtx(), (String) key);
-                    }
-                    if (closeSocketOnEndpointTimeout || conf.isCloseSocketOnEndpointTimeout()) {
-                        TransportOutDescription transportOut = callback.getAxis2OutMsgCtx().getTransportOut();
-                        if (transportOut != null && transportOut.getSender() != null) {
-                            // Call the TransportSender's onAppError method to release any resources
-                            transportOut.getSender().onAppError(callback.getAxis2OutMsgCtx());
-                        }
+                org.apache.synapse.MessageContext synapseOutMsgCtx = callback.getSynapseOutMsgCtx();
+                ConcurrencyThrottlingUtils.decrementConcurrencyThrottleAccessController(synapseOutMsgCtx);
+                EndpointConcurrencyLimiter.release(synapseOutMsgCtx, false);
+                if (RuntimeStatisticCollector.isStatisticsEnabled()) {
+                    CallbackStatisticCollector.callbackCompletionEvent(callback.getSynapseOutMsgCtx(), key);
+                }
+                if (closeSocketOnEndpointTimeout || conf.isCloseSocketOnEndpointTimeout()) {
+                    TransportOutDescription transportOut = callback.getAxis2OutMsgCtx().getTransportOut();
+                    if (transportOut != null && transportOut.getSender() != null) {
+                        // Call the TransportSender's onAppError method to release any resources
+                        transportOut.getSender().onAppError(callback.getAxis2OutMsgCtx());
                     }
                 }
             }
@@ -129,6 +129,9 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint,
 
     private boolean isEdited = false;
 
+    /** Limits the messages in flight through this endpoint, if a concurrency limit is configured */
+    private volatile EndpointConcurrencyLimiter concurrencyLimiter = null;
+
     /** Attributes for json representation  */
     public static final String NAME_JSON_ATT = "name";
     public static final String TYPE_JSON_ATT = "type";
@@ -156,6 +159,10 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint,
         return context;
     }
 
+    public EndpointConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
     public String getName() {
         return endpointName;
     }
@@ -304,6 +311,12 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint,
 
             context = new EndpointContext(getName(), getDefinition(), isClusteringEnabled,
                     cc, metricsMBean);
+
+            if (definition != null && definition.getMaxConcurrency() > 0) {
+                concurrencyLimiter = new EndpointConcurrencyLimiter(this,
+                        definition.getMaxConcurrency(), definition.getMinConcurrency(),
+                        definition.getConcurrencyQueueSize(), definition.isAdaptiveConcurrency());
+            }
         }
         initialized = true;
 
@@ -340,6 +353,18 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint,
 
         logSetter();
 
+        EndpointConcurrencyLimiter limiter = concurrencyLimiter;
+        if (limiter != null) {
+            EndpointConcurrencyLimiter.Result result = limiter.acquire(synCtx);
+            if (result == EndpointConcurrencyLimiter.Result.QUEUED) {
+                // the limiter sends the message once a slot is free
+                return;
+            } else if (result == EndpointConcurrencyLimiter.Result.REJECTED) {
+                onConcurrencyLimitExceeded(synCtx);
+                return;
+            }
+        }
+
         Integer statisticReportingIndex = null;
         boolean isStatisticsEnabled = RuntimeStatisticCollector.isStatisticsEnabled();
         if (isStatisticsEnabled) {
@@ -429,6 +454,11 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint,
         // Send the message through this endpoint
         synCtx.getEnvironment().send(definition, synCtx);
 
+        if (limiter != null && "true".equals(synCtx.getProperty(SynapseConstants.OUT_ONLY))) {
+            // no response will arrive to return the permit
+            EndpointConcurrencyLimiter.release(synCtx, true);
+        }
+
         if (isStatisticsEnabled) {
             CloseEventCollector.closeEntryEvent(synCtx, getReportingName(), ComponentType.ENDPOINT,
                     statisticReportingIndex, false);
@@ -574,6 +604,7 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint,
      * @param synCtx the message at hand
      */
     public void onFault(MessageContext synCtx) {
+        EndpointConcurrencyLimiter.release(synCtx, false);
         EndpointDefinition endpointDefinition = getDefinition();
         if (endpointDefinition != null && endpointDefinition.getTimeoutAction() == SynapseConstants.DISCARD) {
             log.info("Ignoring fault handlers since the timeout action is set to DISCARD");
@@ -746,6 +777,32 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint,
     }
 
 
+    /**
+     * Handles a message rejected by the concurrency limit of this endpoint, by running the
+     * configured reject sequence or, if there is none, the fault handlers of the message.
+     *
+     * @param synCtx the rejected message
+     */
+    protected void onConcurrencyLimitExceeded(MessageContext synCtx) {
+        String errorMsg = "Concurrency limit reached on " + this;
+        if (log.isDebugEnabled()) {
+            log.debug(errorMsg + ", rejecting message : " + synCtx.getMessageID());
+        }
+        setErrorOnMessage(synCtx, SynapseConstants.ENDPOINT_CONCURRENCY_LIMIT_EXCEEDED, errorMsg);
+
+        String rejectSequence = definition.getConcurrencyRejectSequence();
+        if (rejectSequence != null) {
+            Mediator rejectMediator = synCtx.getSequence(rejectSequence);
+            if (rejectMediator != null) {
+                rejectMediator.mediate(synCtx);
+                return;
+            }
+            log.warn("Concurrency limit reject sequence : " + rejectSequence + " for : " +
+                     endpointName + " cannot be found");
+        }
+        informFailure(synCtx, SynapseConstants.ENDPOINT_CONCURRENCY_LIMIT_EXCEEDED, errorMsg);
+    }
+
     protected void setErrorOnMessage(MessageContext synCtx, Integer errorCode, String errorMsg) {
 		Map<String, Integer> mEndpointLog =
 		                                    (Map<String, Integer>) synCtx.getProperty(SynapseConstants.ENDPOINT_LOG);
@@ -0,0 +1,307 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseConstants;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of messages in flight through an endpoint, so that a slow backend cannot hold
+ * every worker thread and connection. A message that finds the endpoint at its limit waits in a
+ * bounded queue and is sent when a running message completes, or is rejected when the queue is
+ * full.
+ * <p>
+ * In adaptive mode the limit moves between the configured minimum and maximum. It grows by one
+ * for every limit's worth of successful responses, and shrinks multiplicatively on failures or
+ * when the round trip time exceeds twice the lowest round trip time recently observed.
+ * <p>
+ * A message holds a {@link Permit} in the {@link SynapseConstants#ENDPOINT_CONCURRENCY_PERMIT}
+ * property from the time it is sent until its response, fault or timeout is handled, at which point
+ * {@link #release(MessageContext, boolean)} returns the permit.
+ */
+public class EndpointConcurrencyLimiter {
+
+    private static final Log log = LogFactory.getLog(EndpointConcurrencyLimiter.class);
+
+    /** Factor applied to the adaptive limit on congestion */
+    private static final double DECREASE_FACTOR = 0.9;
+    /** Round trip time above the minimum by this factor is treated as congestion */
+    private static final double RTT_TOLERANCE = 2.0;
+    /** Number of samples after which the minimum round trip time is re-learned */
+    private static final int MIN_RTT_WINDOW = 1000;
+
+    public enum Result {
+        /** The message may be sent right away */
+        ACQUIRED,
+        /** The message has been queued and will be sent by the limiter */
+        QUEUED,
+        /** The endpoint is at its limit and the queue is full */
+        REJECTED
+    }
+
+    private final AbstractEndpoint endpoint;
+    private final int maxLimit;
+    private final int minLimit;
+    private final int queueSize;
+    private final boolean adaptive;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<MessageContext> waiting = new ConcurrentLinkedQueue<MessageContext>();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile int limit;
+
+    // adaptive state, guarded by this
+    private double estimatedLimit;
+    private long minRtt = Long.MAX_VALUE;
+    private long windowMinRtt = Long.MAX_VALUE;
+    private int windowSamples;
+    private int samplesSinceDecrease;
+
+    public EndpointConcurrencyLimiter(AbstractEndpoint endpoint, int maxLimit, int minLimit,
+                                      int queueSize, boolean adaptive) {
+        this.endpoint = endpoint;
+        this.maxLimit = maxLimit;
+        this.minLimit = Math.max(1, Math.min(minLimit, maxLimit));
+        this.queueSize = Math.max(0, queueSize);
+        this.adaptive = adaptive;
+        this.limit = maxLimit;
+        this.estimatedLimit = maxLimit;
+    }
+
+    /**
+     * Tries to take a permit for the given message.
+     *
+     * @param synCtx message about to be sent through the endpoint
+     * @return whether the message may be sent now, has been queued or has been rejected
+     */
+    public Result acquire(MessageContext synCtx) {
+        Object current = synCtx.getProperty(SynapseConstants.ENDPOINT_CONCURRENCY_PERMIT);
+        if (current instanceof Permit && ((Permit) current).owner == synCtx) {
+            Permit permit = (Permit) current;
+            if (permit.limiter == this && permit.granted) {
+                // the message was taken off the queue, its slot is already counted
+                permit.granted = false;
+                permit.startTime = System.nanoTime();
+                return Result.ACQUIRED;
+            }
+            // a permit left over from an earlier send of the same message
+            permit.release(false, false);
+        }
+
+        if (waiting.isEmpty()) {
+            while (true) {
+                int count = inFlight.get();
+                if (count >= limit) {
+                    break;
+                }
+                if (inFlight.compareAndSet(count, count + 1)) {
+                    attach(synCtx, false);
+                    return Result.ACQUIRED;
+                }
+            }
+        }
+
+        if (queued.incrementAndGet() <= queueSize) {
+            waiting.offer(synCtx);
+            if (log.isDebugEnabled()) {
+                log.debug(endpoint + " is at its concurrency limit of " + limit +
+                        ", message " + synCtx.getMessageID() + " is queued");
+            }
+            drain();
+            return Result.QUEUED;
+        }
+        queued.decrementAndGet();
+        rejected.increment();
+        return Result.REJECTED;
+    }
+
+    /**
+     * Returns the permit held by the given message, if any. Calling this more than once for the
+     * same message has no further effect.
+     *
+     * @param synCtx  message that has completed
+     * @param success whether the backend responded without a fault
+     */
+    public static void release(MessageContext synCtx, boolean success) {
+        Object permit = synCtx.getProperty(SynapseConstants.ENDPOINT_CONCURRENCY_PERMIT);
+        // cloned messages carry the permit of the original, which is not theirs to release
+        if (permit instanceof Permit && ((Permit) permit).owner == synCtx) {
+            ((Permit) permit).release(success, true);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    private Permit attach(MessageContext synCtx, boolean granted) {
+        Permit permit = new Permit(this, synCtx, granted);
+        synCtx.setProperty(SynapseConstants.ENDPOINT_CONCURRENCY_PERMIT, permit);
+        return permit;
+    }
+
+    private void onRelease(long startTime, boolean success, boolean sample) {
+        inFlight.decrementAndGet();
+        if (adaptive && sample) {
+            update(System.nanoTime() - startTime, success);
+        }
+        drain();
+    }
+
+    /**
+     * Sends queued messages while there are free slots. Both a completing message and a newly
+     * queued one call this, so a message queued while a slot is being freed is not left behind.
+     */
+    private void drain() {
+        while (!waiting.isEmpty()) {
+            int count = inFlight.get();
+            if (count >= limit) {
+                return;
+            }
+            if (!inFlight.compareAndSet(count, count + 1)) {
+                continue;
+            }
+            MessageContext next = waiting.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            queued.decrementAndGet();
+            dispatch(next);
+        }
+    }
+
+    private void dispatch(final MessageContext synCtx) {
+        final Permit permit = attach(synCtx, true);
+        try {
+            synCtx.getEnvironment().getExecutorService().execute(new Runnable() {
+                public void run() {
+                    try {
+                        endpoint.send(synCtx);
+                    } catch (Throwable t) {
+                        log.error("Error sending queued message " + synCtx.getMessageID() +
+                                " through " + endpoint, t);
+                        permit.release(false, false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Unable to send queued message " + synCtx.getMessageID() + " through " +
+                    endpoint + ", worker pool is exhausted");
+            permit.release(false, false);
+            rejected.increment();
+            endpoint.onConcurrencyLimitExceeded(synCtx);
+        }
+    }
+
+    /**
+     * Adjusts the adaptive limit with the outcome of a completed message.
+     *
+     * @param rtt     round trip time of the message in nanoseconds
+     * @param success whether the backend responded without a fault
+     */
+    synchronized void update(long rtt, boolean success) {
+        if (success) {
+            if (rtt < minRtt) {
+                minRtt = rtt;
+            }
+            if (rtt < windowMinRtt) {
+                windowMinRtt = rtt;
+            }
+            if (++windowSamples >= MIN_RTT_WINDOW) {
+                // forget old minimums so that the limit follows a backend that got slower for good
+                minRtt = windowMinRtt;
+                windowMinRtt = Long.MAX_VALUE;
+                windowSamples = 0;
+            }
+        }
+
+        samplesSinceDecrease++;
+        boolean congested = !success || rtt > minRtt * RTT_TOLERANCE;
+        if (congested) {
+            // back off at most once per window of in-flight messages
+            if (samplesSinceDecrease >= estimatedLimit) {
+                estimatedLimit = Math.max(minLimit, estimatedLimit * DECREASE_FACTOR);
+                samplesSinceDecrease = 0;
+            }
+        } else {
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1 / estimatedLimit);
+        }
+
+        int newLimit = Math.max(minLimit, (int) estimatedLimit);
+        if (newLimit != limit && log.isDebugEnabled()) {
+            log.debug("Concurrency limit of " + endpoint + " changed from " + limit + " to " +
+                    newLimit);
+        }
+        limit = newLimit;
+    }
+
+    /**
+     * A slot of the limiter held by a message
+     */
+    static final class Permit {
+
+        private final EndpointConcurrencyLimiter limiter;
+        private final MessageContext owner;
+        private final AtomicBoolean released = new AtomicBoolean();
+        /** set when the slot was taken for a queued message that has not been sent yet */
+        private volatile boolean granted;
+        private volatile long startTime = System.nanoTime();
+
+        Permit(EndpointConcurrencyLimiter limiter, MessageContext owner, boolean granted) {
+            this.limiter = limiter;
+            this.owner = owner;
+            this.granted = granted;
+        }
+
+        void release(boolean success, boolean sample) {
+            if (released.compareAndSet(false, true)) {
+                limiter.onRelease(startTime, success, sample);
+            }
+        }
+    }
+}
@@ -189,6 +189,24 @@ public class EndpointDefinition implements AspectConfigurable {
     /** Expression to evaluate dynamic ws policy */
     private SynapsePath dynamicPolicy = null;
 
+    /** Maximum number of messages in flight through the endpoint, no limit if not positive */
+    private int maxConcurrency = -1;
+    /** The lowest limit the adaptive concurrency limit may shrink to */
+    private int minConcurrency = 1;
+    /** Number of messages that may wait for a free slot when the concurrency limit is reached */
+    private int concurrencyQueueSize = 0;
+    /** Adjust the concurrency limit between the minimum and maximum based on the response times */
+    private boolean adaptiveConcurrency = false;
+    /** Sequence to run for messages rejected by the concurrency limit */
+    private String concurrencyRejectSequence = null;
+
+    /** Serve responses to GET requests from the shared endpoint response cache */
+    private boolean responseCacheEnabled = false;
+    /** Request headers that are part of the response cache key, on top of the method and URL */
+    private List<String> responseCacheHeaders = new ArrayList<String>();
+    /** Seconds to cache responses that carry no freshness information, not cached if zero */
+    private long responseCacheDefaultMaxAge = 0;
+
     public EndpointDefinition() {
         try {
             // Set the timeout value to global timeout value.
@@ -697,6 +715,70 @@ public class EndpointDefinition implements AspectConfigurable {
         retryEnabledErrorCodes.add(code);
     }
 
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getMinConcurrency() {
+        return minConcurrency;
+    }
+
+    public void setMinConcurrency(int minConcurrency) {
+        this.minConcurrency = minConcurrency;
+    }
+
+    public int getConcurrencyQueueSize() {
+        return concurrencyQueueSize;
+    }
+
+    public void setConcurrencyQueueSize(int concurrencyQueueSize) {
+        this.concurrencyQueueSize = concurrencyQueueSize;
+    }
+
+    public boolean isAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
+    public String getConcurrencyRejectSequence() {
+        return concurrencyRejectSequence;
+    }
+
+    public void setConcurrencyRejectSequence(String concurrencyRejectSequence) {
+        this.concurrencyRejectSequence = concurrencyRejectSequence;
+    }
+
+    public boolean isResponseCacheEnabled() {
+        return responseCacheEnabled;
+    }
+
+    public void setResponseCacheEnabled(boolean responseCacheEnabled) {
+        this.responseCacheEnabled = responseCacheEnabled;
+    }
+
+    public List<String> getResponseCacheHeaders() {
+        return responseCacheHeaders;
+    }
+
+    public void setResponseCacheHeaders(List<String> responseCacheHeaders) {
+        this.responseCacheHeaders = responseCacheHeaders;
+    }
+
+    public long getResponseCacheDefaultMaxAge() {
+        return responseCacheDefaultMaxAge;
+    }
+
+    public void setResponseCacheDefaultMaxAge(long responseCacheDefaultMaxAge) {
+        this.responseCacheDefaultMaxAge = responseCacheDefaultMaxAge;
+    }
+
     public boolean isHTTPEndpoint() {
         return isHTTPEndpoint;
     }
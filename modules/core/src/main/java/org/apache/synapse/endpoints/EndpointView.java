@@ -554,6 +554,89 @@ public class EndpointView implements EndpointViewMBean, MessageLevelMetricsColle
         }
     }
 
+    /**
+     * Current concurrency limit of the endpoint, zero if the endpoint is not limited
+     * @return concurrency limit
+     */
+    public int getConcurrencyLimit() {
+        if (endpoint.getChildren() != null) {
+            int concurrencyLimit = 0;
+            for (Endpoint e : endpoint.getChildren()) {
+                if (e.getMetricsMBean() != null) {
+                    concurrencyLimit += e.getMetricsMBean().getConcurrencyLimit();
+                }
+            }
+            return concurrencyLimit;
+        } else {
+            EndpointConcurrencyLimiter limiter = getConcurrencyLimiter();
+            return limiter != null ? limiter.getLimit() : 0;
+        }
+    }
+
+    /**
+     * Number of messages sent and awaiting a response, counted only on limited endpoints
+     * @return # of messages in flight
+     */
+    public int getInFlightRequests() {
+        if (endpoint.getChildren() != null) {
+            int inFlightRequests = 0;
+            for (Endpoint e : endpoint.getChildren()) {
+                if (e.getMetricsMBean() != null) {
+                    inFlightRequests += e.getMetricsMBean().getInFlightRequests();
+                }
+            }
+            return inFlightRequests;
+        } else {
+            EndpointConcurrencyLimiter limiter = getConcurrencyLimiter();
+            return limiter != null ? limiter.getInFlight() : 0;
+        }
+    }
+
+    /**
+     * Number of messages waiting for the concurrency limit
+     * @return # of messages queued
+     */
+    public int getQueuedRequests() {
+        if (endpoint.getChildren() != null) {
+            int queuedRequests = 0;
+            for (Endpoint e : endpoint.getChildren()) {
+                if (e.getMetricsMBean() != null) {
+                    queuedRequests += e.getMetricsMBean().getQueuedRequests();
+                }
+            }
+            return queuedRequests;
+        } else {
+            EndpointConcurrencyLimiter limiter = getConcurrencyLimiter();
+            return limiter != null ? limiter.getQueued() : 0;
+        }
+    }
+
+    /**
+     * Number of messages rejected by the concurrency limit
+     * @return # of messages rejected
+     */
+    public long getRejectedRequests() {
+        if (endpoint.getChildren() != null) {
+            long rejectedRequests = 0;
+            for (Endpoint e : endpoint.getChildren()) {
+                if (e.getMetricsMBean() != null) {
+                    rejectedRequests += e.getMetricsMBean().getRejectedRequests();
+                }
+            }
+            return rejectedRequests;
+        } else {
+            EndpointConcurrencyLimiter limiter = getConcurrencyLimiter();
+            return limiter != null ? limiter.getRejected() : 0;
+        }
+    }
+
+    private EndpointConcurrencyLimiter getConcurrencyLimiter() {
+        if (endpoint instanceof AbstractEndpoint) {
+            return ((AbstractEndpoint) endpoint).getConcurrencyLimiter();
+        }
+        return null;
+    }
+
     public long getMinSizeReceived() {
         if (endpoint.getChildren() != null) {
             long minSizeReceived = 0;
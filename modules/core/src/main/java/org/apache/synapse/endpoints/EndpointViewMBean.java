@@ -57,6 +57,11 @@ public interface EndpointViewMBean {
     public int getLast5MinuteEndpointTimeouts();
     public int getLast15MinuteEndpointTimeouts();
 
+    public int getConcurrencyLimit();
+    public int getInFlightRequests();
+    public int getQueuedRequests();
+    public long getRejectedRequests();
+
     // JMX Operations
     public void switchOn() throws Exception;
     public void switchOff() throws Exception;
@@ -74,6 +74,9 @@ public class FailoverEndpoint extends AbstractEndpoint {
     /** check message need to be built before sending */
     private boolean buildMessage = false;
 
+    /** Hedging of idempotent requests, if enabled */
+    private HedgingPolicy hedgingPolicy = null;
+
     public void init(SynapseEnvironment synapseEnvironment) {
         if (!initialized) {
             super.init(synapseEnvironment);
@@ -173,6 +176,9 @@ public class FailoverEndpoint extends AbstractEndpoint {
                     if (isARetry && metricsMBean != null) {
                         metricsMBean.reportSendingFault(SynapseConstants.ENDPOINT_FO_FAIL_OVER);
                     }
+                    if (hedgingPolicy != null && !isARetry) {
+                        hedgingPolicy.prepare(this, synCtx, endpoint);
+                    }
                     synCtx.pushFaultHandler(this);
                     if(endpoint instanceof AbstractEndpoint){
                     	org.apache.axis2.context.MessageContext axisMC = ((Axis2MessageContext) synCtx).getAxis2MessageContext();
@@ -223,6 +229,9 @@ public class FailoverEndpoint extends AbstractEndpoint {
                 if (isARetry && metricsMBean != null) {
                     metricsMBean.reportSendingFault(SynapseConstants.ENDPOINT_FO_FAIL_OVER);
                 }
+                if (hedgingPolicy != null && !isARetry) {
+                    hedgingPolicy.prepare(this, synCtx, currentEndpoint);
+                }
                 synCtx.pushFaultHandler(this);
                 currentEndpoint.send(synCtx);
 
@@ -235,6 +244,9 @@ public class FailoverEndpoint extends AbstractEndpoint {
                         if (isARetry && metricsMBean != null) {
                             metricsMBean.reportSendingFault(SynapseConstants.ENDPOINT_FO_FAIL_OVER);
                         }
+                        if (hedgingPolicy != null && !isARetry) {
+                            hedgingPolicy.prepare(this, synCtx, currentEndpoint);
+                        }
                         synCtx.pushFaultHandler(this);
                         currentEndpoint.send(synCtx);
                         break;
@@ -313,6 +325,14 @@ public class FailoverEndpoint extends AbstractEndpoint {
         this.dynamic = dynamic;
     }
 
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
     /**
      * Set buildMessage Attribute from failover config
      * @param buildMessage true or false
@@ -0,0 +1,258 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.FaultHandler;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.util.MessageHelper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Stack;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the attempts of a request sent through an endpoint with a {@link HedgingPolicy}. The
+ * request and its hedge share this object through the {@link SynapseConstants#HEDGED_REQUEST}
+ * property. The first successful response completes the request and is processed, responses of the
+ * other attempt are discarded. A failure is only processed once no other attempt is outstanding,
+ * so that it goes through the usual failover handling.
+ */
+public class HedgedRequest {
+
+    private static final Log log = LogFactory.getLog(HedgedRequest.class);
+
+    private final HedgingPolicy policy;
+    private final AbstractEndpoint parent;
+    private final MessageContext primary;
+    private final Endpoint primaryChild;
+    private final long startTime = System.currentTimeMillis();
+    // state of the request before it was sent to the child, restored on the copy
+    private final int faultStackDepth;
+    private final EndpointReference to;
+
+    // guarded by this
+    private MessageContext hedge;
+    private long hedgeStartTime;
+    private ScheduledFuture<?> timer;
+    private int pending = 1;
+    private boolean done;
+
+    HedgedRequest(HedgingPolicy policy, AbstractEndpoint parent, MessageContext primary,
+                  Endpoint primaryChild) {
+        this.policy = policy;
+        this.parent = parent;
+        this.primary = primary;
+        this.primaryChild = primaryChild;
+        this.faultStackDepth = primary.getFaultStack().size();
+        this.to = primary.getTo();
+    }
+
+    /**
+     * Called when an attempt of a request has completed, either with a response, a fault or a
+     * timeout.
+     *
+     * @param synCtx  the outgoing message of the attempt
+     * @param success whether the attempt received a response without a fault
+     * @return true if the outcome should be processed, false if it should be discarded
+     */
+    public static boolean complete(MessageContext synCtx, boolean success) {
+
+        Object request = synCtx.getProperty(SynapseConstants.HEDGED_REQUEST);
+        if (!(request instanceof HedgedRequest)) {
+            return true;
+        }
+        boolean proceed = ((HedgedRequest) request).onComplete(synCtx, success);
+        if (proceed) {
+            // later retries of this message through the failover logic are not hedged
+            synCtx.getPropertyKeySet().remove(SynapseConstants.HEDGED_REQUEST);
+        }
+        return proceed;
+    }
+
+    synchronized void schedule(long delay) {
+
+        try {
+            timer = HedgingPolicy.getScheduler().schedule(new Runnable() {
+                public void run() {
+                    fire();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            timer = null;
+        }
+    }
+
+    private synchronized boolean onComplete(MessageContext synCtx, boolean success) {
+
+        if (done) {
+            if (log.isDebugEnabled()) {
+                log.debug("Discarding the outcome of message : " + synCtx.getMessageID() +
+                        " sent through " + parent + ", the request was already completed");
+            }
+            return false;
+        }
+        pending--;
+        if (!success && pending > 0) {
+            if (log.isDebugEnabled()) {
+                log.debug("Discarding the failure of message : " + synCtx.getMessageID() +
+                        " sent through " + parent + ", another attempt is outstanding");
+            }
+            return false;
+        }
+
+        done = true;
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        if (success) {
+            boolean isHedge = synCtx == hedge;
+            policy.recordLatency(System.currentTimeMillis() - (isHedge ? hedgeStartTime : startTime));
+            if (isHedge) {
+                policy.onHedgeWon();
+            }
+        }
+        return true;
+    }
+
+    private void fire() {
+
+        final MessageContext copy;
+        synchronized (this) {
+            // the request is copied while holding the lock, its outcome is not processed meanwhile
+            if (done || !policy.hasBudget() || !policy.isReplayable(primary)) {
+                return;
+            }
+            try {
+                copy = copyRequest();
+            } catch (AxisFault e) {
+                log.warn("Unable to copy the message to hedge the request through " + parent, e);
+                return;
+            }
+        }
+
+        final Endpoint child = selectChild(copy);
+        if (child == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (done || !policy.tryAcquireBudget()) {
+                return;
+            }
+            hedge = copy;
+            pending++;
+            hedgeStartTime = System.currentTimeMillis();
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Hedging message : " + primary.getMessageID() + " sent through " + parent +
+                    " to " + child + " as message : " + copy.getMessageID());
+        }
+        try {
+            copy.getEnvironment().getExecutorService().execute(new Runnable() {
+                public void run() {
+                    try {
+                        copy.pushFaultHandler(parent);
+                        child.send(copy);
+                    } catch (Throwable t) {
+                        log.warn("Error while sending the hedged request through " + parent, t);
+                        abandon(copy, child);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            abandon(copy, child);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private MessageContext copyRequest() throws AxisFault {
+
+        MessageContext copy = MessageHelper.cloneMessageContext(primary);
+        // drop the fault handlers pushed while the request was sent to its child
+        Stack<FaultHandler> faultStack = copy.getFaultStack();
+        while (faultStack.size() > faultStackDepth) {
+            faultStack.pop();
+        }
+        copy.setTo(to);
+        copy.setProperty(SynapseConstants.HEDGED_REQUEST, this);
+        Object endpointLog = copy.getProperty(SynapseConstants.ENDPOINT_LOG);
+        if (endpointLog instanceof Map) {
+            // the copy is retried independently of the request, do not share the history
+            copy.setProperty(SynapseConstants.ENDPOINT_LOG,
+                    new HashMap<String, Integer>((Map<String, Integer>) endpointLog));
+        }
+        return copy;
+    }
+
+    /**
+     * Gives up on a hedge that could not be sent. If the request has failed in the meantime, its
+     * failure was discarded in favour of the hedge, so the failover handling continues with the
+     * hedge instead.
+     */
+    private void abandon(MessageContext copy, Endpoint child) {
+
+        if (complete(copy, false)) {
+            copy.setProperty(SynapseConstants.LAST_ENDPOINT, child);
+            parent.onChildEndpointFail(child, copy);
+        }
+    }
+
+    /**
+     * Selects the child endpoint to send the hedge to. A load balance endpoint asks its algorithm,
+     * a failover endpoint takes the next ready child in order. The child the request was sent to is
+     * never selected.
+     */
+    Endpoint selectChild(MessageContext copy) {
+
+        List<Endpoint> children = parent.getChildren();
+        if (children == null) {
+            return null;
+        }
+        if (parent instanceof LoadbalanceEndpoint) {
+            LoadbalanceEndpoint loadbalanceEndpoint = (LoadbalanceEndpoint) parent;
+            for (int i = 0; i < children.size(); i++) {
+                Endpoint child = loadbalanceEndpoint.getNextChild(copy);
+                if (child == null) {
+                    return null;
+                }
+                if (child != primaryChild && child.readyToSend()) {
+                    return child;
+                }
+            }
+            return null;
+        }
+        for (Endpoint child : children) {
+            if (child != primaryChild && child.readyToSend()) {
+                return child;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints;
+
+import org.apache.axis2.Constants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.transport.passthru.PassThroughConstants;
+import org.apache.synapse.util.concurrent.SynapseThreadFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hedging configuration and runtime state of a failover or load balance endpoint. When hedging is
+ * enabled, an idempotent request that has not been answered within a delay taken from a percentile
+ * of the recent response times of the endpoint is sent again to a different child endpoint, and the
+ * first successful response is used. The number of extra requests is capped by a budget expressed
+ * as a fraction of the requests sent through the endpoint.
+ * <p>
+ * A request is idempotent if it is a GET, HEAD or OPTIONS request, if the
+ * {@link SynapseConstants#IDEMPOTENT_REQUEST} property is set to true on the message, or if the
+ * hedging policy is configured to treat every request as idempotent.
+ */
+public class HedgingPolicy {
+
+    private static final Log log = LogFactory.getLog(HedgingPolicy.class);
+
+    /** Number of response times kept to compute the hedging delay */
+    private static final int HISTORY_SIZE = 512;
+    /** Response times needed before the first request is hedged */
+    private static final int MIN_SAMPLES = 50;
+    /** The hedging delay is recomputed after this many new response times */
+    private static final int RECOMPUTE_INTERVAL = 32;
+    /** Hedges that may be sent in a burst when the budget has been saved up */
+    private static final long MAX_BUDGET_TOKENS = 10;
+    private static final long TOKEN = 1000;
+
+    private static final List<String> IDEMPOTENT_METHODS = Arrays.asList("GET", "HEAD", "OPTIONS");
+
+    /** Percentile of the recent response times to wait before hedging */
+    private double percentile = 95;
+    /** Lower bound of the hedging delay in milliseconds */
+    private long minDelay = 0;
+    /** Upper bound of the hedging delay in milliseconds */
+    private long maxDelay = Long.MAX_VALUE;
+    /** Fraction of the requests that may be hedged */
+    private double budget = 0.1;
+    /** Treat every request through the endpoint as idempotent */
+    private boolean idempotent = false;
+
+    private final AtomicLongArray history = new AtomicLongArray(HISTORY_SIZE);
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicBoolean recomputing = new AtomicBoolean();
+    private volatile long hedgeDelay = -1;
+
+    /** Budget in thousandths of a hedge */
+    private final AtomicLong budgetTokens = new AtomicLong();
+
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+
+    /**
+     * Prepares hedging for a request that is about to be sent to the given child endpoint, the
+     * first time it goes through the parent endpoint. Does nothing if the request is not
+     * idempotent. Otherwise the response time of the request is recorded, and if a hedging delay is
+     * known and the budget allows, a hedge is scheduled. The request is only copied if the delay
+     * elapses before it is answered, as most requests never hedge.
+     *
+     * @param parent the failover or load balance endpoint
+     * @param synCtx the request
+     * @param child  the child endpoint the request is sent to
+     */
+    public void prepare(AbstractEndpoint parent, MessageContext synCtx, Endpoint child) {
+
+        if (!isIdempotent(synCtx) || "true".equals(synCtx.getProperty(SynapseConstants.OUT_ONLY))) {
+            return;
+        }
+
+        HedgedRequest request = new HedgedRequest(this, parent, synCtx, child);
+        synCtx.setProperty(SynapseConstants.HEDGED_REQUEST, request);
+
+        addBudget();
+        long delay = hedgeDelay;
+        if (delay < 0 || !hasBudget() || parent.getChildren().size() < 2) {
+            return;
+        }
+        request.schedule(delay);
+    }
+
+    /**
+     * Whether the given request may be sent more than once
+     *
+     * @param synCtx the request
+     * @return true if the request is idempotent
+     */
+    public boolean isIdempotent(MessageContext synCtx) {
+
+        if (idempotent) {
+            return true;
+        }
+        Object flag = synCtx.getProperty(SynapseConstants.IDEMPOTENT_REQUEST);
+        if (flag != null) {
+            return Boolean.parseBoolean(flag.toString());
+        }
+        if (synCtx instanceof Axis2MessageContext) {
+            Object method = ((Axis2MessageContext) synCtx).getAxis2MessageContext()
+                    .getProperty(Constants.Configuration.HTTP_METHOD);
+            return method != null && IDEMPOTENT_METHODS.contains(method.toString().toUpperCase());
+        }
+        return false;
+    }
+
+    /**
+     * Whether the body of a request that has been sent can still be copied to send it again. A
+     * streamed body has been consumed by the first attempt, only a built or empty body is kept.
+     *
+     * @param synCtx the request
+     * @return true if the request can be copied
+     */
+    boolean isReplayable(MessageContext synCtx) {
+
+        if (!(synCtx instanceof Axis2MessageContext)) {
+            return true;
+        }
+        org.apache.axis2.context.MessageContext axis2Ctx =
+                ((Axis2MessageContext) synCtx).getAxis2MessageContext();
+        return Boolean.TRUE.equals(axis2Ctx.getProperty(PassThroughConstants.NO_ENTITY_BODY))
+                || Boolean.TRUE.equals(axis2Ctx.getProperty(PassThroughConstants.MESSAGE_BUILDER_INVOKED));
+    }
+
+    /**
+     * Records the response time of a request through the endpoint
+     *
+     * @param latency response time in milliseconds
+     */
+    public void recordLatency(long latency) {
+
+        long count = samples.getAndIncrement();
+        history.set((int) (count % HISTORY_SIZE), latency);
+        if ((count + 1) >= MIN_SAMPLES && (count + 1) % RECOMPUTE_INTERVAL == 0) {
+            recomputeDelay(Math.min(count + 1, HISTORY_SIZE));
+        }
+    }
+
+    /**
+     * Current hedging delay in milliseconds, or -1 until enough response times are recorded
+     *
+     * @return hedging delay
+     */
+    public long getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    boolean hasBudget() {
+        return budgetTokens.get() >= TOKEN;
+    }
+
+    boolean tryAcquireBudget() {
+
+        while (true) {
+            long tokens = budgetTokens.get();
+            if (tokens < TOKEN) {
+                return false;
+            }
+            if (budgetTokens.compareAndSet(tokens, tokens - TOKEN)) {
+                hedgesSent.increment();
+                return true;
+            }
+        }
+    }
+
+    void onHedgeWon() {
+        hedgesWon.increment();
+    }
+
+    private void addBudget() {
+
+        long earned = (long) (budget * TOKEN);
+        while (true) {
+            long tokens = budgetTokens.get();
+            if (tokens >= MAX_BUDGET_TOKENS * TOKEN) {
+                return;
+            }
+            if (budgetTokens.compareAndSet(tokens, Math.min(tokens + earned, MAX_BUDGET_TOKENS * TOKEN))) {
+                return;
+            }
+        }
+    }
+
+    private void recomputeDelay(long count) {
+
+        if (!recomputing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long[] latencies = new long[(int) count];
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = history.get(i);
+            }
+            Arrays.sort(latencies);
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            long delay = latencies[Math.max(0, Math.min(index, latencies.length - 1))];
+            hedgeDelay = Math.max(minDelay, Math.min(delay, maxDelay));
+        } finally {
+            recomputing.set(false);
+        }
+    }
+
+    static ScheduledThreadPoolExecutor getScheduler() {
+        return Holder.SCHEDULER;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    public long getMinDelay() {
+        return minDelay;
+    }
+
+    public void setMinDelay(long minDelay) {
+        this.minDelay = minDelay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public void setMaxDelay(long maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    public void setBudget(double budget) {
+        this.budget = budget;
+    }
+
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    public void setIdempotent(boolean idempotent) {
+        this.idempotent = idempotent;
+    }
+
+    public long getHedgesSent() {
+        return hedgesSent.sum();
+    }
+
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    private static class Holder {
+
+        private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+        private static ScheduledThreadPoolExecutor createScheduler() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                    new SynapseThreadFactory(new ThreadGroup("endpoint-hedging-group"),
+                            "endpoint-hedging"));
+            // most hedges are cancelled because the first request answers in time
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+}
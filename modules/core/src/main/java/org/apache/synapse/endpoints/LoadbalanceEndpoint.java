@@ -106,6 +106,9 @@ public class LoadbalanceEndpoint extends AbstractEndpoint {
      */
     private boolean buildMessageAtt = false;
 
+    /** Hedging of idempotent requests, if enabled */
+    private HedgingPolicy hedgingPolicy = null;
+
     @Override
     public void init(SynapseEnvironment synapseEnvironment) {
         ConfigurationContext cc =
@@ -213,7 +216,8 @@ public class LoadbalanceEndpoint extends AbstractEndpoint {
                 properties.remove(PassThroughConstants.ERROR_DETAIL);
             }
             // if this is not a retry
-            if (synCtx.getProperty(SynapseConstants.LAST_ENDPOINT) == null) {
+            boolean isARetry = synCtx.getProperty(SynapseConstants.LAST_ENDPOINT) != null;
+            if (!isARetry) {
                 // We have to build the envelop when we are supporting failover, as we
                 // may have to retry this message for failover support
                 if (failover) {
@@ -240,6 +244,9 @@ public class LoadbalanceEndpoint extends AbstractEndpoint {
                     metricsMBean.reportSendingFault(SynapseConstants.ENDPOINT_LB_FAIL_OVER);
                 }
             }
+            if (hedgingPolicy != null && !isARetry) {
+                hedgingPolicy.prepare(this, synCtx, endpoint);
+            }
             synCtx.pushFaultHandler(this);
             endpoint.send(synCtx);
 
@@ -394,6 +401,14 @@ public class LoadbalanceEndpoint extends AbstractEndpoint {
         this.failover = failover;
     }
 
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
     public LoadbalanceAlgorithm getAlgorithm() {
         return algorithm;
     }
@@ -49,6 +49,8 @@ public class OAuthConfiguredHTTPEndpoint extends HTTPEndpoint {
 
         try {
             setResolvedUrlTemplate(synCtx);
+            // A cached token is returned right away. On a cache miss this waits for the single token request shared
+            // by all callers, so that mediation does not continue on this message context while the token is fetched
             oAuthHandler.setAuthHeader(synCtx);
 
             // If this a blocking call, add 401 as a non error http status code
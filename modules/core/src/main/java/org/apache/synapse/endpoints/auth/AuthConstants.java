@@ -86,6 +86,23 @@ public class AuthConstants {
 
     public static final String TOKEN_CACHE_TIMEOUT_PROPERTY = "synapse.endpoint.http.oauth.cache.timeout";
 
+    // Fraction of the token lifetime after which the token is refreshed in the background
+    public static final double DEFAULT_TOKEN_REFRESH_AHEAD_RATIO = 0.8;
+    public static final String TOKEN_REFRESH_AHEAD_RATIO_PROPERTY =
+            "synapse.endpoint.http.oauth.token.refresh.ahead.ratio";
+
+    // Thread pool used to call the token endpoint
+    public static final int DEFAULT_TOKEN_ACQUISITION_POOL_SIZE = 10;
+    public static final int DEFAULT_TOKEN_ACQUISITION_QUEUE_SIZE = 1000;
+    public static final String TOKEN_ACQUISITION_POOL_SIZE_PROPERTY =
+            "synapse.endpoint.http.oauth.token.acquisition.pool.size";
+    public static final String TOKEN_ACQUISITION_QUEUE_SIZE_PROPERTY =
+            "synapse.endpoint.http.oauth.token.acquisition.queue.size";
+
+    // Time in milliseconds a message waits for a token request before the send fails
+    public static final long DEFAULT_TOKEN_WAIT_TIMEOUT = 60000;
+    public static final String TOKEN_WAIT_TIMEOUT_PROPERTY = "synapse.endpoint.http.oauth.token.wait.timeout";
+
     // basic auth parameters
     public static final String BASIC_AUTH_USERNAME = "username";
     public static final String BASIC_AUTH_PASSWORD = "password";
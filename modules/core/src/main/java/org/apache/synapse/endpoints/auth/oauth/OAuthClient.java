@@ -132,12 +132,60 @@ public class OAuthClient {
                                        MessageContext messageContext, Map<String, String> customHeaders,
                                        int connectionTimeout, int connectionRequestTimeout, int socketTimeout,  ProxyConfigs proxyConfigs) throws AuthException, IOException {
 
+        return generateOAuthToken(tokenApiUrl, payload, credentials, messageContext, customHeaders, connectionTimeout,
+                connectionRequestTimeout, socketTimeout, proxyConfigs).getAccessToken();
+    }
+
+    /**
+     * Method to generate the access token from an OAuth server along with its lifetime
+     *
+     * @param tokenApiUrl   The token url of the server
+     * @param payload       The payload of the request
+     * @param credentials   The encoded credentials
+     * @param proxyConfigs  The proxy configurations
+     * @return OAuthToken containing the access token and the expires_in value sent by the server
+     * @throws AuthException In the event of an unexpected HTTP status code return from the server or access_token key
+     *                       missing in the response payload
+     * @throws IOException   In the event of a problem parsing the response from the server
+     */
+    public static OAuthToken generateOAuthToken(String tokenApiUrl, String payload, String credentials,
+                                                MessageContext messageContext, Map<String, String> customHeaders,
+                                                int connectionTimeout, int connectionRequestTimeout,
+                                                int socketTimeout, ProxyConfigs proxyConfigs)
+            throws AuthException, IOException {
+
+        return generateOAuthToken(tokenApiUrl, payload, credentials, getConfigurationContext(messageContext),
+                customHeaders, connectionTimeout, connectionRequestTimeout, socketTimeout, proxyConfigs,
+                resolveProxyPassword(proxyConfigs, messageContext));
+    }
+
+    /**
+     * Method to generate the access token from an OAuth server with values already resolved from the message
+     * context, so that it can be called off the mediation thread
+     *
+     * @param tokenApiUrl          The token url of the server
+     * @param payload              The payload of the request
+     * @param credentials          The encoded credentials
+     * @param configurationContext The configuration context holding the SSL configurations of the https transport
+     * @param proxyConfigs         The proxy configurations
+     * @param proxyPassword        The resolved proxy password
+     * @return OAuthToken containing the access token and the expires_in value sent by the server
+     * @throws AuthException In the event of an unexpected HTTP status code return from the server or access_token key
+     *                       missing in the response payload
+     * @throws IOException   In the event of a problem parsing the response from the server
+     */
+    static OAuthToken generateOAuthToken(String tokenApiUrl, String payload, String credentials,
+                                         ConfigurationContext configurationContext,
+                                         Map<String, String> customHeaders, int connectionTimeout,
+                                         int connectionRequestTimeout, int socketTimeout, ProxyConfigs proxyConfigs,
+                                         String proxyPassword) throws AuthException, IOException {
+
         if (log.isDebugEnabled()) {
             log.debug("Initializing token generation request: [token-endpoint] " + tokenApiUrl);
         }
 
-        try (CloseableHttpClient httpClient = getSecureClient(tokenApiUrl, messageContext, connectionTimeout,
-                connectionRequestTimeout, socketTimeout, proxyConfigs)) {
+        try (CloseableHttpClient httpClient = getSecureClient(tokenApiUrl, configurationContext, connectionTimeout,
+                connectionRequestTimeout, socketTimeout, proxyConfigs, proxyPassword)) {
             HttpPost httpPost = new HttpPost(tokenApiUrl);
             httpPost.setHeader(AuthConstants.CONTENT_TYPE_HEADER, AuthConstants.APPLICATION_X_WWW_FORM_URLENCODED);
             if (!(customHeaders == null || customHeaders.isEmpty())) {
@@ -177,12 +225,12 @@ public class OAuthClient {
      * Method to retrieve the token response sent from the server
      *
      * @param response CloseableHttpResponse object
-     * @return accessToken String
+     * @return OAuthToken containing the access token and its lifetime
      * @throws AuthException In the event of an unexpected HTTP status code return from the server or access_token
      *                        key missing in the response payload
      * @throws IOException    In the event of a problem parsing the response from the server
      */
-    private static String extractToken(CloseableHttpResponse response) throws AuthException, IOException {
+    private static OAuthToken extractToken(CloseableHttpResponse response) throws AuthException, IOException {
 
         int responseCode = response.getStatusLine().getStatusCode();
 
@@ -213,7 +261,15 @@ public class OAuthClient {
         JsonParser parser = new JsonParser();
         JsonObject jsonResponse = (JsonObject) parser.parse(stringBuilder.toString());
         if (jsonResponse.has(AuthConstants.ACCESS_TOKEN)) {
-            return jsonResponse.get(AuthConstants.ACCESS_TOKEN).getAsString();
+            long expiresIn = OAuthToken.UNKNOWN_EXPIRY;
+            if (jsonResponse.has(AuthConstants.EXPIRES_IN)) {
+                try {
+                    expiresIn = jsonResponse.get(AuthConstants.EXPIRES_IN).getAsLong();
+                } catch (NumberFormatException | UnsupportedOperationException e) {
+                    log.debug("Ignoring invalid expires_in value in the response from the OAuth server");
+                }
+            }
+            return new OAuthToken(jsonResponse.get(AuthConstants.ACCESS_TOKEN).getAsString(), expiresIn);
         }
         throw new AuthException("Missing key [access_token] in the response from the OAuth server");
     }
@@ -224,24 +280,23 @@ public class OAuthClient {
      * @return Secure CloseableHttpClient
      * @throws AuthException
      */
-    private static CloseableHttpClient getSecureClient(String tokenUrl, MessageContext messageContext,
-            int connectionTimeout, int connectionRequestTimeout, int socketTimeout, ProxyConfigs proxyConfigs)
-            throws AuthException {
+    private static CloseableHttpClient getSecureClient(String tokenUrl, ConfigurationContext configurationContext,
+            int connectionTimeout, int connectionRequestTimeout, int socketTimeout, ProxyConfigs proxyConfigs,
+            String proxyPassword) throws AuthException {
 
         if (proxyConfigs.isProxyEnabled()) {
-            return getSecureClientWithProxy(messageContext, connectionTimeout, connectionRequestTimeout, socketTimeout,
-                    proxyConfigs);
+            return getSecureClientWithProxy(connectionTimeout, connectionRequestTimeout, socketTimeout,
+                    proxyConfigs, proxyPassword);
         } else {
-            return getSecureClientWithoutProxy(tokenUrl, messageContext, connectionTimeout, connectionRequestTimeout,
-                    socketTimeout);
+            return getSecureClientWithoutProxy(tokenUrl, configurationContext, connectionTimeout,
+                    connectionRequestTimeout, socketTimeout);
         }
     }
 
-    private static CloseableHttpClient getSecureClientWithoutProxy(String tokenUrl, MessageContext messageContext,
-            int connectionTimeout, int connectionRequestTimeout, int socketTimeout) throws AuthException {
+    private static CloseableHttpClient getSecureClientWithoutProxy(String tokenUrl,
+            ConfigurationContext configurationContext, int connectionTimeout, int connectionRequestTimeout,
+            int socketTimeout) throws AuthException {
         SSLContext sslContext;
-        ConfigurationContext configurationContext = ((Axis2MessageContext) messageContext).getAxis2MessageContext()
-                .getConfigurationContext();
         TransportOutDescription transportOut = configurationContext.getAxisConfiguration().getTransportOut("https");
         try {
             ClientConnFactoryBuilder clientConnFactoryBuilder = new ClientConnFactoryBuilder(transportOut,
@@ -266,9 +321,9 @@ public class OAuthClient {
         return client;
     }
 
-    private static CloseableHttpClient getSecureClientWithProxy(MessageContext messageContext, int connectionTimeout,
-                                                                int connectionRequestTimeout, int socketTimeout,
-                                                                ProxyConfigs proxyConfigs) throws AuthException {
+    private static CloseableHttpClient getSecureClientWithProxy(int connectionTimeout, int connectionRequestTimeout,
+                                                                int socketTimeout, ProxyConfigs proxyConfigs,
+                                                                String proxyPassword) throws AuthException {
 
         PoolingHttpClientConnectionManager pool = getPoolingHttpClientConnectionManager(
                 proxyConfigs.getProxyProtocol());
@@ -291,16 +346,24 @@ public class OAuthClient {
             CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
             credentialsProvider.setCredentials(
                     new AuthScope(proxyConfigs.getProxyHost(), Integer.parseInt(proxyConfigs.getProxyPort())),
-                    new UsernamePasswordCredentials(proxyConfigs.getProxyUsername(), resolveProxyPassword(proxyConfigs,
-                            messageContext)));
+                    new UsernamePasswordCredentials(proxyConfigs.getProxyUsername(), proxyPassword));
             clientBuilder = clientBuilder.setDefaultCredentialsProvider(credentialsProvider);
         }
 
         return clientBuilder.build();
     }
 
-    private static String resolveProxyPassword(ProxyConfigs proxyConfigs, MessageContext messageContext)
+    /**
+     * Resolves the proxy password. Endpoint specific passwords may be expressions on the message context, so this
+     * has to run on the thread that owns the message context.
+     *
+     * @return the resolved proxy password, or null if no proxy credentials are configured
+     */
+    static String resolveProxyPassword(ProxyConfigs proxyConfigs, MessageContext messageContext)
             throws AuthException {
+        if (!proxyConfigs.isProxyEnabled() || StringUtils.isBlank(proxyConfigs.getProxyPassword())) {
+            return null;
+        }
         if (proxyConfigs.getProxyPasswordSecretResolver() != null) {
             // Resolves the password when global proxy configurations are used
             return MiscellaneousUtil.resolve(proxyConfigs.getProxyPassword(),
@@ -311,6 +374,18 @@ public class OAuthClient {
         }
     }
 
+    /**
+     * Returns the configuration context of the given message context, which holds the SSL configurations used to
+     * connect to the token endpoint.
+     */
+    static ConfigurationContext getConfigurationContext(MessageContext messageContext) {
+
+        if (messageContext instanceof Axis2MessageContext) {
+            return ((Axis2MessageContext) messageContext).getAxis2MessageContext().getConfigurationContext();
+        }
+        return null;
+    }
+
     private static PoolingHttpClientConnectionManager getPoolingHttpClientConnectionManager(String protocol)
             throws AuthException {
 
@@ -21,7 +21,10 @@ package org.apache.synapse.endpoints.auth.oauth;
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMFactory;
 import org.apache.axiom.util.base64.Base64Utils;
+import org.apache.axis2.context.ConfigurationContext;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
@@ -35,15 +38,28 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * This abstract class is to be used by OAuth handlers
  * This class checks validity of tokens, request for tokens
- * and add tokens to in-memory cache
+ * and add tokens to in-memory cache. Tokens are requested on a separate pool,
+ * one request per token id, and refreshed before they expire.
  */
 
 public abstract class OAuthHandler implements AuthHandler {
 
+    private static final Log log = LogFactory.getLog(OAuthHandler.class);
+
+    // Interval in milliseconds before a failed background token refresh is retried
+    private static final long REFRESH_RETRY_INTERVAL = 5000;
+
     private final String id;
     private final String tokenApiUrl;
     private final String clientId;
@@ -58,6 +74,13 @@ public abstract class OAuthHandler implements AuthHandler {
     private final TokenCacheProvider tokenCacheProvider;
     private final boolean useGlobalProxyConfigs;
     private ProxyConfigs proxyConfigs;
+    private final double refreshAheadRatio;
+    private final long tokenWaitTimeout;
+    private final Map<String, CompletableFuture<String>> pendingTokenRequests = new ConcurrentHashMap<>();
+    private final Map<String, TokenExpiry> tokenExpiries = new ConcurrentHashMap<>();
+    private final TokenEndpointMetrics tokenEndpointMetrics = new TokenEndpointMetrics();
+    // Guards storing a fetched token against removing tokens, so that a removed token is not stored back
+    private final Object tokenStoreLock = new Object();
 
     protected OAuthHandler(String tokenApiUrl, String clientId, String clientSecret, String authMode,
                            boolean useGlobalConnectionTimeoutConfigs, int connectionTimeout,
@@ -76,6 +99,8 @@ public abstract class OAuthHandler implements AuthHandler {
         this.tokenCacheProvider = tokenCacheProvider;
         this.useGlobalProxyConfigs = useGlobalProxyConfigs;
         this.proxyConfigs = proxyConfigs;
+        this.refreshAheadRatio = OAuthUtils.getRefreshAheadRatio();
+        this.tokenWaitTimeout = OAuthUtils.getTokenWaitTimeout();
     }
 
     @Override
@@ -85,39 +110,176 @@ public abstract class OAuthHandler implements AuthHandler {
 
     @Override
     public void setAuthHeader(MessageContext messageContext) throws AuthException {
-        setAuthorizationHeader(messageContext, getToken(messageContext));
+        setAuthorizationHeader(messageContext, awaitToken(getTokenAsync(messageContext)));
     }
 
     /**
-     * This method returns a token string.
+     * This method returns a future which completes with the token. A cached token is returned immediately and, if
+     * it is close to its expiry, a background refresh is triggered. On a cache miss a single token request is sent
+     * per token id and all concurrent callers share its result.
      *
-     * @return token String
-     * @throws AuthException In the event of errors when generating new token
+     * @return future of the token String
+     * @throws AuthException In the event of errors when resolving the token request
      */
-    private String getToken(final MessageContext messageContext) throws AuthException {
-
-        // Check if the token is already cached
-        String token = tokenCacheProvider.getToken(getId(messageContext));
-
-        if (StringUtils.isEmpty(token)) {
-            synchronized (getId(messageContext).intern()) {
-                token = tokenCacheProvider.getToken(getId(messageContext));
-                if (StringUtils.isEmpty(token)) {
-                    try {
-                        token = OAuthClient.generateToken(OAuthUtils.resolveExpression(tokenApiUrl, messageContext),
-                                buildTokenRequestPayload(messageContext), getEncodedCredentials(messageContext),
-                                messageContext, getResolvedCustomHeadersMap(customHeadersMap, messageContext),
-                                connectionTimeout, connectionRequestTimeout, socketTimeout, proxyConfigs);
-
-                        // Cache the newly generated token
-                        tokenCacheProvider.putToken(getId(messageContext), token);
-                    } catch (IOException e) {
-                        throw new AuthException("Error generating token", e);
+    public CompletableFuture<String> getTokenAsync(final MessageContext messageContext) throws AuthException {
+
+        String tokenId = getId(messageContext);
+        String token = tokenCacheProvider.getToken(tokenId);
+
+        if (StringUtils.isNotEmpty(token)) {
+            TokenExpiry expiry = tokenExpiries.get(tokenId);
+            if (expiry == null) {
+                return CompletableFuture.completedFuture(token);
+            }
+            long now = currentTimeMillis();
+            if (now < expiry.refreshTime) {
+                return CompletableFuture.completedFuture(token);
+            }
+            if (now < expiry.expiryTime) {
+                // Token is still valid, refresh it in the background and serve the current token meanwhile
+                if (!pendingTokenRequests.containsKey(tokenId)) {
+                    tokenEndpointMetrics.recordRefreshAhead();
+                    requestToken(tokenId, messageContext);
+                }
+                return CompletableFuture.completedFuture(token);
+            }
+            tokenCacheProvider.removeToken(tokenId);
+            tokenExpiries.remove(tokenId, expiry);
+        }
+        return requestToken(tokenId, messageContext);
+    }
+
+    /**
+     * Send a token request unless one is already in flight for the given token id.
+     */
+    private CompletableFuture<String> requestToken(final String tokenId, final MessageContext messageContext)
+            throws AuthException {
+
+        CompletableFuture<String> pending = pendingTokenRequests.get(tokenId);
+        if (pending != null) {
+            return pending;
+        }
+        // Resolve the dynamic expressions on the calling thread while the message context is owned by it
+        final String tokenUrl = OAuthUtils.resolveExpression(tokenApiUrl, messageContext);
+        final String payload = buildTokenRequestPayload(messageContext);
+        final String credentials = getEncodedCredentials(messageContext);
+        final Map<String, String> headers = getResolvedCustomHeadersMap(customHeadersMap, messageContext);
+        final ConfigurationContext configurationContext = OAuthClient.getConfigurationContext(messageContext);
+        final String proxyPassword = OAuthClient.resolveProxyPassword(proxyConfigs, messageContext);
+
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        pending = pendingTokenRequests.putIfAbsent(tokenId, future);
+        if (pending != null) {
+            return pending;
+        }
+        try {
+            TokenAcquisitionExecutor.getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    fetchToken(tokenId, tokenUrl, payload, credentials, headers, configurationContext,
+                            proxyPassword, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingTokenRequests.remove(tokenId, future);
+            future.completeExceptionally(new AuthException("Token request queue is full, could not request a " +
+                    "token from " + tokenUrl, e));
+        }
+        return future;
+    }
+
+    private void fetchToken(String tokenId, String tokenUrl, String payload, String credentials,
+                            Map<String, String> headers, ConfigurationContext configurationContext,
+                            String proxyPassword, CompletableFuture<String> future) {
+
+        long start = currentTimeMillis();
+        try {
+            OAuthToken token = callTokenEndpoint(tokenUrl, payload, credentials, headers, configurationContext,
+                    proxyPassword);
+            long end = currentTimeMillis();
+            tokenEndpointMetrics.recordSuccess(end - start);
+
+            // Cache the newly generated token, unless the tokens were removed while it was requested
+            synchronized (tokenStoreLock) {
+                if (pendingTokenRequests.remove(tokenId, future)) {
+                    if (token.getExpiresIn() > 0) {
+                        long lifetime = token.getExpiresIn() * 1000;
+                        tokenExpiries.put(tokenId, new TokenExpiry(start + (long) (lifetime * refreshAheadRatio),
+                                start + lifetime));
+                    } else {
+                        tokenExpiries.remove(tokenId);
                     }
+                    tokenCacheProvider.putToken(tokenId, token.getAccessToken());
                 }
             }
+            future.complete(token.getAccessToken());
+        } catch (AuthException | IOException | RuntimeException e) {
+            long end = currentTimeMillis();
+            tokenEndpointMetrics.recordFailure(end - start);
+            log.error("Error generating token from " + tokenUrl + " " + e.getMessage());
+            // Back off background refreshes of a still valid token instead of retrying on every request
+            TokenExpiry expiry = tokenExpiries.get(tokenId);
+            if (expiry != null) {
+                tokenExpiries.replace(tokenId, expiry, new TokenExpiry(
+                        Math.min(end + REFRESH_RETRY_INTERVAL, expiry.expiryTime), expiry.expiryTime));
+            }
+            pendingTokenRequests.remove(tokenId, future);
+            future.completeExceptionally(e instanceof IOException ? new AuthException("Error generating token", e)
+                    : e);
         }
-        return token;
+    }
+
+    /**
+     * Call the token endpoint. Runs on the token acquisition pool, so it only gets values already resolved from the
+     * message context.
+     */
+    OAuthToken callTokenEndpoint(String tokenUrl, String payload, String credentials, Map<String, String> headers,
+                                 ConfigurationContext configurationContext, String proxyPassword)
+            throws AuthException, IOException {
+
+        return OAuthClient.generateOAuthToken(tokenUrl, payload, credentials, configurationContext, headers,
+                connectionTimeout, connectionRequestTimeout, socketTimeout, proxyConfigs, proxyPassword);
+    }
+
+    long currentTimeMillis() {
+
+        return System.currentTimeMillis();
+    }
+
+    long getTokenWaitTimeout() {
+
+        return tokenWaitTimeout;
+    }
+
+    /**
+     * Wait for the token request, at most for the token wait timeout, so that a stalled token endpoint does not
+     * hold the mediation worker.
+     */
+    private String awaitToken(CompletableFuture<String> token) throws AuthException {
+
+        long timeout = getTokenWaitTimeout();
+        try {
+            return token.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new AuthException("Timed out after " + timeout + " ms while waiting for a token from "
+                    + tokenApiUrl, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthException("Interrupted while waiting for the token", e);
+        } catch (ExecutionException e) {
+            throw toAuthException(e.getCause());
+        }
+    }
+
+    private AuthException toAuthException(Throwable throwable) {
+
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        if (throwable instanceof AuthException) {
+            return (AuthException) throwable;
+        }
+        return new AuthException("Error generating token", throwable);
     }
 
     /**
@@ -151,7 +313,13 @@ public abstract class OAuthHandler implements AuthHandler {
      */
     public void removeTokenFromCache(MessageContext messageContext) throws AuthException {
 
-        tokenCacheProvider.removeToken(getId(messageContext));
+        String tokenId = getId(messageContext);
+        synchronized (tokenStoreLock) {
+            // A token request in flight is dropped as well, callers waiting on it still get its token
+            pendingTokenRequests.remove(tokenId);
+            tokenCacheProvider.removeToken(tokenId);
+            tokenExpiries.remove(tokenId);
+        }
     }
 
     /**
@@ -159,7 +327,21 @@ public abstract class OAuthHandler implements AuthHandler {
      */
     public void removeTokensFromCache() {
 
-        tokenCacheProvider.removeTokens(id.concat("_"));
+        synchronized (tokenStoreLock) {
+            pendingTokenRequests.clear();
+            tokenCacheProvider.removeTokens(id.concat("_"));
+            tokenExpiries.clear();
+        }
+    }
+
+    /**
+     * Return the latency and failure metrics of the calls made to the token endpoint.
+     *
+     * @return TokenEndpointMetrics of this handler
+     */
+    public TokenEndpointMetrics getTokenEndpointMetrics() {
+
+        return tokenEndpointMetrics;
     }
 
     /**
@@ -377,4 +559,19 @@ public abstract class OAuthHandler implements AuthHandler {
     private String getId(MessageContext messageContext) throws AuthException {
         return id.concat("_").concat(String.valueOf(getHash(messageContext)));
     }
+
+    /**
+     * Times at which a cached token should be refreshed and at which it expires.
+     */
+    private static class TokenExpiry {
+
+        private final long refreshTime;
+        private final long expiryTime;
+
+        TokenExpiry(long refreshTime, long expiryTime) {
+
+            this.refreshTime = refreshTime;
+            this.expiryTime = expiryTime;
+        }
+    }
 }
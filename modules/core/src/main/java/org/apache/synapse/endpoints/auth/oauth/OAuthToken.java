@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (https://www.wso2.com/).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.endpoints.auth.oauth;
+
+/**
+ * Holds the access token and its lifetime as returned by the OAuth token endpoint.
+ */
+public class OAuthToken {
+
+    /** Lifetime value used when the token endpoint does not send expires_in */
+    public static final long UNKNOWN_EXPIRY = -1;
+
+    private final String accessToken;
+    private final long expiresIn;
+
+    public OAuthToken(String accessToken, long expiresIn) {
+
+        this.accessToken = accessToken;
+        this.expiresIn = expiresIn;
+    }
+
+    public String getAccessToken() {
+
+        return accessToken;
+    }
+
+    /**
+     * Return the lifetime of the token in seconds.
+     *
+     * @return lifetime in seconds or {@link #UNKNOWN_EXPIRY} if the token endpoint did not send it
+     */
+    public long getExpiresIn() {
+
+        return expiresIn;
+    }
+}
@@ -499,6 +499,50 @@ public class OAuthUtils {
         return AuthConstants.OAUTH_PREFIX + uuid;
     }
 
+    /**
+     * Method to read the fraction of the token lifetime after which a cached token is refreshed in the background.
+     *
+     * @return refresh ahead ratio between 0 and 1
+     */
+    public static double getRefreshAheadRatio() {
+
+        String value = SynapsePropertiesLoader.getPropertyValue(AuthConstants.TOKEN_REFRESH_AHEAD_RATIO_PROPERTY,
+                String.valueOf(AuthConstants.DEFAULT_TOKEN_REFRESH_AHEAD_RATIO));
+        try {
+            double ratio = Double.parseDouble(value.trim());
+            if (ratio > 0 && ratio <= 1) {
+                return ratio;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the default value
+        }
+        log.warn("Invalid value " + value + " for " + AuthConstants.TOKEN_REFRESH_AHEAD_RATIO_PROPERTY
+                + ". Using the default value " + AuthConstants.DEFAULT_TOKEN_REFRESH_AHEAD_RATIO);
+        return AuthConstants.DEFAULT_TOKEN_REFRESH_AHEAD_RATIO;
+    }
+
+    /**
+     * Method to read the time in milliseconds a message waits for a token request in flight.
+     *
+     * @return token wait timeout in milliseconds
+     */
+    public static long getTokenWaitTimeout() {
+
+        String value = SynapsePropertiesLoader.getPropertyValue(AuthConstants.TOKEN_WAIT_TIMEOUT_PROPERTY,
+                String.valueOf(AuthConstants.DEFAULT_TOKEN_WAIT_TIMEOUT));
+        try {
+            long timeout = Long.parseLong(value.trim());
+            if (timeout > 0) {
+                return timeout;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the default value
+        }
+        log.warn("Invalid value " + value + " for " + AuthConstants.TOKEN_WAIT_TIMEOUT_PROPERTY
+                + ". Using the default value " + AuthConstants.DEFAULT_TOKEN_WAIT_TIMEOUT);
+        return AuthConstants.DEFAULT_TOKEN_WAIT_TIMEOUT;
+    }
+
     /**
      * Method to check whether retry is needed.
      *
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (https://www.wso2.com/).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.endpoints.auth.oauth;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.config.SynapsePropertiesLoader;
+import org.apache.synapse.endpoints.auth.AuthConstants;
+import org.apache.synapse.util.concurrent.SynapseThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the bounded thread pool used to call OAuth token endpoints, so that mediation worker threads
+ * do not block on the token endpoint while a token is being acquired or refreshed.
+ */
+public class TokenAcquisitionExecutor {
+
+    private static final Log log = LogFactory.getLog(TokenAcquisitionExecutor.class);
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private TokenAcquisitionExecutor() {
+    }
+
+    /**
+     * Return the shared executor used for token endpoint calls.
+     *
+     * @return ExecutorService token acquisition executor
+     */
+    public static ExecutorService getExecutor() {
+
+        return Holder.EXECUTOR;
+    }
+
+    private static ExecutorService createExecutor() {
+
+        int poolSize = getIntProperty(AuthConstants.TOKEN_ACQUISITION_POOL_SIZE_PROPERTY,
+                AuthConstants.DEFAULT_TOKEN_ACQUISITION_POOL_SIZE);
+        int queueSize = getIntProperty(AuthConstants.TOKEN_ACQUISITION_QUEUE_SIZE_PROPERTY,
+                AuthConstants.DEFAULT_TOKEN_ACQUISITION_QUEUE_SIZE);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(queueSize),
+                new SynapseThreadFactory(new ThreadGroup("oauth-token-acquisition-group"),
+                        "oauth-token-acquisition"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static int getIntProperty(String name, int defaultValue) {
+
+        String value = SynapsePropertiesLoader.getPropertyValue(name, String.valueOf(defaultValue));
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value " + value + " for " + name + ". Using the default value " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static class Holder {
+        private static final ExecutorService EXECUTOR = createExecutor();
+    }
+}
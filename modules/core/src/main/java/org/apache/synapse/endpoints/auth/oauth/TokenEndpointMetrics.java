@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (https://www.wso2.com/).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.endpoints.auth.oauth;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and failure counters of the calls made by an OAuth handler to its token endpoint.
+ */
+public class TokenEndpointMetrics {
+
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder refreshAheadCount = new LongAdder();
+    private final LongAdder totalLatency = new LongAdder();
+    private final AtomicLong maxLatency = new AtomicLong();
+    private volatile long lastLatency;
+
+    void recordSuccess(long latency) {
+
+        recordLatency(latency);
+    }
+
+    void recordFailure(long latency) {
+
+        failureCount.increment();
+        recordLatency(latency);
+    }
+
+    void recordRefreshAhead() {
+
+        refreshAheadCount.increment();
+    }
+
+    private void recordLatency(long latency) {
+
+        requestCount.increment();
+        totalLatency.add(latency);
+        lastLatency = latency;
+        long max = maxLatency.get();
+        while (latency > max && !maxLatency.compareAndSet(max, latency)) {
+            max = maxLatency.get();
+        }
+    }
+
+    /**
+     * @return number of calls made to the token endpoint
+     */
+    public long getRequestCount() {
+
+        return requestCount.sum();
+    }
+
+    /**
+     * @return number of calls to the token endpoint that did not yield a token
+     */
+    public long getFailureCount() {
+
+        return failureCount.sum();
+    }
+
+    /**
+     * @return number of calls triggered to refresh a token before it expires
+     */
+    public long getRefreshAheadCount() {
+
+        return refreshAheadCount.sum();
+    }
+
+    /**
+     * @return average token endpoint latency in milliseconds
+     */
+    public double getAverageLatency() {
+
+        long count = requestCount.sum();
+        return count == 0 ? 0 : (double) totalLatency.sum() / count;
+    }
+
+    /**
+     * @return maximum token endpoint latency in milliseconds
+     */
+    public long getMaxLatency() {
+
+        return maxLatency.get();
+    }
+
+    /**
+     * @return latency of the last call to the token endpoint in milliseconds
+     */
+    public long getLastLatency() {
+
+        return lastLatency;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints.cache;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A backend response held by the {@link ResponseCache}. The body is kept in a direct buffer, outside
+ * of the Java heap, and is read through {@link #getBody()} without copying. Instances are
+ * immutable, a revalidated response replaces the entry with a copy that shares the body.
+ */
+public class CachedResponse {
+
+    /** Rough size of the bookkeeping of an entry, counted towards the cache size */
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final int statusCode;
+    private final String statusLine;
+    private final Map<String, String> headers;
+    private final Map<String, String> variant;
+    private final ByteBuffer body;
+    private final long storedAt;
+    private final long expiresAt;
+    private final int weight;
+
+    /**
+     * @param statusCode HTTP status code of the response
+     * @param statusLine HTTP reason phrase of the response
+     * @param headers    end-to-end headers of the response
+     * @param variant    values of the request headers the response depends on
+     * @param body       the response body
+     * @param storedAt   the time the response was received, in milliseconds
+     * @param expiresAt  the time the response goes stale, in milliseconds
+     */
+    public CachedResponse(int statusCode, String statusLine, Map<String, String> headers,
+                          Map<String, String> variant, byte[] body, long storedAt, long expiresAt) {
+        this(statusCode, statusLine, headers, variant, copyToDirect(body), storedAt, expiresAt);
+    }
+
+    private CachedResponse(int statusCode, String statusLine, Map<String, String> headers,
+                           Map<String, String> variant, ByteBuffer body, long storedAt,
+                           long expiresAt) {
+        this.statusCode = statusCode;
+        this.statusLine = statusLine;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.variant = Collections.unmodifiableMap(variant);
+        this.body = body;
+        this.storedAt = storedAt;
+        this.expiresAt = expiresAt;
+
+        int headerSize = 0;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            headerSize += 2 * (header.getKey().length() + header.getValue().length());
+        }
+        this.weight = ENTRY_OVERHEAD + headerSize + body.capacity();
+    }
+
+    /**
+     * Copy of this response with the headers and freshness of a successful revalidation, sharing
+     * the stored body
+     */
+    public CachedResponse revalidated(Map<String, String> headers, long storedAt, long expiresAt) {
+        return new CachedResponse(statusCode, statusLine, headers, variant, body, storedAt,
+                expiresAt);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getStatusLine() {
+        return statusLine;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getHeader(String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    public Map<String, String> getVariant() {
+        return variant;
+    }
+
+    /**
+     * A new stream over the stored body. Streams may be read concurrently.
+     */
+    public InputStream getBody() {
+        return new ByteBufferInputStream(body.duplicate());
+    }
+
+    public int getBodyLength() {
+        return body.capacity();
+    }
+
+    public long getStoredAt() {
+        return storedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isFresh(long now) {
+        return now < expiresAt;
+    }
+
+    /**
+     * Whether a stale copy of this response can be revalidated with a conditional request
+     */
+    public boolean hasValidators() {
+        return getHeader("ETag") != null || getHeader("Last-Modified") != null;
+    }
+
+    /**
+     * Size of the entry in bytes, as counted towards the cache size
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    private static ByteBuffer copyToDirect(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
+import org.apache.synapse.config.SynapsePropertiesLoader;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Backend responses shared by all endpoints that have the response cache enabled, bounded by the
+ * total size of the stored responses.
+ * <p>
+ * Eviction follows the W-TinyLFU scheme. New entries go into a small LRU window. An entry pushed
+ * out of the window only enters the main LRU region if it has been requested more often recently
+ * than the entry the main region would have to give up for it, as estimated by a
+ * {@link FrequencySketch}. This keeps one-off responses, such as a scan through many distinct
+ * URLs, from flushing out the lookups that are hit all the time.
+ * <p>
+ * Lookups read a concurrent map and do not wait for the eviction lock. A lookup records its
+ * access in the eviction order and the frequency sketch only if the lock is free, so under
+ * contention the order is approximate, which is enough to pick victims.
+ * <p>
+ * The size is set with the {@link SynapseConstants#ENDPOINT_RESPONSE_CACHE_SIZE} property and
+ * responses larger than {@link SynapseConstants#ENDPOINT_RESPONSE_CACHE_MAX_ENTRY_SIZE} are not
+ * stored.
+ */
+public class ResponseCache {
+
+    private static final Log log = LogFactory.getLog(ResponseCache.class);
+
+    private static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+    private static final int DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+    /** Share of the cache given to the admission window */
+    private static final double WINDOW_RATIO = 0.01;
+    /** Expected average entry size, used to size the frequency sketch */
+    private static final int EXPECTED_ENTRY_SIZE = 4 * 1024;
+
+    private final long maxSize;
+    private final int maxEntrySize;
+    private final long maxWindowSize;
+
+    /** Stored responses, read without locking */
+    private final ConcurrentHashMap<String, CachedResponse> data =
+            new ConcurrentHashMap<String, CachedResponse>(256);
+
+    // eviction order and sizes, guarded by evictionLock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LinkedHashMap<String, CachedResponse> window =
+            new LinkedHashMap<String, CachedResponse>(16, 0.75f, true);
+    private final LinkedHashMap<String, CachedResponse> main =
+            new LinkedHashMap<String, CachedResponse>(256, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long windowSize;
+    private long mainSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResponseCache(long maxSize, int maxEntrySize) {
+        this.maxSize = maxSize;
+        this.maxEntrySize = maxEntrySize;
+        this.maxWindowSize = Math.max(maxEntrySize, (long) (maxSize * WINDOW_RATIO));
+        this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE,
+                maxSize / EXPECTED_ENTRY_SIZE));
+    }
+
+    /**
+     * The cache shared by all endpoints
+     */
+    public static ResponseCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Looks up a stored response. Stale responses are returned as well so that they can be
+     * revalidated, the caller checks {@link CachedResponse#isFresh(long)}.
+     *
+     * @param key cache key of the request
+     * @return the stored response, or null
+     */
+    public CachedResponse get(String key) {
+        CachedResponse response = data.get(key);
+        if (evictionLock.tryLock()) {
+            try {
+                sketch.increment(key);
+                if (response != null && window.get(key) == null) {
+                    // moves the entry to the most recently used end of its region
+                    main.get(key);
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Stores a response, replacing any response stored under the same key
+     *
+     * @param key      cache key of the request
+     * @param response the response to store
+     * @return false if the response is too large to be cached
+     */
+    public boolean put(String key, CachedResponse response) {
+        if (response.getWeight() > maxEntrySize) {
+            return false;
+        }
+        evictionLock.lock();
+        try {
+            remove(key);
+            window.put(key, response);
+            data.put(key, response);
+            windowSize += response.getWeight();
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the response stored under the given key, if any
+     */
+    public void invalidate(String key) {
+        evictionLock.lock();
+        try {
+            remove(key);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void clear() {
+        evictionLock.lock();
+        try {
+            window.clear();
+            main.clear();
+            data.clear();
+            windowSize = 0;
+            mainSize = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordRevalidation() {
+        revalidations.increment();
+    }
+
+    private void remove(String key) {
+        data.remove(key);
+        CachedResponse previous = window.remove(key);
+        if (previous != null) {
+            windowSize -= previous.getWeight();
+        }
+        previous = main.remove(key);
+        if (previous != null) {
+            mainSize -= previous.getWeight();
+        }
+    }
+
+    private void evict() {
+        while (windowSize > maxWindowSize) {
+            Iterator<Map.Entry<String, CachedResponse>> it = window.entrySet().iterator();
+            Map.Entry<String, CachedResponse> candidate = it.next();
+            it.remove();
+            windowSize -= candidate.getValue().getWeight();
+            admit(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    /**
+     * Moves an entry pushed out of the window into the main region, if it is used more often than
+     * the entries it would displace
+     */
+    private void admit(String key, CachedResponse candidate) {
+        long maxMainSize = maxSize - maxWindowSize;
+        if (candidate.getWeight() > maxMainSize) {
+            data.remove(key);
+            evictions.increment();
+            return;
+        }
+        int candidateFrequency = sketch.frequency(key);
+
+        Iterator<Map.Entry<String, CachedResponse>> it = main.entrySet().iterator();
+        long freed = 0;
+        while (mainSize - freed + candidate.getWeight() > maxMainSize && it.hasNext()) {
+            Map.Entry<String, CachedResponse> victim = it.next();
+            if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                data.remove(key);
+                evictions.increment();
+                if (log.isDebugEnabled()) {
+                    log.debug("Response for " + key + " not admitted to the response cache");
+                }
+                return;
+            }
+            freed += victim.getValue().getWeight();
+        }
+
+        it = main.entrySet().iterator();
+        while (mainSize + candidate.getWeight() > maxMainSize && it.hasNext()) {
+            Map.Entry<String, CachedResponse> victim = it.next();
+            it.remove();
+            data.remove(victim.getKey());
+            mainSize -= victim.getValue().getWeight();
+            evictions.increment();
+        }
+        main.put(key, candidate);
+        mainSize += candidate.getWeight();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Share of the lookups served from the cache, including responses served after a successful
+     * revalidation
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int getEntryCount() {
+        return data.size();
+    }
+
+    public long getSize() {
+        evictionLock.lock();
+        try {
+            return windowSize + mainSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    private static class Holder {
+
+        private static final ResponseCache INSTANCE = createCache();
+
+        private static ResponseCache createCache() {
+            long maxSize = DEFAULT_MAX_SIZE;
+            int maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+            try {
+                maxSize = Long.parseLong(SynapsePropertiesLoader.getPropertyValue(
+                        SynapseConstants.ENDPOINT_RESPONSE_CACHE_SIZE,
+                        String.valueOf(DEFAULT_MAX_SIZE)).trim());
+                maxEntrySize = Integer.parseInt(SynapsePropertiesLoader.getPropertyValue(
+                        SynapseConstants.ENDPOINT_RESPONSE_CACHE_MAX_ENTRY_SIZE,
+                        String.valueOf(DEFAULT_MAX_ENTRY_SIZE)).trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid endpoint response cache size, using the defaults", e);
+            }
+            ResponseCache cache = new ResponseCache(maxSize, maxEntrySize);
+            MBeanRegistrar.getInstance().registerMBean(new ResponseCacheView(cache),
+                    "EndpointResponseCache", "ResponseCache");
+            return cache;
+        }
+    }
+}
@@ -0,0 +1,590 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints.cache;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.engine.AxisEngine;
+import org.apache.axis2.wsdl.WSDLConstants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.commons.CorrelationConstants;
+import org.apache.synapse.core.axis2.AsyncCallback;
+import org.apache.synapse.core.axis2.SynapseCallbackReceiver;
+import org.apache.synapse.endpoints.EndpointDefinition;
+import org.apache.synapse.transport.passthru.PassThroughConstants;
+import org.apache.synapse.transport.passthru.Pipe;
+import org.apache.synapse.transport.passthru.util.RelayUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Connects endpoints that have the response cache enabled to the shared {@link ResponseCache},
+ * following the HTTP caching rules of a shared cache (RFC 7234).
+ * <p>
+ * Only GET and HEAD requests are answered from the cache. A fresh response is handed to the
+ * callback receiver as if it had come from the backend, without a connection to the backend. A
+ * stale response that has an ETag or Last-Modified header is revalidated with a conditional
+ * request, and a 304 answer is turned back into the stored response. Responses are stored as
+ * the raw bytes received from the backend and are only parsed if the mediation reads them.
+ */
+public final class ResponseCacheHandler {
+
+    private static final Log log = LogFactory.getLog(ResponseCacheHandler.class);
+
+    private static final List<Integer> CACHEABLE_STATUS_CODES =
+            Arrays.asList(200, 203, 300, 301, 404, 410);
+
+    private static final List<String> UNSAFE_METHODS = Arrays.asList(
+            Constants.Configuration.HTTP_METHOD_POST, Constants.Configuration.HTTP_METHOD_PUT,
+            Constants.Configuration.HTTP_METHOD_DELETE, "PATCH");
+
+    /** Headers that apply to a single connection and are not stored */
+    private static final List<String> HOP_BY_HOP_HEADERS = Arrays.asList("Connection",
+            "Keep-Alive", "Proxy-Authenticate", "Proxy-Authorization", "TE", "Trailer",
+            "Transfer-Encoding", "Upgrade");
+
+    private static final String CACHE_CONTROL = "Cache-Control";
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    private ResponseCacheHandler() {
+    }
+
+    /**
+     * Looks up the response to a request about to be sent through an endpoint with the response
+     * cache enabled. A fresh response is delivered on the worker pool and the request must not be
+     * sent. Otherwise the request is prepared so that its response can be stored by
+     * {@link #onResponse(org.apache.synapse.MessageContext, MessageContext)}.
+     *
+     * @param endpoint       definition of the endpoint
+     * @param synCtx         the outgoing message
+     * @param axisOutMsgCtx  the Axis2 message about to be sent
+     * @param callback       the callback registered for the response
+     * @return true if the response was served from the cache
+     */
+    public static boolean lookup(EndpointDefinition endpoint, org.apache.synapse.MessageContext synCtx,
+                                 final MessageContext axisOutMsgCtx, final AsyncCallback callback) {
+
+        synCtx.getPropertyKeySet().remove(SynapseConstants.ENDPOINT_RESPONSE_CACHE_REQUEST);
+
+        Object method = axisOutMsgCtx.getProperty(Constants.Configuration.HTTP_METHOD);
+        if (method == null || axisOutMsgCtx.getTo() == null
+                || axisOutMsgCtx.getTo().getAddress() == null) {
+            return false;
+        }
+        Map<String, String> requestHeaders = getHeaders(axisOutMsgCtx);
+        String resource = endpoint + " " + axisOutMsgCtx.getTo().getAddress();
+
+        ResponseCache cache = ResponseCache.getInstance();
+        if (!Constants.Configuration.HTTP_METHOD_GET.equals(method)
+                && !Constants.Configuration.HTTP_METHOD_HEAD.equals(method)) {
+            if (UNSAFE_METHODS.contains(method)) {
+                // a request that may change the resource makes the stored representations stale
+                String variant = getKeyVariant(endpoint, requestHeaders);
+                cache.invalidate(Constants.Configuration.HTTP_METHOD_GET + " " + resource + variant);
+                cache.invalidate(Constants.Configuration.HTTP_METHOD_HEAD + " " + resource + variant);
+            }
+            return false;
+        }
+
+        Map<String, String> requestCacheControl =
+                parseCacheControl(getHeader(requestHeaders, CACHE_CONTROL));
+        if (requestCacheControl.containsKey("no-store")
+                || getHeader(requestHeaders, IF_NONE_MATCH) != null
+                || getHeader(requestHeaders, IF_MODIFIED_SINCE) != null) {
+            // the client validates its own copy, leave the exchange to the backend
+            return false;
+        }
+        boolean revalidate = requestCacheControl.containsKey("no-cache")
+                || "0".equals(requestCacheControl.get("max-age"))
+                || "no-cache".equalsIgnoreCase(getHeader(requestHeaders, "Pragma"));
+
+        String key = method + " " + resource + getKeyVariant(endpoint, requestHeaders);
+        CachedResponse cached = cache.get(key);
+        if (cached != null && !matchesVariant(cached, requestHeaders)) {
+            cached = null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (cached != null && !revalidate && cached.isFresh(now)) {
+            if (serve(synCtx, axisOutMsgCtx, callback, cached, now)) {
+                cache.recordHit();
+                return true;
+            }
+        }
+
+        if (cached != null && cached.hasValidators()) {
+            Map<String, String> conditionalHeaders =
+                    new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+            conditionalHeaders.putAll(requestHeaders);
+            if (cached.getHeader(ETAG) != null) {
+                conditionalHeaders.put(IF_NONE_MATCH, cached.getHeader(ETAG));
+            }
+            if (cached.getHeader(LAST_MODIFIED) != null) {
+                conditionalHeaders.put(IF_MODIFIED_SINCE, cached.getHeader(LAST_MODIFIED));
+            }
+            axisOutMsgCtx.setProperty(MessageContext.TRANSPORT_HEADERS, conditionalHeaders);
+        } else {
+            cached = null;
+            cache.recordMiss();
+        }
+
+        synCtx.setProperty(SynapseConstants.ENDPOINT_RESPONSE_CACHE_REQUEST,
+                new CacheRequest(key, requestHeaders, cached, endpoint.getResponseCacheDefaultMaxAge()));
+        return false;
+    }
+
+    /**
+     * Stores the response to a request prepared by
+     * {@link #lookup(EndpointDefinition, org.apache.synapse.MessageContext, MessageContext, AsyncCallback)}
+     * if it may be cached, and turns a 304 answer to a revalidation into the stored response.
+     *
+     * @param synCtx   the outgoing message
+     * @param response the Axis2 response received for it
+     */
+    public static void onResponse(org.apache.synapse.MessageContext synCtx, MessageContext response) {
+
+        Object pending = synCtx.getProperty(SynapseConstants.ENDPOINT_RESPONSE_CACHE_REQUEST);
+        if (!(pending instanceof CacheRequest)) {
+            return;
+        }
+        synCtx.getPropertyKeySet().remove(SynapseConstants.ENDPOINT_RESPONSE_CACHE_REQUEST);
+        CacheRequest request = (CacheRequest) pending;
+
+        Object statusCode = response.getProperty(PassThroughConstants.HTTP_SC);
+        if (!(statusCode instanceof Integer)) {
+            return;
+        }
+        int status = (Integer) statusCode;
+        Map<String, String> headers = getHeaders(response);
+        ResponseCache cache = ResponseCache.getInstance();
+        long now = System.currentTimeMillis();
+
+        try {
+            if (status == 304 && request.stale != null) {
+                Map<String, String> merged = new LinkedHashMap<String, String>(request.stale.getHeaders());
+                for (Map.Entry<String, String> header : headers.entrySet()) {
+                    if (!HOP_BY_HOP_HEADERS.contains(header.getKey())
+                            && !"Content-Length".equalsIgnoreCase(header.getKey())) {
+                        putHeader(merged, header.getKey(), header.getValue());
+                    }
+                }
+                long expiresAt = getExpiryTime(merged, now, request.defaultMaxAge);
+                CachedResponse refreshed = request.stale.revalidated(merged, now, Math.max(now, expiresAt));
+                cache.put(request.key, refreshed);
+                cache.recordHit();
+                cache.recordRevalidation();
+
+                RelayUtils.discardMessage(response);
+                response.setProperty(PassThroughConstants.MESSAGE_BUILDER_INVOKED, Boolean.FALSE);
+                apply(response, refreshed, now);
+                return;
+            }
+
+            if (request.stale != null) {
+                cache.recordMiss();
+            }
+            if (!CACHEABLE_STATUS_CODES.contains(status) || !isStorable(request, headers)) {
+                return;
+            }
+            long expiresAt = getExpiryTime(headers, now, request.defaultMaxAge);
+            if (expiresAt < 0 || (expiresAt <= now && getHeader(headers, ETAG) == null
+                    && getHeader(headers, LAST_MODIFIED) == null)) {
+                return;
+            }
+            Map<String, String> variant = getVaryVariant(headers, request.requestHeaders);
+            if (variant == null) {
+                return;
+            }
+
+            byte[] body = readBody(response, headers, cache.getMaxEntrySize());
+            if (body == null) {
+                return;
+            }
+            Map<String, String> stored = new LinkedHashMap<String, String>();
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (!HOP_BY_HOP_HEADERS.contains(header.getKey())) {
+                    stored.put(header.getKey(), header.getValue());
+                }
+            }
+            if (body.length > 0) {
+                putHeader(stored, "Content-Length", String.valueOf(body.length));
+            }
+            cache.put(request.key, new CachedResponse(status,
+                    (String) response.getProperty(PassThroughConstants.HTTP_SC_DESC), stored, variant,
+                    body, now, expiresAt));
+        } catch (IOException e) {
+            log.warn("Error while storing the response of " + request.key + " in the response cache", e);
+        }
+    }
+
+    /**
+     * Hands a stored response to the callback receiver on the worker pool
+     */
+    private static boolean serve(org.apache.synapse.MessageContext synCtx,
+                                 final MessageContext axisOutMsgCtx, final AsyncCallback callback,
+                                 CachedResponse cached, long now) {
+
+        final MessageContext response;
+        try {
+            response = createResponse(axisOutMsgCtx, cached, now);
+        } catch (IOException e) {
+            log.warn("Error while reading the cached response of message : " +
+                    axisOutMsgCtx.getMessageID(), e);
+            return false;
+        }
+        final SynapseCallbackReceiver receiver =
+                (SynapseCallbackReceiver) axisOutMsgCtx.getAxisOperation().getMessageReceiver();
+
+        if (log.isDebugEnabled()) {
+            log.debug("Serving the response to message : " + axisOutMsgCtx.getMessageID() +
+                    " from the response cache");
+        }
+        try {
+            synCtx.getEnvironment().getExecutorService().execute(new Runnable() {
+                public void run() {
+                    receiver.addCallback(axisOutMsgCtx.getMessageID(), callback);
+                    try {
+                        AxisEngine.receive(response);
+                    } catch (AxisFault e) {
+                        log.error("Fault processing the cached response of message : " +
+                                axisOutMsgCtx.getMessageID(), e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private static MessageContext createResponse(MessageContext axisOutMsgCtx, CachedResponse cached,
+                                                 long now) throws IOException {
+
+        MessageContext response = new MessageContext();
+        response.setProperty(SynapseConstants.RELATES_TO_FOR_POX, axisOutMsgCtx.getMessageID());
+        response.setOperationContext(axisOutMsgCtx.getOperationContext());
+        response.setAxisMessage(axisOutMsgCtx.getAxisOperation().getMessage(
+                WSDLConstants.MESSAGE_LABEL_IN_VALUE));
+        response.setConfigurationContext(axisOutMsgCtx.getConfigurationContext());
+        response.setServerSide(true);
+        response.setDoingREST(axisOutMsgCtx.isDoingREST());
+        response.setTransportIn(axisOutMsgCtx.getTransportIn());
+        response.setTransportOut(axisOutMsgCtx.getTransportOut());
+        response.setProperty(MessageContext.TRANSPORT_IN,
+                axisOutMsgCtx.getProperty(MessageContext.TRANSPORT_IN));
+        response.setProperty(PassThroughConstants.PASS_THROUGH_SOURCE_CONNECTION,
+                axisOutMsgCtx.getProperty(PassThroughConstants.PASS_THROUGH_SOURCE_CONNECTION));
+        response.setProperty("PASS_THROUGH_SOURCE_CONFIGURATION",
+                axisOutMsgCtx.getProperty("PASS_THROUGH_SOURCE_CONFIGURATION"));
+        response.setProperty(CorrelationConstants.CORRELATION_ID,
+                axisOutMsgCtx.getProperty(CorrelationConstants.CORRELATION_ID));
+        response.setProperty(PassThroughConstants.NON_BLOCKING_TRANSPORT, true);
+
+        apply(response, cached, now);
+        return response;
+    }
+
+    /**
+     * Sets the status, headers and body of a stored response on an Axis2 response message. The
+     * body is attached through the same deferred builder used for responses read from the wire.
+     */
+    private static void apply(MessageContext response, CachedResponse cached, long now)
+            throws IOException {
+
+        Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(cached.getHeaders());
+        headers.put("Age", String.valueOf(Math.max(0, (now - cached.getStoredAt()) / 1000)));
+        response.setProperty(MessageContext.TRANSPORT_HEADERS, headers);
+        response.setProperty(PassThroughConstants.HTTP_SC, cached.getStatusCode());
+        response.setProperty(PassThroughConstants.HTTP_SC_DESC, cached.getStatusLine());
+        if (cached.getStatusCode() >= 400) {
+            response.setProperty(PassThroughConstants.FAULT_MESSAGE, PassThroughConstants.TRUE);
+        }
+        response.removeProperty(PassThroughConstants.PASS_THROUGH_PIPE);
+        response.removeProperty(PassThroughConstants.BUFFERED_INPUT_STREAM);
+
+        String contentType = cached.getHeader("Content-Type");
+        response.setEnvelope(OMAbstractFactory.getSOAP11Factory().getDefaultEnvelope());
+        if (contentType == null || cached.getBodyLength() == 0) {
+            response.setProperty(PassThroughConstants.NO_ENTITY_BODY, Boolean.TRUE);
+            response.setProperty(PassThroughConstants.MESSAGE_BUILDER_INVOKED, Boolean.TRUE);
+            return;
+        }
+        response.removeProperty(PassThroughConstants.NO_ENTITY_BODY);
+        response.setProperty(Constants.Configuration.CONTENT_TYPE, contentType);
+        RelayUtils.buildMessage(response, false, cached.getBody());
+    }
+
+    /**
+     * Reads the body of a response from the pass through pipe, and attaches it back to the
+     * response as if it had been built from the pipe
+     *
+     * @return the body, or null if it cannot be stored
+     */
+    private static byte[] readBody(MessageContext response, Map<String, String> headers,
+                                   int maxSize) throws IOException {
+
+        if (Boolean.TRUE.equals(response.getProperty(PassThroughConstants.NO_ENTITY_BODY))) {
+            return new byte[0];
+        }
+        Pipe pipe = (Pipe) response.getProperty(PassThroughConstants.PASS_THROUGH_PIPE);
+        if (pipe == null
+                || Boolean.TRUE.equals(response.getProperty(PassThroughConstants.MESSAGE_BUILDER_INVOKED))
+                || response.getProperty(Constants.Configuration.CONTENT_TYPE) == null) {
+            return null;
+        }
+        String contentEncoding = getHeader(headers, "Content-Encoding");
+        if (contentEncoding != null && !"identity".equalsIgnoreCase(contentEncoding.trim())) {
+            return null;
+        }
+        String contentLength = getHeader(headers, "Content-Length");
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength.trim()) > maxSize) {
+                    return null;
+                }
+            } catch (NumberFormatException ignore) {
+                return null;
+            }
+        }
+
+        InputStream in = pipe.getInputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                contentLength != null ? Integer.parseInt(contentLength.trim()) : 4096);
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            if (out.size() > maxSize) {
+                // too large after all, hand what was read back together with the rest
+                RelayUtils.buildMessage(response, false, new SequenceInputStream(
+                        new ByteArrayInputStream(out.toByteArray()), in));
+                return null;
+            }
+        }
+        byte[] body = out.toByteArray();
+        RelayUtils.buildMessage(response, false, new ByteArrayInputStream(body));
+        return body;
+    }
+
+    private static boolean isStorable(CacheRequest request, Map<String, String> headers) {
+
+        Map<String, String> cacheControl = parseCacheControl(getHeader(headers, CACHE_CONTROL));
+        if (cacheControl.containsKey("no-store") || cacheControl.containsKey("private")) {
+            return false;
+        }
+        // a shared cache must not reuse responses to authenticated requests unless allowed to
+        return getHeader(request.requestHeaders, "Authorization") == null
+                || cacheControl.containsKey("public") || cacheControl.containsKey("s-maxage")
+                || cacheControl.containsKey("must-revalidate");
+    }
+
+    /**
+     * Time at which a response received now goes stale, or -1 if it must not be stored
+     */
+    static long getExpiryTime(Map<String, String> headers, long now, long defaultMaxAge) {
+
+        Map<String, String> cacheControl = parseCacheControl(getHeader(headers, CACHE_CONTROL));
+        if (cacheControl.containsKey("no-store") || cacheControl.containsKey("private")) {
+            return -1;
+        }
+        if (cacheControl.containsKey("no-cache")) {
+            return now;
+        }
+        Long maxAge = parseSeconds(cacheControl.get("s-maxage"));
+        if (maxAge == null) {
+            maxAge = parseSeconds(cacheControl.get("max-age"));
+        }
+        if (maxAge != null) {
+            return now + maxAge * 1000;
+        }
+        String expires = getHeader(headers, "Expires");
+        if (expires != null) {
+            long expiresTime = parseDate(expires);
+            if (expiresTime < 0) {
+                // an invalid date, such as 0, means already expired
+                return now;
+            }
+            long date = parseDate(getHeader(headers, "Date"));
+            return now + Math.max(0, expiresTime - (date < 0 ? now : date));
+        }
+        return defaultMaxAge > 0 ? now + defaultMaxAge * 1000 : now;
+    }
+
+    /**
+     * Values of the request headers named in the Vary header of a response, or null if the
+     * response varies on something that cannot be matched
+     */
+    private static Map<String, String> getVaryVariant(Map<String, String> responseHeaders,
+                                                      Map<String, String> requestHeaders) {
+
+        String vary = getHeader(responseHeaders, "Vary");
+        if (vary == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> variant = new HashMap<String, String>();
+        for (String name : vary.split(",")) {
+            name = name.trim();
+            if ("*".equals(name)) {
+                return null;
+            }
+            if (!name.isEmpty()) {
+                variant.put(name, getHeader(requestHeaders, name));
+            }
+        }
+        return variant;
+    }
+
+    private static boolean matchesVariant(CachedResponse cached, Map<String, String> requestHeaders) {
+        for (Map.Entry<String, String> entry : cached.getVariant().entrySet()) {
+            String value = getHeader(requestHeaders, entry.getKey());
+            if (value == null ? entry.getValue() != null : !value.equals(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getKeyVariant(EndpointDefinition endpoint, Map<String, String> requestHeaders) {
+        if (endpoint.getResponseCacheHeaders().isEmpty()) {
+            return "";
+        }
+        StringBuilder variant = new StringBuilder();
+        for (String name : endpoint.getResponseCacheHeaders()) {
+            String value = getHeader(requestHeaders, name);
+            variant.append(' ').append(name).append('=').append(value != null ? value : "");
+        }
+        return variant.toString();
+    }
+
+    static Map<String, String> parseCacheControl(String header) {
+        if (header == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> directives = new HashMap<String, String>();
+        for (String directive : header.split(",")) {
+            int index = directive.indexOf('=');
+            String name = (index < 0 ? directive : directive.substring(0, index)).trim().toLowerCase();
+            String value = index < 0 ? null : directive.substring(index + 1).trim();
+            if (value != null && value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            if (!name.isEmpty()) {
+                directives.put(name, value);
+            }
+        }
+        return directives;
+    }
+
+    private static Long parseSeconds(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long parseDate(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> getHeaders(MessageContext msgCtx) {
+        Object headers = msgCtx.getProperty(MessageContext.TRANSPORT_HEADERS);
+        return headers instanceof Map ? (Map<String, String>) headers
+                : Collections.<String, String>emptyMap();
+    }
+
+    private static String getHeader(Map<String, String> headers, String name) {
+        String value = headers.get(name);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static void putHeader(Map<String, String> headers, String name, String value) {
+        for (String existing : headers.keySet()) {
+            if (existing.equalsIgnoreCase(name)) {
+                headers.put(existing, value);
+                return;
+            }
+        }
+        headers.put(name, value);
+    }
+
+    /**
+     * State of a cacheable request carried on the outgoing message until its response arrives
+     */
+    private static final class CacheRequest {
+
+        private final String key;
+        private final Map<String, String> requestHeaders;
+        /** the stored response being revalidated, if any */
+        private final CachedResponse stale;
+        private final long defaultMaxAge;
+
+        CacheRequest(String key, Map<String, String> requestHeaders, CachedResponse stale,
+                     long defaultMaxAge) {
+            this.key = key;
+            this.requestHeaders = requestHeaders;
+            this.stale = stale;
+            this.defaultMaxAge = defaultMaxAge;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.endpoints.cache;
+
+public class ResponseCacheView implements ResponseCacheViewMBean {
+
+    private final ResponseCache cache;
+
+    public ResponseCacheView(ResponseCache cache) {
+        this.cache = cache;
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    public long getRevalidations() {
+        return cache.getRevalidations();
+    }
+
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+    public double getHitRatio() {
+        return cache.getHitRatio();
+    }
+
+    public int getEntryCount() {
+        return cache.getEntryCount();
+    }
+
+    public long getSize() {
+        return cache.getSize();
+    }
+
+    public long getMaxSize() {
+        return cache.getMaxSize();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.synapse.aspects.flow.statistics.collectors.CloseEventCollector
 import org.apache.synapse.aspects.flow.statistics.collectors.FaultStatisticCollector;
 import org.apache.synapse.aspects.flow.statistics.collectors.RuntimeStatisticCollector;
 import org.apache.synapse.continuation.ContinuationStackManager;
+import org.apache.synapse.endpoints.EndpointConcurrencyLimiter;
 import org.apache.synapse.mediators.base.SequenceMediator;
 import org.apache.synapse.util.MessageHelper;
 import org.apache.synapse.util.ConcurrencyThrottlingUtils;
@@ -92,6 +93,7 @@ public class MediatorFaultHandler extends FaultHandler {
             traceOrDebugWarn(traceOn, "Executing fault handler mediator : " + name);
         }
         ConcurrencyThrottlingUtils.decrementConcurrencyThrottleAccessController(synCtx);
+        EndpointConcurrencyLimiter.release(synCtx, false);
         synCtx.getServiceLog().warn("Executing fault sequence mediator : " + name);
         this.faultMediator.mediate(synCtx);
         if(isStatisticsEnabled) {
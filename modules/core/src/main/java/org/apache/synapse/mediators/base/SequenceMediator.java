@@ -41,6 +41,8 @@ import org.apache.synapse.mediators.AbstractListMediator;
 import org.apache.synapse.mediators.FlowContinuableMediator;
 import org.apache.synapse.mediators.MediatorFaultHandler;
 import org.apache.synapse.mediators.Value;
+import org.apache.synapse.metrics.MetricType;
+import org.apache.synapse.metrics.MetricsRegistry;
 
 import java.util.Stack;
 
@@ -125,6 +127,9 @@ public class SequenceMediator extends AbstractListMediator implements Nameable,
             if (RuntimeStatisticCollector.isStatisticsEnabled()) {
                 statisticReportingIndex = reportOpenStatistics(synCtx, false);
             }
+            long metricsStartTime = sequenceType == SequenceType.NAMED && MetricsRegistry.isEnabled()
+                    ? System.nanoTime() : 0;
+            boolean isMediated = false;
             // Setting Required property to reportForComponent the sequence aspects
 
             try {
@@ -156,6 +161,7 @@ public class SequenceMediator extends AbstractListMediator implements Nameable,
                 }
 
                 boolean result = super.mediate(synCtx);
+                isMediated = true;
 
                 if (result && !skipAddition) {
                     // if flow completed remove the previously added SeqContinuationState
@@ -193,6 +199,10 @@ public class SequenceMediator extends AbstractListMediator implements Nameable,
                 if (RuntimeStatisticCollector.isStatisticsEnabled()) {
                     reportCloseStatistics(synCtx, statisticReportingIndex);
                 }
+                if (metricsStartTime != 0) {
+                    MetricsRegistry.getInstance().recordLatency(MetricType.SEQUENCE, name, metricsStartTime,
+                            !isMediated);
+                }
             }
 
         } else {
@@ -20,7 +20,9 @@
 package org.apache.synapse.mediators.builtin;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.JsonNodeReader;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
@@ -71,7 +73,9 @@ import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -128,6 +132,11 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
      */
     private  final JsonSchemaFactory jsonSchemaFactory = JsonSchemaFactory.byDefault();
 
+    /**
+     * Reads JSON payloads into trees for the JSON schema validator. This is thread-safe.
+     */
+    private static final JsonNodeReader jsonNodeReader = new JsonNodeReader();
+
     /**
      * to hold the json string of the schema
      */
@@ -138,9 +147,9 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
     private SynapsePath sourcePath;
     
     /**
-     * Concurrent hash map for cached schemas.
+     * Concurrent hash map for cached schemas, along with the validators created from them.
      */
-    private Map<String, Schema> cachedSchemaMap = new ConcurrentHashMap<String, Schema>();
+    private Map<String, ValidatorPool> cachedSchemaMap = new ConcurrentHashMap<String, ValidatorPool>();
     
     /**
      * Concurrent hash map for cached json schemas.
@@ -156,7 +165,7 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
     public boolean mediate(MessageContext synCtx) {
 
     	// This is the actual schema instance used to create a new schema
-    	Schema cachedSchema = null;
+    	ValidatorPool cachedSchema = null;
     	JsonSchema cachedJsonSchema = null;
     	
         if (synCtx.getEnvironment().isDebuggerEnabled()) {
@@ -277,26 +286,29 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
                 if (cachedJsonSchema == null && uncachedJsonSchema == null) {
                     handleException("Failed to create JSON Schema Validator", synCtx);
                 }
-                String jsonPayload = null;
+                JsonNode jsonPayload = null;
                 if (sourcePath != null) {
                     //evaluating
                     if (sourcePath instanceof SynapseJsonPath || sourcePath instanceof SynapseExpression) {
-                        jsonPayload = sourcePath.stringValueOf(synCtx);
+                        String jsonString = sourcePath.stringValueOf(synCtx);
+                        if (jsonString != null && jsonString.length() > 0) {
+                            jsonPayload = JsonLoader.fromString(jsonString);
+                        }
                     } else {
                         handleException("Could not find JSONPath or Synapse Expression to extract the message " +
                                 "to validate from the payload", synCtx);
                     }
                 } else {
-                    jsonPayload = JsonUtil.jsonPayloadToString(a2mc);
+                    jsonPayload = readJsonPayload(a2mc);
                 }
-                if(jsonPayload == null || jsonPayload.length() == 0) {
-                    //making empty json string
-                    jsonPayload = "{}";
+                if (jsonPayload == null) {
+                    //making empty json object
+                    jsonPayload = JsonNodeFactory.instance.objectNode();
                 }
                 if (cacheSchema) {
-                    report = cachedJsonSchema.validate(JsonLoader.fromString(jsonPayload));
+                    report = cachedJsonSchema.validate(jsonPayload);
                 } else {
-                    report = uncachedJsonSchema.validate(JsonLoader.fromString(jsonPayload));
+                    report = uncachedJsonSchema.validate(jsonPayload);
                 }
                 if (report.isSuccess()) {
                     return true;
@@ -430,7 +442,7 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
                             factory.setResourceResolver(schemaResourceResolver);
                         }
                         if (cacheSchema) {
-                            cachedSchema = factory.newSchema(sources);
+                            cachedSchema = new ValidatorPool(factory.newSchema(sources));
                             /*
                              * Initially adds the cached schema to the map if it's
                              * not available
@@ -474,11 +486,12 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
                 }
             }
 
-            // no need to synchronize, schema instances are thread-safe
+            // no need to synchronize, schema instances are thread-safe and each message takes
+            // its own validator from the pool
             try {
                 Validator validator;
                 if (cacheSchema) {
-                    validator = cachedSchema.newValidator();
+                    validator = cachedSchema.borrow();
                 } else {
                     validator = uncachedSchema.newValidator();
                 }
@@ -487,6 +500,10 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
                 // perform actual validation
                 validator.validate(validateSrc);
 
+                if (cacheSchema) {
+                    cachedSchema.release(validator);
+                }
+
                 if (errorHandler.isValidationError()) {
 
                     if (synLog.isTraceOrDebugEnabled()) {
@@ -530,6 +547,27 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
         return true;
     }
 
+    /**
+     * Reads the JSON payload of the message straight from its stream into a tree
+     *
+     * @param a2mc axis2 message context holding the JSON payload
+     * @return the payload, or null if the message has an empty payload
+     * @throws IOException if the payload is not valid JSON
+     */
+    private JsonNode readJsonPayload(org.apache.axis2.context.MessageContext a2mc) throws IOException {
+        InputStream jsonStream = JsonUtil.getJsonPayload(a2mc);
+        if (jsonStream == null) {
+            return null;
+        }
+        PushbackInputStream in = new PushbackInputStream(jsonStream, 1);
+        int first = in.read();
+        if (first == -1) {
+            return null;
+        }
+        in.unread(first);
+        return jsonNodeReader.fromInputStream(in);
+    }
+
     private boolean isReCreate(MessageContext synCtx, StringBuilder combinedPropertyKey) {
         boolean reCreate = false;
         for (Value schemaKey : schemaKeys) {
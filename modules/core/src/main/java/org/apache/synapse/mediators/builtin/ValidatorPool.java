@@ -0,0 +1,65 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators.builtin;
+
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.util.BoundedObjectPool;
+
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+/**
+ * A compiled schema together with the idle {@link Validator}s created from it. A Validator is not
+ * thread-safe but can validate any number of documents one after the other, so the validate
+ * mediator takes one from the pool for each message instead of creating a new one.
+ * <p>
+ * The number of idle Validators is bounded by the {@link SynapseConstants#VALIDATOR_POOL_SIZE}
+ * property.
+ */
+class ValidatorPool extends BoundedObjectPool<Validator, RuntimeException> {
+
+    private static final int DEFAULT_POOL_SIZE = 32;
+
+    ValidatorPool(Schema schema) {
+        this(schema, getPoolSize(SynapseConstants.VALIDATOR_POOL_SIZE, DEFAULT_POOL_SIZE));
+    }
+
+    /**
+     * @param schema  the compiled schema
+     * @param maxIdle maximum number of idle Validators kept
+     */
+    ValidatorPool(final Schema schema, int maxIdle) {
+        super(new Factory<Validator, RuntimeException>() {
+            public Validator create() {
+                return schema.newValidator();
+            }
+        }, new Resetter<Validator>() {
+            public boolean reset(Validator validator) {
+                try {
+                    // drops the error handler of the message, along with the errors it collected
+                    validator.reset();
+                    return true;
+                } catch (UnsupportedOperationException e) {
+                    return false;
+                }
+            }
+        }, maxIdle);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators.transform;
+
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.util.BoundedObjectPool;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+
+/**
+ * A compiled stylesheet together with the idle {@link Transformer}s created from it. Creating a
+ * Transformer allocates the run time structures of the stylesheet, so the XSLT mediator takes one
+ * from the pool for each message and returns it, reset, once the transformation is done.
+ * <p>
+ * The number of idle Transformers is bounded by the
+ * {@link SynapseConstants#XSLT_TRANSFORMER_POOL_SIZE} property.
+ */
+class TransformerPool extends BoundedObjectPool<Transformer, TransformerConfigurationException> {
+
+    private static final int DEFAULT_POOL_SIZE = 32;
+
+    TransformerPool(Templates templates) {
+        this(templates, getPoolSize(SynapseConstants.XSLT_TRANSFORMER_POOL_SIZE, DEFAULT_POOL_SIZE));
+    }
+
+    /**
+     * @param templates the compiled stylesheet
+     * @param maxIdle   maximum number of idle Transformers kept, 0 to create one per message
+     */
+    TransformerPool(final Templates templates, int maxIdle) {
+        super(new Factory<Transformer, TransformerConfigurationException>() {
+            public Transformer create() throws TransformerConfigurationException {
+                return templates.newTransformer();
+            }
+        }, new Resetter<Transformer>() {
+            public boolean reset(Transformer transformer) {
+                try {
+                    // not every engine clears the parameters on reset, and a parameter without a
+                    // value for the next message must not keep the value of the previous one
+                    transformer.clearParameters();
+                    transformer.reset();
+                    return true;
+                } catch (UnsupportedOperationException e) {
+                    // the XSLT engine cannot reuse Transformers, keep creating them
+                    return false;
+                }
+            }
+        }, maxIdle);
+    }
+}
@@ -37,6 +37,7 @@ import org.apache.synapse.mediators.AbstractMediator;
 import org.apache.synapse.mediators.MediatorProperty;
 import org.apache.synapse.mediators.Value;
 import org.apache.synapse.util.jaxp.DOOMResultBuilderFactory;
+import org.apache.synapse.util.jaxp.AXIOMSourceBuilderFactory;
 import org.apache.synapse.util.jaxp.DOOMSourceBuilderFactory;
 import org.apache.synapse.util.jaxp.ResultBuilder;
 import org.apache.synapse.util.jaxp.ResultBuilderFactory;
@@ -44,7 +45,6 @@ import org.apache.synapse.util.jaxp.SourceBuilder;
 import org.apache.synapse.util.jaxp.SourceBuilderFactory;
 import org.apache.synapse.util.jaxp.StreamResultBuilder;
 import org.apache.synapse.util.jaxp.StreamResultBuilderFactory;
-import org.apache.synapse.util.jaxp.StreamSourceBuilderFactory;
 import org.apache.synapse.util.resolver.CustomJAXPURIResolver;
 import org.apache.synapse.util.resolver.ResourceMap;
 import org.apache.synapse.util.xpath.SourceXPathSupport;
@@ -59,10 +59,10 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * The XSLT mediator performs an XSLT transformation requested, using
@@ -77,6 +77,11 @@ import java.util.Map;
  * the transformation process. By default this is turned on as an optimization, but
  * should be set to false if issues are detected</p>
  *
+ * <p>The message is handed to the XSLT engine as SAX events read from the AXIOM tree, without
+ * serializing it first. The previous behaviour can be restored by setting the
+ * "http://ws.apache.org/ns/synapse/transform/attribute/sbf" attribute to
+ * <code>org.apache.synapse.util.jaxp.StreamSourceBuilderFactory</code>.</p>
+ *
  * <p> Note: Set the TransformerFactory system property to generate and use translets
  *  -Djavax.xml.transform.TransformerFactory=org.apache.xalan.xsltc.trax.TransformerFactoryImpl
  * 
@@ -197,9 +202,11 @@ public class XSLTMediator extends AbstractMediator {
     /**
      * Cache multiple templates
      * Unique string used as a key for each template
-     * The Template instance used to create a Transformer object. This is  thread-safe
+     * The Template instance used to create a Transformer object is thread-safe, and is kept
+     * together with the Transformers created from it that are not in use
      */
-    private Map<String, Templates> cachedTemplatesMap = new Hashtable<String, Templates>();
+    private final ConcurrentMap<String, TransformerPool> cachedTemplatesMap =
+            new ConcurrentHashMap<String, TransformerPool>();
 
     /**
      * The TransformerFactory instance which use to create Templates. This is not thread-safe.
@@ -208,14 +215,14 @@ public class XSLTMediator extends AbstractMediator {
     private final TransformerFactory transFact = TransformerFactory.newInstance();
 
     /**
-     * Lock used to ensure thread-safe creation and use of the above Transformer
+     * Lock used to ensure thread-safe creation of Templates with the above TransformerFactory
      */
     private final Object transformerLock = new Object();
 
     /**
      * The source builder factory to use.
      */
-    private SourceBuilderFactory sourceBuilderFactory = new StreamSourceBuilderFactory();
+    private SourceBuilderFactory sourceBuilderFactory = new AXIOMSourceBuilderFactory();
     
     /**
      * The result builder factory to use.
@@ -285,36 +292,33 @@ public class XSLTMediator extends AbstractMediator {
         String generatedXsltKey = xsltKey.evaluateValue(synCtx);
 
         // get templates from generatedXsltKey
-        Templates cachedTemplates = null;
+        TransformerPool cachedTemplates = null;
 
         if (synLog.isTraceTraceEnabled()) {
             synLog.traceTrace("Transformation source : " + sourceNode.toString());
         }
 
         // determine if it is needed to create or create the template
-        if (isCreationOrRecreationRequired(synCtx)) {
+        if (isCreationOrRecreationRequired(synCtx, generatedXsltKey)) {
             // many threads can see this and come here for acquiring the lock
             synchronized (transformerLock) {
                 // only first thread should create the template
-                if (isCreationOrRecreationRequired(synCtx)) {
+                if (isCreationOrRecreationRequired(synCtx, generatedXsltKey)) {
                     cachedTemplates = createTemplate(synCtx, synLog, generatedXsltKey);
                 } else {
                     cachedTemplates = cachedTemplatesMap.get(generatedXsltKey);
                 }
             }
-        }
-        else{
+        } else {
             //If already cached template then load it from cachedTemplatesMap
-            synchronized (transformerLock){
-                cachedTemplates = cachedTemplatesMap.get(generatedXsltKey);
-            }
+            cachedTemplates = cachedTemplatesMap.get(generatedXsltKey);
         }
 
         try {
             // perform transformation
             Transformer transformer = null;
             try {
-                transformer = cachedTemplates.newTransformer();
+                transformer = cachedTemplates.borrow();
             } catch (NullPointerException ex) {
                 handleException("Unable to create Transformer using cached template", ex, synCtx);
             }
@@ -359,6 +363,8 @@ public class XSLTMediator extends AbstractMediator {
             } finally {
                 sourceBuilder.release();
             }
+            // only reuse the transformer if the transformation completed
+            cachedTemplates.release(transformer);
 
             synLog.traceOrDebug("Transformation completed - processing result");
 
@@ -456,9 +462,10 @@ public class XSLTMediator extends AbstractMediator {
      * @param generatedXsltKey evaluated xslt key(real key value) for dynamic or static key 
      * @return cached template
      */
-    private Templates createTemplate(MessageContext synCtx, SynapseLog synLog, String generatedXsltKey) {
+    private TransformerPool createTemplate(MessageContext synCtx, SynapseLog synLog,
+                                           String generatedXsltKey) {
         // Assign created template
-        Templates cachedTemplates = null;
+        TransformerPool cachedTemplates = null;
 
         // Set an error listener (SYNAPSE-307).
         transFact.setErrorListener(new ErrorListenerImpl(synLog, STYLESHEET_PARSING_ACTIVITY));
@@ -467,15 +474,18 @@ public class XSLTMediator extends AbstractMediator {
         transFact.setURIResolver(customJAXPURIResolver);
         if (resourceMap != null) customJAXPURIResolver.setMessageContext(synCtx);
         try {
-            cachedTemplates = transFact.newTemplates(
+            Templates templates = transFact.newTemplates(
                     SynapseConfigUtils.getStreamSource(synCtx.getEntry(generatedXsltKey)));
-            if (cachedTemplates == null) {
+            if (templates == null) {
                 // if cached template creation failed
                 handleException("Error compiling the XSLT with key : " + xsltKey, synCtx);
             } else {
                 if (useCache) {
                     // if cached template is created then put it in to cachedTemplatesMap
+                    cachedTemplates = new TransformerPool(templates);
                     cachedTemplatesMap.put(generatedXsltKey, cachedTemplates);
+                } else {
+                    cachedTemplates = new TransformerPool(templates, 0);
                 }
             }
         } catch (Exception e) {
@@ -490,15 +500,13 @@ public class XSLTMediator extends AbstractMediator {
      * Utility method to determine weather it is needed to create a XSLT template
      *
      * @param synCtx current message
+     * @param generatedXsltKey evaluated xslt key of the current message
      * @return true if it is needed to create a new XSLT template
      */
-    private boolean isCreationOrRecreationRequired(MessageContext synCtx) {
+    private boolean isCreationOrRecreationRequired(MessageContext synCtx, String generatedXsltKey) {
         if (!useCache){
             return true;
         } else {
-            // Derive actual key from message context
-            String generatedXsltKey = xsltKey.evaluateValue(synCtx);
-
             // if there are no cachedTemplates inside cachedTemplatesMap or
             // if the template related to this generated key is not cached
             // then it need to be cached
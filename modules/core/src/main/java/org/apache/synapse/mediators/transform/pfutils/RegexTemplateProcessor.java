@@ -37,9 +37,12 @@ import org.apache.synapse.util.InlineExpressionUtil;
 import org.apache.synapse.util.xpath.SynapseExpression;
 import org.jaxen.JaxenException;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -47,6 +50,10 @@ import javax.xml.stream.XMLStreamException;
 
 /**
  * TemplateProcessor implementation for Regex based templates
+ * <p>
+ * The template is split into literal text and placeholders once, and each message only evaluates
+ * the placeholders. The last template seen is kept, so a format loaded from the registry is
+ * compiled again only when it changes.
  */
 public class RegexTemplateProcessor extends TemplateProcessor {
 
@@ -57,14 +64,61 @@ public class RegexTemplateProcessor extends TemplateProcessor {
     private final Gson gson = new Gson();
     private final Map<String, SynapseExpression> inlineExpressionCache = new ConcurrentHashMap<>();
 
+    private volatile CompiledTemplate compiledTemplate;
+
     @Override
     public String processTemplate(String template, String mediaType, MessageContext synCtx) {
 
-        StringBuffer result = new StringBuffer();
-        replace(template, result, mediaType, synCtx);
+        CompiledTemplate compiled = compiledTemplate;
+        if (compiled == null || !compiled.isCompiledFrom(template, mediaType)) {
+            compiled = compile(template, mediaType);
+            compiledTemplate = compiled;
+        }
+        StringBuilder result = new StringBuilder(compiled.literalLength + 64);
+        replace(compiled, result, synCtx);
         return result.toString();
     }
 
+    /**
+     * Splits the payload format into literal text and the placeholders matched by the pattern
+     *
+     * @param format    payload format
+     * @param mediaType media type of the payload
+     * @return the compiled format
+     */
+    private CompiledTemplate compile(String format, String mediaType) {
+
+        String input;
+        if (JSON_TYPE.equals(mediaType) || TEXT_TYPE.equals(mediaType)) {
+            input = format;
+        } else {
+            input = "<pfPadding>" + format + "</pfPadding>";
+        }
+        List<Segment> segments = new ArrayList<>();
+        Matcher matcher = pattern.matcher(input);
+        int last = 0;
+        while (matcher.find()) {
+            if (matcher.start() > last) {
+                segments.add(new Segment(Segment.LITERAL, input.substring(last, matcher.start()), null));
+            }
+            String[] groups = {matcher.group(), matcher.group(1), matcher.group(2), matcher.group(3)};
+            int type;
+            if (groups[1] != null) {
+                type = Segment.QUOTED_EXPRESSION;
+            } else if (groups[2] != null) {
+                type = Segment.EXPRESSION;
+            } else {
+                type = Segment.ARGUMENT;
+            }
+            segments.add(new Segment(type, groups[0], groups));
+            last = matcher.end();
+        }
+        if (last < input.length()) {
+            segments.add(new Segment(Segment.LITERAL, input.substring(last), null));
+        }
+        return new CompiledTemplate(format, mediaType, segments.toArray(new Segment[segments.size()]));
+    }
+
     @Override
     public void init() throws SynapseException {
         String format = getFormat();
@@ -80,100 +134,178 @@ public class RegexTemplateProcessor extends TemplateProcessor {
     }
 
     /**
-     * Replaces the payload format with SynapsePath arguments which are evaluated using getArgValues().
+     * Replaces the placeholders of the compiled payload format with SynapsePath arguments which are evaluated
+     * using getArgValues() and with the results of inline expressions.
      *
-     * @param format
-     * @param result
-     * @param synCtx
+     * @param compiled compiled payload format
+     * @param result   buffer the payload is written to
+     * @param synCtx   message context
      */
-    private void replace(String format, StringBuffer result, String mediaType, MessageContext synCtx) {
+    private void replace(CompiledTemplate compiled, StringBuilder result, MessageContext synCtx) {
 
+        String mediaType = compiled.mediaType;
+        Segment[] segments = compiled.segments;
         Map<String, Object> inlineExpressionResults = new ConcurrentHashMap<>();
-        HashMap<String, ArgumentDetails>[] argValues = getArgValues(mediaType, synCtx);
+        HashMap<String, ArgumentDetails>[] argValues = null;
+        if (compiled.hasArguments) {
+            argValues = getArgValues(mediaType, synCtx);
+        }
         HashMap<String, ArgumentDetails> replacement;
         Map.Entry<String, ArgumentDetails> replacementEntry;
         String replacementValue;
-        Matcher matcher;
 
-        if (JSON_TYPE.equals(mediaType) || TEXT_TYPE.equals(mediaType)) {
-            matcher = pattern.matcher(format);
-        } else {
-            matcher = pattern.matcher("<pfPadding>" + format + "</pfPadding>");
-        }
+        int i = 0;
         try {
-            while (matcher.find()) {
-                if (matcher.group(1) != null) {
+            for (; i < segments.length; i++) {
+                Segment segment = segments[i];
+                if (segment.type == Segment.LITERAL) {
+                    result.append(segment.text);
+                } else if (segment.type == Segment.QUOTED_EXPRESSION) {
                     // Handle "${...}" pattern (with quotes)
-                    String expression = matcher.group(1);
+                    String expression = segment.groups[1];
                     Object expressionResult = evaluateExpression(expression, synCtx, inlineExpressionResults);
                     if (expressionResult instanceof JsonPrimitive) {
                         replacementValue = prepareJSONPrimitiveReplacementValue(expressionResult, mediaType);
                     } else if (expressionResult instanceof JsonElement) {
                         // Escape JSON object and Arrays since we need to consider it as
-                        replacementValue = escapeJson(Matcher.quoteReplacement(gson.toJson(expressionResult)));
-                        if (XML_TYPE.equals(mediaType)) {
-                            replacementValue = convertJsonToXML(replacementValue);
+                        if (compiled.xml) {
+                            replacementValue = unquoteReplacement(convertJsonToXML(
+                                    escapeJson(Matcher.quoteReplacement(gson.toJson(expressionResult)))));
+                        } else {
+                            replacementValue = escapeJsonString(gson.toJson(expressionResult));
                         }
                     } else {
                         replacementValue = expressionResult.toString();
-                        if (XML_TYPE.equals(mediaType)) {
+                        if (compiled.xml) {
                             replacementValue = StringEscapeUtils.escapeXml10(replacementValue);
-                        } else if (JSON_TYPE.equals(mediaType)) {
+                        } else if (compiled.json) {
                             if (isXML(replacementValue)) {
                                 // consider the replacement value as a literal XML
-                                replacementValue = escapeSpecialChars(Matcher.quoteReplacement(replacementValue));
+                                replacementValue = escapeJsonString(replacementValue);
                             } else {
-                                replacementValue = escapeSpecialCharactersOfJson(replacementValue);
+                                replacementValue = unquoteReplacement(
+                                        escapeSpecialCharactersOfJson(replacementValue));
                             }
                         }
                     }
-                    matcher.appendReplacement(result, "\"" + replacementValue + "\"");
-                } else if (matcher.group(2) != null) {
+                    result.append('"').append(replacementValue).append('"');
+                } else if (segment.type == Segment.EXPRESSION) {
                     // Handle ${...} pattern (without quotes)
-                    String expression = matcher.group(2);
+                    String expression = segment.groups[2];
                     Object expressionResult = evaluateExpression(expression, synCtx, inlineExpressionResults);
                     replacementValue = expressionResult.toString();
                     if (expressionResult instanceof JsonPrimitive) {
                         replacementValue = prepareJSONPrimitiveReplacementValue(expressionResult, mediaType);
                     } else if (expressionResult instanceof JsonElement) {
-                        if (XML_TYPE.equals(mediaType)) {
+                        if (compiled.xml) {
                             replacementValue = convertJsonToXML(replacementValue);
-                            replacementValue = Matcher.quoteReplacement(replacementValue);
                         } else {
-                            replacementValue = Matcher.quoteReplacement(gson.toJson(expressionResult));
+                            replacementValue = gson.toJson(expressionResult);
                         }
                     } else {
-                        if (JSON_TYPE.equals(mediaType) && isXML(replacementValue)) {
-                            replacementValue = convertXMLToJSON(replacementValue);
-                        } else {
-                            if (XML_TYPE.equals(mediaType) && !isXML(replacementValue)) {
-                                replacementValue = StringEscapeUtils.escapeXml10(replacementValue);
-                            }
-                            replacementValue = Matcher.quoteReplacement(replacementValue);
+                        if (compiled.json && isXML(replacementValue)) {
+                            replacementValue = unquoteReplacement(convertXMLToJSON(replacementValue));
+                        } else if (compiled.xml && !isXML(replacementValue)) {
+                            replacementValue = StringEscapeUtils.escapeXml10(replacementValue);
                         }
                     }
-                    matcher.appendReplacement(result, replacementValue);
-                } else if (matcher.group(3) != null) {
+                    result.append(replacementValue);
+                } else {
                     // Handle $n pattern
-                    String matchSeq = matcher.group(3);
+                    String matchSeq = segment.groups[3];
                     replacement = getReplacementValue(argValues, matchSeq);
                     replacementEntry = replacement.entrySet().iterator().next();
-                    replacementValue = prepareReplacementValue(mediaType, synCtx, replacementEntry);
-                    matcher.appendReplacement(result, replacementValue);
+                    result.append(unquoteReplacement(prepareReplacementValue(mediaType, synCtx, replacementEntry)));
                 }
             }
         } catch (ArrayIndexOutOfBoundsException e) {
             log.error("#replace. Mis-match detected between number of formatters and arguments", e);
+            // the rest of the format is left as it is
+            for (; i < segments.length; i++) {
+                result.append(segments[i].text);
+            }
         } catch (JaxenException e) {
             throw new SynapseException("Error evaluating expression" , e);
         }
-        matcher.appendTail(result);
+    }
+
+    /**
+     * Removes the escaping of a value prepared by the shared {@link TemplateProcessor} helpers, which
+     * escape backslashes and dollar signs for {@link Matcher#appendReplacement(StringBuffer, String)}.
+     *
+     * @param value value escaped for a regex replacement
+     * @return the value to write to the payload
+     */
+    static String unquoteReplacement(String value) {
+
+        int escape = value.indexOf('\\');
+        if (escape < 0) {
+            return value;
+        }
+        StringBuilder unquoted = new StringBuilder(value.length());
+        unquoted.append(value, 0, escape);
+        for (int i = escape; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                c = value.charAt(++i);
+            }
+            unquoted.append(c);
+        }
+        return unquoted.toString();
+    }
+
+    /**
+     * Escapes the characters of a value that can not appear as they are in a JSON string.
+     *
+     * @param value value to be written inside a JSON string
+     * @return escaped value
+     */
+    private static String escapeJsonString(String value) {
+
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '\\':
+                    replacement = "\\\\";
+                    break;
+                case '"':
+                    replacement = "\\\"";
+                    break;
+                case '\b':
+                    replacement = "\\b";
+                    break;
+                case '\f':
+                    replacement = "\\f";
+                    break;
+                case '\n':
+                    replacement = "\\n";
+                    break;
+                case '\r':
+                    replacement = "\\r";
+                    break;
+                case '\t':
+                    replacement = "\\t";
+                    break;
+                default:
+                    if (escaped != null) {
+                        escaped.append(c);
+                    }
+                    continue;
+            }
+            if (escaped == null) {
+                escaped = new StringBuilder(value.length() + 16);
+                escaped.append(value, 0, i);
+            }
+            escaped.append(replacement);
+        }
+        return escaped == null ? value : escaped.toString();
     }
 
     private String prepareJSONPrimitiveReplacementValue(Object expressionResult, String mediaType) {
 
-        String replacementValue = ((JsonPrimitive) expressionResult).getAsString();
-        replacementValue = escapeSpecialChars(Matcher.quoteReplacement(replacementValue));
+        String replacementValue = escapeJsonString(((JsonPrimitive) expressionResult).getAsString());
         if (XML_TYPE.equals(mediaType)) {
             replacementValue = StringEscapeUtils.escapeXml10(replacementValue);
         }
@@ -284,4 +416,64 @@ public class RegexTemplateProcessor extends TemplateProcessor {
         return true;
     }
 
+    /**
+     * A part of a compiled payload format
+     */
+    private static final class Segment {
+
+        static final int LITERAL = 0;
+        static final int QUOTED_EXPRESSION = 1;
+        static final int EXPRESSION = 2;
+        static final int ARGUMENT = 3;
+
+        private final int type;
+        /** the literal text, or the placeholder as written in the format */
+        private final String text;
+        /** groups of the placeholder match */
+        private final String[] groups;
+
+        Segment(int type, String text, String[] groups) {
+            this.type = type;
+            this.text = text;
+            this.groups = groups;
+        }
+    }
+
+    /**
+     * A payload format split into segments for one media type
+     */
+    private static final class CompiledTemplate {
+
+        private final String format;
+        private final String mediaType;
+        private final Segment[] segments;
+        private final boolean xml;
+        private final boolean json;
+        private final boolean hasArguments;
+        private final int literalLength;
+
+        CompiledTemplate(String format, String mediaType, Segment[] segments) {
+            this.format = format;
+            this.mediaType = mediaType;
+            this.segments = segments;
+            this.xml = XML_TYPE.equals(mediaType);
+            this.json = JSON_TYPE.equals(mediaType);
+            boolean arguments = false;
+            int length = 0;
+            for (Segment segment : segments) {
+                if (segment.type == Segment.ARGUMENT) {
+                    arguments = true;
+                } else if (segment.type == Segment.LITERAL) {
+                    length += segment.text.length();
+                }
+            }
+            this.hasArguments = arguments;
+            this.literalLength = length;
+        }
+
+        boolean isCompiledFrom(String format, String mediaType) {
+            return Objects.equals(this.format, format) && Objects.equals(this.mediaType, mediaType);
+        }
+    }
+
 }
@@ -0,0 +1,88 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Requests handled by one artifact, with the number of them that failed and the distribution of their latency.
+ */
+public class LatencyMetric {
+
+    private final MetricType type;
+    private final String name;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    LatencyMetric(MetricType type, String name) {
+        this.type = type;
+        this.name = name;
+    }
+
+    /**
+     * Record a request.
+     *
+     * @param latencyNanos time taken to handle the request, in nanoseconds
+     * @param isError      whether the request failed
+     */
+    public void record(long latencyNanos, boolean isError) {
+        latencies.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (isError) {
+            errors.increment();
+        }
+    }
+
+    public MetricType getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequestCount() {
+        return latencies.getCount();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * @return sum of the latencies of all the requests, in microseconds
+     */
+    public long getTotalLatency() {
+        return latencies.getSum();
+    }
+
+    /**
+     * @param percentile percentage, between 0 and 100
+     * @return latency below which the given percentage of the requests completed, in microseconds
+     */
+    public long getLatencyPercentile(double percentile) {
+        return latencies.getPercentile(percentile);
+    }
+
+    public void reset() {
+        latencies.reset();
+        errors.reset();
+    }
+}
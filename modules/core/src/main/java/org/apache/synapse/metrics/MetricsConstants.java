@@ -25,5 +25,13 @@ package org.apache.synapse.metrics;
 public final class MetricsConstants {
     public static final String GLOBAL_REQUEST_COUNTER = "__GLOBAL_REQUEST_COUNTER__";
     public static final String REQUEST_RECEIVED_TIME = "__REQUEST_RECEIVED_TIME__";
+
+    /** synapse.properties entry that enables recording latency of APIs, resources, endpoints and sequences */
+    public static final String METRICS_ENABLE = "synapse.metrics.enable";
+    /** synapse.properties entry for the path at which the metrics are served in the Prometheus text format */
+    public static final String PROMETHEUS_PATH = "synapse.metrics.prometheus.path";
+    public static final String DEFAULT_PROMETHEUS_PATH = "/metrics";
+    /** Message context property holding the System.nanoTime() at which an API received the request */
+    public static final String API_REQUEST_START_TIME = "__API_REQUEST_START_TIME__";
 }
 
@@ -0,0 +1,193 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.metrics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
+import org.apache.synapse.config.SynapsePropertiesLoader;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the latency and error counts of the APIs, resources, endpoints and sequences of the server. Requests are
+ * recorded by the threads handling them without taking locks, and the recorded metrics are exposed through JMX
+ * and in the Prometheus text format.
+ * <p>
+ * Recording is enabled with the synapse.metrics.enable property in synapse.properties. When it is disabled the
+ * only cost on the mediation path is a check of {@link #isEnabled()}.
+ */
+public class MetricsRegistry {
+
+    private static final Log log = LogFactory.getLog(MetricsRegistry.class);
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.95, 0.99};
+
+    private static final boolean enabled =
+            SynapsePropertiesLoader.getBooleanProperty(MetricsConstants.METRICS_ENABLE, false);
+
+    private static final MetricsRegistry instance = createInstance();
+
+    private final Map<MetricType, ConcurrentMap<String, LatencyMetric>> metrics =
+            new EnumMap<MetricType, ConcurrentMap<String, LatencyMetric>>(MetricType.class);
+
+    MetricsRegistry() {
+        for (MetricType type : MetricType.values()) {
+            metrics.put(type, new ConcurrentHashMap<String, LatencyMetric>());
+        }
+    }
+
+    private static MetricsRegistry createInstance() {
+        MetricsRegistry registry = new MetricsRegistry();
+        if (enabled) {
+            MBeanRegistrar.getInstance().registerMBean(new MetricsRegistryView(registry), "Metrics", "Registry");
+            log.info("Recording latency of APIs, resources, endpoints and sequences");
+        }
+        return registry;
+    }
+
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return whether requests should be recorded in the registry
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the metric of an artifact, creating it if it does not exist yet.
+     *
+     * @param type type of the artifact
+     * @param name name of the artifact
+     * @return the metric
+     */
+    public LatencyMetric getLatencyMetric(MetricType type, String name) {
+        ConcurrentMap<String, LatencyMetric> metricsOfType = metrics.get(type);
+        LatencyMetric metric = metricsOfType.get(name);
+        if (metric == null) {
+            metric = new LatencyMetric(type, name);
+            LatencyMetric existing = metricsOfType.putIfAbsent(name, metric);
+            if (existing != null) {
+                metric = existing;
+            }
+        }
+        return metric;
+    }
+
+    /**
+     * Get the metric of an artifact.
+     *
+     * @param type type of the artifact
+     * @param name name of the artifact
+     * @return the metric, or null if no request of the artifact has been recorded
+     */
+    public LatencyMetric findLatencyMetric(MetricType type, String name) {
+        return metrics.get(type).get(name);
+    }
+
+    /**
+     * Record a request handled by an artifact.
+     *
+     * @param type      type of the artifact
+     * @param name      name of the artifact, requests of unnamed artifacts are not recorded
+     * @param startTime System.nanoTime() at which the artifact started handling the request
+     * @param isError   whether the request failed
+     */
+    public void recordLatency(MetricType type, String name, long startTime, boolean isError) {
+        if (name != null) {
+            getLatencyMetric(type, name).record(System.nanoTime() - startTime, isError);
+        }
+    }
+
+    /**
+     * @return all the metrics in the registry
+     */
+    public List<LatencyMetric> getLatencyMetrics() {
+        List<LatencyMetric> allMetrics = new ArrayList<LatencyMetric>();
+        for (ConcurrentMap<String, LatencyMetric> metricsOfType : metrics.values()) {
+            allMetrics.addAll(metricsOfType.values());
+        }
+        return allMetrics;
+    }
+
+    public void reset() {
+        for (LatencyMetric metric : getLatencyMetrics()) {
+            metric.reset();
+        }
+    }
+
+    /**
+     * Write the metrics in the Prometheus text exposition format.
+     *
+     * @return the metrics as text
+     */
+    public String toPrometheusText() {
+        List<LatencyMetric> allMetrics = getLatencyMetrics();
+        StringBuilder text = new StringBuilder(256 + allMetrics.size() * 512);
+        text.append("# HELP synapse_request_duration_seconds Time taken to handle requests.\n");
+        text.append("# TYPE synapse_request_duration_seconds summary\n");
+        for (LatencyMetric metric : allMetrics) {
+            for (double quantile : QUANTILES) {
+                text.append("synapse_request_duration_seconds");
+                appendLabels(text, metric).append(",quantile=\"").append(quantile).append("\"} ");
+                text.append(toSeconds(metric.getLatencyPercentile(quantile * 100))).append('\n');
+            }
+            text.append("synapse_request_duration_seconds_sum");
+            appendLabels(text, metric).append("} ").append(toSeconds(metric.getTotalLatency())).append('\n');
+            text.append("synapse_request_duration_seconds_count");
+            appendLabels(text, metric).append("} ").append(metric.getRequestCount()).append('\n');
+        }
+        text.append("# HELP synapse_request_errors_total Requests that failed.\n");
+        text.append("# TYPE synapse_request_errors_total counter\n");
+        for (LatencyMetric metric : allMetrics) {
+            text.append("synapse_request_errors_total");
+            appendLabels(text, metric).append("} ").append(metric.getErrorCount()).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static StringBuilder appendLabels(StringBuilder text, LatencyMetric metric) {
+        text.append("{type=\"").append(metric.getType().getLabel()).append("\",name=\"");
+        String name = metric.getName();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '\\' || c == '"') {
+                text.append('\\').append(c);
+            } else if (c == '\n') {
+                text.append("\\n");
+            } else {
+                text.append(c);
+            }
+        }
+        return text.append('"');
+    }
+
+    private static double toSeconds(long micros) {
+        return micros / 1000000.0;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.metrics;
+
+import java.util.List;
+
+public class MetricsRegistryView implements MetricsRegistryViewMBean {
+
+    private final MetricsRegistry registry;
+
+    public MetricsRegistryView(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    public String[] getMetrics() {
+        List<LatencyMetric> metrics = registry.getLatencyMetrics();
+        String[] names = new String[metrics.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = metrics.get(i).getType().getLabel() + "/" + metrics.get(i).getName();
+        }
+        return names;
+    }
+
+    public long getRequestCount(String type, String name) {
+        LatencyMetric metric = findMetric(type, name);
+        return metric != null ? metric.getRequestCount() : 0;
+    }
+
+    public long getErrorCount(String type, String name) {
+        LatencyMetric metric = findMetric(type, name);
+        return metric != null ? metric.getErrorCount() : 0;
+    }
+
+    public double getAverageLatency(String type, String name) {
+        LatencyMetric metric = findMetric(type, name);
+        if (metric == null || metric.getRequestCount() == 0) {
+            return 0;
+        }
+        return metric.getTotalLatency() / 1000.0 / metric.getRequestCount();
+    }
+
+    public double getLatencyPercentile(String type, String name, double percentile) {
+        LatencyMetric metric = findMetric(type, name);
+        return metric != null ? metric.getLatencyPercentile(percentile) / 1000.0 : 0;
+    }
+
+    public String getPrometheusText() {
+        return registry.toPrometheusText();
+    }
+
+    public void reset() {
+        registry.reset();
+    }
+
+    private LatencyMetric findMetric(String type, String name) {
+        for (MetricType metricType : MetricType.values()) {
+            if (metricType.getLabel().equalsIgnoreCase(type)) {
+                return registry.findLatencyMetric(metricType, name);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.metrics;
+
+/**
+ * JMX view of the {@link MetricsRegistry}. Artifacts are identified by their type (api, resource, endpoint or
+ * sequence) and name, latencies are in milliseconds.
+ */
+public interface MetricsRegistryViewMBean {
+
+    /**
+     * @return the artifacts with recorded requests, as type/name
+     */
+    String[] getMetrics();
+
+    long getRequestCount(String type, String name);
+
+    long getErrorCount(String type, String name);
+
+    double getAverageLatency(String type, String name);
+
+    double getLatencyPercentile(String type, String name, double percentile);
+
+    /**
+     * @return all the metrics in the Prometheus text format
+     */
+    String getPrometheusText();
+
+    void reset();
+}
@@ -0,0 +1,76 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.metrics;
+
+import org.apache.axis2.context.MessageContext;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.nio.NHttpServerConnection;
+import org.apache.http.protocol.HTTP;
+import org.apache.synapse.config.SynapsePropertiesLoader;
+import org.apache.synapse.transport.passthru.api.PassThroughNHttpGetProcessor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A GET request processor for the pass-through HTTP listener, which serves the metrics of the
+ * {@link MetricsRegistry} in the Prometheus text format at the path given by synapse.metrics.prometheus.path
+ * (/metrics by default), and processes all other GET requests like {@link PassThroughNHttpGetProcessor}.
+ * <p>
+ * Enabled by setting this class as the httpGetProcessor parameter of the pass-through transport receiver.
+ */
+public class PrometheusNHttpGetProcessor extends PassThroughNHttpGetProcessor {
+
+    private static final Log log = LogFactory.getLog(PrometheusNHttpGetProcessor.class);
+
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final String metricsPath = SynapsePropertiesLoader.getPropertyValue(
+            MetricsConstants.PROMETHEUS_PATH, MetricsConstants.DEFAULT_PROMETHEUS_PATH);
+
+    @Override
+    public void process(HttpRequest request, HttpResponse response, MessageContext msgContext,
+                        NHttpServerConnection conn, OutputStream ostream, boolean isRestDispatching) {
+
+        if (!isMetricsRequest(request.getRequestLine().getUri())) {
+            super.process(request, response, msgContext, conn, ostream, isRestDispatching);
+            return;
+        }
+        byte[] data = MetricsRegistry.getInstance().toPrometheusText().getBytes(StandardCharsets.UTF_8);
+        response.setStatusCode(HttpStatus.SC_OK);
+        response.addHeader(HTTP.CONTENT_TYPE, PROMETHEUS_CONTENT_TYPE);
+        try {
+            sendResponseAndFinish(response, data, conn, createOutputStream(conn), msgContext);
+        } catch (IOException e) {
+            log.error("Error sending the metrics to the client", e);
+        }
+    }
+
+    private boolean isMetricsRequest(String uri) {
+        int queryIndex = uri.indexOf('?');
+        String path = queryIndex == -1 ? uri : uri.substring(0, queryIndex);
+        return metricsPath.equals(path);
+    }
+}
@@ -0,0 +1,591 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.startup.executor;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.ManagedLifecycle;
+import org.apache.synapse.commons.util.PropertyHelper;
+import org.apache.synapse.core.SynapseEnvironment;
+import org.apache.synapse.task.SynapseTaskException;
+import org.apache.synapse.task.Task;
+import org.apache.synapse.task.TaskConstants;
+import org.apache.synapse.task.TaskDescription;
+import org.apache.synapse.task.TaskManager;
+import org.apache.synapse.task.TaskManagerObserver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A task manager that runs tasks in process, without Quartz. A single thread advances a
+ * {@link TimingWheel} every tick and hands the tasks that are due to a pool of worker threads.
+ * Tasks may run at intervals shorter than a second (down to the tick length), with a fixed delay
+ * or at a fixed rate, or at the times of a cron expression, and the run statistics of each task
+ * are kept (see {@link #getTaskStatistics(String)}).
+ * <p>
+ * Use it with <tt>&lt;taskManager provider="org.apache.synapse.startup.executor.ExecutorTaskManager"&gt;</tt>.
+ * The task to run should be set as the {@link TaskDescription#INSTANCE} resource of its task
+ * description, or have a public no argument constructor, in which case it is initialized and
+ * its properties are set as by the Quartz task manager. As the Quartz jobs, tasks only run while
+ * the synapse environment is initialized. Unlike the Quartz task manager, the tasks are not
+ * clustered; the Quartz specific factories set through {@link #setProperty(String, Object)} are
+ * ignored.
+ */
+public class ExecutorTaskManager implements TaskManager {
+
+    private static final Log logger = LogFactory.getLog(ExecutorTaskManager.class.getName());
+
+    /** number of threads running the tasks */
+    public static final String WORKER_THREADS = "synapse.task.workerThreads";
+    public static final int DEFAULT_WORKER_THREADS = 10;
+
+    /** number of due tasks that may wait for a worker thread, before their fires are skipped */
+    public static final String WORKER_QUEUE_SIZE = "synapse.task.workerQueueSize";
+    public static final int DEFAULT_WORKER_QUEUE_SIZE = 1000;
+
+    /** length of a tick of the timing wheel in milliseconds, the shortest interval tasks can run at */
+    public static final String TICK_INTERVAL = "synapse.task.tickInterval";
+    public static final int DEFAULT_TICK_INTERVAL = 10;
+
+    /** number of slots of the timing wheel */
+    public static final String WHEEL_SIZE = "synapse.task.wheelSize";
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /**
+     * Task description property to run an interval task at a fixed rate instead of with a fixed
+     * delay. The default for all tasks may be set as a task manager property.
+     */
+    public static final String FIXED_RATE = "synapse.task.fixedRate";
+
+    /**
+     * Task description property setting how many times a fixed rate or cron task may run at the
+     * same time, 1 by default. The default for all tasks may be set as a task manager property.
+     */
+    public static final String MAX_CONCURRENCY = "synapse.task.maxConcurrency";
+
+    private static final String KEY_SEPARATOR = "::";
+
+    private final Object lock = new Object();
+
+    private final Map<String, ScheduledTask> tasks = new ConcurrentHashMap<String, ScheduledTask>();
+
+    private final List<TaskManagerObserver> observers = new CopyOnWriteArrayList<TaskManagerObserver>();
+
+    private final Map<String, Object> properties = new HashMap<String, Object>(5);
+
+    protected final Properties configProperties = new Properties();
+
+    private String name;
+
+    private volatile boolean initialized = false;
+
+    private volatile boolean started = false;
+
+    private final TimingWheel.Clock clock;
+
+    /** the executor to run the tasks on instead of a pool of worker threads, null for the pool */
+    private final Executor taskExecutor;
+
+    private TimingWheel wheel;
+
+    private Executor workers;
+
+    private ThreadPoolExecutor workerPool;
+
+    private ScheduledExecutorService ticker;
+
+    private boolean defaultFixedRate;
+
+    private int defaultMaxConcurrency = 1;
+
+    public ExecutorTaskManager() {
+        this(TimingWheel.Clock.SYSTEM, null);
+    }
+
+    /**
+     * Create a task manager whose wheel is advanced through {@link #advanceWheel()} instead of by
+     * a ticker thread, so that tests control when tasks fire and run.
+     *
+     * @param clock        the time source of the wheel and the tasks
+     * @param taskExecutor the executor to run the tasks on
+     */
+    ExecutorTaskManager(TimingWheel.Clock clock, Executor taskExecutor) {
+        this.clock = clock;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @Override
+    public boolean schedule(TaskDescription taskDescription) {
+        assertInitialized();
+        assertStarted();
+        if (taskDescription == null) {
+            throw new SynapseTaskException("Task Description cannot be found", logger);
+        }
+        if (taskDescription.getName() == null || "".equals(taskDescription.getName())) {
+            throw new SynapseTaskException("Name of the Task cannot be null", logger);
+        }
+        String key = getKey(taskDescription);
+        Task task = getTaskInstance(taskDescription);
+        if (task == null) {
+            return false;
+        }
+        if (taskDescription.getCount() == 0) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("did not schedule the task : " + key + ". count is zero.");
+            }
+            return true;
+        }
+        ScheduledTask scheduledTask = new ScheduledTask(key, taskDescription, task, getSynapseEnvironment(),
+                this, wheel, workers, getBooleanProperty(taskDescription, FIXED_RATE, defaultFixedRate),
+                getIntProperty(taskDescription, MAX_CONCURRENCY, defaultMaxConcurrency));
+        if (tasks.putIfAbsent(key, scheduledTask) != null) {
+            logger.warn("did not schedule the task : " + key + ". the task is already scheduled.");
+            return true;
+        }
+        scheduledTask.start();
+        logger.info("Scheduled task [" + key + "]");
+        return true;
+    }
+
+    @Override
+    public boolean reschedule(String name, TaskDescription taskDescription) {
+        delete(name);
+        return schedule(taskDescription);
+    }
+
+    @Override
+    public boolean delete(String nameGroup) {
+        if (nameGroup == null) {
+            return false;
+        }
+        assertInitialized();
+        ScheduledTask task = tasks.remove(toKey(nameGroup));
+        if (task != null) {
+            task.cancel();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Deleted task [" + toKey(nameGroup) + "] [" + (task != null) + "]");
+        }
+        return true;
+    }
+
+    @Override
+    public boolean pause(String name) {
+        ScheduledTask task = getScheduledTask(name);
+        if (task == null) {
+            return false;
+        }
+        task.setPaused(true);
+        return true;
+    }
+
+    @Override
+    public boolean pauseAll() {
+        assertInitialized();
+        for (ScheduledTask task : tasks.values()) {
+            task.setPaused(true);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean resume(String name) {
+        ScheduledTask task = getScheduledTask(name);
+        if (task == null) {
+            return false;
+        }
+        task.setPaused(false);
+        return true;
+    }
+
+    @Override
+    public boolean resumeAll() {
+        assertInitialized();
+        for (ScheduledTask task : tasks.values()) {
+            task.setPaused(false);
+        }
+        return true;
+    }
+
+    @Override
+    public TaskDescription getTask(String name) {
+        ScheduledTask task = getScheduledTask(name);
+        return task != null ? task.getDescription() : null;
+    }
+
+    @Override
+    public String[] getTaskNames() {
+        List<String> names = new ArrayList<String>(tasks.size());
+        for (ScheduledTask task : tasks.values()) {
+            names.add(task.getDescription().getName());
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
+    /**
+     * @param name the task name, or name::group
+     * @return the run statistics of the task, or null if there is no such task
+     */
+    public TaskStatistics getTaskStatistics(String name) {
+        ScheduledTask task = getScheduledTask(name);
+        return task != null ? task.getStatistics() : null;
+    }
+
+    @Override
+    public boolean init(Properties properties) {
+        synchronized (lock) {
+            if (initialized) {
+                return true;
+            }
+            int workerThreads = getIntProperty(properties, WORKER_THREADS, DEFAULT_WORKER_THREADS);
+            int queueSize = getIntProperty(properties, WORKER_QUEUE_SIZE, DEFAULT_WORKER_QUEUE_SIZE);
+            wheel = new TimingWheel(getIntProperty(properties, TICK_INTERVAL, DEFAULT_TICK_INTERVAL),
+                    getIntProperty(properties, WHEEL_SIZE, DEFAULT_WHEEL_SIZE), clock);
+            if (taskExecutor != null) {
+                workers = taskExecutor;
+            } else {
+                // a bounded array queue, so that handing a task to the workers allocates nothing
+                workerPool = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<Runnable>(queueSize), new TaskThreadFactory("worker"));
+                workers = workerPool;
+            }
+            if (properties != null) {
+                defaultFixedRate = Boolean.parseBoolean(properties.getProperty(FIXED_RATE));
+                defaultMaxConcurrency = getIntProperty(properties, MAX_CONCURRENCY, 1);
+            }
+            initialized = true;
+            logger.info("initialized with " + workerThreads + " worker threads and a tick of "
+                    + wheel.getTickMillis() + "ms");
+        }
+        for (TaskManagerObserver observer : observers) {
+            observer.update();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    @Override
+    public boolean start() {
+        assertInitialized();
+        synchronized (lock) {
+            if (!started && taskExecutor == null) {
+                ticker = Executors.newSingleThreadScheduledExecutor(new TaskThreadFactory("wheel"));
+                ticker.scheduleAtFixedRate(new Runnable() {
+                    public void run() {
+                        try {
+                            wheel.advance();
+                        } catch (Throwable t) {
+                            logger.error("Error firing due tasks", t);
+                        }
+                    }
+                }, wheel.getTickMillis(), wheel.getTickMillis(), TimeUnit.MILLISECONDS);
+            }
+            started = true;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean stop() {
+        synchronized (lock) {
+            if (!initialized) {
+                return false;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("ShuttingDown task manager : " + name);
+            }
+            for (ScheduledTask task : tasks.values()) {
+                task.cancel();
+            }
+            tasks.clear();
+            if (ticker != null) {
+                ticker.shutdownNow();
+                ticker = null;
+            }
+            if (workerPool != null) {
+                workerPool.shutdown();
+                workerPool = null;
+            }
+            started = false;
+            initialized = false;
+        }
+        return true;
+    }
+
+    @Override
+    public int getRunningTaskCount() {
+        int runningTasks = 0;
+        for (ScheduledTask task : tasks.values()) {
+            runningTasks += task.getRunningCount();
+        }
+        return runningTasks;
+    }
+
+    @Override
+    public boolean isTaskRunning(Object taskKey) {
+        return taskKey instanceof String && isTaskRunning((String) taskKey);
+    }
+
+    @Override
+    public boolean setProperties(Map<String, Object> properties) {
+        for (String key : properties.keySet()) {
+            synchronized (lock) {
+                this.properties.put(key, properties.get(key));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setProperty(String name, Object property) {
+        synchronized (lock) {
+            properties.put(name, property);
+        }
+        return true;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        if (name == null) {
+            return null;
+        }
+        synchronized (lock) {
+            return properties.get(name);
+        }
+    }
+
+    @Override
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getProviderClass() {
+        return this.getClass().getName();
+    }
+
+    @Override
+    public Properties getConfigurationProperties() {
+        synchronized (lock) {
+            return configProperties;
+        }
+    }
+
+    @Override
+    public void setConfigurationProperties(Properties properties) {
+        synchronized (lock) {
+            this.configProperties.putAll(properties);
+        }
+    }
+
+    @Override
+    public void addObserver(TaskManagerObserver o) {
+        observers.add(o);
+    }
+
+    @Override
+    public boolean isTaskDeactivated(String taskName) {
+        ScheduledTask task = getScheduledTask(taskName);
+        return task != null && task.isPaused();
+    }
+
+    @Override
+    public boolean isTaskBlocked(String taskName) {
+        return false;
+    }
+
+    @Override
+    public boolean isTaskRunning(String taskName) {
+        ScheduledTask task = getScheduledTask(taskName);
+        return task != null && task.getRunningCount() > 0;
+    }
+
+    @Override
+    public void sendClusterMessage(Callable<Void> task) {
+
+    }
+
+    @Override
+    public boolean isTaskExist(String taskName) {
+        return getScheduledTask(taskName) != null;
+    }
+
+    /**
+     * Advance the wheel up to the current time of the clock, firing the tasks that are due.
+     */
+    void advanceWheel() {
+        wheel.advance();
+    }
+
+    /**
+     * Remove a task that will not run again.
+     */
+    void finished(ScheduledTask task) {
+        tasks.remove(task.getKey(), task);
+    }
+
+    private void assertInitialized() {
+        if (!initialized) {
+            throw new SynapseTaskException("Task manager has not been initialized yet", logger);
+        }
+    }
+
+    private void assertStarted() {
+        if (!started) {
+            throw new SynapseTaskException("Task manager has not been started yet", logger);
+        }
+    }
+
+    private ScheduledTask getScheduledTask(String name) {
+        return name == null ? null : tasks.get(toKey(name));
+    }
+
+    private SynapseEnvironment getSynapseEnvironment() {
+        Object se = getProperty(TaskConstants.SYNAPSE_ENV);
+        return se instanceof SynapseEnvironment ? (SynapseEnvironment) se : null;
+    }
+
+    /**
+     * Get the task of a task description, creating, initializing and configuring it as the Quartz
+     * task manager does if the description holds no task instance.
+     */
+    private Task getTaskInstance(TaskDescription taskDescription) {
+        Object instance = taskDescription.getResource(TaskDescription.INSTANCE);
+        if (instance == null) {
+            String className = (String) taskDescription.getProperty(TaskDescription.CLASSNAME);
+            if (className == null) {
+                className = taskDescription.getTaskImplClassName();
+            }
+            if (className == null) {
+                logger.error("Could not schedule task[" + taskDescription.getName() + "]. No task class is set.");
+                return null;
+            }
+            try {
+                instance = Class.forName(className).newInstance();
+            } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+                logger.error("Could not schedule task[" + taskDescription.getName() + "].", e);
+                return null;
+            }
+            if (instance instanceof ManagedLifecycle) {
+                SynapseEnvironment se = getSynapseEnvironment();
+                if (se == null) {
+                    logger.error("Could not schedule task[" + taskDescription.getName() + "]. "
+                            + "No synapse environment to initialize it with.");
+                    return null;
+                }
+                ((ManagedLifecycle) instance).init(se);
+            }
+            for (OMElement property : taskDescription.getXmlProperties()) {
+                logger.debug("Found Property : " + property.toString());
+                PropertyHelper.setStaticProperty(property, instance);
+            }
+        }
+        if (!(instance instanceof Task)) {
+            logger.error("Could not schedule task[" + taskDescription.getName() + "]. " + instance.getClass()
+                    + " is not a " + Task.class.getName());
+            return null;
+        }
+        return (Task) instance;
+    }
+
+    private static String getKey(TaskDescription taskDescription) {
+        String group = taskDescription.getTaskGroup();
+        if (group == null || "".equals(group)) {
+            group = TaskDescription.DEFAULT_GROUP;
+        }
+        return taskDescription.getName() + KEY_SEPARATOR + group;
+    }
+
+    /**
+     * @param name a task name, or name::group
+     * @return the key of the task, in the default group if no group is given
+     */
+    private static String toKey(String name) {
+        int index = name.indexOf(KEY_SEPARATOR);
+        if (index < 0 || index + KEY_SEPARATOR.length() == name.length()) {
+            String taskName = index < 0 ? name : name.substring(0, index);
+            return taskName + KEY_SEPARATOR + TaskDescription.DEFAULT_GROUP;
+        }
+        return name;
+    }
+
+    private static boolean getBooleanProperty(TaskDescription taskDescription, String name, boolean defaultValue) {
+        Object value = taskDescription.getProperty(name);
+        return value != null ? Boolean.parseBoolean(value.toString().trim()) : defaultValue;
+    }
+
+    private static int getIntProperty(TaskDescription taskDescription, String name, int defaultValue) {
+        Object value = taskDescription.getProperty(name);
+        return value != null ? parseInt(name, value.toString(), defaultValue) : defaultValue;
+    }
+
+    private static int getIntProperty(Properties properties, String name, int defaultValue) {
+        String value = properties != null ? properties.getProperty(name) : null;
+        return value != null ? parseInt(name, value, defaultValue) : defaultValue;
+    }
+
+    private static int parseInt(String name, String value, int defaultValue) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value " + value + " for " + name + ", using the default value " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static final class TaskThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private TaskThreadFactory(String type) {
+            this.prefix = "synapse-task-" + type + "-";
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
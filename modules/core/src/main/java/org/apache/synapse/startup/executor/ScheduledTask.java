@@ -0,0 +1,309 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.startup.executor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.core.SynapseEnvironment;
+import org.apache.synapse.task.SynapseTaskException;
+import org.apache.synapse.task.Task;
+import org.apache.synapse.task.TaskDescription;
+import org.quartz.CronExpression;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A task scheduled by the {@link ExecutorTaskManager}. The same instance is put in the timing
+ * wheel each time the task is due next and handed to a worker thread each time it runs, so
+ * firing a task that runs once at a time allocates nothing. A task that may run more than once
+ * at a time is handed over in a new run holding the time it was fired at.
+ * <p>
+ * A task with an interval runs with a fixed delay by default: it is due again the interval
+ * after its run completes, so it never runs more than once at a time. A task with a fixed rate,
+ * or a cron expression, is due at fixed times instead. If it is still running as many times as
+ * it may run at once when it is due, that fire is skipped.
+ */
+final class ScheduledTask extends TimingWheel.Timeout implements Runnable {
+
+    private static final Log log = LogFactory.getLog(ScheduledTask.class);
+
+    private final String key;
+    private final TaskDescription description;
+    private final Task task;
+    private final SynapseEnvironment synapseEnvironment;
+    private final ExecutorTaskManager manager;
+    private final TimingWheel wheel;
+    private final TimingWheel.Clock clock;
+    private final Executor workers;
+
+    private final long interval;
+    private final CronExpression cron;
+    private final boolean fixedRate;
+    private final int maxConcurrency;
+    private final long endTime;
+
+    /** runs left to fire, negative for no limit, only changed by the thread advancing the wheel */
+    private volatile long remainingRuns;
+    /** the time the task is next due at */
+    private volatile long dueTime;
+    /** when the task was last handed to a worker thread, if it only runs once at a time */
+    private volatile long firedNanos;
+    private volatile boolean paused;
+    private volatile boolean cancelled;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder runCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder totalRunTime = new LongAdder();
+    private final AtomicLong maxRunTime = new AtomicLong();
+    private final LongAdder totalStartDelay = new LongAdder();
+    private final LongAdder overrunCount = new LongAdder();
+    private final LongAdder skippedFireCount = new LongAdder();
+
+    ScheduledTask(String key, TaskDescription description, Task task, SynapseEnvironment synapseEnvironment,
+                  ExecutorTaskManager manager, TimingWheel wheel, Executor workers, boolean fixedRate,
+                  int maxConcurrency) {
+        this.key = key;
+        this.description = description;
+        this.task = task;
+        this.synapseEnvironment = synapseEnvironment;
+        this.manager = manager;
+        this.wheel = wheel;
+        this.clock = wheel.getClock();
+        this.workers = workers;
+        String cronExpression = description.getCronExpression();
+        if (cronExpression != null && !"".equals(cronExpression)) {
+            try {
+                this.cron = new CronExpression(cronExpression);
+            } catch (ParseException e) {
+                throw new SynapseTaskException("Invalid cron expression : " + cronExpression + " of task : " + key, e);
+            }
+            this.interval = 0;
+        } else {
+            this.cron = null;
+            this.interval = description.getIntervalInMs() ? description.getInterval()
+                    : description.getInterval() * 1000;
+            if (interval <= 0 && description.getCount() != 1) {
+                throw new SynapseTaskException("Task : " + key + " should have a positive interval"
+                        + " or a cron expression");
+            }
+        }
+        this.fixedRate = fixedRate;
+        this.maxConcurrency = fixedRate || cron != null ? Math.max(1, maxConcurrency) : 1;
+        this.endTime = description.getEndTime() != null ? description.getEndTime().getTimeInMillis() : 0;
+        this.remainingRuns = description.getCount();
+    }
+
+    /**
+     * Put the task in the wheel for its first run.
+     */
+    void start() {
+        long now = clock.currentTimeMillis();
+        long first = now;
+        if (description.getStartTime() != null) {
+            first = Math.max(now, description.getStartTime().getTimeInMillis());
+        }
+        if (cron != null) {
+            Date next = cron.getNextValidTimeAfter(new Date(first - 1));
+            if (next == null) {
+                finish();
+                return;
+            }
+            first = next.getTime();
+        }
+        dueTime = first;
+        wheel.schedule(this, first - now);
+    }
+
+    /**
+     * Remove the task from the wheel. A run in progress completes.
+     */
+    void cancel() {
+        cancelled = true;
+        wheel.cancel(this);
+    }
+
+    @Override
+    void expired() {
+        if (cancelled) {
+            return;
+        }
+        long now = clock.currentTimeMillis();
+        if (endTime > 0 && now > endTime) {
+            finish();
+            return;
+        }
+        // as the Quartz jobs, the task does not run unless synapse is initialized
+        boolean idle = paused || synapseEnvironment == null || !synapseEnvironment.isInitialized();
+        if (idle || running.get() >= maxConcurrency) {
+            if (!idle) {
+                skippedFireCount.increment();
+            }
+            scheduleNext(now);
+            return;
+        }
+        boolean counted = remainingRuns > 0;
+        if (counted) {
+            remainingRuns--;
+        }
+        running.incrementAndGet();
+        try {
+            if (maxConcurrency == 1) {
+                firedNanos = clock.nanoTime();
+                workers.execute(this);
+            } else {
+                workers.execute(new ConcurrentRun(clock.nanoTime()));
+            }
+        } catch (RejectedExecutionException e) {
+            running.decrementAndGet();
+            skippedFireCount.increment();
+            if (counted) {
+                remainingRuns++;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("No worker thread available to run task : " + key);
+            }
+            scheduleNext(now);
+            return;
+        }
+        if (!isFixedDelay()) {
+            scheduleNext(now);
+        }
+    }
+
+    public void run() {
+        run(firedNanos);
+    }
+
+    private void run(long fired) {
+        long start = clock.nanoTime();
+        totalStartDelay.add(start - fired);
+        try {
+            task.execute();
+        } catch (Throwable t) {
+            failureCount.increment();
+            log.error("Error executing task : " + key, t);
+        } finally {
+            long runTime = clock.nanoTime() - start;
+            runCount.increment();
+            totalRunTime.add(runTime);
+            long max;
+            while (runTime > (max = maxRunTime.get()) && !maxRunTime.compareAndSet(max, runTime)) {
+                // retry
+            }
+            if (interval > 0 && runTime > interval * 1000000L) {
+                overrunCount.increment();
+            }
+            running.decrementAndGet();
+            if (isFixedDelay()) {
+                scheduleNext(clock.currentTimeMillis());
+            }
+        }
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    TaskDescription getDescription() {
+        return description;
+    }
+
+    boolean isPaused() {
+        return paused;
+    }
+
+    void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    int getRunningCount() {
+        return running.get();
+    }
+
+    TaskStatistics getStatistics() {
+        return new TaskStatistics(runCount.sum(), failureCount.sum(), totalRunTime.sum(), maxRunTime.get(),
+                totalStartDelay.sum(), overrunCount.sum(), skippedFireCount.sum(), running.get());
+    }
+
+    private boolean isFixedDelay() {
+        return cron == null && !fixedRate;
+    }
+
+    private void scheduleNext(long now) {
+        if (cancelled) {
+            return;
+        }
+        if (remainingRuns == 0) {
+            finish();
+            return;
+        }
+        long next;
+        if (cron != null) {
+            Date nextDate = cron.getNextValidTimeAfter(new Date(Math.max(now, dueTime)));
+            if (nextDate == null) {
+                finish();
+                return;
+            }
+            next = nextDate.getTime();
+        } else if (fixedRate) {
+            // keep to the original times, skipping those that have passed
+            next = dueTime + interval;
+            if (next <= now) {
+                next += ((now - next) / interval + 1) * interval;
+            }
+        } else {
+            next = now + interval;
+        }
+        if (endTime > 0 && next > endTime) {
+            finish();
+            return;
+        }
+        dueTime = next;
+        wheel.schedule(this, next - now);
+    }
+
+    private void finish() {
+        if (log.isDebugEnabled()) {
+            log.debug("Task : " + key + " will not run again");
+        }
+        manager.finished(this);
+    }
+
+    /**
+     * A run of a task that may run more than once at a time
+     */
+    private final class ConcurrentRun implements Runnable {
+        private final long firedNanos;
+
+        private ConcurrentRun(long firedNanos) {
+            this.firedNanos = firedNanos;
+        }
+
+        public void run() {
+            ScheduledTask.this.run(firedNanos);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.startup.executor;
+
+/**
+ * Run statistics of a task scheduled by the {@link ExecutorTaskManager}, as of the time they
+ * were taken.
+ */
+public final class TaskStatistics {
+
+    private final long runCount;
+    private final long failureCount;
+    private final long totalRunTimeNanos;
+    private final long maxRunTimeNanos;
+    private final long totalStartDelayNanos;
+    private final long overrunCount;
+    private final long skippedFireCount;
+    private final int runningCount;
+
+    TaskStatistics(long runCount, long failureCount, long totalRunTimeNanos, long maxRunTimeNanos,
+                   long totalStartDelayNanos, long overrunCount, long skippedFireCount, int runningCount) {
+        this.runCount = runCount;
+        this.failureCount = failureCount;
+        this.totalRunTimeNanos = totalRunTimeNanos;
+        this.maxRunTimeNanos = maxRunTimeNanos;
+        this.totalStartDelayNanos = totalStartDelayNanos;
+        this.overrunCount = overrunCount;
+        this.skippedFireCount = skippedFireCount;
+        this.runningCount = runningCount;
+    }
+
+    /**
+     * @return number of completed runs
+     */
+    public long getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * @return number of runs that threw an exception
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return average time a run took, in milliseconds
+     */
+    public double getAverageRunTime() {
+        return runCount == 0 ? 0 : totalRunTimeNanos / 1000000.0 / runCount;
+    }
+
+    /**
+     * @return longest time a run took, in milliseconds
+     */
+    public double getMaxRunTime() {
+        return maxRunTimeNanos / 1000000.0;
+    }
+
+    /**
+     * @return average time from the task being fired to its run starting on a worker thread, in milliseconds
+     */
+    public double getAverageStartDelay() {
+        return runCount == 0 ? 0 : totalStartDelayNanos / 1000000.0 / runCount;
+    }
+
+    /**
+     * @return number of runs that took longer than the interval of the task
+     */
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * @return number of times the task was due but not run, as it was running as many times as it
+     * may run at the same time, or no worker thread could take it
+     */
+    public long getSkippedFireCount() {
+        return skippedFireCount;
+    }
+
+    /**
+     * @return number of runs in progress
+     */
+    public int getRunningCount() {
+        return runningCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskStatistics{runCount=" + runCount + ", failureCount=" + failureCount
+                + ", averageRunTime=" + getAverageRunTime() + ", maxRunTime=" + getMaxRunTime()
+                + ", averageStartDelay=" + getAverageStartDelay() + ", overrunCount=" + overrunCount
+                + ", skippedFireCount=" + skippedFireCount + ", runningCount=" + runningCount + "}";
+    }
+}
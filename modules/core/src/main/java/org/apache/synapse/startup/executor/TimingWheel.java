@@ -0,0 +1,195 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.startup.executor;
+
+/**
+ * A hashed timing wheel. Time is divided in to ticks, and a timeout is kept in the slot of the
+ * tick it is due at, modulo the number of slots. Advancing the wheel by a tick only looks at the
+ * timeouts of one slot, so scheduling and expiring a timeout costs the same however many
+ * timeouts there are. A timeout is due at the end of the first tick that ends after its delay.
+ * <p>
+ * Timeouts are linked in to their slot through their own fields, so that scheduling the same
+ * timeout again and again allocates nothing.
+ */
+final class TimingWheel {
+
+    /**
+     * The time source of a wheel and of the tasks in it
+     */
+    interface Clock {
+
+        Clock SYSTEM = new Clock() {
+            public long currentTimeMillis() {
+                return System.currentTimeMillis();
+            }
+
+            public long nanoTime() {
+                return System.nanoTime();
+            }
+        };
+
+        /**
+         * @return the wall clock time in milliseconds, as of {@link System#currentTimeMillis()}
+         */
+        long currentTimeMillis();
+
+        /**
+         * @return the elapsed time in nanoseconds, as of {@link System#nanoTime()}
+         */
+        long nanoTime();
+    }
+
+    /**
+     * An entry of the wheel
+     */
+    abstract static class Timeout {
+        private Timeout previous;
+        private Timeout next;
+        private long deadlineTick;
+        private boolean scheduled;
+
+        /**
+         * Called by the thread advancing the wheel once the timeout is due. The timeout may be
+         * scheduled again from here.
+         */
+        abstract void expired();
+    }
+
+    private final Clock clock;
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] slots;
+    private final long startNanos;
+
+    /** the last tick the wheel was advanced to */
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis length of a tick in milliseconds
+     * @param slotCount  number of slots, rounded up to a power of two
+     */
+    TimingWheel(long tickMillis, int slotCount) {
+        this(tickMillis, slotCount, Clock.SYSTEM);
+    }
+
+    /**
+     * @param tickMillis length of a tick in milliseconds
+     * @param slotCount  number of slots, rounded up to a power of two
+     * @param clock      the time source
+     */
+    TimingWheel(long tickMillis, int slotCount, Clock clock) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick length should be positive : " + tickMillis);
+        }
+        this.tickNanos = tickMillis * 1000000L;
+        int slots = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+        this.slots = new Timeout[slots];
+        this.mask = slots - 1;
+        this.clock = clock;
+        this.startNanos = clock.nanoTime();
+    }
+
+    /**
+     * Schedule a timeout, moving it if it is already scheduled.
+     *
+     * @param timeout     the timeout
+     * @param delayMillis delay after which the timeout is due
+     */
+    synchronized void schedule(Timeout timeout, long delayMillis) {
+        if (timeout.scheduled) {
+            unlink(timeout);
+        }
+        long deadlineNanos = clock.nanoTime() - startNanos + Math.max(0, delayMillis) * 1000000L;
+        timeout.deadlineTick = Math.max(currentTick + 1, (deadlineNanos + tickNanos - 1) / tickNanos);
+        int slot = (int) (timeout.deadlineTick & mask);
+        timeout.previous = null;
+        timeout.next = slots[slot];
+        if (slots[slot] != null) {
+            slots[slot].previous = timeout;
+        }
+        slots[slot] = timeout;
+        timeout.scheduled = true;
+        size++;
+    }
+
+    /**
+     * @param timeout the timeout
+     * @return false if the timeout was not scheduled
+     */
+    synchronized boolean cancel(Timeout timeout) {
+        if (!timeout.scheduled) {
+            return false;
+        }
+        unlink(timeout);
+        return true;
+    }
+
+    /**
+     * Advance the wheel up to the current time, calling {@link Timeout#expired()} on the timeouts
+     * that are due.
+     */
+    synchronized void advance() {
+        long targetTick = (clock.nanoTime() - startNanos) / tickNanos;
+        while (currentTick < targetTick) {
+            currentTick++;
+            Timeout timeout = slots[(int) (currentTick & mask)];
+            while (timeout != null) {
+                // an expired timeout may be scheduled in this very slot again
+                Timeout next = timeout.next;
+                if (timeout.deadlineTick <= currentTick) {
+                    unlink(timeout);
+                    timeout.expired();
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    /**
+     * @return number of scheduled timeouts
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    long getTickMillis() {
+        return tickNanos / 1000000L;
+    }
+
+    Clock getClock() {
+        return clock;
+    }
+
+    private void unlink(Timeout timeout) {
+        int slot = (int) (timeout.deadlineTick & mask);
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots[slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.scheduled = false;
+        size--;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.config.SynapsePropertiesLoader;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps idle instances of an object that is expensive to create and not thread-safe, but can be
+ * reset and used again, such as an XSLT Transformer or a schema Validator. A caller takes an
+ * instance with {@link #borrow()} for the duration of one message and gives it back with
+ * {@link #release(Object)}.
+ * <p>
+ * The number of idle instances is bounded. Instances released while the pool is full, or that
+ * cannot be reset, are left to the garbage collector.
+ *
+ * @param <T> type of the pooled objects
+ * @param <E> exception thrown when an object cannot be created
+ */
+public class BoundedObjectPool<T, E extends Exception> {
+
+    private static final Log log = LogFactory.getLog(BoundedObjectPool.class);
+
+    /**
+     * Creates the pooled objects
+     */
+    public interface Factory<T, E extends Exception> {
+
+        T create() throws E;
+    }
+
+    /**
+     * Prepares a released object for the next caller
+     */
+    public interface Resetter<T> {
+
+        /**
+         * @param object the released object
+         * @return false if the object cannot be used again
+         */
+        boolean reset(T object);
+    }
+
+    private final Factory<T, E> factory;
+    private final Resetter<T> resetter;
+    private final int maxIdle;
+
+    private final Queue<T> idle = new ConcurrentLinkedQueue<T>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * @param factory  creates an object when there is no idle one
+     * @param resetter resets released objects
+     * @param maxIdle  maximum number of idle objects kept, 0 to create one per borrow
+     */
+    public BoundedObjectPool(Factory<T, E> factory, Resetter<T> resetter, int maxIdle) {
+        this.factory = factory;
+        this.resetter = resetter;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Takes an idle object, or creates a new one if there is none
+     */
+    public T borrow() throws E {
+        T object = idle.poll();
+        if (object != null) {
+            idleCount.decrementAndGet();
+            return object;
+        }
+        return factory.create();
+    }
+
+    /**
+     * Resets an object taken with {@link #borrow()} and makes it available to other callers.
+     * Objects that failed while in use should not be returned.
+     */
+    public void release(T object) {
+        if (idleCount.get() >= maxIdle || !resetter.reset(object)) {
+            return;
+        }
+        if (idleCount.incrementAndGet() > maxIdle) {
+            idleCount.decrementAndGet();
+            return;
+        }
+        idle.offer(object);
+    }
+
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    /**
+     * Reads a pool size from the synapse properties
+     *
+     * @param property     name of the property
+     * @param defaultValue size used when the property is not set or invalid
+     * @return the pool size, at least 0
+     */
+    public static int getPoolSize(String property, int defaultValue) {
+        String value = SynapsePropertiesLoader.getPropertyValue(property, String.valueOf(defaultValue));
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value : " + value + " for " + property + ", using the default "
+                    + defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.aspects.flow.statistics.store;
+
+import org.apache.synapse.aspects.flow.statistics.log.StatisticsReportingEventHolder;
+import org.apache.synapse.aspects.flow.statistics.util.StatisticsConstants;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for MessageDataStore class.
+ */
+public class MessageDataStoreTest {
+
+    private static final int QUEUE_SIZE = 3;
+
+    @Test
+    public void testNewMessagesDroppedWhenFull() throws Exception {
+        MessageDataStore store = createStore(StatisticsConstants.QUEUE_EVICTION_POLICY_NEW_MESSAGES);
+        List<StatisticsReportingEventHolder> events = enqueue(store, QUEUE_SIZE + 3);
+        for (int i = 0; i <= QUEUE_SIZE; i++) {
+            Assert.assertSame(events.get(i), store.dequeue());
+        }
+        Assert.assertNull("Events added to a full queue should be dropped", store.dequeue());
+    }
+
+    @Test
+    public void testOldMessagesDroppedWhenFull() throws Exception {
+        MessageDataStore store = createStore(StatisticsConstants.QUEUE_EVICTION_POLICY_OLD_MESSAGES);
+        List<StatisticsReportingEventHolder> events = enqueue(store, QUEUE_SIZE + 3);
+        for (int i = 2; i < events.size(); i++) {
+            Assert.assertSame(events.get(i), store.dequeue());
+        }
+        Assert.assertNull(store.dequeue());
+    }
+
+    @Test
+    public void testRoomMadeByDequeue() throws Exception {
+        MessageDataStore store = createStore(StatisticsConstants.QUEUE_EVICTION_POLICY_NEW_MESSAGES);
+        List<StatisticsReportingEventHolder> events = enqueue(store, QUEUE_SIZE + 1);
+        Assert.assertSame(events.get(0), store.dequeue());
+        StatisticsReportingEventHolder event = new StatisticsReportingEventHolder();
+        store.enqueue(event);
+        for (int i = 1; i < events.size(); i++) {
+            Assert.assertSame(events.get(i), store.dequeue());
+        }
+        Assert.assertSame(event, store.dequeue());
+    }
+
+    @Test
+    public void testUnknownPolicyKeepsMessages() throws Exception {
+        MessageDataStore store = createStore("unknown");
+        List<StatisticsReportingEventHolder> events = enqueue(store, QUEUE_SIZE + 3);
+        for (StatisticsReportingEventHolder event : events) {
+            Assert.assertSame(event, store.dequeue());
+        }
+        Assert.assertNull(store.dequeue());
+    }
+
+    @Test
+    public void testBatchDequeue() throws Exception {
+        MessageDataStore store = createStore(StatisticsConstants.QUEUE_EVICTION_POLICY_NEW_MESSAGES);
+        List<StatisticsReportingEventHolder> events = enqueue(store, QUEUE_SIZE + 1);
+        List<StatisticsReportingEventHolder> batch = new ArrayList<>();
+        Assert.assertEquals(2, store.dequeue(batch, 2));
+        Assert.assertEquals(events.subList(0, 2), batch);
+        Assert.assertEquals(2, store.size());
+        Assert.assertEquals(2, store.dequeue(batch, 10));
+        Assert.assertEquals(events, batch);
+        Assert.assertEquals(0, store.dequeue(batch, 10));
+        Assert.assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testEventCounts() throws Exception {
+        MessageDataStore store = createStore(StatisticsConstants.QUEUE_EVICTION_POLICY_NEW_MESSAGES);
+        enqueue(store, QUEUE_SIZE + 3);
+        store.dequeue();
+        store.dequeue(new ArrayList<StatisticsReportingEventHolder>(), 2);
+        Assert.assertEquals(QUEUE_SIZE + 1, store.getEnqueuedEventCount());
+        Assert.assertEquals(2, store.getDroppedEventCount());
+        Assert.assertEquals(3, store.getPublishedEventCount());
+        Assert.assertEquals(1, store.size());
+    }
+
+    private MessageDataStore createStore(String evictionPolicy) {
+        SynapseConfiguration synapseConfiguration = new SynapseConfiguration();
+        synapseConfiguration.setProperty(StatisticsConstants.STATISTIC_REPORTING_QUEUE_EVICTION_POLICY, evictionPolicy);
+        synapseConfiguration.setProperty(StatisticsConstants.STATISTIC_REPORTING_QUEUE_SIZE,
+                                         String.valueOf(QUEUE_SIZE));
+        return new MessageDataStore(synapseConfiguration);
+    }
+
+    private List<StatisticsReportingEventHolder> enqueue(MessageDataStore store, int count) {
+        List<StatisticsReportingEventHolder> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StatisticsReportingEventHolder event = new StatisticsReportingEventHolder();
+            events.add(event);
+            store.enqueue(event);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2022 WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.management;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for SpanProcessorFactory class.
+ */
+public class SpanProcessorFactoryTest {
+
+    private static final int MAX_QUEUE_SIZE = 2;
+    private static final int SPANS = 10;
+
+    /**
+     * Test spans finished while the export queue is full are counted as dropped, and all the other spans are
+     * exported.
+     */
+    @Test
+    public void testDroppedSpansCounted() throws Exception {
+        long totalDroppedSpans = SpanProcessorFactory.getDroppedSpanCount();
+        BlockingSpanExporter spanExporter = new BlockingSpanExporter();
+        SpanProcessorFactory.DropCountingSpanProcessor spanProcessor =
+                new SpanProcessorFactory.DropCountingSpanProcessor(spanExporter, MAX_QUEUE_SIZE, MAX_QUEUE_SIZE,
+                        TimeUnit.MINUTES.toMillis(1));
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder().addSpanProcessor(spanProcessor).build();
+        try {
+            Tracer tracer = tracerProvider.get("test");
+            for (int i = 0; i < SPANS; i++) {
+                tracer.spanBuilder("span-" + i).startSpan().end();
+            }
+            // at most one batch is held by the blocked exporter and one more fills the queue
+            Assert.assertTrue("spans should be dropped while the queue is full",
+                    spanProcessor.getDroppedSpanCount() >= SPANS - 2 * MAX_QUEUE_SIZE);
+
+            spanExporter.release.countDown();
+            Assert.assertTrue(spanProcessor.forceFlush().join(10, TimeUnit.SECONDS).isSuccess());
+            Assert.assertEquals("every span should be either exported or counted as dropped", SPANS,
+                    spanExporter.exportedSpans.get() + spanProcessor.getDroppedSpanCount());
+            Assert.assertEquals("dropped spans should be published", spanProcessor.getDroppedSpanCount(),
+                    SpanProcessorFactory.getDroppedSpanCount() - totalDroppedSpans);
+        } finally {
+            spanExporter.release.countDown();
+            tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Exporter that does not return from an export until it is released.
+     */
+    private static class BlockingSpanExporter implements SpanExporter {
+
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger exportedSpans = new AtomicInteger();
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableResultCode.ofFailure();
+            }
+            exportedSpans.addAndGet(spans.size());
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.stores;
+
+import io.opentelemetry.api.trace.Span;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.TestMessageContext;
+import org.apache.synapse.aspects.ComponentType;
+import org.apache.synapse.aspects.flow.statistics.data.raw.StatisticDataUnit;
+import org.apache.synapse.aspects.flow.statistics.tracing.opentelemetry.models.SpanWrapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Unit tests for SpanStore class.
+ */
+public class SpanStoreTest {
+
+    private final MessageContext synCtx = new TestMessageContext();
+
+    /**
+     * Test span wrappers are kept in start order and looked up by their component index.
+     */
+    @Test
+    public void testSpanWrappersByComponentIndex() {
+        SpanStore spanStore = new SpanStore();
+        SpanWrapper third = addSpanWrapper(spanStore, 3);
+        SpanWrapper first = addSpanWrapper(spanStore, 0);
+        SpanWrapper far = addSpanWrapper(spanStore, 40);
+
+        Assert.assertEquals("span wrappers should be kept in start order", Arrays.asList(third, first, far),
+                spanStore.getSpanWrappers());
+        Assert.assertSame(first, spanStore.getSpanWrapper(0));
+        Assert.assertSame(third, spanStore.getSpanWrapper(3));
+        Assert.assertSame(third, spanStore.getSpanWrapper("3"));
+        Assert.assertSame("store should grow for a large component index", far, spanStore.getSpanWrapper(40));
+        Assert.assertNull(spanStore.getSpanWrapper(1));
+        Assert.assertNull(spanStore.getSpanWrapper(-1));
+        Assert.assertNull(spanStore.getSpanWrapper(1000));
+        Assert.assertNull(spanStore.getSpanWrapper("sequence"));
+    }
+
+    /**
+     * Test a component started again replaces its span wrapper at the position of its first start.
+     */
+    @Test
+    public void testRestartedComponentKeepsPosition() {
+        SpanStore spanStore = new SpanStore();
+        addSpanWrapper(spanStore, 0);
+        SpanWrapper second = addSpanWrapper(spanStore, 1);
+        SpanWrapper restarted = addSpanWrapper(spanStore, 0);
+
+        Assert.assertEquals(Arrays.asList(restarted, second), spanStore.getSpanWrappers());
+        Assert.assertSame(restarted, spanStore.getSpanWrapper(0));
+    }
+
+    /**
+     * Test a finished span is no longer active, but its span wrapper can still be looked up.
+     */
+    @Test
+    public void testFinishedSpanRemovedFromActiveSpans() {
+        SpanStore spanStore = new SpanStore();
+        SpanWrapper first = addSpanWrapper(spanStore, 0);
+        SpanWrapper second = addSpanWrapper(spanStore, 1);
+        Assert.assertEquals(Arrays.asList(first, second), spanStore.getActiveSpanWrappers());
+
+        spanStore.finishSpan(first, synCtx);
+        Assert.assertEquals(Arrays.asList(second), spanStore.getActiveSpanWrappers());
+        Assert.assertEquals(Arrays.asList(first, second), spanStore.getSpanWrappers());
+        Assert.assertSame(first, spanStore.getSpanWrapper(0));
+        Assert.assertSame(first, spanStore.getSpanWrapperByComponentUniqueId("component-0"));
+    }
+
+    private SpanWrapper addSpanWrapper(SpanStore spanStore, int componentIndex) {
+        StatisticDataUnit statisticDataUnit = new StatisticDataUnit();
+        statisticDataUnit.setCurrentIndex(componentIndex);
+        statisticDataUnit.setComponentId("component-" + componentIndex);
+        statisticDataUnit.setComponentName("mediator");
+        statisticDataUnit.setComponentType(ComponentType.MEDIATOR);
+        return spanStore.addSpanWrapper(String.valueOf(componentIndex), Span.getInvalid(), statisticDataUnit, null,
+                synCtx);
+    }
+}
@@ -21,6 +21,11 @@ import org.apache.axis2.addressing.EndpointReference;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.TestMessageContext;
+import org.apache.synapse.aspects.ComponentType;
+import org.apache.synapse.aspects.flow.statistics.collectors.RuntimeStatisticCollector;
+import org.apache.synapse.aspects.flow.statistics.data.raw.StatisticsLog;
+import org.apache.synapse.aspects.flow.statistics.publishing.PublishingFlow;
+import org.apache.synapse.aspects.flow.statistics.publishing.PublishingPayload;
 import org.apache.synapse.config.Entry;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.mediators.TestUtils;
@@ -28,8 +33,16 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
 
 /**
  * Unit tests for TracingDataCollectionHelper class.
@@ -117,4 +130,150 @@ public class TracingDataCollectionHelperTest {
         Assert.assertEquals("all the properties other than cookies should be inserted to the map",
                 7, tempMap.size());
     }
+
+    /**
+     * Test truncatePayload method.
+     */
+    @Test
+    public void testTruncatePayload() {
+        Assert.assertEquals("<a>value</a>", TracingDataCollectionHelper.truncatePayload("<a>value</a>", -1));
+        Assert.assertEquals("<a>value</a>", TracingDataCollectionHelper.truncatePayload("<a>value</a>", 12));
+        Assert.assertEquals("<a>va...[truncated 7 characters]",
+                TracingDataCollectionHelper.truncatePayload("<a>value</a>", 5));
+        Assert.assertNull(TracingDataCollectionHelper.truncatePayload(null, 5));
+    }
+
+    /**
+     * Test isPayloadSampled method.
+     */
+    @Test
+    public void testPayloadSampled() {
+        Assert.assertTrue(TracingDataCollectionHelper.isPayloadSampled("flow", 1.0));
+        Assert.assertFalse(TracingDataCollectionHelper.isPayloadSampled("flow", 0.0));
+        int sampled = 0;
+        for (int i = 0; i < 10000; i++) {
+            String statisticId = UUID.randomUUID().toString();
+            boolean isSampled = TracingDataCollectionHelper.isPayloadSampled(statisticId, 0.25);
+            Assert.assertEquals("decision should be the same for every component of a flow", isSampled,
+                    TracingDataCollectionHelper.isPayloadSampled(statisticId, 0.25));
+            if (isSampled) {
+                sampled++;
+            }
+        }
+        Assert.assertTrue("about a quarter of the flows should be sampled", sampled > 2000 && sampled < 3000);
+    }
+
+    /**
+     * Test isPayloadRetained method.
+     */
+    @Test
+    public void testPayloadRetained() {
+        List<StatisticsLog> logs = new ArrayList<>();
+        StatisticsLog entryLog = new StatisticsLog(ComponentType.PROXYSERVICE, "proxy", -1);
+        entryLog.setStartTime(1000);
+        entryLog.setEndTime(1050);
+        logs.add(entryLog);
+        StatisticsLog mediatorLog = new StatisticsLog(ComponentType.MEDIATOR, "log", 0);
+        logs.add(mediatorLog);
+
+        Assert.assertTrue(TracingDataCollectionHelper.isPayloadRetained(logs, false, -1));
+        Assert.assertFalse("fast successful flow", TracingDataCollectionHelper.isPayloadRetained(logs, true, -1));
+        Assert.assertFalse("fast successful flow", TracingDataCollectionHelper.isPayloadRetained(logs, true, 100));
+        Assert.assertTrue("slow flow", TracingDataCollectionHelper.isPayloadRetained(logs, true, 50));
+        mediatorLog.incrementNoOfFaults();
+        Assert.assertTrue("faulty flow", TracingDataCollectionHelper.isPayloadRetained(logs, true, 100));
+    }
+
+    /**
+     * Test sharePayload method.
+     */
+    @Test
+    public void testSharePayload() {
+        MessageContext synCtx = new TestMessageContext();
+        Assert.assertEquals("payload should not be shared without a message flow", "<a>value</a>",
+                TracingDataCollectionHelper.sharePayload(synCtx, "<a>value</a>"));
+        synCtx.setProperty(StatisticsConstants.MEDIATION_FLOW_STATISTICS_INDEXING_OBJECT, new UniqueIdentifierObject());
+        int propertyCount = synCtx.getPropertyKeySet().size();
+        String payload = TracingDataCollectionHelper.sharePayload(synCtx, "<a>value</a>");
+        Assert.assertSame("payload with the same content should be shared", payload,
+                TracingDataCollectionHelper.sharePayload(synCtx, new String("<a>value</a>")));
+        String changedPayload = TracingDataCollectionHelper.sharePayload(synCtx, "<b>value</b>");
+        Assert.assertEquals("<b>value</b>", changedPayload);
+        Assert.assertSame(changedPayload, TracingDataCollectionHelper.sharePayload(synCtx, new String("<b>value</b>")));
+        Assert.assertNull(TracingDataCollectionHelper.sharePayload(synCtx, null));
+        Assert.assertEquals("last payload should not be kept as a property", propertyCount,
+                synCtx.getPropertyKeySet().size());
+    }
+
+    /**
+     * Test createPublishingFlow publishes a payload once for all the components that saw the same content.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCreatePublishingFlowSharesPayloads() throws Exception {
+        List<StatisticsLog> logs = new ArrayList<>();
+        logs.add(createLog(ComponentType.PROXYSERVICE, "proxy", "<a>value</a>", 0));
+        logs.add(createLog(ComponentType.MEDIATOR, "log", new String("<a>value</a>"), 0));
+        logs.add(createLog(ComponentType.MEDIATOR, "payloadFactory", "<b>value</b>", 1));
+        logs.add(createLog(ComponentType.MEDIATOR, "respond", null, 2));
+
+        PublishingFlow publishingFlow = createPublishingFlow(logs);
+        Assert.assertEquals(4, publishingFlow.getEvents().size());
+        Assert.assertEquals("payloads with the same content should be published once",
+                new TreeSet<>(Arrays.asList("<a>value</a>", "<b>value</b>")),
+                getPayloads(publishingFlow));
+        Assert.assertEquals("#REFER:2", logs.get(3).getBeforePayload());
+    }
+
+    /**
+     * Test createPublishingFlow publishes a force collected payload of a flow whose payloads were not sampled.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCreatePublishingFlowForceCollectedPayload() throws Exception {
+        List<StatisticsLog> logs = new ArrayList<>();
+        logs.add(createLog(ComponentType.PROXYSERVICE, "proxy", null, 0));
+        logs.add(createLog(ComponentType.MEDIATOR, "log", null, 0));
+        logs.add(createLog(ComponentType.MEDIATOR, "payloadFactory", "<forced/>", 1));
+
+        PublishingFlow publishingFlow = createPublishingFlow(logs);
+        Assert.assertEquals(3, publishingFlow.getEvents().size());
+        Assert.assertEquals(Collections.singleton("<forced/>"), getPayloads(publishingFlow));
+    }
+
+    private static StatisticsLog createLog(ComponentType componentType, String componentName, String payload,
+                                           int immediateParent) {
+        StatisticsLog statisticsLog = new StatisticsLog(componentType, componentName, -1);
+        statisticsLog.setTracingEnabled(true);
+        statisticsLog.setBeforePayload(payload);
+        statisticsLog.setImmediateParent(immediateParent);
+        return statisticsLog;
+    }
+
+    private static PublishingFlow createPublishingFlow(List<StatisticsLog> logs) throws Exception {
+        Field statisticsEnabled = RuntimeStatisticCollector.class.getDeclaredField("isStatisticsEnabled");
+        Field collectingPayloads = RuntimeStatisticCollector.class.getDeclaredField("isCollectingPayloads");
+        statisticsEnabled.setAccessible(true);
+        collectingPayloads.setAccessible(true);
+        boolean wasStatisticsEnabled = statisticsEnabled.getBoolean(null);
+        boolean wasCollectingPayloads = collectingPayloads.getBoolean(null);
+        statisticsEnabled.setBoolean(null, true);
+        collectingPayloads.setBoolean(null, true);
+        try {
+            return TracingDataCollectionHelper.createPublishingFlow(logs);
+        } finally {
+            statisticsEnabled.setBoolean(null, wasStatisticsEnabled);
+            collectingPayloads.setBoolean(null, wasCollectingPayloads);
+        }
+    }
+
+    private static Set<String> getPayloads(PublishingFlow publishingFlow) {
+        Set<String> payloads = new TreeSet<>();
+        for (PublishingPayload publishingPayload : publishingFlow.getPayloads()) {
+            Assert.assertTrue("payload should be published once", payloads.add(publishingPayload.getPayload()));
+        }
+        return payloads;
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.core.axis2;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+public class CallbackStoreTest extends TestCase {
+
+    public void testAddAndRemove() {
+        CallbackStore store = new CallbackStore(4);
+        AsyncCallback callback = createCallback(1000);
+        store.put("msg1", callback);
+        store.put("msg2", createCallback(1000));
+
+        assertEquals(2, store.size());
+        assertTrue(store.containsKey("msg1"));
+        assertSame(callback, store.get("msg1"));
+        assertSame(callback, store.remove("msg1"));
+        assertNull(store.remove("msg1"));
+        assertFalse(store.containsKey("msg1"));
+        assertEquals(1, store.size());
+    }
+
+    public void testOnlyExpiredCallbacksAreReturned() {
+        CallbackStore store = new CallbackStore(1);
+        store.put("late", createCallback(60000));
+        store.put("expired1", createCallback(-2000));
+        store.put("expired2", createCallback(-1000));
+
+        List<String> expired = store.getExpired(System.currentTimeMillis());
+        assertEquals(2, expired.size());
+        assertEquals("expired1", expired.get(0));
+        assertEquals("expired2", expired.get(1));
+
+        store.remove("expired1");
+        expired = store.getExpired(System.currentTimeMillis());
+        assertEquals(1, expired.size());
+        assertEquals("expired2", expired.get(0));
+        assertEquals(2, store.size());
+    }
+
+    public void testReplacingCallbackReindexesTimeout() {
+        CallbackStore store = new CallbackStore(2);
+        store.put("msg", createCallback(-1000));
+        store.put("msg", createCallback(60000));
+
+        assertEquals(1, store.size());
+        assertTrue(store.getExpired(System.currentTimeMillis()).isEmpty());
+    }
+
+    private AsyncCallback createCallback(long timeout) {
+        AsyncCallback callback = new AsyncCallback(null, null);
+        callback.setTimeout(timeout);
+        return callback;
+    }
+}
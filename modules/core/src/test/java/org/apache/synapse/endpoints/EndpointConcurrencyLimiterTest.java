@@ -0,0 +1,121 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints;
+
+import junit.framework.TestCase;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.TestMessageContext;
+
+/**
+ * Unit tests for {@link EndpointConcurrencyLimiter}
+ */
+public class EndpointConcurrencyLimiterTest extends TestCase {
+
+    public void testRejectWhenLimitReached() {
+        EndpointConcurrencyLimiter limiter =
+                new EndpointConcurrencyLimiter(new AddressEndpoint(), 2, 1, 0, false);
+        MessageContext first = new TestMessageContext();
+        MessageContext second = new TestMessageContext();
+
+        assertEquals(EndpointConcurrencyLimiter.Result.ACQUIRED, limiter.acquire(first));
+        assertEquals(EndpointConcurrencyLimiter.Result.ACQUIRED, limiter.acquire(second));
+        assertEquals(EndpointConcurrencyLimiter.Result.REJECTED,
+                limiter.acquire(new TestMessageContext()));
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+
+        EndpointConcurrencyLimiter.release(first, true);
+        EndpointConcurrencyLimiter.release(first, true);
+        assertEquals("Releasing twice should return a single permit", 1, limiter.getInFlight());
+        assertEquals(EndpointConcurrencyLimiter.Result.ACQUIRED,
+                limiter.acquire(new TestMessageContext()));
+    }
+
+    public void testQueueWhenLimitReached() {
+        EndpointConcurrencyLimiter limiter =
+                new EndpointConcurrencyLimiter(new AddressEndpoint(), 1, 1, 1, false);
+
+        assertEquals(EndpointConcurrencyLimiter.Result.ACQUIRED,
+                limiter.acquire(new TestMessageContext()));
+        assertEquals(EndpointConcurrencyLimiter.Result.QUEUED,
+                limiter.acquire(new TestMessageContext()));
+        assertEquals(EndpointConcurrencyLimiter.Result.REJECTED,
+                limiter.acquire(new TestMessageContext()));
+        assertEquals(1, limiter.getQueued());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    public void testCopiedPermitIsNotReleased() {
+        EndpointConcurrencyLimiter limiter =
+                new EndpointConcurrencyLimiter(new AddressEndpoint(), 1, 1, 0, false);
+        MessageContext original = new TestMessageContext();
+        MessageContext clone = new TestMessageContext();
+
+        limiter.acquire(original);
+        clone.setProperty(SynapseConstants.ENDPOINT_CONCURRENCY_PERMIT,
+                original.getProperty(SynapseConstants.ENDPOINT_CONCURRENCY_PERMIT));
+        EndpointConcurrencyLimiter.release(clone, true);
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    public void testResendReleasesPreviousPermit() {
+        EndpointConcurrencyLimiter limiter =
+                new EndpointConcurrencyLimiter(new AddressEndpoint(), 1, 1, 0, false);
+        MessageContext synCtx = new TestMessageContext();
+
+        assertEquals(EndpointConcurrencyLimiter.Result.ACQUIRED, limiter.acquire(synCtx));
+        assertEquals(EndpointConcurrencyLimiter.Result.ACQUIRED, limiter.acquire(synCtx));
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    public void testAdaptiveLimitShrinksOnFailures() {
+        EndpointConcurrencyLimiter limiter =
+                new EndpointConcurrencyLimiter(new AddressEndpoint(), 10, 2, 0, true);
+        assertEquals(10, limiter.getLimit());
+
+        for (int i = 0; i < 200; i++) {
+            MessageContext synCtx = new TestMessageContext();
+            limiter.acquire(synCtx);
+            EndpointConcurrencyLimiter.release(synCtx, false);
+        }
+        assertEquals(2, limiter.getLimit());
+
+        for (int i = 0; i < 200; i++) {
+            limiter.update(1000000L, true);
+        }
+        assertTrue("Limit should grow back on successful responses", limiter.getLimit() > 2);
+    }
+
+    public void testAdaptiveLimitShrinksOnSlowResponses() {
+        EndpointConcurrencyLimiter limiter =
+                new EndpointConcurrencyLimiter(new AddressEndpoint(), 10, 1, 0, true);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.update(1000000L, true);
+        }
+        assertEquals(10, limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            limiter.update(5000000L, true);
+        }
+        assertTrue("Limit should shrink when responses slow down", limiter.getLimit() < 10);
+    }
+}
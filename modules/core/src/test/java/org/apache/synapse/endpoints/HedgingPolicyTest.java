@@ -0,0 +1,135 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints;
+
+import junit.framework.TestCase;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.TestMessageContext;
+import org.apache.synapse.endpoints.algorithms.AlgorithmContext;
+import org.apache.synapse.endpoints.algorithms.LoadbalanceAlgorithm;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link HedgingPolicy} and {@link HedgedRequest}
+ */
+public class HedgingPolicyTest extends TestCase {
+
+    public void testHedgeDelayFollowsPercentile() {
+        HedgingPolicy policy = new HedgingPolicy();
+        policy.setPercentile(75);
+        assertEquals("No delay before enough samples", -1, policy.getHedgeDelay());
+
+        for (int i = 1; i <= 128; i++) {
+            policy.recordLatency(i);
+        }
+        assertEquals(96, policy.getHedgeDelay());
+    }
+
+    public void testHedgeDelayIsBounded() {
+        HedgingPolicy policy = new HedgingPolicy();
+        policy.setMinDelay(20);
+        policy.setMaxDelay(50);
+
+        for (int i = 0; i < 64; i++) {
+            policy.recordLatency(1);
+        }
+        assertEquals(20, policy.getHedgeDelay());
+
+        for (int i = 0; i < 512; i++) {
+            policy.recordLatency(1000);
+        }
+        assertEquals(50, policy.getHedgeDelay());
+    }
+
+    public void testIdempotentRequests() {
+        HedgingPolicy policy = new HedgingPolicy();
+        MessageContext synCtx = new TestMessageContext();
+        assertFalse(policy.isIdempotent(synCtx));
+
+        synCtx.setProperty(SynapseConstants.IDEMPOTENT_REQUEST, "true");
+        assertTrue(policy.isIdempotent(synCtx));
+
+        policy.setIdempotent(true);
+        assertTrue(policy.isIdempotent(new TestMessageContext()));
+    }
+
+    public void testOnlyFirstOutcomeIsProcessed() {
+        HedgingPolicy policy = new HedgingPolicy();
+        MessageContext primary = new TestMessageContext();
+        MessageContext hedge = new TestMessageContext();
+        HedgedRequest request = new HedgedRequest(policy, new FailoverEndpoint(), primary, null);
+        primary.setProperty(SynapseConstants.HEDGED_REQUEST, request);
+        hedge.setProperty(SynapseConstants.HEDGED_REQUEST, request);
+
+        assertTrue(HedgedRequest.complete(primary, true));
+        assertNull("Retries of the winner are not hedged",
+                primary.getProperty(SynapseConstants.HEDGED_REQUEST));
+        assertFalse(HedgedRequest.complete(hedge, true));
+    }
+
+    public void testFailureWithoutOutstandingAttemptIsProcessed() {
+        HedgingPolicy policy = new HedgingPolicy();
+        MessageContext primary = new TestMessageContext();
+        primary.setProperty(SynapseConstants.HEDGED_REQUEST,
+                new HedgedRequest(policy, new FailoverEndpoint(), primary, null));
+
+        assertTrue(HedgedRequest.complete(primary, false));
+        assertTrue("Messages that were not hedged are always processed",
+                HedgedRequest.complete(new TestMessageContext(), false));
+    }
+
+    public void testLoadbalanceHedgeTargetComesFromAlgorithm() {
+        Endpoint primaryChild = readyEndpoint(true);
+        Endpoint second = readyEndpoint(true);
+        Endpoint third = readyEndpoint(true);
+        LoadbalanceAlgorithm algorithm = Mockito.mock(LoadbalanceAlgorithm.class);
+        Mockito.when(algorithm.getNextEndpoint(Mockito.any(MessageContext.class),
+                Mockito.<AlgorithmContext>any())).thenReturn(primaryChild, third);
+        LoadbalanceEndpoint parent = new LoadbalanceEndpoint();
+        parent.setChildren(Arrays.asList(primaryChild, second, third));
+        parent.setAlgorithm(algorithm);
+
+        MessageContext primary = new TestMessageContext();
+        HedgedRequest request = new HedgedRequest(new HedgingPolicy(), parent, primary, primaryChild);
+        assertSame("The primary child is skipped and the algorithm decides",
+                third, request.selectChild(new TestMessageContext()));
+    }
+
+    public void testFailoverHedgeTargetIsNextReadyChild() {
+        Endpoint primaryChild = readyEndpoint(true);
+        Endpoint inactive = readyEndpoint(false);
+        Endpoint next = readyEndpoint(true);
+        FailoverEndpoint parent = new FailoverEndpoint();
+        parent.setChildren(Arrays.asList(primaryChild, inactive, next));
+
+        HedgedRequest request = new HedgedRequest(new HedgingPolicy(), parent,
+                new TestMessageContext(), primaryChild);
+        assertSame(next, request.selectChild(new TestMessageContext()));
+    }
+
+    private static Endpoint readyEndpoint(boolean ready) {
+        Endpoint endpoint = Mockito.mock(Endpoint.class);
+        Mockito.when(endpoint.readyToSend()).thenReturn(ready);
+        return endpoint;
+    }
+}
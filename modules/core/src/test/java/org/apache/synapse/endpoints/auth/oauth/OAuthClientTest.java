@@ -116,4 +116,54 @@ public class OAuthClientTest extends TestCase {
 
         assertEquals("abc123", token);
     }
+
+    /**
+     * Tests if the oauth client reads the expires_in value of the token response
+     *
+     * @throws Exception
+     */
+    @Test
+    @PrepareForTest(HttpClientBuilder.class)
+    public void testGenerateOAuthTokenWithExpiry() throws Exception {
+
+        HttpClientBuilder mockClientBuilder = mock(HttpClientBuilder.class);
+        CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+        CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+        HttpEntity entity = mock(HttpEntity.class);
+        StatusLine statusLine = mock(StatusLine.class);
+        PowerMockito.mockStatic(HttpClientBuilder.class);
+
+        PowerMockito.when(HttpClientBuilder.class, "create").thenReturn(mockClientBuilder);
+        PowerMockito.when(mockClientBuilder.setDefaultRequestConfig(Mockito.any(RequestConfig.class))).thenReturn(mockClientBuilder);
+        PowerMockito.when(mockClientBuilder.setConnectionManager(any(HttpClientConnectionManager.class))).thenReturn(mockClientBuilder);
+        PowerMockito.when(mockClientBuilder.setSSLSocketFactory(any())).thenReturn(mockClientBuilder);
+        PowerMockito.when(mockClientBuilder.build()).thenReturn(mockHttpClient);
+        PowerMockito.when(mockHttpClient.execute(any(HttpPost.class))).thenReturn(mockResponse);
+
+        when(statusLine.getStatusCode()).thenReturn(200);
+        when(mockResponse.getStatusLine()).thenReturn(statusLine);
+
+        when(mockResponse.getEntity()).thenReturn(entity);
+
+        InputStream stream =
+                new ByteArrayInputStream(("{ \"access_token\" : \"abc123\", \"token_type\" : \"Bearer\", " +
+                        "\"expires_in\" : 3600 }").getBytes());
+        when(entity.getContent()).thenReturn(stream);
+
+        org.apache.axis2.context.MessageContext messageContext = new org.apache.axis2.context.MessageContext();
+        AxisConfiguration axisConfiguration = new AxisConfiguration();
+        TransportOutDescription transportOutDescription = new TransportOutDescription("https");
+        transportOutDescription.setSender(new PassThroughHttpSender());
+        axisConfiguration.addTransportOut(transportOutDescription);
+        ConfigurationContext configurationContext = new ConfigurationContext(axisConfiguration);
+        messageContext.setConfigurationContext(configurationContext);
+        SynapseConfiguration synapseConfiguration = new SynapseConfiguration();
+        SynapseEnvironment synapseEnvironment = new Axis2SynapseEnvironment(synapseConfiguration);
+        OAuthToken token = OAuthClient.generateOAuthToken("https://localhost:8280/token1/1.0.0", "body", "credentials",
+                new Axis2MessageContext(messageContext, new SynapseConfiguration(), synapseEnvironment), null, -1, -1,
+                -1, new ProxyConfigs());
+
+        assertEquals("abc123", token.getAccessToken());
+        assertEquals(3600, token.getExpiresIn());
+    }
 }
@@ -0,0 +1,310 @@
+/*
+ *  Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints.auth.oauth;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.endpoints.ProxyConfigs;
+import org.apache.synapse.endpoints.auth.AuthConstants;
+import org.apache.synapse.endpoints.auth.AuthException;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for the token caching of OAuthHandler: single token requests, refresh ahead of expiry and removal
+ */
+public class OAuthHandlerTest {
+
+    private static final long TIMEOUT = 10;
+
+    /**
+     * Tests if concurrent callers on a cache miss share a single token request
+     */
+    @Test
+    public void testSingleTokenRequestOnCacheMiss() throws Exception {
+
+        TestOAuthHandler handler = new TestOAuthHandler();
+        CompletableFuture<String> first = handler.getTokenAsync(null);
+        CompletableFuture<String> second = handler.getTokenAsync(null);
+        assertSame(first, second);
+
+        TokenRequest request = handler.nextRequest();
+        request.complete("token1", 3600);
+        assertEquals("token1", first.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals("token1", handler.getTokenAsync(null).getNow(null));
+        assertEquals(1, handler.requestCount.get());
+    }
+
+    /**
+     * Tests if a token past the refresh ratio of its lifetime is still served while it is refreshed once in the
+     * background
+     */
+    @Test
+    public void testRefreshAhead() throws Exception {
+
+        TestOAuthHandler handler = new TestOAuthHandler();
+        CompletableFuture<String> token = handler.getTokenAsync(null);
+        handler.nextRequest().complete("token1", 100);
+        assertEquals("token1", token.get(TIMEOUT, TimeUnit.SECONDS));
+        handler.tokenCache.awaitPut();
+
+        // past the refresh time, before the expiry
+        handler.time = (long) (100000 * AuthConstants.DEFAULT_TOKEN_REFRESH_AHEAD_RATIO) + 1;
+        assertEquals("token1", handler.getTokenAsync(null).getNow(null));
+        assertEquals("token1", handler.getTokenAsync(null).getNow(null));
+        TokenRequest refresh = handler.nextRequest();
+        assertEquals(2, handler.requestCount.get());
+        assertEquals(1, handler.getTokenEndpointMetrics().getRefreshAheadCount());
+
+        refresh.complete("token2", 100);
+        handler.tokenCache.awaitPut();
+        assertEquals("token2", handler.getTokenAsync(null).getNow(null));
+        assertEquals(2, handler.requestCount.get());
+    }
+
+    /**
+     * Tests if an expired token is not served
+     */
+    @Test
+    public void testExpiredTokenIsRequestedAgain() throws Exception {
+
+        TestOAuthHandler handler = new TestOAuthHandler();
+        handler.getTokenAsync(null);
+        handler.nextRequest().complete("token1", 100);
+        handler.tokenCache.awaitPut();
+
+        handler.time = 100001;
+        CompletableFuture<String> token = handler.getTokenAsync(null);
+        handler.nextRequest().complete("token2", 100);
+        assertEquals("token2", token.get(TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests if a token request in flight when the tokens are removed does not store its token in the cache
+     */
+    @Test
+    public void testRemovedTokenIsNotStoredByRequestInFlight() throws Exception {
+
+        TestOAuthHandler handler = new TestOAuthHandler();
+        CompletableFuture<String> token = handler.getTokenAsync(null);
+        TokenRequest request = handler.nextRequest();
+        handler.removeTokensFromCache();
+        request.complete("revoked", 3600);
+
+        // callers already waiting on the request still get its token
+        assertEquals("revoked", token.get(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(handler.tokenCache.tokens.isEmpty());
+
+        CompletableFuture<String> next = handler.getTokenAsync(null);
+        handler.nextRequest().complete("token2", 3600);
+        assertEquals("token2", next.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(2, handler.requestCount.get());
+    }
+
+    /**
+     * Tests if a message waiting for a stalled token request fails after the token wait timeout
+     */
+    @Test
+    public void testTokenWaitTimesOut() throws Exception {
+
+        TestOAuthHandler handler = new TestOAuthHandler();
+        handler.tokenWaitTimeout = 100;
+        try {
+            handler.setAuthHeader(null);
+            fail("Waiting for the token should time out");
+        } catch (AuthException e) {
+            assertTrue(e.getMessage().startsWith("Timed out after 100 ms"));
+        }
+
+        // the token request is still shared, a later caller gets its token
+        CompletableFuture<String> token = handler.getTokenAsync(null);
+        handler.nextRequest().complete("token1", 3600);
+        assertEquals("token1", token.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(1, handler.requestCount.get());
+    }
+
+    /**
+     * Tests if the proxy password is resolved before the token request is handed over to the token acquisition pool
+     */
+    @Test
+    public void testProxyPasswordResolvedBeforeTokenRequest() throws Exception {
+
+        ProxyConfigs proxyConfigs = new ProxyConfigs();
+        proxyConfigs.setProxyEnabled(true);
+        proxyConfigs.setProxyUsername("proxyUser");
+        proxyConfigs.setProxyPassword("proxyPassword");
+        TestOAuthHandler handler = new TestOAuthHandler(proxyConfigs);
+        handler.getTokenAsync(null);
+        TokenRequest request = handler.nextRequest();
+        assertEquals("proxyPassword", request.proxyPassword);
+        request.complete("token1", 3600);
+    }
+
+    /**
+     * OAuthHandler answering token requests from the test and reading the time from the test
+     */
+    private static class TestOAuthHandler extends OAuthHandler {
+
+        private final TestTokenCache tokenCache;
+        private final BlockingQueue<TokenRequest> requests = new LinkedBlockingQueue<>();
+        private final AtomicInteger requestCount = new AtomicInteger();
+        private volatile long time;
+        private volatile long tokenWaitTimeout = TimeUnit.SECONDS.toMillis(TIMEOUT);
+
+        TestOAuthHandler() {
+
+            this(new ProxyConfigs());
+        }
+
+        TestOAuthHandler(ProxyConfigs proxyConfigs) {
+
+            this(new TestTokenCache(), proxyConfigs);
+        }
+
+        private TestOAuthHandler(TestTokenCache tokenCache, ProxyConfigs proxyConfigs) {
+
+            super("tokenUrl", "clientId", "clientSecret", null, false, -1, -1, -1, tokenCache, false,
+                    proxyConfigs);
+            this.tokenCache = tokenCache;
+        }
+
+        TokenRequest nextRequest() throws InterruptedException {
+
+            TokenRequest request = requests.poll(TIMEOUT, TimeUnit.SECONDS);
+            if (request == null) {
+                throw new AssertionError("No token request was sent");
+            }
+            return request;
+        }
+
+        @Override
+        OAuthToken callTokenEndpoint(String tokenUrl, String payload, String credentials, Map<String, String> headers,
+                                     ConfigurationContext configurationContext, String proxyPassword) {
+
+            requestCount.incrementAndGet();
+            TokenRequest request = new TokenRequest();
+            request.proxyPassword = proxyPassword;
+            requests.add(request);
+            try {
+                request.responded.await(TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return request.token;
+        }
+
+        @Override
+        long currentTimeMillis() {
+
+            return time;
+        }
+
+        @Override
+        long getTokenWaitTimeout() {
+
+            return tokenWaitTimeout;
+        }
+
+        @Override
+        protected String buildTokenRequestPayload(MessageContext messageContext) {
+
+            return "";
+        }
+
+        @Override
+        protected OMElement serializeSpecificOAuthConfigs(OMFactory omFactory) {
+
+            return null;
+        }
+
+        @Override
+        protected int getHash(MessageContext messageContext) {
+
+            return 1;
+        }
+    }
+
+    /**
+     * A token request sent to the token endpoint, waiting for the test to respond
+     */
+    private static class TokenRequest {
+
+        private final CountDownLatch responded = new CountDownLatch(1);
+        private volatile OAuthToken token;
+        private volatile String proxyPassword;
+
+        void complete(String accessToken, long expiresIn) {
+
+            token = new OAuthToken(accessToken, expiresIn);
+            responded.countDown();
+        }
+    }
+
+    private static class TestTokenCache implements TokenCacheProvider {
+
+        private final Map<String, String> tokens = new ConcurrentHashMap<>();
+        private final BlockingQueue<String> puts = new LinkedBlockingQueue<>();
+
+        void awaitPut() throws InterruptedException {
+
+            assertTrue("Token was not cached", puts.poll(TIMEOUT, TimeUnit.SECONDS) != null);
+        }
+
+        @Override
+        public void putToken(String id, String token) {
+
+            tokens.put(id, token);
+            puts.add(token);
+        }
+
+        @Override
+        public String getToken(String id) {
+
+            return tokens.get(id);
+        }
+
+        @Override
+        public void removeToken(String id) {
+
+            tokens.remove(id);
+        }
+
+        @Override
+        public void removeTokens(String oauthHandlerId) {
+
+            tokens.keySet().removeIf(id -> id.startsWith(oauthHandlerId));
+        }
+    }
+}
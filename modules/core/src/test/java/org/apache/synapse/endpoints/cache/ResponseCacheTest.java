@@ -0,0 +1,168 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints.cache;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for {@link ResponseCache} and the freshness rules of {@link ResponseCacheHandler}
+ */
+public class ResponseCacheTest extends TestCase {
+
+    public void testPutAndGet() throws IOException {
+        ResponseCache cache = new ResponseCache(64 * 1024, 4 * 1024);
+        assertTrue(cache.put("GET /a", response("hello", 1000)));
+
+        CachedResponse cached = cache.get("GET /a");
+        assertNotNull(cached);
+        assertEquals(200, cached.getStatusCode());
+        assertEquals("text/plain", cached.getHeader("content-type"));
+        assertEquals("hello", read(cached.getBody()));
+        assertEquals("Body should be readable more than once", "hello", read(cached.getBody()));
+        assertNull(cache.get("GET /b"));
+
+        cache.invalidate("GET /a");
+        assertNull(cache.get("GET /a"));
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testMaxEntrySize() {
+        ResponseCache cache = new ResponseCache(64 * 1024, 1024);
+        assertFalse(cache.put("GET /large", response(new String(new char[2048]), 1000)));
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    public void testFrequentEntryKeptOverOneOffEntries() {
+        ResponseCache cache = new ResponseCache(16 * 1024, 1024);
+        cache.put("GET /hot", response("hot", 1000));
+        for (int i = 0; i < 10; i++) {
+            cache.get("GET /hot");
+        }
+        for (int i = 0; i < 1000; i++) {
+            cache.put("GET /scan/" + i, response("scan " + i, 1000));
+        }
+        assertNotNull("Frequently used entry should survive a scan", cache.get("GET /hot"));
+        assertTrue(cache.getSize() <= cache.getMaxSize());
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    public void testConcurrentAccess() throws InterruptedException {
+        final ResponseCache cache = new ResponseCache(16 * 1024, 1024);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 20000; i++) {
+                            String key = "GET /" + ((i * 31 + seed) % 300);
+                            if (cache.get(key) == null) {
+                                cache.put(key, response("body " + i, 1000));
+                            } else if (i % 50 == 0) {
+                                cache.invalidate(key);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertTrue(cache.getSize() <= cache.getMaxSize());
+
+        // every stored response is accounted for in the size
+        long size = 0;
+        for (int i = 0; i < 300; i++) {
+            CachedResponse cached = cache.get("GET /" + i);
+            if (cached != null) {
+                size += cached.getWeight();
+            }
+        }
+        assertEquals(cache.getSize(), size);
+    }
+
+    public void testHitRatio() {
+        ResponseCache cache = new ResponseCache(64 * 1024, 1024);
+        assertEquals(0.0, cache.getHitRatio());
+        cache.recordHit();
+        cache.recordHit();
+        cache.recordHit();
+        cache.recordMiss();
+        assertEquals(0.75, cache.getHitRatio());
+    }
+
+    public void testExpiryTime() {
+        long now = 1000000;
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put("Cache-Control", "public, max-age=60, s-maxage=120");
+        assertEquals(now + 120000, ResponseCacheHandler.getExpiryTime(headers, now, 0));
+
+        headers.put("Cache-Control", "max-age=60");
+        assertEquals(now + 60000, ResponseCacheHandler.getExpiryTime(headers, now, 0));
+
+        headers.put("Cache-Control", "no-store");
+        assertEquals(-1, ResponseCacheHandler.getExpiryTime(headers, now, 30));
+
+        headers.put("Cache-Control", "no-cache");
+        assertEquals(now, ResponseCacheHandler.getExpiryTime(headers, now, 30));
+
+        headers.remove("Cache-Control");
+        headers.put("Date", "Tue, 15 Nov 1994 08:12:31 GMT");
+        headers.put("Expires", "Tue, 15 Nov 1994 08:13:31 GMT");
+        assertEquals(now + 60000, ResponseCacheHandler.getExpiryTime(headers, now, 30));
+
+        headers.clear();
+        assertEquals("Default max age should apply without cache headers",
+                now + 30000, ResponseCacheHandler.getExpiryTime(headers, now, 30));
+    }
+
+    private static CachedResponse response(String body, long expiresAt) {
+        return new CachedResponse(200, "OK", Collections.singletonMap("Content-Type", "text/plain"),
+                Collections.<String, String>emptyMap(), body.getBytes(), 0, expiresAt);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators.builtin;
+
+import junit.framework.TestCase;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.StringReader;
+
+public class ValidatorPoolTest extends TestCase {
+
+    private static final String SCHEMA =
+        "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">" +
+        "<xs:element name=\"price\" type=\"xs:decimal\"/>" +
+        "</xs:schema>";
+
+    private Schema schema;
+
+    protected void setUp() throws Exception {
+        schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(
+                new StreamSource(new StringReader(SCHEMA)));
+    }
+
+    public void testReusedAfterFailedValidation() throws Exception {
+        ValidatorPool pool = new ValidatorPool(schema, 1);
+        Validator validator = pool.borrow();
+        CountingErrorHandler errors = new CountingErrorHandler();
+        validator.setErrorHandler(errors);
+        validator.validate(new StreamSource(new StringReader("<price>abc</price>")));
+        assertTrue(errors.count > 0);
+        pool.release(validator);
+
+        validator = pool.borrow();
+        assertNull(validator.getErrorHandler());
+        errors = new CountingErrorHandler();
+        validator.setErrorHandler(errors);
+        validator.validate(new StreamSource(new StringReader("<price>10.5</price>")));
+        assertEquals(0, errors.count);
+    }
+
+    private static class CountingErrorHandler implements ErrorHandler {
+        private int count;
+
+        public void warning(SAXParseException exception) {
+        }
+
+        public void error(SAXParseException exception) throws SAXException {
+            count++;
+        }
+
+        public void fatalError(SAXParseException exception) throws SAXException {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators.transform;
+
+import junit.framework.TestCase;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+public class TransformerPoolTest extends TestCase {
+
+    private static final String XSLT =
+        "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">" +
+        "<xsl:output method=\"text\"/>" +
+        "<xsl:param name=\"greeting\" select=\"'hello'\"/>" +
+        "<xsl:template match=\"/\"><xsl:value-of select=\"$greeting\"/><xsl:text> </xsl:text>" +
+        "<xsl:value-of select=\"name\"/></xsl:template>" +
+        "</xsl:stylesheet>";
+
+    private Templates templates;
+
+    protected void setUp() throws Exception {
+        templates = TransformerFactory.newInstance().newTemplates(
+                new StreamSource(new StringReader(XSLT)));
+    }
+
+    public void testParametersClearedOnRelease() throws Exception {
+        TransformerPool pool = new TransformerPool(templates, 1);
+        Transformer transformer = pool.borrow();
+        transformer.setParameter("greeting", "bye");
+        assertEquals("bye world", transform(transformer));
+        pool.release(transformer);
+
+        transformer = pool.borrow();
+        assertNull(transformer.getParameter("greeting"));
+        assertEquals("hello world", transform(transformer));
+    }
+
+    private static String transform(Transformer transformer) throws Exception {
+        StringWriter out = new StringWriter();
+        transformer.transform(new StreamSource(new StringReader("<name>world</name>")),
+                new StreamResult(out));
+        return out.toString();
+    }
+}
@@ -243,4 +243,40 @@ public class RegexTemplateProcessorTest extends TestCase {
             Assert.assertEquals(expectedOutput, result);
         }
     }
+
+    public static class UnquoteReplacement {
+
+        private static final String[] VALUES = {
+                "plain value",
+                "\"quoted\"",
+                "$1.50",
+                "back\\slash",
+                "line\nbreak\ttab",
+                ""
+        };
+
+        @Test
+        public void testUndoesQuoteReplacement() {
+
+            for (String value : VALUES) {
+                Assert.assertEquals(value,
+                        RegexTemplateProcessor.unquoteReplacement(java.util.regex.Matcher.quoteReplacement(value)));
+            }
+        }
+
+        @Test
+        public void testSameAsMatcherForEscapedValues() {
+
+            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("\\$(\\d+)");
+            TemplateProcessor processor = new RegexTemplateProcessor();
+            for (String value : VALUES) {
+                String escaped = processor.escapeSpecialChars(java.util.regex.Matcher.quoteReplacement(value));
+                java.util.regex.Matcher matcher = pattern.matcher("$1");
+                Assert.assertTrue(matcher.find());
+                StringBuffer expected = new StringBuffer();
+                matcher.appendReplacement(expected, escaped);
+                Assert.assertEquals(value, expected.toString(), RegexTemplateProcessor.unquoteReplacement(escaped));
+            }
+        }
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.metrics;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for MetricsRegistry class
+ */
+public class MetricsRegistryTest extends TestCase {
+
+    public void testRecordLatency() {
+        MetricsRegistry registry = new MetricsRegistry();
+        long startTime = System.nanoTime() - 5000000;
+        registry.recordLatency(MetricType.API, "StockQuoteAPI", startTime, false);
+        registry.recordLatency(MetricType.API, "StockQuoteAPI", startTime, true);
+        registry.recordLatency(MetricType.ENDPOINT, "StockQuoteAPI", startTime, false);
+        registry.recordLatency(MetricType.SEQUENCE, null, startTime, false);
+
+        LatencyMetric api = registry.findLatencyMetric(MetricType.API, "StockQuoteAPI");
+        assertEquals(2, api.getRequestCount());
+        assertEquals(1, api.getErrorCount());
+        assertTrue(api.getLatencyPercentile(50) >= 5000);
+        assertEquals(1, registry.findLatencyMetric(MetricType.ENDPOINT, "StockQuoteAPI").getRequestCount());
+        assertNull(registry.findLatencyMetric(MetricType.RESOURCE, "StockQuoteAPI"));
+        assertEquals(2, registry.getLatencyMetrics().size());
+        assertSame(api, registry.getLatencyMetric(MetricType.API, "StockQuoteAPI"));
+    }
+
+    public void testPrometheusText() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.getLatencyMetric(MetricType.RESOURCE, "Stock\"API\":/quote").record(1500000, true);
+        String text = registry.toPrometheusText();
+        assertTrue(text.contains("# TYPE synapse_request_duration_seconds summary\n"));
+        assertTrue(text.contains(
+                "synapse_request_duration_seconds{type=\"resource\",name=\"Stock\\\"API\\\":/quote\","
+                        + "quantile=\"0.99\"} "));
+        assertTrue(text.contains(
+                "synapse_request_duration_seconds_sum{type=\"resource\",name=\"Stock\\\"API\\\":/quote\"} 0.0015\n"));
+        assertTrue(text.contains(
+                "synapse_request_duration_seconds_count{type=\"resource\",name=\"Stock\\\"API\\\":/quote\"} 1\n"));
+        assertTrue(text.contains(
+                "synapse_request_errors_total{type=\"resource\",name=\"Stock\\\"API\\\":/quote\"} 1\n"));
+    }
+}
@@ -113,4 +113,17 @@ public class ResourceTest extends RESTMediationTestCase {
         assertEquals("seq.in.value", mc.getProperty("seq.in"));
         assertEquals("seq.fault.value", mc.getProperty("seq.fault"));
     }
+
+    public void testMetricsLabel() throws Exception {
+        Resource resource = new Resource();
+        assertEquals("/", resource.getMetricsLabel());
+        resource.setDispatcherHelper(new URITemplateHelper("/orders/{id}"));
+        resource.addMethod("PUT");
+        resource.addMethod("GET");
+        String label = resource.getMetricsLabel();
+        assertEquals("/orders/{id} GET,PUT", label);
+        assertSame("label should be reused", label, resource.getMetricsLabel());
+        resource.addMethod("DELETE");
+        assertEquals("/orders/{id} DELETE,GET,PUT", resource.getMetricsLabel());
+    }
 }
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.startup.executor;
+
+import org.apache.axiom.om.util.AXIOMUtil;
+import org.apache.synapse.ManagedLifecycle;
+import org.apache.synapse.core.SynapseEnvironment;
+import org.apache.synapse.task.Task;
+import org.apache.synapse.task.TaskConstants;
+import org.apache.synapse.task.TaskDescription;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for ExecutorTaskManager class. The wheel is advanced on a manual clock and the
+ * tasks fired are run by the test, so that the tests do not depend on timing.
+ */
+public class ExecutorTaskManagerTest {
+
+    private static final int TICK = 5;
+
+    private ManualClock clock;
+    private QueuedExecutor workers;
+    private SynapseEnvironment synapseEnvironment;
+    private ExecutorTaskManager taskManager;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock();
+        workers = new QueuedExecutor();
+        synapseEnvironment = Mockito.mock(SynapseEnvironment.class);
+        Mockito.when(synapseEnvironment.isInitialized()).thenReturn(true);
+        Properties properties = new Properties();
+        properties.setProperty(ExecutorTaskManager.TICK_INTERVAL, String.valueOf(TICK));
+        taskManager = new ExecutorTaskManager(clock, workers);
+        Assert.assertTrue(taskManager.init(properties));
+        taskManager.setProperty(TaskConstants.SYNAPSE_ENV, synapseEnvironment);
+        Assert.assertTrue(taskManager.start());
+    }
+
+    @After
+    public void tearDown() {
+        taskManager.stop();
+    }
+
+    @Test
+    public void testSubSecondInterval() throws Exception {
+        CountingTask task = new CountingTask();
+        Assert.assertTrue(taskManager.schedule(createTask("poller", task, 20, -1)));
+        Assert.assertTrue(taskManager.isTaskExist("poller"));
+        advance(500);
+        // first run at the end of the first tick, then 20ms after each run completes
+        Assert.assertEquals(25, task.runs.get());
+        TaskStatistics statistics = taskManager.getTaskStatistics("poller");
+        Assert.assertEquals(25, statistics.getRunCount());
+        Assert.assertEquals(0, statistics.getFailureCount());
+
+        Assert.assertTrue(taskManager.delete("poller::" + TaskDescription.DEFAULT_GROUP));
+        Assert.assertFalse(taskManager.isTaskExist("poller"));
+        advance(100);
+        Assert.assertEquals(25, task.runs.get());
+    }
+
+    @Test
+    public void testCountLimitsRuns() throws Exception {
+        CountingTask task = new CountingTask();
+        taskManager.schedule(createTask("limited", task, 10, 3));
+        advance(300);
+        Assert.assertEquals(3, task.runs.get());
+        Assert.assertFalse("A completed task should be removed", taskManager.isTaskExist("limited"));
+    }
+
+    @Test
+    public void testFixedRateSkipsFiresWhileRunning() throws Exception {
+        CountingTask task = new CountingTask();
+        task.runTime = 30;
+        TaskDescription description = createTask("slow", task, 20, -1);
+        description.addProperty(ExecutorTaskManager.FIXED_RATE, "true");
+        taskManager.schedule(description);
+
+        fire(5);
+        Assert.assertEquals(1, workers.size());
+        // due at 20, 40, 60, 80 and 100ms while the first run waits for a worker thread
+        fire(100);
+        Assert.assertEquals(1, workers.size());
+        workers.runAll();
+
+        TaskStatistics statistics = taskManager.getTaskStatistics("slow");
+        Assert.assertEquals(1, statistics.getRunCount());
+        Assert.assertEquals(5, statistics.getSkippedFireCount());
+        Assert.assertEquals(1, statistics.getOverrunCount());
+        Assert.assertEquals(30.0, statistics.getMaxRunTime(), 0.001);
+        Assert.assertEquals(100.0, statistics.getAverageStartDelay(), 0.001);
+    }
+
+    @Test
+    public void testConcurrentRunsKeepTheirFireTimes() throws Exception {
+        CountingTask task = new CountingTask();
+        TaskDescription description = createTask("concurrent", task, 20, -1);
+        description.addProperty(ExecutorTaskManager.FIXED_RATE, "true");
+        description.addProperty(ExecutorTaskManager.MAX_CONCURRENCY, "2");
+        taskManager.schedule(description);
+
+        fire(5);
+        fire(15);
+        Assert.assertEquals(2, workers.size());
+        Assert.assertEquals(2, taskManager.getRunningTaskCount());
+        workers.runAll();
+
+        // fired at 5 and 20ms, both started at 20ms
+        TaskStatistics statistics = taskManager.getTaskStatistics("concurrent");
+        Assert.assertEquals(2, statistics.getRunCount());
+        Assert.assertEquals(7.5, statistics.getAverageStartDelay(), 0.001);
+        Assert.assertEquals(0, statistics.getSkippedFireCount());
+    }
+
+    @Test
+    public void testPauseAndResume() throws Exception {
+        CountingTask task = new CountingTask();
+        taskManager.schedule(createTask("paused", task, 10, -1));
+        advance(50);
+        Assert.assertTrue(taskManager.pause("paused"));
+        Assert.assertTrue(taskManager.isTaskDeactivated("paused"));
+        int runs = task.runs.get();
+        Assert.assertTrue(runs > 0);
+        advance(100);
+        Assert.assertEquals(runs, task.runs.get());
+        Assert.assertTrue(taskManager.resume("paused"));
+        advance(100);
+        Assert.assertTrue(task.runs.get() > runs);
+    }
+
+    @Test
+    public void testCron() throws Exception {
+        CountingTask task = new CountingTask();
+        TaskDescription description = createTask("cron", task, 0, -1);
+        description.setCronExpression("* * * * * ?");
+        taskManager.schedule(description);
+        // the clock starts on a whole second, the task runs at 0, 1 and 2 seconds
+        advance(2200);
+        Assert.assertEquals(3, task.runs.get());
+    }
+
+    @Test
+    public void testNotRunUntilSynapseInitialized() throws Exception {
+        Mockito.when(synapseEnvironment.isInitialized()).thenReturn(false);
+        CountingTask task = new CountingTask();
+        taskManager.schedule(createTask("waiting", task, 10, -1));
+        advance(100);
+        Assert.assertEquals(0, task.runs.get());
+        Assert.assertEquals(0, taskManager.getTaskStatistics("waiting").getSkippedFireCount());
+
+        Mockito.when(synapseEnvironment.isInitialized()).thenReturn(true);
+        advance(100);
+        Assert.assertTrue(task.runs.get() > 0);
+    }
+
+    @Test
+    public void testTaskCreatedFromClassName() throws Exception {
+        TaskDescription description = createTask("created", null, 10, 1);
+        description.addProperty(TaskDescription.CLASSNAME, PropertyTask.class.getName());
+        description.setXmlProperty(AXIOMUtil.stringToOM("<property name=\"message\" value=\"hello\"/>"));
+        Assert.assertTrue(taskManager.schedule(description));
+
+        PropertyTask task = PropertyTask.instance;
+        Assert.assertNotNull(task);
+        Assert.assertSame(synapseEnvironment, task.synapseEnvironment);
+        Assert.assertEquals("hello", task.message);
+        advance(50);
+        Assert.assertEquals(1, task.runs.get());
+    }
+
+    @Test
+    public void testTaskNeedingSynapseEnvironmentNotScheduledWithoutIt() throws Exception {
+        taskManager.setProperty(TaskConstants.SYNAPSE_ENV, null);
+        TaskDescription description = createTask("created", null, 10, 1);
+        description.addProperty(TaskDescription.CLASSNAME, PropertyTask.class.getName());
+        Assert.assertFalse(taskManager.schedule(description));
+        Assert.assertFalse(taskManager.isTaskExist("created"));
+    }
+
+    /**
+     * Advance the clock a tick at a time, running the tasks fired on each tick.
+     */
+    private void advance(long millis) {
+        for (long elapsed = 0; elapsed < millis; elapsed += TICK) {
+            fire(TICK);
+            workers.runAll();
+        }
+    }
+
+    /**
+     * Advance the clock a tick at a time, leaving the tasks fired waiting for a worker thread.
+     */
+    private void fire(long millis) {
+        for (long elapsed = 0; elapsed < millis; elapsed += TICK) {
+            clock.advance(TICK);
+            taskManager.advanceWheel();
+        }
+    }
+
+    private static TaskDescription createTask(String name, Task task, long interval, int count) {
+        TaskDescription description = new TaskDescription();
+        description.setName(name);
+        description.setInterval(interval);
+        description.setIntervalInMs(true);
+        description.setCount(count);
+        if (task != null) {
+            description.addResource(TaskDescription.INSTANCE, task);
+        }
+        return description;
+    }
+
+    private static final class ManualClock implements TimingWheel.Clock {
+        /** a whole second, so that cron expressions fire on ticks */
+        private static final long START_MILLIS = 1600000000000L;
+
+        private volatile long nanos;
+
+        public long currentTimeMillis() {
+            return START_MILLIS + nanos / 1000000L;
+        }
+
+        public long nanoTime() {
+            return nanos;
+        }
+
+        private void advance(long millis) {
+            nanos += millis * 1000000L;
+        }
+    }
+
+    private static final class QueuedExecutor implements Executor {
+        private final List<Runnable> queued = new ArrayList<Runnable>();
+
+        public void execute(Runnable command) {
+            queued.add(command);
+        }
+
+        private int size() {
+            return queued.size();
+        }
+
+        private void runAll() {
+            List<Runnable> runs = new ArrayList<Runnable>(queued);
+            queued.clear();
+            for (Runnable run : runs) {
+                run.run();
+            }
+        }
+    }
+
+    private final class CountingTask implements Task {
+        private final AtomicInteger runs = new AtomicInteger();
+        /** milliseconds the clock advances while the task runs */
+        private long runTime;
+
+        public void execute() {
+            clock.advance(runTime);
+            runs.incrementAndGet();
+        }
+    }
+
+    public static final class PropertyTask implements Task, ManagedLifecycle {
+        private static volatile PropertyTask instance;
+
+        private final AtomicInteger runs = new AtomicInteger();
+        private SynapseEnvironment synapseEnvironment;
+        private String message;
+
+        public PropertyTask() {
+            instance = this;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        public void init(SynapseEnvironment se) {
+            this.synapseEnvironment = se;
+        }
+
+        public void destroy() {
+        }
+
+        public void execute() {
+            runs.incrementAndGet();
+        }
+    }
+}
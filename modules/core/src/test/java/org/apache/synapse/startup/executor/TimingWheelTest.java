@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.startup.executor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for TimingWheel class.
+ */
+public class TimingWheelTest {
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void testTimeoutsExpireInOrder() throws Exception {
+        TimingWheel wheel = new TimingWheel(5, 8, clock);
+        List<String> expired = new ArrayList<String>();
+        // delays longer than a turn of the wheel share slots with shorter ones
+        wheel.schedule(new NamedTimeout("c", expired), 120);
+        wheel.schedule(new NamedTimeout("a", expired), 10);
+        wheel.schedule(new NamedTimeout("b", expired), 50);
+        Assert.assertEquals(3, wheel.size());
+
+        for (int elapsed = 1; elapsed <= 200; elapsed++) {
+            clock.nanos += 1000000L;
+            wheel.advance();
+            if (elapsed < 120) {
+                Assert.assertFalse("Timeout expired early", expired.contains("c"));
+            }
+        }
+        Assert.assertEquals("[a, b, c]", expired.toString());
+        Assert.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCancelAndReschedule() throws Exception {
+        TimingWheel wheel = new TimingWheel(5, 8, clock);
+        List<String> expired = new ArrayList<String>();
+        NamedTimeout cancelled = new NamedTimeout("cancelled", expired);
+        NamedTimeout moved = new NamedTimeout("moved", expired);
+        wheel.schedule(cancelled, 10);
+        wheel.schedule(moved, 10);
+        Assert.assertTrue(wheel.cancel(cancelled));
+        Assert.assertFalse(wheel.cancel(cancelled));
+        wheel.schedule(moved, 60);
+        Assert.assertEquals(1, wheel.size());
+
+        clock.nanos += 30 * 1000000L;
+        wheel.advance();
+        Assert.assertTrue(expired.isEmpty());
+        clock.nanos += 30 * 1000000L;
+        wheel.advance();
+        Assert.assertEquals("[moved]", expired.toString());
+    }
+
+    private static final class ManualClock implements TimingWheel.Clock {
+        private long nanos;
+
+        public long currentTimeMillis() {
+            return nanos / 1000000L;
+        }
+
+        public long nanoTime() {
+            return nanos;
+        }
+    }
+
+    private static final class NamedTimeout extends TimingWheel.Timeout {
+        private final String name;
+        private final List<String> expired;
+
+        private NamedTimeout(String name, List<String> expired) {
+            this.name = name;
+            this.expired = expired;
+        }
+
+        @Override
+        void expired() {
+            expired.add(name);
+        }
+    }
+}
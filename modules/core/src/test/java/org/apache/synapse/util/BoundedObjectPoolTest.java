@@ -0,0 +1,110 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BoundedObjectPoolTest extends TestCase {
+
+    public void testObjectReused() {
+        BoundedObjectPool<StringBuilder, RuntimeException> pool = newPool(2, true);
+        StringBuilder object = pool.borrow();
+        pool.release(object);
+        assertEquals(1, pool.getIdleCount());
+        assertSame(object, pool.borrow());
+        assertEquals(0, pool.getIdleCount());
+        assertNotSame(object, pool.borrow());
+    }
+
+    public void testResetOnRelease() {
+        BoundedObjectPool<StringBuilder, RuntimeException> pool = newPool(1, true);
+        StringBuilder object = pool.borrow();
+        object.append("state of the previous caller");
+        pool.release(object);
+        assertEquals(0, pool.borrow().length());
+    }
+
+    public void testIdleObjectsBounded() {
+        BoundedObjectPool<StringBuilder, RuntimeException> pool = newPool(2, true);
+        StringBuilder[] objects = new StringBuilder[4];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = pool.borrow();
+        }
+        for (StringBuilder object : objects) {
+            pool.release(object);
+        }
+        assertEquals(2, pool.getIdleCount());
+    }
+
+    public void testNoPooling() {
+        BoundedObjectPool<StringBuilder, RuntimeException> pool = newPool(0, true);
+        StringBuilder object = pool.borrow();
+        pool.release(object);
+        assertEquals(0, pool.getIdleCount());
+        assertNotSame(object, pool.borrow());
+    }
+
+    public void testObjectsThatCannotBeResetAreDropped() {
+        BoundedObjectPool<StringBuilder, RuntimeException> pool = newPool(2, false);
+        StringBuilder object = pool.borrow();
+        pool.release(object);
+        assertEquals(0, pool.getIdleCount());
+        assertNotSame(object, pool.borrow());
+    }
+
+    public void testCreationFailure() {
+        final AtomicInteger attempts = new AtomicInteger();
+        BoundedObjectPool<Object, Exception> pool = new BoundedObjectPool<Object, Exception>(
+                new BoundedObjectPool.Factory<Object, Exception>() {
+                    public Object create() throws Exception {
+                        attempts.incrementAndGet();
+                        throw new Exception("cannot create");
+                    }
+                }, new BoundedObjectPool.Resetter<Object>() {
+                    public boolean reset(Object object) {
+                        return true;
+                    }
+                }, 1);
+        try {
+            pool.borrow();
+            fail("The creation failure should reach the caller");
+        } catch (Exception e) {
+            assertEquals("cannot create", e.getMessage());
+        }
+        assertEquals(1, attempts.get());
+    }
+
+    private static BoundedObjectPool<StringBuilder, RuntimeException> newPool(int maxIdle,
+                                                                            final boolean reusable) {
+        return new BoundedObjectPool<StringBuilder, RuntimeException>(
+                new BoundedObjectPool.Factory<StringBuilder, RuntimeException>() {
+                    public StringBuilder create() {
+                        return new StringBuilder();
+                    }
+                }, new BoundedObjectPool.Resetter<StringBuilder>() {
+                    public boolean reset(StringBuilder object) {
+                        object.setLength(0);
+                        return reusable;
+                    }
+                }, maxIdle);
+    }
+}
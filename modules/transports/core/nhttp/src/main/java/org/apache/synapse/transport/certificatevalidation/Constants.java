@@ -29,6 +29,10 @@ public interface Constants {
     public static final int CACHE_MAX_DELAY_MINS = 60 * 24;
     public static final int CACHE_MIN_DELAY_MINS = 1;
     public static final int CACHE_DEFAULT_DELAY_MINS = 15;
+    /** Share of the validity period of a revocation status left when a background refresh starts */
+    public static final int CACHE_REFRESH_AHEAD_PERCENTAGE = 10;
+    /** Minutes an expired revocation status may still be served while it is refreshed, 0 by default */
+    public static final String CACHE_STALE_GRACE_MINS_PROPERTY = "synapse.revocation.cache.stale.grace.mins";
 
     public static final String BOUNCY_CASTLE_PROVIDER = "BC";
     public static final String BOUNCY_CASTLE_FIPS_PROVIDER = "BCFIPS";
@@ -0,0 +1,152 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.transport.certificatevalidation.cache;
+
+import org.apache.synapse.transport.certificatevalidation.CertificateVerificationException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs at most one fetch at a time for each cache key. Threads asking for a key that is already
+ * being fetched wait for that fetch instead of contacting the OCSP responder or CRL distribution
+ * point again. Fetches can also be run in the background, so that an entry is refreshed before it
+ * expires without holding up an SSL handshake.
+ */
+public class CacheValueLoader<K, V> {
+
+    private final ConcurrentMap<K, FutureTask<V>> inFlight = new ConcurrentHashMap<K, FutureTask<V>>();
+
+    /**
+     * Runs the given fetch, or waits for the fetch already running for the same key. A background
+     * refresh that failed completes without a value, in which case the value is fetched again for
+     * the caller instead of returning null.
+     *
+     * @param key    cache key of the value
+     * @param loader fetches the value
+     * @return the fetched value
+     * @throws CertificateVerificationException if the fetch failed
+     */
+    public V load(K key, Callable<V> loader) throws CertificateVerificationException {
+        while (true) {
+            FutureTask<V> task = new FutureTask<V>(loader);
+            FutureTask<V> running = inFlight.putIfAbsent(key, task);
+            if (running == null) {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.remove(key, task);
+                }
+                return getValue(task);
+            }
+            V value = getValue(running);
+            if (value != null || !(running instanceof RefreshTask)) {
+                return value;
+            }
+        }
+    }
+
+    private V getValue(FutureTask<V> task) throws CertificateVerificationException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CertificateVerificationException("Interrupted while waiting for the revocation status", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CertificateVerificationException) {
+                throw (CertificateVerificationException) e.getCause();
+            }
+            throw new CertificateVerificationException(e.getCause());
+        }
+    }
+
+    /**
+     * Runs the given fetch in the background, unless one is already running for the same key. The
+     * loader is responsible for storing the fetched value and handling failures.
+     *
+     * @param key    cache key of the value
+     * @param loader fetches and stores the value
+     * @return true if a background fetch was started
+     */
+    public boolean loadAsync(final K key, Callable<V> loader) {
+        final FutureTask<V> task = new RefreshTask<V>(loader);
+        if (inFlight.putIfAbsent(key, task) != null) {
+            return false;
+        }
+        try {
+            RefreshExecutor.INSTANCE.execute(new Runnable() {
+                public void run() {
+                    try {
+                        task.run();
+                    } finally {
+                        inFlight.remove(key, task);
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, task);
+            return false;
+        }
+    }
+
+    public boolean isLoading(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    /**
+     * A fetch run in the background, which returns null instead of failing
+     */
+    private static class RefreshTask<V> extends FutureTask<V> {
+
+        RefreshTask(Callable<V> loader) {
+            super(loader);
+        }
+    }
+
+    /**
+     * A small pool shared by the revocation caches for background refreshes
+     */
+    private static class RefreshExecutor {
+
+        private static final ThreadPoolExecutor INSTANCE = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(1000), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "revocation-cache-refresh-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+        static {
+            INSTANCE.allowCoreThreadTimeOut(true);
+        }
+    }
+}
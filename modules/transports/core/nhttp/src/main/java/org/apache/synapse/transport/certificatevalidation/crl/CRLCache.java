@@ -21,21 +21,29 @@ package org.apache.synapse.transport.certificatevalidation.crl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.commons.jmx.MBeanRegistrar;
+import org.apache.synapse.transport.certificatevalidation.CertificateVerificationException;
+import org.apache.synapse.transport.certificatevalidation.Constants;
 import org.apache.synapse.transport.certificatevalidation.cache.CacheController;
 import org.apache.synapse.transport.certificatevalidation.cache.CacheManager;
+import org.apache.synapse.transport.certificatevalidation.cache.CacheValueLoader;
 import org.apache.synapse.transport.certificatevalidation.cache.ManageableCache;
 import org.apache.synapse.transport.certificatevalidation.cache.ManageableCacheValue;
 
 import java.security.cert.X509CRL;
-import java.util.Date;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Since a CRL maps to a CRL URL, the CRLCache should have x509CRL entries against CRL URLs.
  * This cache is a Singleton since it is shared by any transport which needs SSL certificate validation
  * and more than one CRLCache should not be allowed per system.
+ * <p>
+ * Lookups do not lock. A CRL is downloaded again in the background once it gets close to its next update time, and
+ * only one download runs at a time for a CRL URL. If the {@link Constants#CACHE_STALE_GRACE_MINS_PROPERTY} system
+ * property is set, an expired CRL is still used for that many minutes while a new one is downloaded.
  */
 public class CRLCache implements ManageableCache {
 
@@ -44,6 +52,9 @@ public class CRLCache implements ManageableCache {
     private static volatile Iterator<Map.Entry<String, CRLCacheValue>> iterator = hashMap.entrySet().iterator();
     private static volatile CacheManager cacheManager;
     private static CRLVerifier crlVerifier = new CRLVerifier(null);
+    private static final CacheValueLoader<String, X509CRL> loader = new CacheValueLoader<String, X509CRL>();
+    private static final long staleGraceMillis = TimeUnit.MINUTES.toMillis(
+            Long.getLong(Constants.CACHE_STALE_GRACE_MINS_PROPERTY, 0));
     private static final Log log = LogFactory.getLog(CRLCache.class);
 
     private CRLCache() {
@@ -101,7 +112,7 @@ public class CRLCache implements ManageableCache {
     /**
      * To get the current cache size (size of the hash map).
      */
-    public synchronized int getCacheSize() {
+    public int getCacheSize() {
         return hashMap.size();
     }
 
@@ -109,50 +120,109 @@ public class CRLCache implements ManageableCache {
         iterator = hashMap.entrySet().iterator();
     }
 
-    private synchronized void replaceNewCacheValue(CRLCacheValue cacheValue) {
+    //Several threads may try to replace the same cache value (cacheManager and Reactor threads), only one of them
+    //downloads the CRL and the others wait for it.
+    private void replaceNewCacheValue(final CRLCacheValue cacheValue) {
         //If someone has updated with the new value before current Thread.
         if (cacheValue.isValid())
             return;
 
         try {
-            String crlUrl = cacheValue.crlUrl;
-            X509CRL x509CRL = crlVerifier.downloadCRLFromWeb(crlUrl);
-            this.setCacheValue(crlUrl, x509CRL);
-        } catch (Exception e) {
-            log.info("Cant replace old CacheValue with new CacheValue. So remove", e);
-            //If cant be replaced remove.
-            cacheValue.removeThisCacheValue();
+            loader.load(cacheValue.crlUrl, new Callable<X509CRL>() {
+                public X509CRL call() throws Exception {
+                    return fetchNewCacheValue(cacheValue);
+                }
+            });
+        } catch (CertificateVerificationException e) {
+            if (cacheValue.isWithinGracePeriod(System.currentTimeMillis())) {
+                log.warn("Cant replace old CacheValue with new CacheValue. Serving the old value until it is "
+                        + "past its grace period", e);
+            } else {
+                log.info("Cant replace old CacheValue with new CacheValue. So remove", e);
+                //If cant be replaced remove.
+                cacheValue.removeThisCacheValue();
+            }
+        }
+    }
+
+    /**
+     * Starts a background download of a CRL that is about to expire, or is being used past its expiry.
+     */
+    private void refreshCacheValue(final CRLCacheValue cacheValue) {
+        if (loader.loadAsync(cacheValue.crlUrl, new Callable<X509CRL>() {
+            public X509CRL call() {
+                try {
+                    return fetchNewCacheValue(cacheValue);
+                } catch (Exception e) {
+                    log.warn("Cant refresh the CRL from " + cacheValue.crlUrl, e);
+                    return null;
+                }
+            }
+        }) && log.isDebugEnabled()) {
+            log.debug("Refreshing the CRL from " + cacheValue.crlUrl);
         }
     }
 
-    public synchronized X509CRL getCacheValue(String crlUrl) {
+    private X509CRL fetchNewCacheValue(CRLCacheValue cacheValue) throws Exception {
+        //If someone has updated with the new value while this download was waiting.
+        CRLCacheValue current = hashMap.get(cacheValue.crlUrl);
+        if (current != null && current != cacheValue && !current.isRefreshDue(System.currentTimeMillis()))
+            return current.crl;
+
+        String crlUrl = cacheValue.crlUrl;
+        X509CRL x509CRL = crlVerifier.downloadCRLFromWeb(crlUrl);
+        this.setCacheValue(crlUrl, x509CRL);
+        return x509CRL;
+    }
+
+    /**
+     * Downloads a CRL that is not in the cache. Concurrent callers for the same CRL URL share a single download.
+     *
+     * @param crlUrl  URL of the CRL
+     * @param fetcher downloads the CRL and stores it in this cache
+     * @return the CRL
+     * @throws CertificateVerificationException if the CRL could not be downloaded
+     */
+    public X509CRL loadCacheValue(String crlUrl, Callable<X509CRL> fetcher) throws CertificateVerificationException {
+        return loader.load(crlUrl, fetcher);
+    }
+
+    public X509CRL getCacheValue(String crlUrl) {
         CRLCacheValue cacheValue = hashMap.get(crlUrl);
         if (cacheValue != null) {
+            long now = System.currentTimeMillis();
+            if (cacheValue.isValid()) {
+                if (cacheValue.isRefreshDue(now)) {
+                    refreshCacheValue(cacheValue);
+                }
+                return cacheValue.getValue();
+            }
+            if (cacheValue.isWithinGracePeriod(now)) {
+                refreshCacheValue(cacheValue);
+                return cacheValue.getValue();
+            }
             //If who ever gets this cache value before Cache manager task found its invalid, update it and get the
             // new value.
-            if (!cacheValue.isValid()) {
-                cacheValue.updateCacheWithNewValue();
-                CRLCacheValue crlCacheValue = hashMap.get(crlUrl);
-                return (crlCacheValue != null ? crlCacheValue.getValue() : null);
-            }
-
-            return cacheValue.getValue();
+            cacheValue.updateCacheWithNewValue();
+            CRLCacheValue crlCacheValue = hashMap.get(crlUrl);
+            return (crlCacheValue != null ? crlCacheValue.getValue() : null);
         } else
             return null;
     }
 
-    public synchronized void setCacheValue(String crlUrl, X509CRL crl) {
+    public void setCacheValue(String crlUrl, X509CRL crl) {
         CRLCacheValue cacheValue = new CRLCacheValue(crlUrl, crl);
-        log.info("Before set- HashMap size " + hashMap.size());
         hashMap.put(crlUrl, cacheValue);
-        log.info("After set - HashMap size " + hashMap.size());
+        if (log.isDebugEnabled()) {
+            log.debug("CRL cached for " + crlUrl + ", cache size " + hashMap.size());
+        }
     }
 
-    public synchronized void removeCacheValue(String crlUrl) {
-        log.info("Before remove - HashMap size " + hashMap.size());
+    public void removeCacheValue(String crlUrl) {
         hashMap.remove(crlUrl);
-        log.info("After remove - HashMap size " + hashMap.size());
-
+        if (log.isDebugEnabled()) {
+            log.debug("CRL removed for " + crlUrl + ", cache size " + hashMap.size());
+        }
     }
 
     /**
@@ -162,11 +232,18 @@ public class CRLCache implements ManageableCache {
 
         private String crlUrl;
         private X509CRL crl;
-        private long timeStamp = System.currentTimeMillis();
+        private volatile long timeStamp = System.currentTimeMillis();
+        private final long nextUpdate;
+        private final long refreshTime;
 
         public CRLCacheValue(String crlUrl, X509CRL crl) {
             this.crlUrl = crlUrl;
             this.crl = crl;
+
+            this.nextUpdate = crl.getNextUpdate() != null ? crl.getNextUpdate().getTime() : 0;
+            long thisUpdate = crl.getThisUpdate() != null ? crl.getThisUpdate().getTime() : timeStamp;
+            this.refreshTime = nextUpdate -
+                    Math.max(0, nextUpdate - thisUpdate) * Constants.CACHE_REFRESH_AHEAD_PERCENTAGE / 100;
         }
 
         public String getKey() {
@@ -182,9 +259,21 @@ public class CRLCache implements ManageableCache {
          * CRL has a validity period. We can reuse a downloaded CRL within that period.
          */
         public boolean isValid() {
-            Date today = new Date();
-            Date nextUpdate = crl.getNextUpdate();
-            return nextUpdate != null && nextUpdate.after(today);
+            return nextUpdate > System.currentTimeMillis();
+        }
+
+        /**
+         * Whether the CRL is close enough to its next update to be downloaded again in the background.
+         */
+        boolean isRefreshDue(long now) {
+            return now >= refreshTime;
+        }
+
+        /**
+         * Whether an expired CRL may still be used while a new one is downloaded.
+         */
+        boolean isWithinGracePeriod(long now) {
+            return nextUpdate > 0 && now < nextUpdate + staleGraceMillis;
         }
 
         public long getTimeStamp() {
@@ -41,6 +41,7 @@ import java.net.URL;
 import java.security.cert.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * This is used to verify a certificate is revoked or not by using the Certificate Revocation List published
@@ -70,15 +71,19 @@ public class CRLVerifier implements RevocationVerifier {
 
         List<String> list = getCrlDistributionPoints(peerCert);
         //check with distributions points in the list one by one. if one fails go to the other.
-        for (String crlUrl : list) {
-            log.info("Trying to get CRL for URL: " + crlUrl);
+        for (final String crlUrl : list) {
+            if (log.isDebugEnabled()) {
+                log.debug("Trying to get CRL for URL: " + crlUrl);
+            }
 
             if (cache != null) {
                 X509CRL x509CRL = cache.getCacheValue(crlUrl);
                 if (x509CRL != null) {
                     //If cant be casted, we have used the wrong cache.
                     RevocationStatus status = getRevocationStatus(x509CRL, peerCert);
-                    log.info("CRL taken from cache....");
+                    if (log.isDebugEnabled()) {
+                        log.debug("CRL taken from cache....");
+                    }
                     return status;
                 }
             }
@@ -86,10 +91,22 @@ public class CRLVerifier implements RevocationVerifier {
             //todo: Do we need to check if URL has the same domain name as issuerCert?
             //todo: What if this certificate is Unknown?????
             try {
-                X509CRL x509CRL = downloadCRLFromWeb(crlUrl);
+                X509CRL x509CRL;
+                if (cache != null) {
+                    //Only one thread downloads a CRL, the others wait for the download.
+                    x509CRL = cache.loadCacheValue(crlUrl, new Callable<X509CRL>() {
+                        public X509CRL call() throws Exception {
+                            X509CRL crl = downloadCRLFromWeb(crlUrl);
+                            if (crl != null) {
+                                cache.setCacheValue(crlUrl, crl);
+                            }
+                            return crl;
+                        }
+                    });
+                } else {
+                    x509CRL = downloadCRLFromWeb(crlUrl);
+                }
                 if (x509CRL != null) {
-                    if (cache != null)
-                        cache.setCacheValue(crlUrl, x509CRL);
                     return getRevocationStatus(x509CRL, peerCert);
                 }
             } catch (Exception e) {
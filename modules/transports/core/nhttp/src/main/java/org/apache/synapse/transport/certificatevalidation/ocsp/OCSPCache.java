@@ -22,8 +22,10 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.commons.jmx.MBeanRegistrar;
 import org.apache.synapse.transport.certificatevalidation.CertificateVerificationException;
+import org.apache.synapse.transport.certificatevalidation.Constants;
 import org.apache.synapse.transport.certificatevalidation.cache.CacheController;
 import org.apache.synapse.transport.certificatevalidation.cache.CacheManager;
+import org.apache.synapse.transport.certificatevalidation.cache.CacheValueLoader;
 import org.apache.synapse.transport.certificatevalidation.cache.ManageableCache;
 import org.apache.synapse.transport.certificatevalidation.cache.ManageableCacheValue;
 import org.bouncycastle.asn1.ocsp.OCSPResponseStatus;
@@ -33,15 +35,21 @@ import org.bouncycastle.cert.ocsp.OCSPResp;
 import org.bouncycastle.cert.ocsp.SingleResp;
 
 import java.math.BigInteger;
-import java.util.Date;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is a cache to store OSCP responses against Certificate Serial Number since an OCSP response depends on
  * the certificate. This is a singleton since more than one cache of this kind should not be allowed. This cache
  * can be shared by many transports which need SSL validation through OCSP.
+ * <p>
+ * Lookups do not lock. A response is refreshed in the background once it gets close to its next update time, and
+ * only one OCSP request is made at a time for a certificate. If the
+ * {@link Constants#CACHE_STALE_GRACE_MINS_PROPERTY} system property is set, an expired response is still served for
+ * that many minutes while a new one is fetched.
  */
 public class OCSPCache implements ManageableCache {
 
@@ -50,6 +58,10 @@ public class OCSPCache implements ManageableCache {
     private static volatile Iterator<Map.Entry<BigInteger,OCSPCacheValue>> iterator = hashMap.entrySet().iterator();
     private static volatile CacheManager cacheManager;
     private static OCSPVerifier ocspVerifier = new OCSPVerifier(null);
+    private static final CacheValueLoader<BigInteger, SingleResp> loader =
+            new CacheValueLoader<BigInteger, SingleResp>();
+    private static final long staleGraceMillis = TimeUnit.MINUTES.toMillis(
+            Long.getLong(Constants.CACHE_STALE_GRACE_MINS_PROPERTY, 0));
     private static final Log log = LogFactory.getLog(OCSPCache.class);
 
     private OCSPCache() {}
@@ -112,64 +124,129 @@ public class OCSPCache implements ManageableCache {
         iterator = hashMap.entrySet().iterator();
     }
 
-    //This has to be synchronized coz several threads will try to replace cache value (cacheManager and Reactor thread)
-    private synchronized void replaceNewCacheValue(OCSPCacheValue cacheValue){
+    //Several threads may try to replace the same cache value (cacheManager and Reactor threads), only one of them
+    //sends the OCSP request and the others wait for its result.
+    private void replaceNewCacheValue(final OCSPCacheValue cacheValue) {
         //If someone has updated with the new value before current Thread.
-        if(cacheValue.isValid())
+        if (cacheValue.isValid())
             return;
 
         try {
-            String serviceUrl = cacheValue.serviceUrl;
-            OCSPReq request = cacheValue.request;
-            OCSPResp response= ocspVerifier.getOCSPResponce(serviceUrl, request);
+            loader.load(cacheValue.serialNumber, new Callable<SingleResp>() {
+                public SingleResp call() throws CertificateVerificationException {
+                    return fetchNewCacheValue(cacheValue);
+                }
+            });
+        } catch (CertificateVerificationException e) {
+            if (cacheValue.isWithinGracePeriod(System.currentTimeMillis())) {
+                log.warn("Cant replace old CacheValue with new CacheValue. Serving the old value until it is "
+                        + "past its grace period", e);
+            } else {
+                log.info("Cant replace old CacheValue with new CacheValue. So remove", e);
+                //If cant be replaced remove.
+                cacheValue.removeThisCacheValue();
+            }
+        }
+    }
 
-            if (OCSPResponseStatus.SUCCESSFUL != response.getStatus())
-                throw new CertificateVerificationException("OCSP response status not SUCCESSFUL");
+    /**
+     * Starts a background refresh of a cache value that is about to expire, or is being served past its expiry.
+     */
+    private void refreshCacheValue(final OCSPCacheValue cacheValue) {
+        if (loader.loadAsync(cacheValue.serialNumber, new Callable<SingleResp>() {
+            public SingleResp call() {
+                try {
+                    return fetchNewCacheValue(cacheValue);
+                } catch (CertificateVerificationException e) {
+                    log.warn("Cant refresh the OCSP response for certificate " + cacheValue.serialNumber, e);
+                    return null;
+                }
+            }
+        }) && log.isDebugEnabled()) {
+            log.debug("Refreshing the OCSP response for certificate " + cacheValue.serialNumber);
+        }
+    }
 
-            BasicOCSPResp basicResponse = (BasicOCSPResp) response.getResponseObject();
-            SingleResp[] responses = (basicResponse == null) ? null : basicResponse.getResponses();
+    private SingleResp fetchNewCacheValue(OCSPCacheValue cacheValue) throws CertificateVerificationException {
+        //If someone has updated with the new value while this fetch was waiting.
+        OCSPCacheValue current = hashMap.get(cacheValue.serialNumber);
+        if (current != null && current != cacheValue && !current.isRefreshDue(System.currentTimeMillis()))
+            return current.singleResp;
 
-            if (responses == null)
-                throw new CertificateVerificationException("Cant get OCSP response");
+        String serviceUrl = cacheValue.serviceUrl;
+        OCSPReq request = cacheValue.request;
+        OCSPResp response = ocspVerifier.getOCSPResponce(serviceUrl, request);
 
-            SingleResp resp = responses[0];
-            this.setCacheValue(cacheValue.serialNumber, resp, request, serviceUrl);
+        if (OCSPResponseStatus.SUCCESSFUL != response.getStatus())
+            throw new CertificateVerificationException("OCSP response status not SUCCESSFUL");
 
-        } catch (Exception e){
-            log.info("Cant replace old CacheValue with new CacheValue. So remove", e);
-            //If cant be replaced remove.
-            cacheValue.removeThisCacheValue();
+        BasicOCSPResp basicResponse;
+        try {
+            basicResponse = (BasicOCSPResp) response.getResponseObject();
+        } catch (Exception e) {
+            throw new CertificateVerificationException("Cant get OCSP response", e);
         }
+        SingleResp[] responses = (basicResponse == null) ? null : basicResponse.getResponses();
+
+        if (responses == null)
+            throw new CertificateVerificationException("Cant get OCSP response");
+
+        SingleResp resp = responses[0];
+        this.setCacheValue(cacheValue.serialNumber, resp, request, serviceUrl);
+        return resp;
+    }
+
+    /**
+     * Fetches a response for a certificate that is not in the cache. Concurrent callers for the same certificate
+     * share a single fetch.
+     *
+     * @param serialNumber serial number of the certificate
+     * @param fetcher      sends the OCSP request and stores the response in this cache
+     * @return the response
+     * @throws CertificateVerificationException if the response could not be fetched
+     */
+    public SingleResp loadCacheValue(BigInteger serialNumber, Callable<SingleResp> fetcher)
+            throws CertificateVerificationException {
+        return loader.load(serialNumber, fetcher);
     }
 
-    public synchronized SingleResp getCacheValue(BigInteger serialNumber) {
+    public SingleResp getCacheValue(BigInteger serialNumber) {
         OCSPCacheValue cacheValue = hashMap.get(serialNumber);
         if(cacheValue != null) {
+            long now = System.currentTimeMillis();
+            if (cacheValue.isValid()) {
+                if (cacheValue.isRefreshDue(now)) {
+                    refreshCacheValue(cacheValue);
+                }
+                return cacheValue.getValue();
+            }
+            if (cacheValue.isWithinGracePeriod(now)) {
+                refreshCacheValue(cacheValue);
+                return cacheValue.getValue();
+            }
             //If who ever gets this cache value before Cache manager task found its invalid, update it and get the
             // new value.
-            if (!cacheValue.isValid()) {
-                cacheValue.updateCacheWithNewValue();
-                OCSPCacheValue ocspCacheValue = hashMap.get(serialNumber);
-                return (ocspCacheValue!=null? ocspCacheValue.getValue(): null);
-            }
-
-            return cacheValue.getValue();
+            cacheValue.updateCacheWithNewValue();
+            OCSPCacheValue ocspCacheValue = hashMap.get(serialNumber);
+            return (ocspCacheValue!=null? ocspCacheValue.getValue(): null);
         }
         else
             return null;
     }
 
-    public synchronized void setCacheValue(BigInteger serialNumber, SingleResp singleResp, OCSPReq request, String serviceUrl) {
+    public void setCacheValue(BigInteger serialNumber, SingleResp singleResp, OCSPReq request, String serviceUrl) {
         OCSPCacheValue cacheValue = new OCSPCacheValue(serialNumber, singleResp, request, serviceUrl);
-        log.info("Before set - HashMap size " + hashMap.size());
         hashMap.put(serialNumber, cacheValue);
-        log.info("After set - HashMap size " + hashMap.size());
+        if (log.isDebugEnabled()) {
+            log.debug("OCSP response cached for certificate " + serialNumber + ", cache size " + hashMap.size());
+        }
     }
 
-    public synchronized void removeCacheValue(BigInteger serialNumber) {
-        log.info("Before remove - HashMap size " + hashMap.size());
+    public void removeCacheValue(BigInteger serialNumber) {
         hashMap.remove(serialNumber);
-        log.info("After remove - HashMap size " + hashMap.size());
+        if (log.isDebugEnabled()) {
+            log.debug("OCSP response removed for certificate " + serialNumber + ", cache size " + hashMap.size());
+        }
     }
 
     /**
@@ -181,7 +258,9 @@ public class OCSPCache implements ManageableCache {
         private SingleResp singleResp;
         private OCSPReq request;
         private String serviceUrl;
-        private long timeStamp = System.currentTimeMillis();
+        private volatile long timeStamp = System.currentTimeMillis();
+        private final long nextUpdate;
+        private final long refreshTime;
 
         public OCSPCacheValue(BigInteger serialNumber, SingleResp singleResp, OCSPReq request, String serviceUrl) {
             this.serialNumber = serialNumber;
@@ -189,6 +268,11 @@ public class OCSPCache implements ManageableCache {
             //request and serviceUrl are needed to update the cache with new values.
             this.request = request;
             this.serviceUrl = serviceUrl;
+
+            this.nextUpdate = singleResp.getNextUpdate() != null ? singleResp.getNextUpdate().getTime() : 0;
+            long thisUpdate = singleResp.getThisUpdate() != null ? singleResp.getThisUpdate().getTime() : timeStamp;
+            this.refreshTime = nextUpdate -
+                    Math.max(0, nextUpdate - thisUpdate) * Constants.CACHE_REFRESH_AHEAD_PERCENTAGE / 100;
         }
 
         public BigInteger getKey() {
@@ -204,10 +288,21 @@ public class OCSPCache implements ManageableCache {
          * An OCSP response is valid during its validity period.
          */
         public boolean isValid() {
-            //todo: elapse
-            Date now = new Date();
-            Date nextUpdate = singleResp.getNextUpdate();
-            return nextUpdate != null && nextUpdate.after(now);
+            return nextUpdate > System.currentTimeMillis();
+        }
+
+        /**
+         * Whether the response is close enough to its next update to be refreshed in the background.
+         */
+        boolean isRefreshDue(long now) {
+            return now >= refreshTime;
+        }
+
+        /**
+         * Whether an expired response may still be served while it is being refreshed.
+         */
+        boolean isWithinGracePeriod(long now) {
+            return nextUpdate > 0 && now < nextUpdate + staleGraceMillis;
         }
 
         public long getTimeStamp() {
@@ -61,6 +61,7 @@ import java.security.Security;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Used to check if a Certificate is revoked or not by its CA using Online Certificate Status Protocol (OCSP).
@@ -90,7 +91,7 @@ public class OCSPVerifier implements RevocationVerifier {
      * @throws CertificateVerificationException
      *
      */
-    public RevocationStatus checkRevocationStatus(X509Certificate peerCert, X509Certificate issuerCert)
+    public RevocationStatus checkRevocationStatus(final X509Certificate peerCert, final X509Certificate issuerCert)
             throws CertificateVerificationException {
 
         //check cache
@@ -99,10 +100,23 @@ public class OCSPVerifier implements RevocationVerifier {
             if (resp != null) {
                 //If cant be casted, we have used the wrong cache.
                 RevocationStatus status = getRevocationStatus(resp);
-                log.info("OCSP response taken from cache....");
+                if (log.isDebugEnabled()) {
+                    log.debug("OCSP response taken from cache....");
+                }
                 return status;
             }
+            //Only one thread contacts the OCSP responder for a certificate, the others wait for its response.
+            return getRevocationStatus(cache.loadCacheValue(peerCert.getSerialNumber(), new Callable<SingleResp>() {
+                public SingleResp call() throws CertificateVerificationException {
+                    return fetchSingleResponse(peerCert, issuerCert);
+                }
+            }));
         }
+        return getRevocationStatus(fetchSingleResponse(peerCert, issuerCert));
+    }
+
+    private SingleResp fetchSingleResponse(X509Certificate peerCert, X509Certificate issuerCert)
+            throws CertificateVerificationException {
 
         OCSPReq request = generateOCSPRequest(issuerCert, peerCert.getSerialNumber());
         //This list will sometimes have non ocsp urls as well.
@@ -126,10 +140,11 @@ public class OCSPVerifier implements RevocationVerifier {
 
             if (responses != null && responses.length == 1) {
                 SingleResp resp = responses[0];
-                RevocationStatus status = getRevocationStatus(resp);
+                //fail before caching a status that cannot be recognized.
+                getRevocationStatus(resp);
                 if (cache != null)
                     cache.setCacheValue(peerCert.getSerialNumber(), resp, request, serviceUrl);
-                return status;
+                return resp;
             }
         }
         throw new CertificateVerificationException("Cant get Revocation Status from OCSP.");
@@ -26,19 +26,22 @@ import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.params.HttpParams;
 import org.apache.synapse.transport.http.conn.LoggingUtils;
-import org.apache.synapse.transport.http.wrapper.HttpRequestWrapper;
-import org.apache.synapse.transport.http.wrapper.HttpResponseWrapper;
 
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * The class to handle the HTTP Access Logs, patterns and the major functionality.
  * Major Code segment borrowed from Apache Tomcat's
  * org.apache.catalina.valves.AccessLogValve with thanks.
+ * <p>
+ * Accesses are put in a bounded {@link AccessLogBuffer} by the IO threads and formatted by a
+ * single writer thread, which writes them to the log file in batches. When the buffer is full,
+ * accesses are dropped and counted unless <code>access_log_block_when_full</code> is set.
  */
 public class Access {
     private static Log log = LogFactory.getLog(Access.class);
@@ -53,10 +56,26 @@ public class Access {
 
     private static AccessLogger accessLogger;
 
-    private static LinkedBlockingQueue<HttpRequestWrapper> requestQueue;
-    private static LinkedBlockingQueue<HttpResponseWrapper> responseQueue;
+    private static AccessLogBuffer buffer;
 
-    private Date date;
+    /**
+     * Maximum number of accesses written to the log file in one batch
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * Minimum time between two warnings about dropped accesses
+     */
+    private static final long DROP_WARNING_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Maximum time to wait for the writer to log the queued accesses on close
+     */
+    private static final long CLOSE_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private Thread writer;
+
+    private volatile boolean closed;
 
     /**
      * Constructor of AccessLog. AccessHandler has a static object of Access.
@@ -68,8 +87,7 @@ public class Access {
         super();
         Access.log = log;
         Access.accessLogger = accessLogger;
-        requestQueue = new LinkedBlockingQueue<HttpRequestWrapper>();
-        responseQueue = new LinkedBlockingQueue<HttpResponseWrapper>();
+        buffer = new AccessLogBuffer(AccessConstants.getQueueSize(), AccessConstants.isBlockWhenFull());
         logElements = createLogElements();
         logAccesses();
     }
@@ -80,10 +98,7 @@ public class Access {
      * @param request - HttpRequest
      */
     public void addAccessToQueue(HttpRequest request) {
-        HttpRequestWrapper requestWrapper = new HttpRequestWrapper();
-        requestWrapper.setHttpRequest(request);
-        requestWrapper.setDate(new Date(AccessTimeUtil.getDate().getTime()));
-        requestQueue.add(requestWrapper);
+        buffer.offer(request, null, System.currentTimeMillis());
     }
 
     /**
@@ -92,50 +107,122 @@ public class Access {
      * @param response - HttpResponse
      */
     public void addAccessToQueue(HttpResponse response) {
-        HttpResponseWrapper responseWrapper = new HttpResponseWrapper();
-        responseWrapper.setHttpResponse(response);
-        responseWrapper.setDate(new Date(AccessTimeUtil.getDate().getTime()));
-        responseQueue.add(responseWrapper);
+        buffer.offer(null, response, System.currentTimeMillis());
     }
 
     /**
-     * logs the request and response accesses.
+     * @return the number of accesses dropped because the queue was full
      */
-    public void logAccesses() {
-        Thread logRequests = new LogRequests();
-        Thread logResponses = new LogResponses();
-        logRequests.start();
-        logResponses.start();
+    public long getDroppedCount() {
+        return buffer.getDroppedCount();
     }
 
-    private class LogRequests extends Thread {
-        public void run() {
-            while (true) {
-                HttpRequestWrapper req = null;
-                try {
-                    req = requestQueue.take();
-                    log(req, null);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
+    /**
+     * logs the request and response accesses. The writer is a daemon thread, so the accesses still
+     * queued are logged by a shutdown hook which closes this.
+     */
+    public void logAccesses() {
+        writer = new AccessLogWriter();
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread("access-log-shutdown") {
+            public void run() {
+                close();
             }
+        });
+    }
+
+    /**
+     * Stops the writer once it has logged the accesses already queued, and closes the log file.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(CLOSE_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("The access log writer did not finish writing the queued accesses in " + CLOSE_TIMEOUT
+                    + " ms");
         }
     }
 
-    private class LogResponses extends Thread {
+    /**
+     * Formats the queued accesses and writes them to the log file, one batch at a time.
+     */
+    private class AccessLogWriter extends Thread implements AccessLogBuffer.Handler {
+
+        private final StringBuilder line = new StringBuilder(256);
+        private final Date date = new Date();
+        private long reportedDrops;
+        private long lastDropWarning;
+
+        AccessLogWriter() {
+            super("access-log-writer");
+            setDaemon(true);
+        }
+
         public void run() {
-            while (true) {
-                HttpResponseWrapper res = null;
+            while (!closed) {
                 try {
-                    res = responseQueue.take();
-                    log(null, res);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
+                    if (buffer.drain(this, BATCH_SIZE) > 0) {
+                        if (accessLogger.isLoggingEnabled) {
+                            accessLogger.flush();
+                        }
+                    } else {
+                        reportDrops();
+                        buffer.await(TimeUnit.MILLISECONDS.toNanos(100));
+                    }
+                } catch (Throwable t) {
+                    AccessTimeUtil.handleThrowable(t);
+                    log.error("Error while writing the access log", t);
+                }
+            }
+            try {
+                while (buffer.drain(this, BATCH_SIZE) > 0) {
+                    // log everything queued before the close
                 }
+                reportDrops();
+                if (accessLogger.isLoggingEnabled) {
+                    accessLogger.close();
+                }
+            } catch (Throwable t) {
+                AccessTimeUtil.handleThrowable(t);
+                log.error("Error while writing the access log", t);
+            }
+        }
+
+        public void handle(HttpRequest request, HttpResponse response, long time) {
+            date.setTime(time);
+            line.setLength(0);
+            format(line, date, request, response);
+            if (accesslog.isInfoEnabled()) {
+                accesslog.info(line.toString());      //log to the console
+            }
+            if (accessLogger.isLoggingEnabled) {
+                accessLogger.append(line);      //log to the file
+            }
+        }
+
+        private void reportDrops() {
+            long drops = buffer.getDroppedCount();
+            long now = System.currentTimeMillis();
+            if (drops > reportedDrops && now - lastDropWarning > DROP_WARNING_INTERVAL) {
+                log.warn((drops - reportedDrops) + " accesses were not logged since the access log queue of "
+                        + buffer.getCapacity() + " entries was full. " + drops + " dropped in total");
+                reportedDrops = drops;
+                lastDropWarning = now;
             }
         }
     }
 
+    private void format(StringBuilder buf, Date date, HttpRequest request, HttpResponse response) {
+        for (AccessLogElement logElement : logElements) {
+            logElement.addElement(buf, date, request, response);
+        }
+    }
+
     /**
      * The log method that is called from the NHttpClient and Server connection classes.
      *
@@ -143,14 +230,10 @@ public class Access {
      * @param response - HttpResponse
      */
     public void log(HttpRequest request, HttpResponse response) {
-        date = AccessTimeUtil.getDate();
-        //String commonLogFormatDate = AccessTimeUtil.getAccessDate(date);
+        Date date = AccessTimeUtil.getDate();
 
         StringBuilder result = new StringBuilder(128);
-
-        for (AccessLogElement logElement : logElements) {
-            logElement.addElement(result, date, request, response);
-        }
+        format(result, date, request, response);
         String logString = result.toString();
         log.debug(logString);      //log to the console
         if (accessLogger.isLoggingEnabled) {
@@ -850,37 +933,4 @@ public class Access {
                 return new StringElement("???" + pattern + "???");
         }
     }
-
-    /**
-     * The log method that is called from the NHttpClient and Server connection classes.
-     * This method is used to log the request/response with the actual date of operation.
-     *
-     * @param request  - HttpRequestWrapper
-     * @param response - HttpResponseWrapper
-     */
-    public void log(HttpRequestWrapper request, HttpResponseWrapper response) {
-
-        Date actualDateOfOperation = null;
-
-        if(request != null) {
-            actualDateOfOperation = request.getDate();
-        } else if (response != null){
-            actualDateOfOperation = response.getDate();
-        }
-
-        StringBuilder result = new StringBuilder(128);
-
-        for (AccessLogElement logElement : logElements) {
-            if (request != null)    {
-                logElement.addElement(result, actualDateOfOperation, request.getHttpRequest(), null);
-            } else if (response != null)    {
-                logElement.addElement(result, actualDateOfOperation, null, response.getHttpResponse());
-            }
-        }
-        String logString = result.toString();
-        accesslog.info(logString);      //log to the console
-        if (accessLogger.isLoggingEnabled) {
-            accessLogger.log(logString);      //log to the file
-        }
-    }
 }
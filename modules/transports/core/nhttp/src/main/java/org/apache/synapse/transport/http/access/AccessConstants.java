@@ -77,6 +77,15 @@ public class AccessConstants {
 
     public static final String CONFIG_ENABLE_LOGGING = "access_log_enable";
 
+    public static final String CONFIG_QUEUE_SIZE = "access_log_queue_size";
+
+    public static final String CONFIG_BLOCK_WHEN_FULL = "access_log_block_when_full";
+
+    /**
+     * Number of accesses waiting to be logged, beyond which accesses are dropped.
+     */
+    public static final int QUEUE_SIZE = 64 * 1024;
+
 
     public static String getLogPattern() {
         return AccessConfiguration.getInstance().getStringProperty(CONFIG_PATTERN, LOG_PATTERN);
@@ -94,6 +103,14 @@ public class AccessConstants {
         return AccessConfiguration.getInstance().getStringProperty(CONFIG_FILE_DATE_FORMAT, FILE_FORMAT);
     }
 
+    public static int getQueueSize() {
+        return AccessConfiguration.getInstance().getIntProperty(CONFIG_QUEUE_SIZE, QUEUE_SIZE);
+    }
+
+    public static boolean isBlockWhenFull() {
+        return AccessConfiguration.getInstance().getBooleanProperty(CONFIG_BLOCK_WHEN_FULL, false);
+    }
+
     public static String getDirectory() {
         return AccessConfiguration.getInstance().getStringProperty(CONFIG_DIRECTORY, DIRECTORY);
     }
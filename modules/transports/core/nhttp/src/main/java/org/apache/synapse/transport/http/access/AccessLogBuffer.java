@@ -0,0 +1,160 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.transport.http.access;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded ring buffer of accesses waiting to be logged, written by the IO threads and read by a
+ * single log writer thread. Slots are allocated once and reused, so adding an access does not
+ * allocate. When the buffer is full, an access is either dropped and counted, or the IO thread
+ * waits for the writer to catch up.
+ */
+class AccessLogBuffer {
+
+    /**
+     * Handles the accesses taken from the buffer
+     */
+    interface Handler {
+        void handle(HttpRequest request, HttpResponse response, long time);
+    }
+
+    private static final class Slot {
+        /** sequence of the access this slot accepts next, plus one once it is published */
+        private volatile long sequence;
+        private HttpRequest request;
+        private HttpResponse response;
+        private long time;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final boolean blockWhenFull;
+
+    private final AtomicLong tail = new AtomicLong();
+    // only updated by the consumer
+    private long head;
+    private volatile Thread consumer;
+    private volatile boolean consumerParked;
+
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param capacity      number of accesses held, rounded up to a power of two
+     * @param blockWhenFull whether to wait for space instead of dropping accesses
+     */
+    AccessLogBuffer(int capacity, boolean blockWhenFull) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            slots[i].sequence = i;
+        }
+        mask = size - 1;
+        this.blockWhenFull = blockWhenFull;
+    }
+
+    /**
+     * Adds an access to the buffer.
+     *
+     * @return false if the buffer was full and the access was dropped
+     */
+    boolean offer(HttpRequest request, HttpResponse response, long time) {
+        while (true) {
+            long position = tail.get();
+            Slot slot = slots[(int) position & mask];
+            long available = slot.sequence - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slot.request = request;
+                    slot.response = response;
+                    slot.time = time;
+                    slot.sequence = position + 1;
+                    if (consumerParked) {
+                        LockSupport.unpark(consumer);
+                    }
+                    return true;
+                }
+            } else if (available < 0) {
+                if (!blockWhenFull) {
+                    dropped.increment();
+                    return false;
+                }
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+            }
+        }
+    }
+
+    /**
+     * Hands the buffered accesses to the given handler. Must only be called by the writer thread.
+     *
+     * @param handler handles the accesses
+     * @param max     maximum number of accesses to take
+     * @return the number of accesses taken
+     */
+    int drain(Handler handler, int max) {
+        int count = 0;
+        while (count < max) {
+            Slot slot = slots[(int) head & mask];
+            if (slot.sequence != head + 1) {
+                break;
+            }
+            HttpRequest request = slot.request;
+            HttpResponse response = slot.response;
+            long time = slot.time;
+            slot.request = null;
+            slot.response = null;
+            slot.sequence = head + slots.length;
+            head++;
+            count++;
+            handler.handle(request, response, time);
+        }
+        return count;
+    }
+
+    /**
+     * Waits until an access is added or the timeout passes. Must only be called by the writer
+     * thread.
+     */
+    void await(long timeoutNanos) {
+        consumer = Thread.currentThread();
+        consumerParked = true;
+        try {
+            if (slots[(int) head & mask].sequence != head + 1) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            consumerParked = false;
+        }
+    }
+
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    int getCapacity() {
+        return slots.length;
+    }
+}
@@ -25,12 +25,17 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.commons.util.MiscellaneousUtil;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -46,6 +51,9 @@ import static org.apache.synapse.transport.http.access.AccessConstants.CONFIG_EN
 /**
  * Class that logs the Http Accesses to the access log files. Code segment borrowed from
  * Apache Tomcat's org.apache.catalina.valves.AccessLogValve with thanks.
+ * <p>
+ * Lines are encoded into a reusable buffer and written to the file channel in batches, when the
+ * buffer fills up or {@link #flush()} is called.
  */
 public class AccessLogger {
 
@@ -62,6 +70,10 @@ public class AccessLogger {
 
     private static final String IS_LOG_ROTATABLE = "nhttp.is.log.rotatable";
 
+    private static final int WRITE_BUFFER_SIZE = 128 * 1024;
+
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+
     private static Log log = LogFactory.getLog(ACCESS_LOG_ID);
 
     public AccessLogger(final Log log) {
@@ -70,7 +82,6 @@ public class AccessLogger {
             this.initOpen();
         }
         AccessLogger.log = log;
-        buffered = true;
         checkExists = false;
     }
 
@@ -81,9 +92,18 @@ public class AccessLogger {
             new SimpleDateFormat(AccessConstants.getFileDateFormat());
 
     /**
-     * The PrintWriter to which we are currently logging, if any.
+     * The file channel to which we are currently logging, if any.
      */
-    protected PrintWriter writer;
+    protected FileChannel channel;
+
+    /**
+     * Lines encoded but not yet written to the channel.
+     */
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
 
     /**
      * The as-of date for the currently open log file, or a zero-length
@@ -96,11 +116,6 @@ public class AccessLogger {
      */
     private volatile long rotationLastChecked = 0L;
 
-    /**
-     * Buffered logging.
-     */
-    private boolean buffered = true;
-
     /**
      * Do we check for log file existence? Helpful if an external
      * agent renames the log file so we can automatically recreate it.
@@ -125,63 +140,94 @@ public class AccessLogger {
 
     /**
      * Log the specified message to the log file, switching files if the date
-     * has changed since the previous log call.
+     * has changed since the previous log call. The message is written right away.
      *
      * @param message Message to be logged
      */
-    public void log(String message) {
+    public synchronized void log(String message) {
+        append(message);
+        flush();
+    }
+
+    /**
+     * Adds a line to the current batch, switching files if the date has changed since the
+     * previous call. The batch is written when the buffer is full or on {@link #flush()}.
+     *
+     * @param message Message to be logged
+     */
+    public synchronized void append(CharSequence message) {
+        checkRotation();
+        if (channel == null) {
+            return;
+        }
+        encode(CharBuffer.wrap(message));
+        encode(CharBuffer.wrap(LINE_SEPARATOR));
+    }
+
+    /**
+     * Writes the current batch to the log file.
+     */
+    public synchronized void flush() {
+        if (channel == null || writeBuffer.position() == 0) {
+            return;
+        }
+        writeBuffer.flip();
+        try {
+            while (writeBuffer.hasRemaining()) {
+                channel.write(writeBuffer);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to write to the access log file", e);
+        } finally {
+            writeBuffer.clear();
+        }
+    }
+
+    private void encode(CharBuffer chars) {
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, writeBuffer, true);
+            if (result.isOverflow()) {
+                flush();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void checkRotation() {
         if (isRotatable) {
             // Only do a logfile switch check once a second, max.
             long systime = System.currentTimeMillis();
             if ((systime - rotationLastChecked) > 1000) {
-                synchronized (this) {
-                    if ((systime - rotationLastChecked) > 1000) {
-                        rotationLastChecked = systime;
-
-                        String tsDate;
-                        // Check for a change of date
-                        tsDate = fileDateFormatter.format(new Date(systime));
-
-                        // If the date has changed, switch log files
-                        if (!dateStamp.equals(tsDate)) {
-                            close();
-                            dateStamp = tsDate;
-                            open();
-                        }
-                    }
-                }
-            }
-        }
+                rotationLastChecked = systime;
 
-        /* In case something external rotated the file instead */
-        if (checkExists) {
-            synchronized (this) {
-                if (currentLogFile != null && !currentLogFile.exists()) {
-                    try {
-                        close();
-                    } catch (Throwable e) {
-                        handleThrowable(e);
-                        log.info("Access Log file Close failed");
-                    }
-
-                    /* Make sure date is correct */
-                    dateStamp = fileDateFormatter.format(
-                            new Date(System.currentTimeMillis()));
+                // Check for a change of date
+                String tsDate = fileDateFormatter.format(new Date(systime));
 
+                // If the date has changed, switch log files
+                if (!dateStamp.equals(tsDate)) {
+                    close();
+                    dateStamp = tsDate;
                     open();
                 }
             }
         }
 
-        // Log this message
-        synchronized (this) {
-            if (writer != null) {
-                writer.println(message);
-
-                if (!buffered) {
-                    writer.flush();
-                }
+        /* In case something external rotated the file instead */
+        if (checkExists && currentLogFile != null && !currentLogFile.exists()) {
+            try {
+                close();
+            } catch (Throwable e) {
+                handleThrowable(e);
+                log.info("Access Log file Close failed");
             }
+
+            /* Make sure date is correct */
+            dateStamp = fileDateFormatter.format(
+                    new Date(System.currentTimeMillis()));
+
+            open();
         }
     }
 
@@ -287,12 +333,12 @@ public class AccessLogger {
                 pathname = dir.getAbsolutePath() + File.separator + AccessConstants.getPrefix()
                         + dateStamp + AccessConstants.getSuffix();
             }
-            writer = new PrintWriter(new BufferedWriter(new FileWriter(
-                    pathname, true), 128000), true);
+            channel = FileChannel.open(new File(pathname).toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
             currentLogFile = new File(pathname);
         } catch (IOException e) {
-            log.warn("Unable to open the print writer", e);
-            writer = null;
+            log.warn("Unable to open the access log file", e);
+            channel = null;
             currentLogFile = null;
         }
     }
@@ -327,12 +373,16 @@ public class AccessLogger {
      * Close the currently open log file (if any)
      */
     synchronized void close() {
-        if (writer == null) {
+        if (channel == null) {
             return;
         }
-        writer.flush();
-        writer.close();
-        writer = null;
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Unable to close the access log file", e);
+        }
+        channel = null;
         dateStamp = "";
         currentLogFile = null;
     }
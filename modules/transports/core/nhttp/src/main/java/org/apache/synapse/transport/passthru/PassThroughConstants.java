@@ -53,6 +53,7 @@ public class PassThroughConstants {
     public static final String SERVICE_URI_LOCATION = "ServiceURI";
 
     public static final String WSDL_EPR_PREFIX = "WSDLEPRPrefix";
+    public static final String PRIORITY_CONFIG_FILE_NAME = "priorityConfigFile";
 
     public static final String EPR_TO_SERVICE_NAME_MAP = "service.epr.map";
     public static final String NON_BLOCKING_TRANSPORT = "NonBlockingTransport";
@@ -168,6 +169,7 @@ public class PassThroughConstants {
     public static final String SERVER_WORKER_INIT_TIME = "SERVER_WORKER_INIT_TIME";
 
     public static final String SERVER_WORKER_REFERENCE = "SERVER_WORKER_REFERENCE";
+    public static final String PENDING_SERVER_WORKER = "PENDING_SERVER_WORKER";
 
     public static final String CLIENT_WORKER_REFERENCE = "CLIENT_WORKER_REFERENCE";
     public static final String MESSAGE_DISCARD_WORKER_REFERENCE = "MESSAGE_DISCARD_WORKER_REFERENCE";
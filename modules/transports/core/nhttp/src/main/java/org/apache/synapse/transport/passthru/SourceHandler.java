@@ -17,7 +17,6 @@
 package org.apache.synapse.transport.passthru;
 
 import org.apache.axis2.context.MessageContext;
-import org.apache.axis2.transport.base.threads.WorkerPool;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.ConnectionClosedException;
@@ -44,6 +43,8 @@ import org.apache.http.protocol.ExecutionContext;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
 import org.apache.synapse.commons.CorrelationConstants;
+import org.apache.synapse.commons.evaluators.EvaluatorContext;
+import org.apache.synapse.commons.executors.PriorityExecutor;
 import org.apache.synapse.commons.jmx.ThreadingView;
 import org.apache.synapse.commons.logger.ContextAwareLogger;
 import org.apache.synapse.commons.transaction.TranscationManger;
@@ -68,6 +69,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 import javax.net.ssl.SSLException;
 import javax.ws.rs.HttpMethod;
 
@@ -105,6 +107,12 @@ public class SourceHandler implements NHttpServerEventHandler {
     private boolean interceptStream;
     private int noOfInterceptors;
 
+    /**
+     * Requests with a body up to this many bytes are handed to a worker only after the whole body is read, so that
+     * a slow client does not hold a worker thread while it uploads. 0 streams every body to the worker.
+     */
+    private final int requestAggregationThreshold;
+
     private static final String SSE_TARGET_CONNECTION = "SSE_TARGET_CONNECTION";
     private static final String SSE_TARGET_CONNECTIONS = "SSE_TARGET_CONNECTIONS";
 
@@ -135,6 +143,8 @@ public class SourceHandler implements NHttpServerEventHandler {
             this.threadingView = new ThreadingView(PassThroughConstants.PASSTHOUGH_HTTP_SERVER_WORKER, true, 50);
         }
 
+        this.requestAggregationThreshold = sourceConfiguration.getRequestAggregationThreshold();
+
         Properties props = MiscellaneousUtil.loadProperties(PROPERTY_FILE);
         String validationProperty = MiscellaneousUtil.getProperty(props, MESSAGE_SIZE_VALIDATION, "false");
         String validMaxMessageSizeStr = MiscellaneousUtil
@@ -194,17 +204,18 @@ public class SourceHandler implements NHttpServerEventHandler {
             }
             OutputStream os = getOutputStream(method, request);
             Object correlationId = conn.getContext().getAttribute(CorrelationConstants.CORRELATION_ID);
+            ServerWorker serverWorker;
             if (correlationId != null) {
-                WorkerPool workerPool = sourceConfiguration.getWorkerPool();
-                ServerWorker serverWorker = new ServerWorker(request, sourceConfiguration, os,
+                serverWorker = new ServerWorker(request, sourceConfiguration, os,
                         System.currentTimeMillis(), correlationId.toString());
-                conn.getContext().setAttribute(PassThroughConstants.SERVER_WORKER_REFERENCE, serverWorker);
-                workerPool.execute(serverWorker);
             } else {
-                WorkerPool workerPool = sourceConfiguration.getWorkerPool();
-                ServerWorker serverWorker = new ServerWorker(request, sourceConfiguration, os);
-                conn.getContext().setAttribute(PassThroughConstants.SERVER_WORKER_REFERENCE, serverWorker);
-                workerPool.execute(serverWorker);
+                serverWorker = new ServerWorker(request, sourceConfiguration, os);
+            }
+            if (isAggregationRequired(request)) {
+                // inputReady hands the worker to the pool once the body is read
+                conn.getContext().setAttribute(PassThroughConstants.PENDING_SERVER_WORKER, serverWorker);
+            } else if (!executeServerWorker(conn, serverWorker)) {
+                return;
             }
             //increasing the input request metric
             metrics.requestReceived();
@@ -234,6 +245,92 @@ public class SourceHandler implements NHttpServerEventHandler {
         }
     }
 
+    /**
+     * Decides whether the body of the request is read before the request is handed to a worker. Bodies with a
+     * known length are aggregated if they fit within the threshold, the others until they grow past it.
+     *
+     * @param request the request with its headers read
+     * @return true if the worker should wait for the body
+     */
+    private boolean isAggregationRequired(SourceRequest request) {
+        if (requestAggregationThreshold <= 0 || !request.isEntityEnclosing()) {
+            return false;
+        }
+        String contentLength = request.getHeaders().get(HTTP.CONTENT_LEN);
+        if (contentLength == null) {
+            return true;
+        }
+        try {
+            long length = Long.parseLong(contentLength.trim());
+            return length > 0 && length <= requestAggregationThreshold;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hands the worker of a request over to the worker pool, or to the priority executor with the priority
+     * the configured conditions give to the request. A request that cannot be queued is answered with a 503.
+     *
+     * @param conn         the connection the request was received on
+     * @param serverWorker the worker processing the request
+     * @return false if the request was rejected
+     */
+    private boolean executeServerWorker(NHttpServerConnection conn, ServerWorker serverWorker) {
+        conn.getContext().setAttribute(PassThroughConstants.SERVER_WORKER_REFERENCE, serverWorker);
+        PriorityExecutor priorityExecutor = sourceConfiguration.getPriorityExecutor();
+        try {
+            if (priorityExecutor != null) {
+                SourceRequest request = SourceContext.getRequest(conn);
+                int priority = sourceConfiguration.getPriorityParser().parse(
+                        new EvaluatorContext(request.getUri(), request.getHeaders()));
+                priorityExecutor.execute(serverWorker, priority);
+            } else {
+                sourceConfiguration.getWorkerPool().execute(serverWorker);
+            }
+        } catch (RejectedExecutionException e) {
+            conn.getContext().removeAttribute(PassThroughConstants.SERVER_WORKER_REFERENCE);
+            rejectRequest(conn);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Answers a request that could not be queued for a worker with a 503 and closes the connection, without
+     * reading the rest of the request body.
+     *
+     * @param conn the connection the request was received on
+     */
+    private void rejectRequest(NHttpServerConnection conn) {
+        if (log.isDebugEnabled()) {
+            log.debug(conn + ": No capacity left to queue the request, responding with 503, CORRELATION_ID = "
+                    + conn.getContext().getAttribute(CorrelationConstants.CORRELATION_ID));
+        }
+        metrics.exceptionOccured();
+        try {
+            HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpStatus.SC_SERVICE_UNAVAILABLE, "Service Unavailable");
+            response.setParams(
+                    new DefaultedHttpParams(sourceConfiguration.getHttpParams(), response.getParams()));
+            response.addHeader(HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
+
+            HttpContext httpContext = conn.getContext();
+            httpContext.setAttribute(ExecutionContext.HTTP_CONNECTION, conn);
+            httpContext.setAttribute(ExecutionContext.HTTP_RESPONSE, response);
+            sourceConfiguration.getHttpProcessor().process(response, httpContext);
+
+            conn.suspendInput();
+            conn.submitResponse(response);
+            SourceContext.updateState(conn, ProtocolState.CLOSED);
+            conn.close();
+        } catch (Exception e) {
+            log.error("Error while rejecting the request : " + e.getMessage(), e);
+            SourceContext.updateState(conn, ProtocolState.CLOSED);
+            sourceConfiguration.getSourceConnections().shutDownConnection(conn, true);
+        }
+    }
+
     public void setCorrelationId(NHttpServerConnection conn) {
         HttpContext httpContext = conn.getContext();
         String correlationHeaderName = PassThroughConfiguration.getInstance().getCorrelationHeaderName();
@@ -373,6 +470,18 @@ public class SourceHandler implements NHttpServerEventHandler {
                 httpContext.setAttribute(PassThroughConstants.MESSAGE_SIZE_VALIDATION_SUM, messageSizeSum);
             }
 
+            ServerWorker pendingWorker = (ServerWorker) conn.getContext().getAttribute(
+                    PassThroughConstants.PENDING_SERVER_WORKER);
+            if (pendingWorker != null) {
+                Pipe pipe = request.getPipe();
+                // nothing has been consumed from the pipe yet, so its buffer holds the whole body read so far
+                if (decoder.isCompleted() || pipe.isProducerCompleted()
+                        || pipe.getBuffer().position() >= requestAggregationThreshold) {
+                    conn.getContext().removeAttribute(PassThroughConstants.PENDING_SERVER_WORKER);
+                    executeServerWorker(conn, pendingWorker);
+                }
+            }
+
             if (readBytes > 0) {
                 metrics.incrementBytesReceived(readBytes);
             }
@@ -681,6 +790,8 @@ public class SourceHandler implements NHttpServerEventHandler {
 
     public void timeout(NHttpServerConnection conn) {
         boolean isTimeoutOccurred = false;
+        // a request still waiting for its body will not get it now
+        conn.getContext().removeAttribute(PassThroughConstants.PENDING_SERVER_WORKER);
         ProtocolState state = SourceContext.getState(conn);
         Map<String, String> logDetails = getLoggingInfo(conn, state);
         Object serverWorker = conn.getContext().getAttribute(
@@ -802,6 +913,8 @@ public class SourceHandler implements NHttpServerEventHandler {
     }
 
     public void closed(NHttpServerConnection conn) {
+        // a request still waiting for its body will not get it now
+        conn.getContext().removeAttribute(PassThroughConstants.PENDING_SERVER_WORKER);
         ProtocolState state = SourceContext.getState(conn);
         Map<String, String> logDetails = getLoggingInfo(conn, state);
         boolean isFault = false;
@@ -1053,6 +1166,9 @@ public class SourceHandler implements NHttpServerEventHandler {
         latencyView.destroy();
         s2sLatencyView.destroy();
         threadingView.destroy();
+        if (sourceConfiguration.getPriorityExecutor() != null) {
+            sourceConfiguration.getPriorityExecutor().destroy();
+        }
         try {
             if (sourceConfiguration.getWorkerPool() != null) {
                 sourceConfiguration.getWorkerPool().shutdown(1000);
@@ -105,9 +105,7 @@ public class PassThroughNHttpGetProcessor implements HttpGetRequestProcessor {
 			msgContext.setTo(new EndpointReference(uri));
 		}
 
-        SimpleOutputBuffer outputBuffer = (SimpleOutputBuffer) conn.getContext().getAttribute(
-                PASS_THROUGH_RESPONSE_SOURCE_BUFFER);
-        ContentOutputStream os = new ContentOutputStream(outputBuffer);
+        OutputStream os = createOutputStream(conn);
 
 		if (isServiceListBlocked(uri)) {
             sendResponseAndFinish(response, HttpStatus.SC_FORBIDDEN, conn, os, msgContext);
@@ -135,7 +133,19 @@ public class PassThroughNHttpGetProcessor implements HttpGetRequestProcessor {
         msgContext.setProperty(GET_REQUEST_HANDLED, Boolean.TRUE);
     }
 
-    private void sendResponseAndFinish(HttpResponse response, byte[] data,
+    /**
+     * Create the stream to which the response to a GET request is written.
+     *
+     * @param conn connection the request was received on
+     * @return stream writing to the response buffer of the connection
+     */
+    protected OutputStream createOutputStream(NHttpServerConnection conn) {
+        SimpleOutputBuffer outputBuffer = (SimpleOutputBuffer) conn.getContext().getAttribute(
+                PASS_THROUGH_RESPONSE_SOURCE_BUFFER);
+        return new ContentOutputStream(outputBuffer);
+    }
+
+    protected void sendResponseAndFinish(HttpResponse response, byte[] data,
                                        NHttpServerConnection conn, OutputStream os,
                                        MessageContext msgContext) throws IOException {
         SourceContext.updateState(conn, ProtocolState.WSDL_RESPONSE_DONE);
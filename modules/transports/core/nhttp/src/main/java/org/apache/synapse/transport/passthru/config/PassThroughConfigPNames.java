@@ -74,6 +74,12 @@ public interface PassThroughConfigPNames {
      */
     public String IO_BUFFER_SIZE = "io_buffer_size";
 
+    /**
+     * Defines whether the buffers of the pipes are allocated outside of the heap, so that the sockets read in to
+     * and write out of them without going through a temporary direct buffer
+     */
+    public String IO_BUFFER_DIRECT = "io_buffer_direct";
+
 
     /**
      * Defines the maximum open connection limit.
@@ -188,4 +194,10 @@ public interface PassThroughConfigPNames {
      */
     public String TLS_GRACEFUL_CONNECTION_TERMINATION = "tls_graceful_connection_termination";
 
+    /**
+     * Defines the largest request body, in bytes, that is read completely before the request is handed to a
+     * worker thread. Larger bodies are streamed to the worker while they are read. 0 disables the aggregation.
+     */
+    public String REQUEST_AGGREGATION_THRESHOLD = "http.request.aggregation.threshold";
+
 }
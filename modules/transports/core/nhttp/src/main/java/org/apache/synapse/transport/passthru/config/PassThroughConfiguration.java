@@ -51,6 +51,7 @@ public class PassThroughConfiguration {
     private static final int DEFAULT_MAX_ACTIVE_CON = -1;
     private static final int DEFAULT_LISTENER_SHUTDOWN_WAIT_TIME = 0;
     private static final int DEFAULT_CONNECTION_GRACE_TIME = 10000;
+    private static final int DEFAULT_REQUEST_AGGREGATION_THRESHOLD = 0;
 
     private static final String EXPECTED_MAX_QUEUEING_TIME_DEFAULT = "1000";
     private Boolean isKeepAliveDisabled = null;
@@ -140,6 +141,15 @@ public class PassThroughConfiguration {
                 DEFAULT_IO_BUFFER_SIZE, props);
     }
 
+    public int getRequestAggregationThreshold() {
+        return ConfigurationBuilderUtil.getIntProperty(PassThroughConfigPNames.REQUEST_AGGREGATION_THRESHOLD,
+                DEFAULT_REQUEST_AGGREGATION_THRESHOLD, props);
+    }
+
+    public boolean isDirectIOBufferEnabled() {
+        return ConfigurationBuilderUtil.getBooleanProperty(PassThroughConfigPNames.IO_BUFFER_DIRECT, false, props);
+    }
+
     public boolean isKeepAliveDisabled() {
         if (isKeepAliveDisabled == null) {
             isKeepAliveDisabled =
@@ -16,8 +16,18 @@
 
 package org.apache.synapse.transport.passthru.config;
 
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.net.UnknownHostException;
+import java.util.Properties;
 
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.impl.builder.StAXOMBuilder;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.description.Parameter;
@@ -39,6 +49,12 @@ import org.apache.http.protocol.ResponseConnControl;
 import org.apache.http.protocol.ResponseContent;
 import org.apache.http.protocol.ResponseDate;
 import org.apache.http.protocol.ResponseServer;
+import org.apache.synapse.commons.evaluators.EvaluatorConstants;
+import org.apache.synapse.commons.evaluators.EvaluatorException;
+import org.apache.synapse.commons.evaluators.Parser;
+import org.apache.synapse.commons.executors.ExecutorConstants;
+import org.apache.synapse.commons.executors.PriorityExecutor;
+import org.apache.synapse.commons.executors.config.PriorityExecutorFactory;
 import org.apache.synapse.transport.http.conn.Scheme;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
 import org.apache.synapse.transport.passthru.HttpGetRequestProcessor;
@@ -77,6 +93,15 @@ public class SourceConfiguration extends BaseConfiguration {
     /** WSDL processor for Get requests*/
     private HttpGetRequestProcessor httpGetRequestProcessor = null;
 
+    /** Executor for the requests when priority based dispatching is configured */
+    private PriorityExecutor priorityExecutor = null;
+
+    /** Parser for calculating the priority of the incoming requests */
+    private Parser priorityParser = null;
+
+    /** Largest request body that is read completely before the request is handed to a worker */
+    private int requestAggregationThreshold = 0;
+
 
     public SourceConfiguration(ConfigurationContext configurationContext,
                                TransportInDescription description,
@@ -108,6 +133,10 @@ public class SourceConfiguration extends BaseConfiguration {
 
         port = ParamUtils.getRequiredParamInt(parameters, "port");
 
+        // the worker is the one who drains the pipe, so a body is aggregated only as far as the pipe buffer goes
+        requestAggregationThreshold = Math.min(Math.max(0, conf.getRequestAggregationThreshold()),
+                getIOBufferSize());
+
         Parameter hostParameter = inDescription.getParameter(TransportListener.HOST_ADDRESS);
         if (hostParameter != null) {
             host = ((String) hostParameter.getValue()).trim();
@@ -137,6 +166,31 @@ public class SourceConfiguration extends BaseConfiguration {
                 handleException("Cannot create HttpGetRequestProcessor");
             }
         }
+
+        // create the priority based executor and parser
+        param = inDescription.getParameter(PassThroughConstants.PRIORITY_CONFIG_FILE_NAME);
+        if (param != null && param.getValue() != null) {
+            String fileName = param.getValue().toString();
+            OMElement definitions = null;
+            try (FileInputStream fis = new FileInputStream(fileName)) {
+                definitions = new StAXOMBuilder(fis).getDocumentElement();
+                definitions.build();
+            } catch (FileNotFoundException e) {
+                handleException("Priority configuration file cannot be found : " + fileName, e);
+            } catch (IOException e) {
+                handleException("Error reading priority configuration file " + fileName, e);
+            } catch (XMLStreamException e) {
+                handleException("Error parsing priority configuration xml file " + fileName, e);
+            }
+
+            priorityExecutor = createPriorityExecutor(definitions);
+            priorityParser = createPriorityParser(definitions);
+
+            if (log.isInfoEnabled()) {
+                log.info(inDescription.getName() + " Created a priority based executor from the configuration: "
+                        + fileName);
+            }
+        }
         populatePreserveHttpHeaders(conf.getResponsePreseveHttpHeaders());
     }
 
@@ -184,6 +238,33 @@ public class SourceConfiguration extends BaseConfiguration {
         return customEPRPrefix;
     }
     
+    /**
+     * Get the executor used for the requests when priority based dispatching is configured.
+     *
+     * @return the priority executor, or null if requests are executed on the worker pool
+     */
+    public PriorityExecutor getPriorityExecutor() {
+        return priorityExecutor;
+    }
+
+    /**
+     * Get the parser that calculates the priority of the incoming requests.
+     *
+     * @return the priority parser, or null if priority based dispatching is not configured
+     */
+    public Parser getPriorityParser() {
+        return priorityParser;
+    }
+
+    /**
+     * Get the largest request body, in bytes, that is read completely before the request is handed to a worker.
+     *
+     * @return the aggregation threshold, capped at the IO buffer size, or 0 if bodies are always streamed
+     */
+    public int getRequestAggregationThreshold() {
+        return requestAggregationThreshold;
+    }
+
 	public HttpGetRequestProcessor getHttpGetRequestProcessor() {
 		return httpGetRequestProcessor;
 	}
@@ -219,6 +300,45 @@ public class SourceConfiguration extends BaseConfiguration {
             + (!cfgCtx.getServiceContextPath().endsWith("/") ? "/" : "");
 	}
     
+    private PriorityExecutor createPriorityExecutor(final OMElement definitions) throws AxisFault {
+        OMElement executorElem = definitions.getFirstChildWithName(
+                new QName(ExecutorConstants.PRIORITY_EXECUTOR));
+        if (executorElem == null) {
+            handleException(ExecutorConstants.PRIORITY_EXECUTOR +
+                    " configuration is mandatory for priority based routing");
+        }
+
+        PriorityExecutor executor = PriorityExecutorFactory.createExecutor(
+                null, executorElem, false, new Properties());
+        executor.init();
+        return executor;
+    }
+
+    private Parser createPriorityParser(final OMElement definitions) throws AxisFault {
+        OMElement conditionsElem = definitions.getFirstChildWithName(
+                new QName(EvaluatorConstants.CONDITIONS));
+        if (conditionsElem == null) {
+            handleException("Conditions configuration is mandatory for priority based routing");
+        }
+
+        OMAttribute defPriorityAttr = conditionsElem.getAttribute(
+                new QName(EvaluatorConstants.DEFAULT_PRIORITY));
+        Parser parser;
+        if (defPriorityAttr != null) {
+            parser = new Parser(Integer.parseInt(defPriorityAttr.getAttributeValue()));
+        } else {
+            parser = new Parser();
+        }
+
+        try {
+            parser.init(conditionsElem);
+        } catch (EvaluatorException e) {
+            handleException("Invalid " + EvaluatorConstants.CONDITIONS +
+                    " configuration for priority based mediation", e);
+        }
+        return parser;
+    }
+
     private HttpGetRequestProcessor createHttpGetProcessor(String str) throws AxisFault {
         Object obj = null;
         try {
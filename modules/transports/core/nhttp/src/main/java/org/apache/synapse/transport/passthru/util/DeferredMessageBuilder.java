@@ -42,17 +42,23 @@ import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class DeferredMessageBuilder {
 
     private static Log log = LogFactory.getLog(DeferredMessageBuilder.class);
 
     private Map<String, Builder> builders = new HashMap<String, Builder>();
+    /** Builders MessageProcessorSelector picked for a media type, for the axis configuration they came from */
+    private volatile ResolvedBuilders resolvedBuilders = new ResolvedBuilders(null);
     private Map<String, MessageFormatter> formatters = new HashMap<String, MessageFormatter>();
 
     public final static String RELAY_FORMATTERS_MAP = "__RELAY_FORMATTERS_MAP";
     public final static String FORCED_RELAY_FORMATTER = "__FORCED_RELAY_FORMATTER";
 
+    private static final int MAX_RESOLVED_BUILDERS = 1024;
+
     public DeferredMessageBuilder() {
         // first initialize with the default builders
         builders.put("multipart/related", new MIMEBuilder());
@@ -139,7 +145,7 @@ public class DeferredMessageBuilder {
         if (contentType != null) {
             // loading builder from externally..
             //builder = configuration.getMessageBuilder(_contentType,useFallbackBuilder);
-            builder = MessageProcessorSelector.getMessageBuilder(_contentType, msgCtx);
+            builder = getMessageBuilder(_contentType, msgCtx);
             if (builder != null) {
                 try {
                     if (contentLength != null && "0".equals(contentLength) && !msgCtx.isDoingREST()) {
@@ -201,6 +207,55 @@ public class DeferredMessageBuilder {
         return element;
     }
 
+    /**
+     * Returns the builder MessageProcessorSelector picks for the media type. The axis configuration may match the
+     * media type against every builder key as a regular expression, so the builder picked is remembered per media
+     * type. The selector is still called when content negotiation is enabled, since the message type then depends
+     * on the Accept header, and for text/xml REST messages, which may be built as application/xml.
+     *
+     * @param contentType media type of the message, without parameters
+     * @param msgCtx      message context, the message type of which is set when a builder is found
+     * @return the builder, or null if there is none for the media type
+     * @throws AxisFault if the selector fails
+     */
+    Builder getMessageBuilder(String contentType, MessageContext msgCtx) throws AxisFault {
+        AxisConfiguration configuration = msgCtx.getConfigurationContext().getAxisConfiguration();
+        if (JavaUtils.isTrueExplicitly(configuration.getParameterValue(
+                Constants.Configuration.ENABLE_HTTP_CONTENT_NEGOTIATION))
+                || (msgCtx.isDoingREST() && HTTPConstants.MEDIA_TYPE_TEXT_XML.equals(contentType))) {
+            return selectMessageBuilder(contentType, msgCtx);
+        }
+
+        ResolvedBuilders resolved = resolvedBuilders;
+        if (resolved.configuration != configuration) {
+            resolved = new ResolvedBuilders(configuration);
+            resolvedBuilders = resolved;
+        }
+        Builder builder = resolved.builders.get(contentType);
+        if (builder != null) {
+            msgCtx.setProperty(Constants.Configuration.MESSAGE_TYPE, contentType);
+            return builder;
+        }
+        builder = selectMessageBuilder(contentType, msgCtx);
+        if (builder != null && resolved.builders.size() < MAX_RESOLVED_BUILDERS) {
+            resolved.builders.putIfAbsent(contentType, builder);
+        }
+        return builder;
+    }
+
+    Builder selectMessageBuilder(String contentType, MessageContext msgCtx) throws AxisFault {
+        return MessageProcessorSelector.getMessageBuilder(contentType, msgCtx);
+    }
+
+    private static final class ResolvedBuilders {
+        private final AxisConfiguration configuration;
+        private final ConcurrentMap<String, Builder> builders = new ConcurrentHashMap<String, Builder>();
+
+        private ResolvedBuilders(AxisConfiguration configuration) {
+            this.configuration = configuration;
+        }
+    }
+
     private Builder getBuilderForContentType(String contentType) {
         String type;
         int index = contentType.indexOf(';');
@@ -0,0 +1,168 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.transport.certificatevalidation;
+
+import junit.framework.TestCase;
+import org.apache.synapse.transport.certificatevalidation.cache.CacheValueLoader;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CacheValueLoaderTest extends TestCase {
+
+    /**
+     * Threads loading the same key while a fetch is running should get the result of that fetch.
+     */
+    public void testConcurrentLoadsShareOneFetch() throws Exception {
+        final CacheValueLoader<String, String> loader = new CacheValueLoader<String, String>();
+        final AtomicInteger fetches = new AtomicInteger();
+        final CountDownLatch fetchStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<String> fetcher = new Callable<String>() {
+            public String call() throws Exception {
+                fetches.incrementAndGet();
+                fetchStarted.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return "status";
+            }
+        };
+
+        final String[] results = new String[4];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        results[index] = loader.load("serial", fetcher);
+                    } catch (CertificateVerificationException e) {
+                        results[index] = e.getMessage();
+                    }
+                }
+            });
+            threads[i].start();
+            if (i == 0) {
+                assertTrue(fetchStarted.await(10, TimeUnit.SECONDS));
+            }
+        }
+        while (!allWaiting(threads)) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+
+        assertEquals(1, fetches.get());
+        for (String result : results) {
+            assertEquals("status", result);
+        }
+        assertFalse(loader.isLoading("serial"));
+    }
+
+    public void testFailureIsReported() {
+        CacheValueLoader<String, String> loader = new CacheValueLoader<String, String>();
+        try {
+            loader.load("url", new Callable<String>() {
+                public String call() throws Exception {
+                    throw new CertificateVerificationException("unreachable");
+                }
+            });
+            fail("The failure of the fetch should be thrown");
+        } catch (CertificateVerificationException e) {
+            assertEquals("unreachable", e.getMessage());
+        }
+        assertFalse(loader.isLoading("url"));
+    }
+
+    public void testLoadAsyncRunsOnlyOnce() throws Exception {
+        CacheValueLoader<String, String> loader = new CacheValueLoader<String, String>();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        Callable<String> fetcher = new Callable<String>() {
+            public String call() throws Exception {
+                release.await(10, TimeUnit.SECONDS);
+                done.countDown();
+                return "status";
+            }
+        };
+
+        assertTrue(loader.loadAsync("serial", fetcher));
+        assertFalse("A refresh is already running", loader.loadAsync("serial", fetcher));
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * A load joining a background refresh that fails should fetch the value itself instead of
+     * returning null.
+     */
+    public void testLoadJoiningFailedRefreshFetchesAgain() throws Exception {
+        final CacheValueLoader<String, String> loader = new CacheValueLoader<String, String>();
+        final CountDownLatch refreshStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        assertTrue(loader.loadAsync("serial", new Callable<String>() {
+            public String call() throws Exception {
+                refreshStarted.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return null;
+            }
+        }));
+        assertTrue(refreshStarted.await(10, TimeUnit.SECONDS));
+
+        final AtomicInteger fetches = new AtomicInteger();
+        final String[] result = new String[1];
+        Thread waiter = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    result[0] = loader.load("serial", new Callable<String>() {
+                        public String call() {
+                            fetches.incrementAndGet();
+                            return "status";
+                        }
+                    });
+                } catch (CertificateVerificationException e) {
+                    result[0] = e.getMessage();
+                }
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        assertEquals("The load should wait for the refresh", 0, fetches.get());
+        release.countDown();
+        waiter.join(10000);
+
+        assertEquals("status", result[0]);
+        assertEquals(1, fetches.get());
+        assertFalse(loader.isLoading("serial"));
+    }
+
+    private static boolean allWaiting(Thread[] threads) {
+        for (int i = 1; i < threads.length; i++) {
+            if (threads[i].getState() != Thread.State.WAITING) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.transport.http.access;
+
+import junit.framework.TestCase;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.message.BasicHttpRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AccessLogBufferTest extends TestCase {
+
+    public void testAccessesAreDrainedInOrder() {
+        AccessLogBuffer buffer = new AccessLogBuffer(8, false);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(buffer.offer(new BasicHttpRequest("GET", "/" + i), null, i));
+        }
+        final List<Long> times = new ArrayList<Long>();
+        assertEquals(3, buffer.drain(new AccessLogBuffer.Handler() {
+            public void handle(HttpRequest request, HttpResponse response, long time) {
+                assertEquals("/" + time, request.getRequestLine().getUri());
+                times.add(time);
+            }
+        }, 3));
+        assertEquals(2, buffer.drain(new AccessLogBuffer.Handler() {
+            public void handle(HttpRequest request, HttpResponse response, long time) {
+                times.add(time);
+            }
+        }, 10));
+        assertEquals("[0, 1, 2, 3, 4]", times.toString());
+    }
+
+    public void testAccessesAreDroppedWhenFull() {
+        AccessLogBuffer buffer = new AccessLogBuffer(4, false);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(new BasicHttpRequest("GET", "/"), null, i));
+        }
+        assertFalse(buffer.offer(new BasicHttpRequest("GET", "/"), null, 4));
+        assertEquals(1, buffer.getDroppedCount());
+
+        AccessLogBuffer.Handler ignore = new AccessLogBuffer.Handler() {
+            public void handle(HttpRequest request, HttpResponse response, long time) {
+            }
+        };
+        assertEquals(4, buffer.drain(ignore, 10));
+        assertTrue("Slots should be reused once drained",
+                buffer.offer(new BasicHttpRequest("GET", "/"), null, 5));
+        assertEquals(1, buffer.drain(ignore, 10));
+    }
+
+    public void testConcurrentProducers() throws Exception {
+        final AccessLogBuffer buffer = new AccessLogBuffer(1024, true);
+        final int perThread = 10000;
+        Thread[] producers = new Thread[4];
+        for (int i = 0; i < producers.length; i++) {
+            producers[i] = new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < perThread; j++) {
+                        buffer.offer(new BasicHttpRequest("GET", "/"), null, j);
+                    }
+                }
+            });
+            producers[i].start();
+        }
+        final int[] count = new int[1];
+        AccessLogBuffer.Handler counter = new AccessLogBuffer.Handler() {
+            public void handle(HttpRequest request, HttpResponse response, long time) {
+                assertNotNull(request);
+                count[0]++;
+            }
+        };
+        long deadline = System.currentTimeMillis() + 10000;
+        while (count[0] < producers.length * perThread && System.currentTimeMillis() < deadline) {
+            if (buffer.drain(counter, 256) == 0) {
+                buffer.await(1000000);
+            }
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertEquals(producers.length * perThread, count[0]);
+        assertEquals(0, buffer.getDroppedCount());
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.transport.http.access;
+
+import junit.framework.TestCase;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.message.BasicHttpRequest;
+import org.mockito.Mockito;
+
+public class AccessTest extends TestCase {
+
+    /**
+     * Accesses still queued when the access log is closed should be written before the log file is
+     * closed.
+     */
+    public void testQueuedAccessesWrittenOnClose() {
+        AccessLogger accessLogger = Mockito.mock(AccessLogger.class);
+        accessLogger.isLoggingEnabled = true;
+        Access access = new Access(LogFactory.getLog(AccessTest.class), accessLogger);
+        for (int i = 0; i < 100; i++) {
+            access.addAccessToQueue(new BasicHttpRequest("GET", "/" + i));
+        }
+        access.close();
+
+        Mockito.verify(accessLogger, Mockito.times(100)).append(Mockito.any(CharSequence.class));
+        Mockito.verify(accessLogger).close();
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.synapse.transport.passthru;
+
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.util.DirectByteBufferAllocator;
+import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.synapse.transport.passthru.util.BufferFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Relays request bodies from a source decoder to a target encoder through a Pipe, the way a
+ * pass-through message travels, and counts the bytes copied on the way.
+ */
+public class PipeRelayTest {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    @Test
+    public void testRelayWithoutIntermediateCopies() throws Exception {
+        for (int size : new int[] {0, 100, BUFFER_SIZE, 10 * BUFFER_SIZE + 17}) {
+            RelayResult result = relay(new BufferFactory(BUFFER_SIZE, new HeapByteBufferAllocator(), 1), size);
+            Assert.assertEquals(size, result.decoder.bytesRead);
+            Assert.assertEquals(size, result.encoder.bytesWritten);
+            // the encoder writes out of the very buffer the decoder read in to
+            Assert.assertEquals(0, result.encoder.foreignBufferWrites);
+        }
+    }
+
+    @Test
+    public void testRelayFromDirectBuffer() throws Exception {
+        RelayResult result = relay(new BufferFactory(BUFFER_SIZE, new DirectByteBufferAllocator(), 1),
+                3 * BUFFER_SIZE);
+        Assert.assertTrue(result.pipe.getBuffer().getByteBuffer().isDirect());
+        Assert.assertEquals(0, result.encoder.foreignBufferWrites);
+        Assert.assertEquals(3 * BUFFER_SIZE, result.encoder.bytesWritten);
+    }
+
+    @Test
+    public void testCopyAndConsumeSharesContent() throws Exception {
+        byte[] body = body(100);
+        Pipe pipe = new Pipe(new NoOpIOControl(), new BufferFactory(BUFFER_SIZE, null, 1).getBuffer(),
+                "test", null);
+        pipe.attachConsumer(new NoOpIOControl());
+        pipe.produce(new ArrayDecoder(body, BUFFER_SIZE));
+        ByteBuffer consumed = pipe.copyAndConsume(new ArrayEncoder(pipe, BUFFER_SIZE));
+        Assert.assertEquals(body.length, consumed.remaining());
+        // a view over the pipe buffer rather than a copy of it
+        Assert.assertTrue(pipe.getBuffer().getByteBuffer().array() == consumed.array());
+    }
+
+    private static RelayResult relay(BufferFactory bufferFactory, int size) throws Exception {
+        byte[] body = body(size);
+        Pipe pipe = new Pipe(new NoOpIOControl(), bufferFactory.getBuffer(), "source", null);
+        pipe.attachConsumer(new NoOpIOControl());
+
+        // the decoder and encoder move less than a buffer at a time, like a socket would
+        ArrayDecoder decoder = new ArrayDecoder(body, 3000);
+        ArrayEncoder encoder = new ArrayEncoder(pipe, 2000);
+        int rounds = 0;
+        while (!encoder.isCompleted()) {
+            if (!pipe.isProducerCompleted()) {
+                pipe.produce(decoder);
+            }
+            pipe.consume(encoder);
+            Assert.assertTrue("relay did not complete", ++rounds < 1000);
+        }
+        Assert.assertArrayEquals(body, encoder.out.toByteArray());
+        return new RelayResult(pipe, decoder, encoder);
+    }
+
+    private static byte[] body(int size) {
+        byte[] body = new byte[size];
+        new Random(size).nextBytes(body);
+        return body;
+    }
+
+    private static class RelayResult {
+        private final Pipe pipe;
+        private final ArrayDecoder decoder;
+        private final ArrayEncoder encoder;
+
+        RelayResult(Pipe pipe, ArrayDecoder decoder, ArrayEncoder encoder) {
+            this.pipe = pipe;
+            this.decoder = decoder;
+            this.encoder = encoder;
+        }
+    }
+
+    /**
+     * Reads the body from an array, at most chunkSize bytes per call
+     */
+    private static class ArrayDecoder implements ContentDecoder {
+        private final byte[] body;
+        private final int chunkSize;
+        private int bytesRead;
+
+        ArrayDecoder(byte[] body, int chunkSize) {
+            this.body = body;
+            this.chunkSize = chunkSize;
+        }
+
+        public int read(ByteBuffer dst) {
+            if (bytesRead == body.length) {
+                return -1;
+            }
+            int n = Math.min(Math.min(chunkSize, dst.remaining()), body.length - bytesRead);
+            dst.put(body, bytesRead, n);
+            bytesRead += n;
+            return n;
+        }
+
+        public boolean isCompleted() {
+            return bytesRead == body.length;
+        }
+    }
+
+    /**
+     * Writes to an array, at most chunkSize bytes per call, and counts the writes made from a
+     * buffer other than the one of the pipe
+     */
+    private static class ArrayEncoder implements ContentEncoder {
+        private final Pipe pipe;
+        private final int chunkSize;
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private int bytesWritten;
+        private int foreignBufferWrites;
+        private boolean completed;
+
+        ArrayEncoder(Pipe pipe, int chunkSize) {
+            this.pipe = pipe;
+            this.chunkSize = chunkSize;
+        }
+
+        public int write(ByteBuffer src) {
+            if (src != pipe.getBuffer().getByteBuffer()) {
+                foreignBufferWrites++;
+            }
+            int n = Math.min(chunkSize, src.remaining());
+            for (int i = 0; i < n; i++) {
+                out.write(src.get());
+            }
+            bytesWritten += n;
+            return n;
+        }
+
+        public void complete() {
+            completed = true;
+        }
+
+        public boolean isCompleted() {
+            return completed;
+        }
+    }
+
+    private static class NoOpIOControl implements IOControl {
+        public void requestInput() {
+        }
+
+        public void suspendInput() {
+        }
+
+        public void requestOutput() {
+        }
+
+        public void suspendOutput() {
+        }
+
+        public void shutdown() {
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ *  Copyright (c) 2026, WSO2 LLC. (https://www.wso2.com) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.synapse.transport.passthru;
+
+import org.apache.axiom.om.util.AXIOMUtil;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.transport.base.threads.WorkerPool;
+import org.apache.http.HttpConnectionMetrics;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.NHttpServerConnection;
+import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.synapse.commons.evaluators.Parser;
+import org.apache.synapse.commons.executors.PriorityExecutor;
+import org.apache.synapse.transport.http.conn.Scheme;
+import org.apache.synapse.transport.passthru.config.SourceConfiguration;
+import org.apache.synapse.transport.passthru.connections.SourceConnections;
+import org.apache.synapse.transport.passthru.jmx.PassThroughTransportMetricsCollector;
+import org.apache.synapse.transport.passthru.util.BufferFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the request dispatching of SourceHandler
+ */
+public class SourceHandlerTest {
+
+    private static final int BUFFER_SIZE = 1024;
+    private static final int AGGREGATION_THRESHOLD = 64;
+
+    private static final String CONDITIONS = "<conditions defaultPriority=\"1\">"
+            + "<condition priority=\"10\"><equal type=\"header\" source=\"priority\" value=\"5\"/></condition>"
+            + "<condition priority=\"1\"><equal type=\"header\" source=\"priority\" value=\"1\"/></condition>"
+            + "</conditions>";
+
+    private SourceConfiguration sourceConfiguration;
+    private PassThroughTransportMetricsCollector metrics;
+    private WorkerPool workerPool;
+    private NHttpServerConnection conn;
+    private HttpContext context;
+
+    @Before
+    public void setUp() {
+        workerPool = mock(WorkerPool.class);
+        metrics = mock(PassThroughTransportMetricsCollector.class);
+        sourceConfiguration = mock(SourceConfiguration.class);
+        when(sourceConfiguration.getMetrics()).thenReturn(metrics);
+        when(sourceConfiguration.getSourceConnections()).thenReturn(mock(SourceConnections.class));
+        when(sourceConfiguration.getBufferFactory()).thenReturn(
+                new BufferFactory(BUFFER_SIZE, new HeapByteBufferAllocator(), 2));
+        when(sourceConfiguration.getConfigurationContext()).thenReturn(
+                new ConfigurationContext(new AxisConfiguration()));
+        when(sourceConfiguration.getScheme()).thenReturn(new Scheme("http", 80, false));
+        when(sourceConfiguration.getIOBufferSize()).thenReturn(BUFFER_SIZE);
+        when(sourceConfiguration.getWorkerPool()).thenReturn(workerPool);
+        when(sourceConfiguration.getRequestAggregationThreshold()).thenReturn(AGGREGATION_THRESHOLD);
+        when(sourceConfiguration.getHttpParams()).thenReturn(new BasicHttpParams());
+        when(sourceConfiguration.getHttpProcessor()).thenReturn(mock(HttpProcessor.class));
+
+        context = new BasicHttpContext();
+        conn = mock(NHttpServerConnection.class);
+        when(conn.getContext()).thenReturn(context);
+        when(conn.getMetrics()).thenReturn(mock(HttpConnectionMetrics.class));
+        SourceContext.create(conn, ProtocolState.REQUEST_READY, sourceConfiguration);
+    }
+
+    /**
+     * A body within the threshold is handed to a worker only once the decoder completes.
+     */
+    @Test
+    public void testRequestWithinThresholdDispatchedWhenRead() throws Exception {
+        SourceHandler sourceHandler = new SourceHandler(sourceConfiguration);
+        receiveRequest(sourceHandler, "10", false);
+        ServerWorker pendingWorker =
+                (ServerWorker) context.getAttribute(PassThroughConstants.PENDING_SERVER_WORKER);
+        Assert.assertNotNull("Worker should wait for the body", pendingWorker);
+        verify(workerPool, never()).execute(any(Runnable.class));
+
+        BodyDecoder decoder = new BodyDecoder(10);
+        decoder.deliver(4);
+        sourceHandler.inputReady(conn, decoder);
+        verify(workerPool, never()).execute(any(Runnable.class));
+
+        decoder.deliver(6);
+        sourceHandler.inputReady(conn, decoder);
+        verify(workerPool).execute(pendingWorker);
+        Assert.assertNull(context.getAttribute(PassThroughConstants.PENDING_SERVER_WORKER));
+        Assert.assertSame(pendingWorker, context.getAttribute(PassThroughConstants.SERVER_WORKER_REFERENCE));
+    }
+
+    /**
+     * A body with a known length past the threshold is streamed to a worker right away.
+     */
+    @Test
+    public void testRequestOverThresholdDispatchedAtOnce() throws Exception {
+        SourceHandler sourceHandler = new SourceHandler(sourceConfiguration);
+        receiveRequest(sourceHandler, String.valueOf(AGGREGATION_THRESHOLD + 1), false);
+        Assert.assertNull(context.getAttribute(PassThroughConstants.PENDING_SERVER_WORKER));
+        verify(workerPool).execute(any(ServerWorker.class));
+    }
+
+    /**
+     * A body of unknown length is handed over as soon as the threshold is reached, before the decoder completes.
+     */
+    @Test
+    public void testRequestOfUnknownLengthDispatchedAtThreshold() throws Exception {
+        SourceHandler sourceHandler = new SourceHandler(sourceConfiguration);
+        receiveRequest(sourceHandler, null, false);
+        ServerWorker pendingWorker =
+                (ServerWorker) context.getAttribute(PassThroughConstants.PENDING_SERVER_WORKER);
+        Assert.assertNotNull("Worker should wait for the body", pendingWorker);
+
+        BodyDecoder decoder = new BodyDecoder(AGGREGATION_THRESHOLD * 4);
+        decoder.deliver(AGGREGATION_THRESHOLD);
+        sourceHandler.inputReady(conn, decoder);
+        Assert.assertFalse(decoder.isCompleted());
+        verify(workerPool).execute(pendingWorker);
+        Assert.assertNull(context.getAttribute(PassThroughConstants.PENDING_SERVER_WORKER));
+    }
+
+    /**
+     * A client expecting a 100-continue gets it while its body is aggregated, as the body is not sent without it.
+     */
+    @Test
+    public void testExpectContinueAcknowledgedWhileAggregating() throws Exception {
+        SourceHandler sourceHandler = new SourceHandler(sourceConfiguration);
+        receiveRequest(sourceHandler, "10", true);
+        verify(conn).submitResponse(argThat((HttpResponse response) ->
+                response.getStatusLine().getStatusCode() == HttpStatus.SC_CONTINUE));
+        Assert.assertNotNull(context.getAttribute(PassThroughConstants.PENDING_SERVER_WORKER));
+        verify(workerPool, never()).execute(any(Runnable.class));
+    }
+
+    /**
+     * A worker waiting for the body is dropped when the connection is closed.
+     */
+    @Test
+    public void testPendingWorkerClearedOnClose() throws Exception {
+        SourceHandler sourceHandler = new SourceHandler(sourceConfiguration);
+        receiveRequest(sourceHandler, "10", false);
+        sourceHandler.closed(conn);
+        Assert.assertNull(context.getAttribute(PassThroughConstants.PENDING_SERVER_WORKER));
+        verify(workerPool, never()).execute(any(Runnable.class));
+    }
+
+    /**
+     * A worker waiting for the body is dropped when the connection times out.
+     */
+    @Test
+    public void testPendingWorkerClearedOnTimeout() throws Exception {
+        SourceHandler sourceHandler = new SourceHandler(sourceConfiguration);
+        receiveRequest(sourceHandler, "10", false);
+        sourceHandler.timeout(conn);
+        Assert.assertNull(context.getAttribute(PassThroughConstants.PENDING_SERVER_WORKER));
+        verify(workerPool, never()).execute(any(Runnable.class));
+    }
+
+    /**
+     * With a priority configuration, each request is executed with the priority its conditions give it.
+     */
+    @Test
+    public void testRequestDispatchedWithItsPriority() throws Exception {
+        PriorityExecutor priorityExecutor = mock(PriorityExecutor.class);
+        Parser parser = new Parser(1);
+        parser.init(AXIOMUtil.stringToOM(CONDITIONS));
+        when(sourceConfiguration.getPriorityExecutor()).thenReturn(priorityExecutor);
+        when(sourceConfiguration.getPriorityParser()).thenReturn(parser);
+        SourceHandler sourceHandler = new SourceHandler(sourceConfiguration);
+
+        receiveRequest(sourceHandler, String.valueOf(BUFFER_SIZE), false, "priority", "5");
+        verify(priorityExecutor).execute(any(ServerWorker.class), eq(10));
+
+        SourceContext.create(conn, ProtocolState.REQUEST_READY, sourceConfiguration);
+        receiveRequest(sourceHandler, String.valueOf(BUFFER_SIZE), false, "priority", "3");
+        verify(priorityExecutor).execute(any(ServerWorker.class), eq(1));
+        verify(workerPool, never()).execute(any(Runnable.class));
+    }
+
+    /**
+     * A request that cannot be queued is answered with a 503 and the connection is closed.
+     */
+    @Test
+    public void testRejectedRequestAnsweredWithServiceUnavailable() throws Exception {
+        doThrow(new RejectedExecutionException()).when(workerPool).execute(any(Runnable.class));
+        SourceHandler sourceHandler = new SourceHandler(sourceConfiguration);
+        receiveRequest(sourceHandler, String.valueOf(BUFFER_SIZE), false);
+
+        verify(conn).submitResponse(argThat((HttpResponse response) ->
+                response.getStatusLine().getStatusCode() == HttpStatus.SC_SERVICE_UNAVAILABLE
+                        && HTTP.CONN_CLOSE.equals(response.getFirstHeader(HTTP.CONN_DIRECTIVE).getValue())));
+        verify(conn).close();
+        Assert.assertEquals(ProtocolState.CLOSED, SourceContext.getState(conn));
+        Assert.assertNull(context.getAttribute(PassThroughConstants.SERVER_WORKER_REFERENCE));
+        verify(metrics, never()).requestReceived();
+    }
+
+    /**
+     * A request rejected by the priority executor, e.g. as the queue of its priority is full, gets a 503 as well.
+     */
+    @Test
+    public void testRequestRejectedByPriorityExecutor() throws Exception {
+        PriorityExecutor priorityExecutor = mock(PriorityExecutor.class);
+        Parser parser = new Parser(1);
+        parser.init(AXIOMUtil.stringToOM(CONDITIONS));
+        doThrow(new RejectedExecutionException()).when(priorityExecutor).execute(any(Runnable.class), anyInt());
+        when(sourceConfiguration.getPriorityExecutor()).thenReturn(priorityExecutor);
+        when(sourceConfiguration.getPriorityParser()).thenReturn(parser);
+        SourceHandler sourceHandler = new SourceHandler(sourceConfiguration);
+        receiveRequest(sourceHandler, String.valueOf(BUFFER_SIZE), false);
+
+        verify(conn).submitResponse(argThat((HttpResponse response) ->
+                response.getStatusLine().getStatusCode() == HttpStatus.SC_SERVICE_UNAVAILABLE));
+        verify(metrics, never()).requestReceived();
+    }
+
+    private void receiveRequest(SourceHandler sourceHandler, String contentLength, boolean expectContinue,
+                                String... headers) {
+        BasicHttpEntityEnclosingRequest request = new BasicHttpEntityEnclosingRequest("POST", "/services/test");
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            request.setHeader(headers[i], headers[i + 1]);
+        }
+        request.setHeader(HTTP.CONTENT_TYPE, "application/xml");
+        if (contentLength != null) {
+            request.setHeader(HTTP.CONTENT_LEN, contentLength);
+        } else {
+            request.setHeader(HTTP.TRANSFER_ENCODING, HTTP.CHUNK_CODING);
+        }
+        if (expectContinue) {
+            request.setHeader(HTTP.EXPECT_DIRECTIVE, HTTP.EXPECT_CONTINUE);
+        }
+        when(conn.getHttpRequest()).thenReturn(request);
+        sourceHandler.requestReceived(conn);
+    }
+
+    /**
+     * Decoder handing out a body of the given length in the portions delivered by the test.
+     */
+    private static class BodyDecoder implements ContentDecoder {
+
+        private final int length;
+        private int read;
+        private int available;
+
+        BodyDecoder(int length) {
+            this.length = length;
+        }
+
+        void deliver(int bytes) {
+            available += bytes;
+        }
+
+        public int read(ByteBuffer dst) {
+            int bytes = Math.min(available, dst.remaining());
+            for (int i = 0; i < bytes; i++) {
+                dst.put((byte) 'a');
+            }
+            available -= bytes;
+            read += bytes;
+            return bytes;
+        }
+
+        public boolean isCompleted() {
+            return read >= length;
+        }
+    }
+}
@@ -27,6 +27,9 @@ import org.apache.axis2.transport.base.threads.WorkerPool;
 import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.params.HttpParams;
 import org.apache.http.params.HttpProtocolParams;
+import org.apache.synapse.commons.evaluators.EvaluatorContext;
+import org.apache.synapse.commons.evaluators.Parser;
+import org.apache.synapse.commons.executors.PriorityExecutor;
 import org.apache.synapse.transport.http.conn.Scheme;
 import org.apache.synapse.transport.passthru.HttpGetRequestProcessor;
 import org.apache.synapse.transport.passthru.PassThroughConstants;
@@ -36,6 +39,12 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Test class for SourceConfiguration.
  */
@@ -51,6 +60,14 @@ public class SourceConfigurationTest {
     private static final String INVALID_HTTP_GET_PROCESSOR = "org.apache.synapse.transport.InvalidClass";
     private static final String INCORRECT_HTTP_GET_PROCESSOR =
             "org.apache.synapse.transport.nhttp.DefaultHttpGetProcessor";
+    private static final String PRIORITY_CONFIGURATION = "<priorityConfiguration>"
+            + "<priorityExecutor><queues isFixedCapacity=\"true\">"
+            + "<queue size=\"10\" priority=\"10\"/><queue size=\"10\" priority=\"1\"/></queues>"
+            + "<threads core=\"2\" max=\"2\" keep-alive=\"5\"/></priorityExecutor>"
+            + "<conditions defaultPriority=\"1\"><condition priority=\"10\">"
+            + "<equal type=\"header\" source=\"priority\" value=\"5\"/></condition><condition priority=\"1\">"
+            + "<equal type=\"header\" source=\"priority\" value=\"1\"/></condition></conditions>"
+            + "</priorityConfiguration>";
     private static final String WSDLPREFIX = "http://apachehost:" + PORT + "/somepath";
     private ConfigurationContext cfgCtx = null;
     private Scheme scheme = null;
@@ -85,6 +102,11 @@ public class SourceConfigurationTest {
         if (httpGetProcessor != null) {
             transportInDescription.removeParameter(httpGetProcessor);
         }
+        Parameter priorityConfigFile = transportInDescription.getParameter(
+                PassThroughConstants.PRIORITY_CONFIG_FILE_NAME);
+        if (priorityConfigFile != null) {
+            transportInDescription.removeParameter(priorityConfigFile);
+        }
     }
 
     @Test
@@ -232,6 +254,43 @@ public class SourceConfigurationTest {
                 enableAdvancedForS2SView);
     }
 
+    @Test
+    public void testPriorityConfiguration() throws Exception {
+        File configFile = File.createTempFile("priority-configuration", ".xml");
+        configFile.deleteOnExit();
+        Files.write(configFile.toPath(), PRIORITY_CONFIGURATION.getBytes(StandardCharsets.UTF_8));
+        transportInDescription.addParameter(
+                new Parameter(PassThroughConstants.PRIORITY_CONFIG_FILE_NAME, configFile.getAbsolutePath()));
+        sourceConfiguration.build();
+
+        PriorityExecutor priorityExecutor = sourceConfiguration.getPriorityExecutor();
+        Assert.assertNotNull("Priority executor hasn't been created.", priorityExecutor);
+        try {
+            Parser parser = sourceConfiguration.getPriorityParser();
+            Assert.assertNotNull("Priority parser hasn't been created.", parser);
+            Map<String, String> headers = new HashMap<String, String>();
+            headers.put("priority", "5");
+            Assert.assertEquals("Request matching the condition isn't classified with its priority.",
+                    10, parser.parse(new EvaluatorContext("/services/test", headers)));
+            Assert.assertEquals("Request without a matching condition doesn't get the default priority.",
+                    1, parser.parse(new EvaluatorContext("/services/test", new HashMap<String, String>())));
+        } finally {
+            priorityExecutor.destroy();
+        }
+    }
+
+    @Test
+    public void testMissingPriorityConfiguration() {
+        try {
+            transportInDescription.addParameter(new Parameter(PassThroughConstants.PRIORITY_CONFIG_FILE_NAME,
+                    new File("target", "missing-priority-configuration.xml").getAbsolutePath()));
+            sourceConfiguration.build();
+            Assert.fail("A missing priority configuration file should fail the listener configuration");
+        } catch (Exception ex) {
+            Assert.assertTrue(ex.getMessage().contains("Priority configuration file cannot be found"));
+        }
+    }
+
     @Test
     public void testSourceConfiguration() throws Exception {
         WorkerPool workerPool = PassThroughTestUtils.getWorkerPool(passThroughConfiguration);
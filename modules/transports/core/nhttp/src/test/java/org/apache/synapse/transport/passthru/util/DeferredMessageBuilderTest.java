@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.transport.passthru.util;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.builder.ApplicationXMLBuilder;
+import org.apache.axis2.builder.Builder;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DeferredMessageBuilderTest {
+
+    private final AxisConfiguration axisConfiguration = new AxisConfiguration();
+
+    @Test
+    public void testSecondLookupServedFromResolvedBuilders() throws Exception {
+        CountingMessageBuilder messageBuilder = new CountingMessageBuilder();
+        Builder first = messageBuilder.getMessageBuilder("application/xml", createMessageContext());
+        MessageContext msgCtx = createMessageContext();
+        Builder second = messageBuilder.getMessageBuilder("application/xml", msgCtx);
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals("The builder should be selected once", 1, messageBuilder.selections.size());
+        Assert.assertEquals("application/xml", msgCtx.getProperty(Constants.Configuration.MESSAGE_TYPE));
+    }
+
+    @Test
+    public void testMissingBuilderSelectedAgain() throws Exception {
+        CountingMessageBuilder messageBuilder = new CountingMessageBuilder();
+        Assert.assertNull(messageBuilder.getMessageBuilder("application/unknown", createMessageContext()));
+        Assert.assertNull(messageBuilder.getMessageBuilder("application/unknown", createMessageContext()));
+        Assert.assertEquals(2, messageBuilder.selections.size());
+    }
+
+    @Test
+    public void testSelectorUsedWithContentNegotiation() throws Exception {
+        axisConfiguration.addParameter(Constants.Configuration.ENABLE_HTTP_CONTENT_NEGOTIATION, "true");
+        CountingMessageBuilder messageBuilder = new CountingMessageBuilder();
+        messageBuilder.getMessageBuilder("application/xml", createMessageContext());
+        messageBuilder.getMessageBuilder("application/xml", createMessageContext());
+        Assert.assertEquals(2, messageBuilder.selections.size());
+    }
+
+    @Test
+    public void testResolvedBuildersDroppedWithAxisConfiguration() throws Exception {
+        CountingMessageBuilder messageBuilder = new CountingMessageBuilder();
+        messageBuilder.getMessageBuilder("application/xml", createMessageContext());
+        MessageContext msgCtx = new MessageContext();
+        msgCtx.setConfigurationContext(new ConfigurationContext(new AxisConfiguration()));
+        messageBuilder.getMessageBuilder("application/xml", msgCtx);
+        Assert.assertEquals(2, messageBuilder.selections.size());
+    }
+
+    private MessageContext createMessageContext() {
+        MessageContext msgCtx = new MessageContext();
+        msgCtx.setConfigurationContext(new ConfigurationContext(axisConfiguration));
+        return msgCtx;
+    }
+
+    /**
+     * Records the selections, and picks the application/xml builder for application/xml only
+     */
+    private static class CountingMessageBuilder extends DeferredMessageBuilder {
+
+        private final List<String> selections = new ArrayList<String>();
+
+        @Override
+        Builder selectMessageBuilder(String contentType, MessageContext msgCtx) throws AxisFault {
+            selections.add(contentType);
+            if ("application/xml".equals(contentType)) {
+                msgCtx.setProperty(Constants.Configuration.MESSAGE_TYPE, contentType);
+                return new ApplicationXMLBuilder();
+            }
+            return null;
+        }
+    }
+}
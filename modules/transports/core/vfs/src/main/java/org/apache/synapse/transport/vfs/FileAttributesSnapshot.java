@@ -0,0 +1,154 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.apache.synapse.transport.vfs;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.synapse.commons.vfs.VFSConstants;
+import org.apache.synapse.commons.vfs.VFSUtils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The size and last modified time of a polled file, read once per poll. Reading an attribute
+ * of a remote file (FTP, SFTP, SMB..) may take a round trip to the server, so the attributes
+ * needed to sort and filter the children of a directory are read up front, instead of every
+ * time the sort compares two files or a filter checks a file.
+ */
+final class FileAttributesSnapshot {
+
+    private static final Log log = LogFactory.getLog(FileAttributesSnapshot.class);
+
+    private final FileObject file;
+    private Long size;
+    private Long lastModifiedTime;
+
+    FileAttributesSnapshot(FileObject file) {
+        this.file = file;
+    }
+
+    FileObject getFile() {
+        return file;
+    }
+
+    /**
+     * @return the size of the file, read from the file if it could not be read up front
+     * @throws FileSystemException if the size can not be read
+     */
+    long getSize() throws FileSystemException {
+        if (size == null) {
+            size = file.getContent().getSize();
+        }
+        return size;
+    }
+
+    /**
+     * @return the last modified time of the file, read from the file if it could not be read up front
+     * @throws FileSystemException if the last modified time can not be read
+     */
+    long getLastModifiedTime() throws FileSystemException {
+        if (lastModifiedTime == null) {
+            lastModifiedTime = file.getContent().getLastModifiedTime();
+        }
+        return lastModifiedTime;
+    }
+
+    /**
+     * Take a snapshot of the given files, reading only the attributes that the poll table
+     * entry sorts or filters on.
+     *
+     * @param entry the poll table entry being polled
+     * @param files the children of the polled directory
+     * @return a snapshot for each file, in the same order as the files
+     */
+    static FileAttributesSnapshot[] snapshot(PollTableEntry entry, FileObject[] files) {
+        String sortParam = entry.getFileSortParam();
+        boolean readSize = entry.getFileSizeLimit() >= 0
+                || VFSConstants.FILE_SORT_VALUE_SIZE.equals(sortParam);
+        boolean readLastModifiedTime = entry.getMinimumAge() != null || entry.getMaximumAge() != null
+                || VFSConstants.FILE_SORT_VALUE_LASTMODIFIEDTIMESTAMP.equals(sortParam);
+
+        FileAttributesSnapshot[] snapshots = new FileAttributesSnapshot[files.length];
+        for (int i = 0; i < files.length; i++) {
+            snapshots[i] = new FileAttributesSnapshot(files[i]);
+            if (readSize || readLastModifiedTime) {
+                snapshots[i].read(readSize, readLastModifiedTime);
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Sort the snapshots by the given file attribute. Files whose attribute could not be read
+     * are sorted as if the attribute were 0.
+     *
+     * @param snapshots snapshots to sort
+     * @param sortParam one of the VFSConstants.FILE_SORT_VALUE_* attributes
+     * @param ascending whether to sort in ascending order
+     */
+    static void sort(FileAttributesSnapshot[] snapshots, String sortParam, boolean ascending) {
+        Comparator<FileAttributesSnapshot> comparator;
+        if (VFSConstants.FILE_SORT_VALUE_NAME.equals(sortParam)) {
+            comparator = new Comparator<FileAttributesSnapshot>() {
+                public int compare(FileAttributesSnapshot o1, FileAttributesSnapshot o2) {
+                    return o1.file.getName().compareTo(o2.file.getName());
+                }
+            };
+        } else if (VFSConstants.FILE_SORT_VALUE_SIZE.equals(sortParam)) {
+            comparator = new Comparator<FileAttributesSnapshot>() {
+                public int compare(FileAttributesSnapshot o1, FileAttributesSnapshot o2) {
+                    return Long.compare(valueOf(o1.size), valueOf(o2.size));
+                }
+            };
+        } else if (VFSConstants.FILE_SORT_VALUE_LASTMODIFIEDTIMESTAMP.equals(sortParam)) {
+            comparator = new Comparator<FileAttributesSnapshot>() {
+                public int compare(FileAttributesSnapshot o1, FileAttributesSnapshot o2) {
+                    return Long.compare(valueOf(o1.lastModifiedTime), valueOf(o2.lastModifiedTime));
+                }
+            };
+        } else {
+            return;
+        }
+        Arrays.sort(snapshots, ascending ? comparator : comparator.reversed());
+    }
+
+    private void read(boolean readSize, boolean readLastModifiedTime) {
+        try {
+            if (readSize) {
+                size = file.getContent().getSize();
+            }
+            if (readLastModifiedTime) {
+                lastModifiedTime = file.getContent().getLastModifiedTime();
+            }
+        } catch (FileSystemException e) {
+            // sub folders have no size, the attribute is read again if the file turns out to be needed
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to read the attributes of : "
+                        + VFSUtils.maskURLPassword(file.getName().getURI()), e);
+            }
+        }
+    }
+
+    private static long valueOf(Long attribute) {
+        return attribute == null ? 0 : attribute;
+    }
+}
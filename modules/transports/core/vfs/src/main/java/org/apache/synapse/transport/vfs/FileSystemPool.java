@@ -0,0 +1,360 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.apache.synapse.transport.vfs;
+
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.ParameterInclude;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystem;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
+import org.apache.commons.vfs2.impl.StandardFileSystemManager;
+import org.apache.synapse.commons.vfs.VFSConstants;
+import org.apache.synapse.commons.vfs.VFSUtils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the remote file systems (FTP, SFTP, SMB.. connections) opened through a VFS file system
+ * manager open between messages and polls, so that they do not pay for a new connection and
+ * authentication each time. The file system manager already hands out the same file system for
+ * the same root URI (scheme, user, host and port) and file system options. This pool decides how
+ * long such a file system stays open:
+ * <ul>
+ * <li>a file system that was unused for longer than the validation interval is checked before it
+ * is used again, and reopened if the check fails</li>
+ * <li>a file system closed after an error while it is in use is only marked broken, and closed
+ * once its last user releases it</li>
+ * <li>a file system that is not in use is closed once it has been idle for the maximum idle time,
+ * or once it has been open for the maximum lifetime</li>
+ * <li>once more than the maximum number of file systems are open, the least recently used of
+ * those not in use are closed</li>
+ * </ul>
+ * A single pool is shared by the VFS transport sender and listener.
+ */
+public class FileSystemPool {
+
+    private static final Log log = LogFactory.getLog(FileSystemPool.class);
+
+    private static FileSystemPool sharedPool;
+    private static int sharedPoolUsers;
+
+    private final DefaultFileSystemManager fsManager;
+    private final int maxSize;
+    private final long maxIdleTime;
+    private final long maxLifetime;
+    private final long validationInterval;
+
+    /** pooled file systems in the order they were last used, least recently used first */
+    private final Map<FileSystem, PooledFileSystem> fileSystems =
+            new LinkedHashMap<FileSystem, PooledFileSystem>(16, 0.75f, true);
+
+    private final ScheduledExecutorService evictor;
+
+    FileSystemPool(DefaultFileSystemManager fsManager, int maxSize, long maxIdleTime, long maxLifetime,
+                   long validationInterval) {
+        this.fsManager = fsManager;
+        this.maxSize = maxSize;
+        this.maxIdleTime = maxIdleTime;
+        this.maxLifetime = maxLifetime;
+        this.validationInterval = validationInterval;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "vfs-file-system-evictor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long evictionInterval = Math.max(1000, maxIdleTime / 2);
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    evict();
+                } catch (Throwable t) {
+                    log.warn("Error closing idle VFS file systems", t);
+                }
+            }
+        }, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the pool shared by the VFS transports, creating it if this is its first user. The first
+     * user's transport parameters configure the pool.
+     *
+     * @param parameters the transport description of the user
+     * @return the shared pool
+     * @throws FileSystemException if the file system manager can not be initialized
+     */
+    public static synchronized FileSystemPool acquireSharedPool(ParameterInclude parameters)
+            throws FileSystemException {
+        if (sharedPool == null) {
+            StandardFileSystemManager fsm = new StandardFileSystemManager();
+            fsm.setConfiguration(FileSystemPool.class.getClassLoader().getResource("providers.xml"));
+            fsm.init();
+            sharedPool = new FileSystemPool(fsm,
+                    (int) getLongParameter(parameters, VFSConstants.TRANSPORT_FILE_SYSTEM_POOL_MAX_SIZE,
+                            VFSConstants.DEFAULT_TRANSPORT_FILE_SYSTEM_POOL_MAX_SIZE),
+                    getLongParameter(parameters, VFSConstants.TRANSPORT_FILE_SYSTEM_POOL_MAX_IDLE_TIME,
+                            VFSConstants.DEFAULT_TRANSPORT_FILE_SYSTEM_POOL_MAX_IDLE_TIME),
+                    getLongParameter(parameters, VFSConstants.TRANSPORT_FILE_SYSTEM_POOL_MAX_LIFETIME,
+                            VFSConstants.DEFAULT_TRANSPORT_FILE_SYSTEM_POOL_MAX_LIFETIME),
+                    getLongParameter(parameters, VFSConstants.TRANSPORT_FILE_SYSTEM_POOL_VALIDATION_INTERVAL,
+                            VFSConstants.DEFAULT_TRANSPORT_FILE_SYSTEM_POOL_VALIDATION_INTERVAL));
+        }
+        sharedPoolUsers++;
+        return sharedPool;
+    }
+
+    /**
+     * Stop using the shared pool, closing it and all its file systems if this was its last user.
+     *
+     * @param pool the pool returned by {@link #acquireSharedPool(ParameterInclude)}
+     */
+    public static synchronized void releaseSharedPool(FileSystemPool pool) {
+        if (pool != null && pool == sharedPool && --sharedPoolUsers == 0) {
+            sharedPool.close();
+            sharedPool = null;
+        }
+    }
+
+    public DefaultFileSystemManager getFileSystemManager() {
+        return fsManager;
+    }
+
+    /**
+     * Resolve a file, reusing the file system it lives in if it is open. The file system stays in
+     * use, and is not closed by the pool, until the file is released.
+     *
+     * @param uri the file URI
+     * @param fso the file system options
+     * @return the file
+     * @throws FileSystemException if the file can not be resolved
+     */
+    public FileObject resolveFile(String uri, FileSystemOptions fso) throws FileSystemException {
+        FileObject file = fsManager.resolveFile(uri, fso);
+        if (!acquire(file.getFileSystem()) || isUsable(file)) {
+            return file;
+        }
+        if (!discard(file.getFileSystem())) {
+            // picked up by another user since it was checked, it is reopened once they are all done
+            return file;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Reopening the file system of : " + VFSUtils.maskURLPassword(uri));
+        }
+        fsManager.closeFileSystem(file.getFileSystem());
+        file = fsManager.resolveFile(uri, fso);
+        acquire(file.getFileSystem());
+        return file;
+    }
+
+    /**
+     * Stop using the file system of a file resolved through {@link #resolveFile(String, FileSystemOptions)}
+     *
+     * @param file the file, may be null
+     */
+    public void release(FileObject file) {
+        if (file == null) {
+            return;
+        }
+        FileSystem fileSystem = file.getFileSystem();
+        synchronized (this) {
+            PooledFileSystem pooled = fileSystems.get(fileSystem);
+            if (pooled == null) {
+                return;
+            }
+            pooled.users = Math.max(0, pooled.users - 1);
+            pooled.lastUsed = System.currentTimeMillis();
+            if (pooled.users > 0 || !pooled.broken) {
+                return;
+            }
+            fileSystems.remove(fileSystem);
+        }
+        fsManager.closeFileSystem(fileSystem);
+    }
+
+    /**
+     * Close a file system, for instance after an error on its connection, so that it is reopened
+     * the next time it is needed. A file system still in use is closed once it is released by all
+     * its users.
+     *
+     * @param fileSystem the file system to close
+     */
+    public void closeFileSystem(FileSystem fileSystem) {
+        synchronized (this) {
+            PooledFileSystem pooled = fileSystems.get(fileSystem);
+            if (pooled != null && pooled.users > 0) {
+                pooled.broken = true;
+                return;
+            }
+            fileSystems.remove(fileSystem);
+        }
+        fsManager.closeFileSystem(fileSystem);
+    }
+
+    /**
+     * @return the number of file systems held by the pool
+     */
+    public synchronized int size() {
+        return fileSystems.size();
+    }
+
+    /**
+     * Close the file systems that are not in use and have been idle or open for too long.
+     */
+    void evict() {
+        List<FileSystem> evicted = new ArrayList<FileSystem>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator<Map.Entry<FileSystem, PooledFileSystem>> iterator = fileSystems.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<FileSystem, PooledFileSystem> entry = iterator.next();
+                PooledFileSystem pooled = entry.getValue();
+                if (pooled.users == 0 && (now - pooled.lastUsed >= maxIdleTime
+                        || (maxLifetime >= 0 && now - pooled.created >= maxLifetime))) {
+                    iterator.remove();
+                    evicted.add(entry.getKey());
+                }
+            }
+        }
+        close(evicted);
+    }
+
+    void close() {
+        evictor.shutdownNow();
+        synchronized (this) {
+            fileSystems.clear();
+        }
+        fsManager.close();
+    }
+
+    /**
+     * @return whether the file system had been idle long enough to be checked before it is used
+     */
+    private boolean acquire(FileSystem fileSystem) {
+        if (VFSConstants.SCHEME_FILE.equals(fileSystem.getRootName().getScheme())) {
+            // local file systems hold no connection
+            return false;
+        }
+        List<FileSystem> evicted = new ArrayList<FileSystem>();
+        boolean validate;
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            PooledFileSystem pooled = fileSystems.get(fileSystem);
+            if (pooled == null) {
+                pooled = new PooledFileSystem(now);
+                fileSystems.put(fileSystem, pooled);
+                validate = false;
+                Iterator<Map.Entry<FileSystem, PooledFileSystem>> iterator = fileSystems.entrySet().iterator();
+                while (fileSystems.size() > maxSize && iterator.hasNext()) {
+                    Map.Entry<FileSystem, PooledFileSystem> entry = iterator.next();
+                    if (entry.getValue().users == 0 && entry.getKey() != fileSystem) {
+                        iterator.remove();
+                        evicted.add(entry.getKey());
+                    }
+                }
+            } else {
+                // a file system in use by others is being used right now, only an idle one is checked
+                validate = pooled.users == 0 && now - pooled.lastUsed >= validationInterval;
+            }
+            pooled.users++;
+            pooled.lastUsed = now;
+        }
+        close(evicted);
+        return validate;
+    }
+
+    /**
+     * Stop pooling a file system that failed its check, unless it has been acquired by another user
+     * in the meantime, in which case it is marked broken instead
+     *
+     * @return whether the file system can be closed by the caller
+     */
+    private synchronized boolean discard(FileSystem fileSystem) {
+        PooledFileSystem pooled = fileSystems.get(fileSystem);
+        if (pooled != null && pooled.users > 1) {
+            pooled.broken = true;
+            return false;
+        }
+        fileSystems.remove(fileSystem);
+        return true;
+    }
+
+    private boolean isUsable(FileObject file) {
+        try {
+            file.refresh();
+            file.exists();
+            return true;
+        } catch (FileSystemException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Pooled file system of " + VFSUtils.maskURLPassword(file.getName().getURI())
+                        + " is no longer usable", e);
+            }
+            return false;
+        }
+    }
+
+    private void close(List<FileSystem> evicted) {
+        for (FileSystem fileSystem : evicted) {
+            if (log.isDebugEnabled()) {
+                log.debug("Closing pooled file system : "
+                        + VFSUtils.maskURLPassword(fileSystem.getRootName().getURI()));
+            }
+            fsManager.closeFileSystem(fileSystem);
+        }
+    }
+
+    private static long getLongParameter(ParameterInclude parameters, String name, long defaultValue) {
+        Parameter parameter = parameters == null ? null : parameters.getParameter(name);
+        if (parameter == null || parameter.getValue() == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(parameter.getValue().toString().trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value " + parameter.getValue() + " for " + name + ", using the default value "
+                    + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static final class PooledFileSystem {
+        private final long created;
+        private long lastUsed;
+        private int users;
+        /** closed by the last user to release it */
+        private boolean broken;
+
+        private PooledFileSystem(long created) {
+            this.created = created;
+            this.lastUsed = created;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.apache.synapse.transport.vfs;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a local directory for files that are created or written to, and hands each of them
+ * over once it is complete, without listing the directory.
+ * <p>
+ * A file is taken to be complete once it has neither been written to nor changed its size for
+ * the stability interval. Events the operating system drops are not recovered here, the regular
+ * polls of the directory pick up those files.
+ */
+final class LocalDirectoryWatcher implements Runnable {
+
+    private static final Log log = LogFactory.getLog(LocalDirectoryWatcher.class);
+
+    /**
+     * Handles a file of the watched directory once it is complete
+     */
+    interface FileHandler {
+        void handle(File file);
+    }
+
+    private final Path directory;
+    private final long stabilityInterval;
+    private final FileHandler handler;
+
+    /** files written to but not yet complete, only used by the watcher thread */
+    private final Map<Path, PendingFile> pendingFiles = new HashMap<Path, PendingFile>();
+
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    LocalDirectoryWatcher(File directory, long stabilityInterval, FileHandler handler) {
+        this.directory = directory.toPath();
+        this.stabilityInterval = stabilityInterval;
+        this.handler = handler;
+    }
+
+    /**
+     * Get the local directory a VFS file URI points to.
+     *
+     * @param fileURI a VFS file URI
+     * @return the directory, or null if the URI is not a local directory
+     */
+    static File toLocalDirectory(String fileURI) {
+        if (fileURI == null) {
+            return null;
+        }
+        String uri = fileURI.startsWith("vfs:") ? fileURI.substring(4) : fileURI;
+        int queryIndex = uri.indexOf('?');
+        if (queryIndex >= 0) {
+            uri = uri.substring(0, queryIndex);
+        }
+        File directory;
+        try {
+            if (uri.startsWith("file:")) {
+                directory = Paths.get(URI.create(uri)).toFile();
+            } else if (!uri.contains(":/")) {
+                directory = new File(uri);
+            } else {
+                return null;
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return directory.isDirectory() ? directory : null;
+    }
+
+    synchronized void start() throws IOException {
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        running = true;
+        thread = new Thread(this, "vfs-directory-watcher-" + directory.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized void stop() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Error closing the watch service of " + directory, e);
+            }
+        }
+    }
+
+    public void run() {
+        if (log.isDebugEnabled()) {
+            log.debug("Watching directory : " + directory);
+        }
+        while (running) {
+            WatchKey key;
+            try {
+                key = watchService.poll(Math.max(stabilityInterval, 10), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ClosedWatchServiceException e) {
+                break;
+            }
+            long now = System.currentTimeMillis();
+            if (key != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // the next poll picks up the files of the dropped events
+                        continue;
+                    }
+                    Path file = directory.resolve((Path) event.context());
+                    PendingFile pendingFile = pendingFiles.get(file);
+                    if (pendingFile == null) {
+                        pendingFiles.put(file, new PendingFile(now, sizeOf(file)));
+                    } else {
+                        pendingFile.lastWriteTime = now;
+                    }
+                }
+                if (!key.reset()) {
+                    log.warn("Directory " + directory + " can no longer be watched, its files will be picked up"
+                            + " by polling only");
+                    break;
+                }
+            }
+            handleCompleteFiles(now);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Stopped watching directory : " + directory);
+        }
+    }
+
+    private void handleCompleteFiles(long now) {
+        Iterator<Map.Entry<Path, PendingFile>> iterator = pendingFiles.entrySet().iterator();
+        while (iterator.hasNext() && running) {
+            Map.Entry<Path, PendingFile> pending = iterator.next();
+            PendingFile pendingFile = pending.getValue();
+            if (now - pendingFile.lastWriteTime < stabilityInterval) {
+                continue;
+            }
+            Path file = pending.getKey();
+            if (!Files.isRegularFile(file)) {
+                // deleted, moved away or a sub directory
+                iterator.remove();
+                continue;
+            }
+            long size = sizeOf(file);
+            if (size != pendingFile.size) {
+                // still being written to, without the writes being reported yet
+                pendingFile.size = size;
+                pendingFile.lastWriteTime = now;
+                continue;
+            }
+            iterator.remove();
+            try {
+                handler.handle(file.toFile());
+            } catch (Throwable t) {
+                log.error("Error handling the watched file : " + file, t);
+            }
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static final class PendingFile {
+        private long lastWriteTime;
+        private long size;
+
+        private PendingFile(long lastWriteTime, long size) {
+            this.lastWriteTime = lastWriteTime;
+            this.size = size;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.axis2.description.Parameter;
 import org.apache.axis2.description.ParameterInclude;
 import org.apache.axis2.transport.base.AbstractPollTableEntry;
 import org.apache.axis2.transport.base.ParamUtils;
+import org.apache.axis2.transport.base.threads.NativeThreadFactory;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.commons.vfs2.FileSystemException;
@@ -38,6 +39,10 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -116,6 +121,38 @@ public class PollTableEntry extends AbstractPollTableEntry {
     
     private Integer fileProcessingCount;
 
+    private int fileProcessingThreads = VFSConstants.DEFAULT_TRANSPORT_FILE_PROCESS_THREADS;
+
+    /** processes the files of a directory when more than one file processing thread is configured */
+    private ExecutorService fileProcessingExecutor;
+
+    /** URIs of the files being processed, by the polling thread, the file processing threads or the watcher */
+    private final Set<String> filesInProcess = ConcurrentHashMap.newKeySet();
+
+    /** held while the files of the directory are processed, by a poll or for a file reported by the watcher */
+    private final Object fileProcessingLock = new Object();
+
+    /** whether to watch a local directory for new files in between polls */
+    private boolean watchDirectory;
+
+    private int watchStabilityInterval = VFSConstants.DEFAULT_TRANSPORT_FILE_WATCH_STABILITY_INTERVAL;
+
+    private LocalDirectoryWatcher directoryWatcher;
+
+    /** how to split files in to records, null to inject each file as a single message */
+    private RecordSplitter.Mode recordSplitMode;
+
+    private String recordDelimiter;
+
+    private int recordBatchSize = VFSConstants.DEFAULT_TRANSPORT_FILE_RECORD_BATCH_SIZE;
+
+    private int recordMaxInFlight = VFSConstants.DEFAULT_TRANSPORT_FILE_RECORD_MAX_IN_FLIGHT;
+
+    private int recordCheckpointInterval = VFSConstants.DEFAULT_TRANSPORT_FILE_RECORD_CHECKPOINT_INTERVAL;
+
+    /** mediates the records of a file concurrently when more than one record may be in flight */
+    private ExecutorService recordProcessingExecutor;
+
     private Map<String, String> vfsSchemeProperties;
     private boolean autoLockRelease;
 
@@ -263,6 +300,119 @@ public class PollTableEntry extends AbstractPollTableEntry {
 		return fileProcessingCount;
 	}
 
+    public int getFileProcessingThreads() {
+        return fileProcessingThreads;
+    }
+
+    /**
+     * Get the executor that processes the files of a directory concurrently, creating it on first use.
+     *
+     * @return the executor, or null if the files are to be processed one at a time on the polling thread
+     */
+    public synchronized ExecutorService getFileProcessingExecutor() {
+        if (fileProcessingThreads <= 1 || canceled) {
+            return null;
+        }
+        if (fileProcessingExecutor == null) {
+            String prefix = "vfs-file-processor-" + getServiceName();
+            fileProcessingExecutor = Executors.newFixedThreadPool(fileProcessingThreads,
+                    new NativeThreadFactory(new ThreadGroup(prefix + " thread group"), prefix));
+        }
+        return fileProcessingExecutor;
+    }
+
+    public boolean isWatchDirectory() {
+        return watchDirectory;
+    }
+
+    public int getWatchStabilityInterval() {
+        return watchStabilityInterval;
+    }
+
+    public RecordSplitter.Mode getRecordSplitMode() {
+        return recordSplitMode;
+    }
+
+    public String getRecordDelimiter() {
+        return recordDelimiter;
+    }
+
+    public int getRecordBatchSize() {
+        return recordBatchSize;
+    }
+
+    public int getRecordMaxInFlight() {
+        return recordMaxInFlight;
+    }
+
+    public int getRecordCheckpointInterval() {
+        return recordCheckpointInterval;
+    }
+
+    /**
+     * Get the executor that mediates the records of a file concurrently, creating it on first use.
+     *
+     * @return the executor, or null if the records are to be mediated one at a time by the thread reading the file
+     */
+    public synchronized ExecutorService getRecordProcessingExecutor() {
+        if (recordMaxInFlight <= 1 || canceled) {
+            return null;
+        }
+        if (recordProcessingExecutor == null) {
+            String prefix = "vfs-record-processor-" + getServiceName();
+            recordProcessingExecutor = Executors.newFixedThreadPool(recordMaxInFlight,
+                    new NativeThreadFactory(new ThreadGroup(prefix + " thread group"), prefix));
+        }
+        return recordProcessingExecutor;
+    }
+
+    public synchronized LocalDirectoryWatcher getDirectoryWatcher() {
+        return directoryWatcher;
+    }
+
+    public synchronized void setDirectoryWatcher(LocalDirectoryWatcher directoryWatcher) {
+        this.directoryWatcher = directoryWatcher;
+    }
+
+    /**
+     * Mark a file as being processed, so that neither a later poll nor the directory watcher
+     * processes it again while it is being processed.
+     *
+     * @param fileURI URI of the file
+     * @return false if the file is already being processed
+     */
+    public boolean markFileInProcess(String fileURI) {
+        return filesInProcess.add(fileURI);
+    }
+
+    public void clearFileInProcess(String fileURI) {
+        filesInProcess.remove(fileURI);
+    }
+
+    /**
+     * Get the lock that serializes the processing of the files reported by the directory watcher
+     * with the polls of this entry.
+     *
+     * @return the lock
+     */
+    public Object getFileProcessingLock() {
+        return fileProcessingLock;
+    }
+
+    /**
+     * Stop the file and record processing threads, letting the files and records already handed to them finish.
+     */
+    public synchronized void shutdownFileProcessingExecutor() {
+        if (fileProcessingExecutor != null) {
+            fileProcessingExecutor.shutdown();
+            fileProcessingExecutor = null;
+        }
+        if (recordProcessingExecutor != null) {
+            recordProcessingExecutor.shutdown();
+            recordProcessingExecutor = null;
+        }
+    }
+
 	private void setMoveAfterProcess(String moveAfterProcess) throws AxisFault {
         if (moveAfterProcess == null) {
             this.moveAfterProcess = null;
@@ -754,6 +904,19 @@ public class PollTableEntry extends AbstractPollTableEntry {
                 }
             }
 
+            String strFileProcessingThreads = ParamUtils.getOptionalParam(params,
+                                                                          VFSConstants.TRANSPORT_FILE_PROCESS_THREADS);
+            fileProcessingThreads = VFSConstants.DEFAULT_TRANSPORT_FILE_PROCESS_THREADS;
+            if (strFileProcessingThreads != null) {
+                try {
+                    fileProcessingThreads = Math.max(1, Integer.parseInt(strFileProcessingThreads));
+                } catch (NumberFormatException nfe) {
+                    String message = "VFS File Processing Threads not set correctly. Current value is : "
+                             + strFileProcessingThreads;
+                    VFSTransportErrorHandler.logException(log, LogType.WARN, message, nfe);
+                }
+            }
+
             String strMinimumAge = ParamUtils.getOptionalParam(params, VFSConstants.TRANSPORT_FILE_MINIMUM_AGE);
             if(strMinimumAge != null){
                 try {
@@ -869,6 +1032,41 @@ public class PollTableEntry extends AbstractPollTableEntry {
 
             subfolderTimestamp = ParamUtils.getOptionalParam(params, VFSConstants.SUBFOLDER_TIMESTAMP);
             this.clusterAware = ParamUtils.getOptionalParamBoolean(params, VFSConstants.CLUSTER_AWARE, false);
+            this.watchDirectory = ParamUtils.getOptionalParamBoolean(params, VFSConstants.TRANSPORT_FILE_WATCH_DIRECTORY,
+                                                                     false);
+            this.watchStabilityInterval = Math.max(0, ParamUtils.getOptionalParamInt(params,
+                    VFSConstants.TRANSPORT_FILE_WATCH_STABILITY_INTERVAL,
+                    VFSConstants.DEFAULT_TRANSPORT_FILE_WATCH_STABILITY_INTERVAL));
+
+            String strRecordSplitMode = ParamUtils.getOptionalParam(params,
+                                                                    VFSConstants.TRANSPORT_FILE_RECORD_SPLIT_MODE);
+            recordSplitMode = null;
+            if (strRecordSplitMode != null) {
+                recordSplitMode = RecordSplitter.Mode.fromValue(strRecordSplitMode.trim());
+                if (recordSplitMode == null) {
+                    log.warn("VFS Record Split Mode is invalid : " + strRecordSplitMode
+                             + ", files will be processed as a single message");
+                }
+            }
+            recordDelimiter = ParamUtils.getOptionalParam(params, VFSConstants.TRANSPORT_FILE_RECORD_DELIMITER);
+            if (recordDelimiter != null) {
+                recordDelimiter = recordDelimiter.replace("\\n", "\n").replace("\\r", "\r")
+                        .replace("\\t", "\t");
+            }
+            if (recordSplitMode == RecordSplitter.Mode.DELIMITER
+                && (recordDelimiter == null || recordDelimiter.isEmpty())) {
+                VFSTransportErrorHandler.handleException(log, "Parameter "
+                        + VFSConstants.TRANSPORT_FILE_RECORD_DELIMITER + " is required to split records by delimiter");
+            }
+            this.recordBatchSize = Math.max(1, ParamUtils.getOptionalParamInt(params,
+                    VFSConstants.TRANSPORT_FILE_RECORD_BATCH_SIZE,
+                    VFSConstants.DEFAULT_TRANSPORT_FILE_RECORD_BATCH_SIZE));
+            this.recordMaxInFlight = Math.max(1, ParamUtils.getOptionalParamInt(params,
+                    VFSConstants.TRANSPORT_FILE_RECORD_MAX_IN_FLIGHT,
+                    VFSConstants.DEFAULT_TRANSPORT_FILE_RECORD_MAX_IN_FLIGHT));
+            this.recordCheckpointInterval = Math.max(0, ParamUtils.getOptionalParamInt(params,
+                    VFSConstants.TRANSPORT_FILE_RECORD_CHECKPOINT_INTERVAL,
+                    VFSConstants.DEFAULT_TRANSPORT_FILE_RECORD_CHECKPOINT_INTERVAL));
             return super.loadConfiguration(params);
         }
     }
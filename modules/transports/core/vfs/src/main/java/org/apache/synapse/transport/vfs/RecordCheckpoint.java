@@ -0,0 +1,244 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.apache.synapse.transport.vfs;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.synapse.commons.vfs.VFSUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps track of the record messages of a file that were mediated, and saves the offset in the
+ * file up to which all of them were mediated in a checkpoint file next to the file. If the server
+ * stops before the file is complete, the records before that offset are skipped the next time
+ * the file is processed.
+ * <p>
+ * Record messages may complete out of order when more than one of them is in flight, so the
+ * offset only moves past a message once all the messages before it have completed. The
+ * checkpoint file is deleted once all the records of the file were mediated. When a record
+ * message fails, the checkpoint file is kept until the file is moved or deleted, so that a file
+ * left in place resumes from the failed message.
+ */
+final class RecordCheckpoint {
+
+    private static final Log log = LogFactory.getLog(RecordCheckpoint.class);
+
+    static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    /** the checkpoint file, null if checkpoints are disabled or can not be saved */
+    private FileObject checkpointFile;
+    private final int interval;
+    private final long startOffset;
+
+    /** offset up to which all the record messages were mediated */
+    private long offset;
+    /** number of the message after the last one of the contiguous completed messages */
+    private long nextMessage;
+    /** end offsets of the messages completed ahead of an earlier message, by message number */
+    private final Map<Long, Long> completedAhead = new TreeMap<Long, Long>();
+    private int completedSinceSave;
+    private volatile boolean failed;
+
+    private RecordCheckpoint(FileObject checkpointFile, int interval, long startOffset) {
+        this.checkpointFile = checkpointFile;
+        this.interval = interval;
+        this.startOffset = startOffset;
+        this.offset = startOffset;
+    }
+
+    /**
+     * Open the checkpoint of a file, reading the offset saved for it if any.
+     *
+     * @param file     the file being split in to records
+     * @param interval number of record messages after which the offset is saved, 0 to not save it
+     * @return the checkpoint
+     */
+    static RecordCheckpoint open(FileObject file, int interval) {
+        if (interval <= 0) {
+            return new RecordCheckpoint(null, 0, 0);
+        }
+        FileObject checkpointFile = null;
+        long startOffset = 0;
+        try {
+            checkpointFile = resolveCheckpointFile(file);
+            if (checkpointFile != null) {
+                if (checkpointFile.exists()) {
+                    startOffset = readOffset(checkpointFile);
+                    if (startOffset < 0 || startOffset > file.getContent().getSize()) {
+                        log.warn("Ignoring the invalid checkpoint " + startOffset + " of file : "
+                                + VFSUtils.maskURLPassword(file.getName().getURI()));
+                        startOffset = 0;
+                    } else if (log.isDebugEnabled()) {
+                        log.debug("Resuming file : " + VFSUtils.maskURLPassword(file.getName().getURI())
+                                + " from offset " + startOffset);
+                    }
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Unable to read the checkpoint of file : "
+                    + VFSUtils.maskURLPassword(file.getName().getURI()) + ", processing it from the start", e);
+            startOffset = 0;
+        }
+        return new RecordCheckpoint(checkpointFile, interval, startOffset);
+    }
+
+    /**
+     * @return the offset saved when the file was last processed, records ending at or before it are skipped
+     */
+    long getStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return the offset up to which all the record messages completed so far were mediated
+     */
+    synchronized long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return whether a record message failed, after which no further records of the file are read
+     */
+    boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Record the completion of a record message.
+     *
+     * @param message   number of the message, starting at 0 for the first message of this run
+     * @param endOffset offset in the file just past the records of the message
+     * @param success   whether the message was mediated successfully
+     */
+    synchronized void completed(long message, long endOffset, boolean success) {
+        if (!success) {
+            failed = true;
+            return;
+        }
+        completedAhead.put(message, endOffset);
+        Long next;
+        while ((next = completedAhead.remove(nextMessage)) != null) {
+            offset = next;
+            nextMessage++;
+            completedSinceSave++;
+        }
+        if (checkpointFile != null && !failed && completedSinceSave >= interval) {
+            completedSinceSave = 0;
+            save();
+        }
+    }
+
+    /**
+     * Save the offset reached by a file whose record messages failed, and release the checkpoint
+     * file, which is kept until the file is moved or deleted.
+     */
+    synchronized void close() {
+        if (checkpointFile == null) {
+            return;
+        }
+        if (completedSinceSave > 0) {
+            completedSinceSave = 0;
+            save();
+        }
+        if (checkpointFile != null) {
+            close(checkpointFile);
+        }
+    }
+
+    /**
+     * Delete the checkpoint file, once all the records of the file were mediated.
+     */
+    synchronized void delete() {
+        if (checkpointFile == null) {
+            return;
+        }
+        try {
+            checkpointFile.delete();
+        } catch (IOException e) {
+            log.warn("Unable to delete the checkpoint file : "
+                    + VFSUtils.maskURLPassword(checkpointFile.getName().getURI()), e);
+        } finally {
+            close(checkpointFile);
+        }
+    }
+
+    /**
+     * Delete the checkpoint kept for a file whose record messages failed, once the file has been
+     * moved or deleted.
+     *
+     * @param file the file split in to records, at the location it was processed from
+     */
+    static void delete(FileObject file) {
+        FileObject checkpointFile = null;
+        try {
+            checkpointFile = resolveCheckpointFile(file);
+            if (checkpointFile != null && checkpointFile.exists()) {
+                checkpointFile.delete();
+            }
+        } catch (IOException e) {
+            log.warn("Unable to delete the checkpoint of file : "
+                    + VFSUtils.maskURLPassword(file.getName().getURI()), e);
+        } finally {
+            if (checkpointFile != null) {
+                close(checkpointFile);
+            }
+        }
+    }
+
+    private static FileObject resolveCheckpointFile(FileObject file) throws IOException {
+        FileObject parent = file.getParent();
+        return parent == null ? null : parent.resolveFile(file.getName().getBaseName() + CHECKPOINT_SUFFIX);
+    }
+
+    private void save() {
+        try (OutputStream out = checkpointFile.getContent().getOutputStream()) {
+            out.write(Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.warn("Unable to save the checkpoint file : "
+                    + VFSUtils.maskURLPassword(checkpointFile.getName().getURI())
+                    + ", checkpoints are disabled for this file", e);
+            close(checkpointFile);
+            checkpointFile = null;
+        }
+    }
+
+    private static long readOffset(FileObject checkpointFile) throws IOException {
+        try (InputStream in = checkpointFile.getContent().getInputStream()) {
+            return Long.parseLong(IOUtils.toString(in, StandardCharsets.UTF_8).trim());
+        } finally {
+            close(checkpointFile);
+        }
+    }
+
+    private static void close(FileObject file) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.debug("Error closing the checkpoint file", e);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.apache.synapse.transport.vfs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the records of a file one at a time, so that a file of any size can be processed
+ * with memory for a single record. A record is a line, the data between two occurrences of a
+ * delimiter, or an element of a top level JSON array. Empty records are skipped.
+ */
+final class RecordSplitter {
+
+    /**
+     * How a file is split in to records
+     */
+    enum Mode {
+        LINE("line"), DELIMITER("delimiter"), JSON_ARRAY("jsonArray");
+
+        private final String value;
+
+        Mode(String value) {
+            this.value = value;
+        }
+
+        /**
+         * @param value the value of the transport.vfs.RecordSplitMode parameter
+         * @return the mode, or null if the value is not a known mode
+         */
+        static Mode fromValue(String value) {
+            for (Mode mode : values()) {
+                if (mode.value.equalsIgnoreCase(value)) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A record, with the offset in the file just past its last byte
+     */
+    static final class Record {
+        private final byte[] data;
+        private final long endOffset;
+
+        private Record(byte[] data, long endOffset) {
+            this.data = data;
+            this.endOffset = endOffset;
+        }
+
+        byte[] getData() {
+            return data;
+        }
+
+        long getEndOffset() {
+            return endOffset;
+        }
+    }
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final InputStream in;
+    private final Mode mode;
+    private final byte[] delimiter;
+    private final RecordBuffer record = new RecordBuffer();
+
+    /** number of bytes read so far */
+    private long offset;
+    private boolean arrayStarted;
+    private boolean ended;
+
+    /**
+     * @param in        the file content, which should be buffered
+     * @param mode      how to split the file
+     * @param delimiter the record delimiter, for the DELIMITER mode
+     */
+    RecordSplitter(InputStream in, Mode mode, String delimiter) {
+        if (mode == Mode.DELIMITER && (delimiter == null || delimiter.isEmpty())) {
+            throw new IllegalArgumentException("A record delimiter is required to split records by delimiter");
+        }
+        this.in = in;
+        this.mode = mode;
+        this.delimiter = mode == Mode.DELIMITER ? delimiter.getBytes(StandardCharsets.UTF_8) : NEW_LINE;
+    }
+
+    /**
+     * @return the next record, or null once all the records have been read
+     * @throws IOException if the file can not be read, or is not a JSON array in the JSON_ARRAY mode
+     */
+    Record next() throws IOException {
+        Record next;
+        do {
+            if (ended) {
+                return null;
+            }
+            next = mode == Mode.JSON_ARRAY ? nextElement() : nextDelimited();
+        } while (next == null);
+        return next;
+    }
+
+    /**
+     * Join records in to the payload of a single message. Lines and delimited records are joined
+     * with their delimiter, JSON elements are joined in to a JSON array.
+     *
+     * @param records records to join
+     * @return the payload
+     */
+    byte[] join(List<byte[]> records) {
+        if (records.size() == 1) {
+            return records.get(0);
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        byte[] separator = mode == Mode.JSON_ARRAY ? new byte[]{','} : delimiter;
+        if (mode == Mode.JSON_ARRAY) {
+            payload.write('[');
+        }
+        for (int i = 0; i < records.size(); i++) {
+            if (i > 0) {
+                payload.write(separator, 0, separator.length);
+            }
+            payload.write(records.get(i), 0, records.get(i).length);
+        }
+        if (mode == Mode.JSON_ARRAY) {
+            payload.write(']');
+        }
+        return payload.toByteArray();
+    }
+
+    /**
+     * @return the next line or delimited record, or null if it is empty
+     */
+    private Record nextDelimited() throws IOException {
+        record.reset();
+        int b;
+        while ((b = read()) != -1) {
+            record.write(b);
+            if (b == delimiter[delimiter.length - 1] && record.endsWith(delimiter)) {
+                return toRecord(record.size() - delimiter.length);
+            }
+        }
+        ended = true;
+        return toRecord(record.size());
+    }
+
+    private Record toRecord(int length) {
+        byte[] data = record.buffer();
+        if (mode == Mode.LINE && length > 0 && data[length - 1] == '\r') {
+            length--;
+        }
+        if (isBlank(data, length)) {
+            return null;
+        }
+        return new Record(Arrays.copyOf(data, length), offset);
+    }
+
+    /**
+     * @return the next element of the top level JSON array, or null if it is empty
+     */
+    private Record nextElement() throws IOException {
+        int b;
+        if (!arrayStarted) {
+            b = skipWhitespace();
+            if (b != '[') {
+                throw new IOException("Expected a JSON array at offset " + (offset - 1));
+            }
+            arrayStarted = true;
+        }
+        record.reset();
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        long endOffset = offset;
+        while ((b = read()) != -1) {
+            if (inString) {
+                record.write(b);
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    inString = false;
+                }
+            } else if (depth == 0 && (b == ',' || b == ']')) {
+                if (b == ']') {
+                    ended = true;
+                }
+                return toElement(endOffset);
+            } else {
+                if (b == '"') {
+                    inString = true;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+                record.write(b);
+            }
+            if (!isWhitespace(b)) {
+                endOffset = offset;
+            }
+        }
+        throw new IOException("Unexpected end of the JSON array at offset " + offset);
+    }
+
+    private Record toElement(long endOffset) {
+        byte[] data = record.toByteArray();
+        int start = 0;
+        int end = data.length;
+        while (start < end && isWhitespace(data[start])) {
+            start++;
+        }
+        while (end > start && isWhitespace(data[end - 1])) {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        byte[] element = new byte[end - start];
+        System.arraycopy(data, start, element, 0, element.length);
+        return new Record(element, endOffset);
+    }
+
+    private int skipWhitespace() throws IOException {
+        int b;
+        do {
+            b = read();
+        } while (b != -1 && isWhitespace(b));
+        return b;
+    }
+
+    private int read() throws IOException {
+        int b = in.read();
+        if (b != -1) {
+            offset++;
+        }
+        return b;
+    }
+
+    private static boolean isBlank(byte[] data, int length) {
+        for (int i = 0; i < length; i++) {
+            if (!isWhitespace(data[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    /**
+     * The bytes of the record being read, which can be looked at without copying them
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+
+        /**
+         * @return the buffer, holding the record in its first {@link #size()} bytes
+         */
+        byte[] buffer() {
+            return buf;
+        }
+
+        boolean endsWith(byte[] suffix) {
+            if (count < suffix.length) {
+                return false;
+            }
+            for (int i = 0, start = count - suffix.length; i < suffix.length; i++) {
+                if (buf[start + i] != suffix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
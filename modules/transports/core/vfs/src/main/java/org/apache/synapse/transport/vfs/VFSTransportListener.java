@@ -38,6 +38,7 @@ import org.apache.axis2.transport.base.BaseUtils;
 import org.apache.axis2.transport.base.ManagementSupport;
 import org.apache.axis2.transport.base.threads.WorkerPool;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.AutoCloseInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -50,7 +51,6 @@ import org.apache.commons.vfs2.FileSystemManager;
 import org.apache.commons.vfs2.FileSystemOptions;
 import org.apache.commons.vfs2.FileType;
 import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
-import org.apache.commons.vfs2.impl.StandardFileSystemManager;
 import org.apache.commons.vfs2.provider.UriParser;
 import org.apache.synapse.commons.vfs.FileObjectDataSource;
 import org.apache.synapse.commons.vfs.VFSConstants;
@@ -62,19 +62,27 @@ import org.wso2.securevault.SecureVaultException;
 import org.wso2.securevault.commons.MiscellaneousUtil;
 import org.apache.synapse.transport.vfs.VFSTransportErrorHandler.LogType;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.MessageDigest;
 import java.text.SimpleDateFormat;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.mail.internet.ContentType;
 import javax.mail.internet.ParseException;
 
@@ -146,8 +154,15 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
     /** The VFS file system manager */
     private DefaultFileSystemManager fsManager = null;
 
+    /** Keeps the remote file systems polled open for reuse */
+    private FileSystemPool fileSystemPool = null;
+
     private WorkerPool workerPool = null;
 
+    /** Counts of the files processed by the directory watchers, folded in to the next poll of their entries */
+    private final Map<PollTableEntry, FileProcessingCounts> watchedFileCounts =
+            new ConcurrentHashMap<PollTableEntry, FileProcessingCounts>();
+
     private static final int STATE_STOPPED = 0;
 
     private static final int STATE_RUNNING = 1;
@@ -168,11 +183,9 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
     protected void doInit() throws AxisFault {
         super.doInit();
         try {
-            StandardFileSystemManager fsm = new StandardFileSystemManager();
-            fsm.setConfiguration(getClass().getClassLoader().getResource("providers.xml"));
-            fsm.init();
+            fileSystemPool = FileSystemPool.acquireSharedPool(getTransportInDescription());
             this.workerPool = super.workerPool;
-            setFsManager(fsm);
+            setFsManager(fileSystemPool.getFileSystemManager());
             Parameter lockFlagParam = getTransportInDescription().getParameter(VFSConstants.TRANSPORT_FILE_LOCKING);
             if (lockFlagParam != null) {
                 String strLockingFlag = lockFlagParam.getValue().toString();
@@ -189,7 +202,10 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
 
     @Override
     protected void poll(PollTableEntry entry) {
-        scanFileOrDirectory(entry, entry.getFileURI());
+        // the directory watcher does not process files while the entry is polled
+        synchronized (entry.getFileProcessingLock()) {
+            scanFileOrDirectory(entry, entry.getFileURI());
+        }
     }
 
     /**
@@ -237,7 +253,8 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
         while (wasError) {
             try {
                 retryCount++;
-                fileObject = getFsManager().resolveFile(fileURI, fso);
+                fileSystemPool.release(fileObject);
+                fileObject = fileSystemPool.resolveFile(fileURI, fso);
 
                 // Get if the file location is volume mounted
                 Map<String,String> queryParams = UriParser.extractQueryParams(fileURI);
@@ -254,6 +271,7 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
             } catch (FileSystemException e) {
                 closeCachedFileSystem(fileURI, fso);
                 if (retryCount >= maxRetryCount) {
+                    fileSystemPool.release(fileObject);
                     processFailure("Repeatedly failed to resolve the file URI: " +
                             VFSUtils.maskURLPassword(fileURI), e, entry);
                     return;
@@ -305,6 +323,13 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
                         isFailedRecord = isFailedRecord(fileObject, entry);
                     }
 
+                    if (fileObject.getType() == FileType.FOLDER) {
+                        // an empty directory, the files reported by the watcher since the last poll are all done
+                        FileProcessingCounts watchedCounts = watchedFileCounts.remove(entry);
+                        if (watchedCounts != null) {
+                            setLastPollState(entry, watchedCounts);
+                        }
+                    }
                     if (fileObject.getType() == FileType.FILE &&
                             !isFailedRecord) {
                         boolean runPostProcess = true;
@@ -388,15 +413,25 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
                     }
 
                 } else {
-                    int failCount = 0;
-                    int successCount = 0;
-                    int processCount = 0;
+                    // start from the files reported by the watcher since the last poll
+                    FileProcessingCounts watchedCounts = watchedFileCounts.remove(entry);
+                    final FileProcessingCounts counts =
+                            watchedCounts != null ? watchedCounts : new FileProcessingCounts();
+                    final int watchedProcessCount = counts.processCount.get();
+                    int dispatchCount = 0;
                     Integer iFileProcessingInterval = entry.getFileProcessingInterval();
                     Integer iFileProcessingCount = entry.getFileProcessingCount();
+                    // remote file systems are not thread safe, so only local files are processed concurrently
+                    ExecutorService executor = VFSConstants.SCHEME_FILE.equals(fileObject.getName().getScheme())
+                            ? entry.getFileProcessingExecutor() : null;
+                    List<Future<?>> dispatched = new ArrayList<Future<?>>();
+                    final FileSystemOptions fileSystemOptions = fso;
 
                     if (log.isDebugEnabled()) {
                         log.debug("File name pattern : " + entry.getFileNamePattern());
                     }
+                    // Read the attributes used to sort and filter the files once for this poll
+                    FileAttributesSnapshot[] snapshots = FileAttributesSnapshot.snapshot(entry, children);
                     // Sort the files
                     String strSortParam = entry.getFileSortParam();
                     if (strSortParam != null) {
@@ -406,33 +441,15 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
                             log.debug("Sorting the files by : " + strSortParam + ". ("
                                     + bSortOrderAsscending + ")");
                         }
-                        if (strSortParam.equals(VFSConstants.FILE_SORT_VALUE_NAME)
-                                && bSortOrderAsscending) {
-                            Arrays.sort(children, new FileNameAscComparator());
-                        } else if (strSortParam.equals(VFSConstants.FILE_SORT_VALUE_NAME)
-                                && !bSortOrderAsscending) {
-                            Arrays.sort(children, new FileNameDesComparator());
-                        } else if (strSortParam.equals(VFSConstants.FILE_SORT_VALUE_SIZE)
-                                && bSortOrderAsscending) {
-                            Arrays.sort(children, new FileSizeAscComparator());
-                        } else if (strSortParam.equals(VFSConstants.FILE_SORT_VALUE_SIZE)
-                                && !bSortOrderAsscending) {
-                            Arrays.sort(children, new FileSizeDesComparator());
-                        } else if (strSortParam
-                                .equals(VFSConstants.FILE_SORT_VALUE_LASTMODIFIEDTIMESTAMP)
-                                && bSortOrderAsscending) {
-                            Arrays.sort(children, new FileLastmodifiedtimestampAscComparator());
-                        } else if (strSortParam
-                                .equals(VFSConstants.FILE_SORT_VALUE_LASTMODIFIEDTIMESTAMP)
-                                && !bSortOrderAsscending) {
-                            Arrays.sort(children, new FileLastmodifiedtimestampDesComparator());
-                        }
+                        FileAttributesSnapshot.sort(snapshots, strSortParam, bSortOrderAsscending);
                         log.debug("End Sorting the files.");
-                    }                 
-                    for (FileObject child : children) {
+                    }
+                    for (FileAttributesSnapshot snapshot : snapshots) {
+                        final FileObject child = snapshot.getFile();
                         // Stop processing any further when put to maintenance mode (shutting down or restarting)
                         // Stop processing when service get undeployed
                         if (state != BaseConstants.STARTED || !entry.getService().isActive()) {
+                            awaitFileProcessing(dispatched);
                             return;
                         }
                         /**
@@ -445,15 +462,20 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
                         if(child.getName().getBaseName().endsWith(".lock")){
                             continue;
                         }
+                        //skipping the checkpoints of files split in to records
+                        if (entry.getRecordSplitMode() != null
+                                && child.getName().getBaseName().endsWith(RecordCheckpoint.CHECKPOINT_SUFFIX)) {
+                            continue;
+                        }
                         //skipping subfolders
                         if (child.getType() != FileType.FILE) {
                             continue;
                         }
                         //skipping files depending on size limitation
-                        if (entry.getFileSizeLimit() >= 0 && child.getContent().getSize() > entry.getFileSizeLimit()) {
+                        if (entry.getFileSizeLimit() >= 0 && snapshot.getSize() > entry.getFileSizeLimit()) {
                             if (log.isDebugEnabled()) {
                                 log.debug("Ignoring file - " + child.getName().getBaseName() + " size - " +
-                                          child.getContent().getSize() + " since it exceeds file size limit - " +
+                                          snapshot.getSize() + " since it exceeds file size limit - " +
                                           entry.getFileSizeLimit());
                             }
                             continue;
@@ -464,7 +486,7 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
                         }
 
                         if(entry.getMinimumAge() != null){
-                            long age = child.getContent().getLastModifiedTime();
+                            long age = snapshot.getLastModifiedTime();
                             long time = System.currentTimeMillis();
                             if((time-age)/1000 <= entry.getMinimumAge()){
                                 continue;
@@ -472,13 +494,14 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
                         }
                         
                         if(entry.getMaximumAge() != null){
-                            long age = child.getContent().getLastModifiedTime();
+                            long age = snapshot.getLastModifiedTime();
                             long time = System.currentTimeMillis();
                             if((time-age)/1000 >= entry.getMaximumAge()){
                                 continue;
                             }
                         }
                         
+                        boolean dispatchedChild = false;
                         if(entry.getFileNamePattern()!=null &&
                                 child.getName().getBaseName().matches(entry.getFileNamePattern())){
                             //child's file name matches the file name pattern
@@ -494,67 +517,34 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
                             if (log.isDebugEnabled()) {
                                 log.debug("Matching file : " + child.getName().getBaseName());
                             }
-                            boolean runPostProcess = true;
-                            if((!entry.isFileLockingEnabled()
-                                    || (entry.isFileLockingEnabled()
-                                        && acquireLock(getFsManager(), child, entry, fso, true)))
-                                    && !isFailedRecord){
-                                //process the file
+                            if (!entry.markFileInProcess(child.getName().getURI())) {
+                                if (log.isDebugEnabled()) {
+                                    log.debug("File " + VFSUtils.maskURLPassword(child.getName().getURI())
+                                            + " is still being processed");
+                                }
+                            } else if (executor == null) {
                                 try {
-                                    if (log.isDebugEnabled()) {
-                                        log.debug("Processing file :"
-                                        		+ VFSUtils.maskURLPassword(child.toString()));
-                                    }
-                                    processCount++;
-
-                                    if (child.getType() == FileType.FILE) {
-                                        boolean status = processFile(entry, child);
-                                        if (status) {
-                                            successCount++;
-                                            entry.setLastPollState(PollTableEntry.SUCCSESSFUL);
-                                        } else {
-                                            entry.setLastPollState(PollTableEntry.FAILED);
-                                        }
-                                        metrics.incrementMessagesReceived();
-                                    } else {
-                                        runPostProcess = false;
-                                    }
-                                } catch (Exception e) {
-                                    if (e.getCause() instanceof FileNotFoundException) {
-                                        log.warn("Error processing File URI : " +
-                                                 VFSUtils.maskURLPassword(child.getName().toString()) +
-                                                 ". This can be due to file moved from another process.");
-                                        runPostProcess = false;
-                                    } else {
-                                        logException("Error processing File URI : " +
-                                                     VFSUtils.maskURLPassword(child.getName().getURI()), e);
-                                        failCount++;
-                                        // tell moveOrDeleteAfterProcessing() file failed
-                                        entry.setLastPollState(PollTableEntry.FAILED);
-                                        metrics.incrementFaultsReceiving();
-                                    }
+                                    processChild(entry, child, isFailedRecord, fileSystemOptions, counts);
+                                } finally {
+                                    entry.clearFileInProcess(child.getName().getURI());
                                 }
-                                //skipping un-locking file if failed to do delete/move after process
-                                boolean skipUnlock = false;
-                                if (runPostProcess) {
-                                    try {
-                                        moveOrDeleteAfterProcessing(entry, child, fso);
-                                    } catch (AxisFault axisFault) {
-                                        logException(
-                                                "File object '" + VFSUtils.maskURLPassword(child.getURL().toString()) +
-                                                "'cloud not be moved, will remain in \"locked\" state", axisFault);
-                                        skipUnlock = true;
-                                        failCount++;
-                                        entry.setLastPollState(PollTableEntry.FAILED);
-                                        String timeStamp =
-                                                VFSUtils.getSystemTime(entry.getFailedRecordTimestampFormat());
-                                        addFailedRecord(entry, child, timeStamp);
+                            } else {
+                                // files are handed over in the sorted order, but may complete in any order
+                                final boolean isFailedChild = isFailedRecord;
+                                dispatched.add(executor.submit(new Runnable() {
+                                    public void run() {
+                                        try {
+                                            if (!entry.isCanceled()) {
+                                                processChild(entry, child, isFailedChild, fileSystemOptions, counts);
+                                            }
+                                        } finally {
+                                            close(child);
+                                            entry.clearFileInProcess(child.getName().getURI());
+                                        }
                                     }
-                                }
-                                // if there is a failure or not we'll try to release the lock
-                                if (entry.isFileLockingEnabled() && !skipUnlock) {
-                                    VFSUtils.releaseLock(getFsManager(), child, fso);
-                                }
+                                }));
+                                dispatchedChild = true;
+                                dispatchCount++;
                             }
                         }else if(entry.getFileNamePattern()!=null &&
                                 !child.getName().getBaseName().matches(entry.getFileNamePattern())){
@@ -579,7 +569,9 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
                                 		+ "process");
                             }
                         }
-                        close(child);
+                        if (!dispatchedChild) {
+                            close(child);
+                        }
 
                         if(iFileProcessingInterval != null && iFileProcessingInterval > 0){
                         	try{
@@ -591,18 +583,14 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
                                 log.error("Unable to set the interval between file processors." + ie);
                                 Thread.currentThread().interrupt();
                         	}
-                        }else if(iFileProcessingCount != null && iFileProcessingCount <= processCount){
+                        }else if(iFileProcessingCount != null && iFileProcessingCount <= (executor == null
+                                ? counts.processCount.get() - watchedProcessCount : dispatchCount)){
                         	break;
                         }
                     }
-
-                    if (failCount == 0 && successCount > 0) {
-                        entry.setLastPollState(PollTableEntry.SUCCSESSFUL);
-                    } else if (successCount == 0 && failCount > 0) {
-                        entry.setLastPollState(PollTableEntry.FAILED);
-                    } else {
-                        entry.setLastPollState(PollTableEntry.WITH_ERRORS);
-                    }
+                    // the poll completes only once all the files handed over have been processed
+                    awaitFileProcessing(dispatched);
+                    setLastPollState(entry, counts);
                 }
 
                 // processing of this poll table entry is complete
@@ -641,13 +629,201 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
         } catch (Exception ex) {
             closeFileSystem(fileObject);
             processFailure("Un-handled exception thrown when processing the file : ", ex, entry);
+        } finally {
+            fileSystemPool.release(fileObject);
+        }
+    }
+
+    /**
+     * Lock, process and move or delete a file of a polled directory
+     * @param entry the poll table entry for the directory
+     * @param child the file to process
+     * @param isFailedRecord whether the file has been marked as a failed record
+     * @param fso the file system options of the poll table entry
+     * @param counts the counts of the files processed in this poll, to be updated
+     */
+    private void processChild(PollTableEntry entry, FileObject child, boolean isFailedRecord,
+                              FileSystemOptions fso, FileProcessingCounts counts) {
+        boolean runPostProcess = true;
+        // the state of this file only, the state of the entry is derived from the counts once the poll completes
+        int fileState = PollTableEntry.NONE;
+        if((!entry.isFileLockingEnabled()
+                || (entry.isFileLockingEnabled()
+                    && acquireLock(getFsManager(), child, entry, fso, true)))
+                && !isFailedRecord){
+            //process the file
+            try {
+                if (log.isDebugEnabled()) {
+                    log.debug("Processing file :"
+                    		+ VFSUtils.maskURLPassword(child.toString()));
+                }
+                counts.processCount.incrementAndGet();
+
+                if (child.getType() == FileType.FILE) {
+                    boolean status = processFile(entry, child);
+                    if (status) {
+                        counts.successCount.incrementAndGet();
+                        fileState = PollTableEntry.SUCCSESSFUL;
+                    } else {
+                        fileState = PollTableEntry.FAILED;
+                    }
+                    metrics.incrementMessagesReceived();
+                } else {
+                    runPostProcess = false;
+                }
+            } catch (Exception e) {
+                if (e.getCause() instanceof FileNotFoundException) {
+                    log.warn("Error processing File URI : " +
+                             VFSUtils.maskURLPassword(child.getName().toString()) +
+                             ". This can be due to file moved from another process.");
+                    runPostProcess = false;
+                } else {
+                    logException("Error processing File URI : " +
+                                 VFSUtils.maskURLPassword(child.getName().getURI()), e);
+                    counts.failCount.incrementAndGet();
+                    // tell moveOrDeleteAfterProcessing() file failed
+                    fileState = PollTableEntry.FAILED;
+                    metrics.incrementFaultsReceiving();
+                }
+            }
+            //skipping un-locking file if failed to do delete/move after process
+            boolean skipUnlock = false;
+            if (runPostProcess) {
+                try {
+                    moveOrDeleteAfterProcessing(entry, child, fso, fileState);
+                } catch (AxisFault axisFault) {
+                    logException(
+                            "File object '" + VFSUtils.maskURLPassword(child.getName().getURI()) +
+                            "'cloud not be moved, will remain in \"locked\" state", axisFault);
+                    skipUnlock = true;
+                    counts.failCount.incrementAndGet();
+                    String timeStamp =
+                            VFSUtils.getSystemTime(entry.getFailedRecordTimestampFormat());
+                    addFailedRecord(entry, child, timeStamp);
+                }
+            }
+            // if there is a failure or not we'll try to release the lock
+            if (entry.isFileLockingEnabled() && !skipUnlock) {
+                VFSUtils.releaseLock(getFsManager(), child, fso);
+            }
+        }
+    }
+
+    /**
+     * Set the state of a poll table entry from the counts of the files processed
+     * @param entry the poll table entry
+     * @param counts the counts of the files processed
+     */
+    private void setLastPollState(PollTableEntry entry, FileProcessingCounts counts) {
+        int failCount = counts.failCount.get();
+        int successCount = counts.successCount.get();
+        if (failCount == 0 && successCount > 0) {
+            entry.setLastPollState(PollTableEntry.SUCCSESSFUL);
+        } else if (successCount == 0 && failCount > 0) {
+            entry.setLastPollState(PollTableEntry.FAILED);
+        } else {
+            entry.setLastPollState(PollTableEntry.WITH_ERRORS);
+        }
+    }
+
+    /**
+     * Process a file reported complete by the directory watcher of a poll table entry, applying
+     * the checks a poll applies to the files it lists. Files these checks skip for now are left
+     * for the polls to pick up. The file is processed in between the polls of the entry, and
+     * counted in the state of its next poll.
+     * @param entry the poll table entry watching the directory
+     * @param file the file to process
+     */
+    private void processWatchedFile(PollTableEntry entry, File file) {
+        if (state != BaseConstants.STARTED || entry.isCanceled() || !entry.getService().isActive()) {
+            return;
+        }
+        String fileName = file.getName();
+        if (fileName.endsWith(".lock")
+                || (entry.getRecordSplitMode() != null && fileName.endsWith(RecordCheckpoint.CHECKPOINT_SUFFIX))
+                || entry.getFileNamePattern() == null
+                || !fileName.matches(entry.getFileNamePattern())) {
+            return;
+        }
+        if (entry.getFileSizeLimit() >= 0 && file.length() > entry.getFileSizeLimit()) {
+            return;
+        }
+        long age = (System.currentTimeMillis() - file.lastModified()) / 1000;
+        if ((entry.getMinimumAge() != null && age <= entry.getMinimumAge())
+                || (entry.getMaximumAge() != null && age >= entry.getMaximumAge())) {
+            return;
+        }
+
+        synchronized (entry.getFileProcessingLock()) {
+            // a poll may have processed the file while this thread was waiting for it
+            if (entry.isCanceled() || !file.isFile()) {
+                return;
+            }
+            FileObject child;
+            FileSystemOptions fso;
+            try {
+                fso = VFSUtils.attachFileSystemOptions(entry.getVfsSchemeProperties(), getFsManager());
+                child = getFsManager().resolveFile(file.toURI().toString(), fso);
+            } catch (Exception e) {
+                VFSTransportErrorHandler.logException(log, LogType.ERROR, "Error resolving the watched file : "
+                        + file, entry.getServiceName(), e);
+                return;
+            }
+            String fileURI = child.getName().getURI();
+            if (!entry.markFileInProcess(fileURI)) {
+                close(child);
+                return;
+            }
+            try {
+                if (log.isDebugEnabled()) {
+                    log.debug("Matching watched file : " + fileName);
+                }
+                boolean isFailedRecord = entry.getMoveAfterMoveFailure() != null && isFailedRecord(child, entry);
+                FileProcessingCounts counts = watchedFileCounts.get(entry);
+                if (counts == null) {
+                    counts = new FileProcessingCounts();
+                    watchedFileCounts.put(entry, counts);
+                }
+                processChild(entry, child, isFailedRecord, fso, counts);
+            } finally {
+                close(child);
+                entry.clearFileInProcess(fileURI);
+            }
+        }
+    }
+
+    /**
+     * Wait for the files handed over to the file processing threads of a poll table entry
+     * @param dispatched the pending results of the files handed over
+     */
+    private void awaitFileProcessing(List<Future<?>> dispatched) {
+        for (Future<?> future : dispatched) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while waiting for the files being processed");
+                return;
+            } catch (ExecutionException e) {
+                logException("Error processing file", e);
+            }
         }
     }
 
+    /**
+     * Counts of the files processed in a poll, updated by the file processing threads
+     */
+    private static final class FileProcessingCounts {
+        private final AtomicInteger processCount = new AtomicInteger();
+        private final AtomicInteger successCount = new AtomicInteger();
+        private final AtomicInteger failCount = new AtomicInteger();
+    }
+
     @Override
     public void destroy() {
         super.destroy();
-        getFsManager().close();
+        FileSystemPool.releaseSharedPool(fileSystemPool);
+        fileSystemPool = null;
     }
 
     private void close(FileObject fileObject) {
@@ -663,7 +839,7 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
         try {
             //Close the File system if it is not already closed by the finally block of processFile method
             if (fileObject != null && getFsManager() != null && fileObject.getParent() != null  && fileObject.getParent().getFileSystem() != null) {
-                getFsManager().closeFileSystem(fileObject.getParent().getFileSystem());
+                fileSystemPool.closeFileSystem(fileObject.getParent().getFileSystem());
                 fileObject.close();
                 setFileSystemClosed(true);
             }
@@ -697,11 +873,22 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
      */
     protected void moveOrDeleteAfterProcessing(final PollTableEntry entry, FileObject fileObject, FileSystemOptions fso)
             throws AxisFault {
+        moveOrDeleteAfterProcessing(entry, fileObject, fso, entry.getLastPollState());
+    }
+
+    /**
+     * Take specified action to either move or delete the processed file, depending on the outcome
+     * @param entry the PollTableEntry for the file that has been processed
+     * @param fileObject the FileObject representing the file to be moved or deleted
+     * @param fileState the outcome of processing this file, as one of the poll states of the entry
+     */
+    private void moveOrDeleteAfterProcessing(final PollTableEntry entry, FileObject fileObject,
+                                             FileSystemOptions fso, int fileState) throws AxisFault {
 
         String serviceName = entry.getServiceName();
         String moveToDirectoryURI = null;
         try {
-            switch (entry.getLastPollState()) {
+            switch (fileState) {
                 case PollTableEntry.SUCCSESSFUL:
                     if (entry.getActionAfterProcess() == PollTableEntry.NONE) {
                         return;
@@ -809,6 +996,11 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
                     VFSTransportErrorHandler.handleException(log, msg, serviceName, e);
                 }
             }
+            if (fileState == PollTableEntry.FAILED && entry.getRecordSplitMode() != null
+                    && entry.getRecordCheckpointInterval() > 0) {
+                // the checkpoint of a file whose records failed is kept until the file is gone
+                RecordCheckpoint.delete(fileObject);
+            }
 
         } catch (FileSystemException e) {
             closeFileSystem(fileObject);
@@ -907,6 +1099,10 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
                 }
             }
 
+            if (entry.getRecordSplitMode() != null) {
+                return processRecords(entry, file, builder, contentType, msgContext, transportHeaders);
+            }
+
             // set the message payload to the message context
             InputStream in;
             ManagedDataSource dataSource;
@@ -915,7 +1111,7 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
                 dataSource = ManagedDataSourceFactory.create(
                         new FileObjectDataSource(file, contentType));
             } else {
-                in = new AutoCloseInputStream(content.getInputStream());
+                in = new AutoCloseInputStream(VFSUtils.getInputStream(file));
                 dataSource = null;
             }
 
@@ -946,6 +1142,8 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
              if(dataSource != null) {
 					dataSource.destroy();
 				}
+             // a local file is not read through VFS, closing the file does not close its stream
+             IOUtils.closeQuietly(in);
             }
 
             if (log.isDebugEnabled()) {
@@ -976,6 +1174,122 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
         return processFileStatus;
     }
 
+    /**
+     * Split a file in to records and inject them as separate messages of the configured number of
+     * records each, with at most the configured number of messages being mediated at a time. The
+     * file is read one record at a time, so that memory use does not depend on the size of the
+     * file. No further records are read once a message fails.
+     * @param entry the PollTableEntry for the file
+     * @param file the file to split
+     * @param builder the message builder for the content type of the file
+     * @param contentType the content type of the file
+     * @param fileMsgContext the message context created for the file, holding the properties to copy to the
+     *                       record messages
+     * @param transportHeaders the transport headers of the file
+     * @return whether all the record messages were mediated successfully
+     * @throws AxisFault if the file can not be read or split
+     */
+    private boolean processRecords(final PollTableEntry entry, FileObject file, final Builder builder,
+                                   final String contentType, final MessageContext fileMsgContext,
+                                   final Map<String, Object> transportHeaders) throws AxisFault {
+        final RecordCheckpoint checkpoint = RecordCheckpoint.open(file, entry.getRecordCheckpointInterval());
+        ExecutorService executor = entry.getRecordProcessingExecutor();
+        int maxInFlight = entry.getRecordMaxInFlight();
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        long messageCount = 0;
+        try (InputStream in = new BufferedInputStream(VFSUtils.getInputStream(file))) {
+            final RecordSplitter splitter = new RecordSplitter(in, entry.getRecordSplitMode(),
+                                                               entry.getRecordDelimiter());
+            List<byte[]> records = new ArrayList<byte[]>();
+            long endOffset = 0;
+            RecordSplitter.Record record;
+            do {
+                record = checkpoint.isFailed() ? null : splitter.next();
+                if (record != null) {
+                    if (record.getEndOffset() <= checkpoint.getStartOffset()) {
+                        // injected before the server stopped
+                        continue;
+                    }
+                    records.add(record.getData());
+                    endOffset = record.getEndOffset();
+                }
+                if (records.size() < entry.getRecordBatchSize()
+                        && (record != null || records.isEmpty() || checkpoint.isFailed())) {
+                    continue;
+                }
+                final long message = messageCount++;
+                final long messageEndOffset = endOffset;
+                final byte[] payload = splitter.join(records);
+                records = new ArrayList<byte[]>();
+                inFlight.acquireUninterruptibly();
+                Runnable task = new Runnable() {
+                    public void run() {
+                        try {
+                            checkpoint.completed(message, messageEndOffset, injectRecords(entry, builder,
+                                    contentType, fileMsgContext, transportHeaders, payload, messageEndOffset));
+                        } finally {
+                            inFlight.release();
+                        }
+                    }
+                };
+                if (executor == null) {
+                    task.run();
+                } else {
+                    try {
+                        executor.execute(task);
+                    } catch (RejectedExecutionException e) {
+                        // the endpoint is being stopped, finish the file on this thread
+                        task.run();
+                    }
+                }
+            } while (record != null);
+        } catch (IOException e) {
+            checkpoint.completed(messageCount, 0, false);
+            handleException("Error splitting the records of file : "
+                    + VFSUtils.maskURLPassword(file.toString()), e);
+        } finally {
+            // wait for the messages in flight before the file is moved or deleted
+            inFlight.acquireUninterruptibly(maxInFlight);
+            if (checkpoint.isFailed()) {
+                checkpoint.close();
+            } else {
+                checkpoint.delete();
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Processed " + messageCount + " record messages of file : "
+                    + VFSUtils.maskURLPassword(file.toString()) + " of Content-type : " + contentType);
+        }
+        return !checkpoint.isFailed();
+    }
+
+    /**
+     * Inject a message holding records split from a file.
+     * @return whether the message was mediated successfully
+     */
+    private boolean injectRecords(PollTableEntry entry, Builder builder, String contentType,
+                                  MessageContext fileMsgContext, Map<String, Object> fileTransportHeaders,
+                                  byte[] payload, long endOffset) {
+        Map<String, Object> transportHeaders = new HashMap<String, Object>(fileTransportHeaders);
+        transportHeaders.put(VFSConstants.RECORD_OFFSET, endOffset);
+        try {
+            MessageContext msgContext = entry.createMessageContext();
+            msgContext.setProperty(Constants.Configuration.CHARACTER_SET_ENCODING,
+                    fileMsgContext.getProperty(Constants.Configuration.CHARACTER_SET_ENCODING));
+            msgContext.setProperty(Constants.OUT_TRANSPORT_INFO,
+                    fileMsgContext.getProperty(Constants.OUT_TRANSPORT_INFO));
+            OMElement documentElement = builder.processDocument(new ByteArrayInputStream(payload), contentType,
+                                                                msgContext);
+            msgContext.setEnvelope(TransportUtils.createSOAPEnvelope(documentElement));
+            handleIncomingMessage(msgContext, transportHeaders, null, contentType);
+        } catch (Exception e) {
+            log.error("Error processing the records ending at offset " + endOffset + " of file : "
+                    + VFSUtils.maskURLPassword((String) fileTransportHeaders.get(VFSConstants.FILE_URI)), e);
+            return false;
+        }
+        return StringUtils.isEmpty((String) transportHeaders.get(VFSConstants.ERROR_CODE));
+    }
+
     @Override
     protected PollTableEntry createEndpoint() {
         PollTableEntry entry = new PollTableEntry(globalFileLockingFlag);
@@ -983,11 +1297,45 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
         return entry;
     }
 
+    @Override
+    protected void startEndpoint(final PollTableEntry endpoint) throws AxisFault {
+        super.startEndpoint(endpoint);
+        if (!endpoint.isWatchDirectory()) {
+            return;
+        }
+        File directory = LocalDirectoryWatcher.toLocalDirectory(endpoint.getFileURI());
+        if (directory == null) {
+            VFSTransportErrorHandler.logException(log, LogType.WARN, "Only local directories can be watched, "
+                    + "polling " + VFSUtils.maskURLPassword(endpoint.getFileURI()), endpoint.getServiceName());
+            return;
+        }
+        LocalDirectoryWatcher watcher = new LocalDirectoryWatcher(directory, endpoint.getWatchStabilityInterval(),
+                new LocalDirectoryWatcher.FileHandler() {
+                    public void handle(File file) {
+                        processWatchedFile(endpoint, file);
+                    }
+                });
+        try {
+            watcher.start();
+            endpoint.setDirectoryWatcher(watcher);
+        } catch (IOException e) {
+            VFSTransportErrorHandler.logException(log, LogType.WARN, "Unable to watch directory " + directory
+                    + ", polling it instead", endpoint.getServiceName(), e);
+        }
+    }
+
     @Override
     protected void stopEndpoint(PollTableEntry endpoint) {
         synchronized (endpoint) {
             endpoint.setCanceled(true);
         }
+        LocalDirectoryWatcher watcher = endpoint.getDirectoryWatcher();
+        if (watcher != null) {
+            watcher.stop();
+            endpoint.setDirectoryWatcher(null);
+        }
+        watchedFileCounts.remove(endpoint);
+        endpoint.shutdownFileProcessingExecutor();
         super.stopEndpoint(endpoint);
     }
 
@@ -1182,73 +1530,6 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
         isFileSystemClosed = fileSystemClosed;
     }
 
-    /**
-     * Comparator classed used to sort the files according to user input
-     * */
-    class FileNameAscComparator implements Comparator<FileObject> {
-        public int compare(FileObject o1, FileObject o2) {
-            return o1.getName().compareTo(o2.getName());
-        }
-    }
-
-    class FileLastmodifiedtimestampAscComparator implements Comparator<FileObject> {
-        public int compare(FileObject o1, FileObject o2) {
-            Long lDiff = 0l;
-            try {
-                lDiff = o1.getContent().getLastModifiedTime()
-                        - o2.getContent().getLastModifiedTime();
-            } catch (FileSystemException e) {
-                String message = "Unable to compare lastmodified timestamp of the two files.";
-                VFSTransportErrorHandler.logException(log, LogType.WARN, message, e);
-            }
-            return lDiff.intValue();
-        }
-    }
-
-    class FileSizeAscComparator implements Comparator<FileObject> {
-        public int compare(FileObject o1, FileObject o2) {
-            Long lDiff = 0l;
-            try {
-                lDiff = o1.getContent().getSize() - o2.getContent().getSize();
-            } catch (FileSystemException e) {
-                VFSTransportErrorHandler.logException(log, LogType.WARN, "Unable to compare size of the two files.", e);
-            }
-            return lDiff.intValue();
-        }
-    }
-
-    class FileNameDesComparator implements Comparator<FileObject> {
-        public int compare(FileObject o1, FileObject o2) {
-            return o2.getName().compareTo(o1.getName());
-        }
-    }
-
-    class FileLastmodifiedtimestampDesComparator implements Comparator<FileObject> {
-        public int compare(FileObject o1, FileObject o2) {
-            Long lDiff = 0l;
-            try {
-                lDiff = o2.getContent().getLastModifiedTime()
-                        - o1.getContent().getLastModifiedTime();
-            } catch (FileSystemException e) {
-                VFSTransportErrorHandler.logException(log, LogType.WARN,
-                        "Unable to compare lastmodified timestamp of the two files.", e);
-            }
-            return lDiff.intValue();
-        }
-    }
-
-    class FileSizeDesComparator implements Comparator<FileObject> {
-        public int compare(FileObject o1, FileObject o2) {
-            Long lDiff = 0l;
-            try {
-                lDiff = o2.getContent().getSize() - o1.getContent().getSize();
-            } catch (FileSystemException e) {
-                VFSTransportErrorHandler.logException(log, LogType.WARN, "Unable to compare size of the two files.", e);
-            }
-            return lDiff.intValue();
-        }
-    }
-
     /**
      * Verifies if the given md5 is the md5 of an Empty File
      * @param entry current poll
@@ -1286,8 +1567,8 @@ public class VFSTransportListener extends AbstractPollingTransportListener<PollT
             log.debug("Check if file is still uploading. Now sleep "+checkSizeInterval+" ms");
             Thread.sleep(checkSizeInterval);
             //get second MD5
-            //clear cache and refresh
-            fsManager.getFilesCache().close();
+            //clear the cached file and refresh, the cache of the other files is shared with the sender
+            fsManager.getFilesCache().removeFile(child.getFileSystem(), child.getName());
             child.refresh();
             String md5AfterSleep = getMD5Checksum(child);
             if (!md5.equals(md5AfterSleep)) {
@@ -40,7 +40,6 @@ import org.apache.commons.vfs2.FileSystemManager;
 import org.apache.commons.vfs2.FileSystemOptions;
 import org.apache.commons.vfs2.FileType;
 import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
-import org.apache.commons.vfs2.impl.StandardFileSystemManager;
 import org.apache.synapse.commons.vfs.VFSConstants;
 import org.apache.synapse.commons.vfs.VFSOutTransportInfo;
 import org.apache.synapse.commons.vfs.VFSParamDTO;
@@ -63,6 +62,9 @@ public class VFSTransportSender extends AbstractTransportSender implements Manag
     /** The VFS file system manager */
     private FileSystemManager fsManager = null;
 
+    /** Keeps the remote file systems written to open for reuse */
+    private FileSystemPool fileSystemPool = null;
+
     /**
      * By default file locking in VFS transport is turned on at a global level
      *
@@ -96,10 +98,8 @@ public class VFSTransportSender extends AbstractTransportSender implements Manag
 
         super.init(cfgCtx, transportOut);
         try {
-            StandardFileSystemManager fsm = new StandardFileSystemManager();
-            fsm.setConfiguration(getClass().getClassLoader().getResource("providers.xml"));
-            fsm.init();
-            setFsManager(fsm);
+            fileSystemPool = FileSystemPool.acquireSharedPool(transportOut);
+            setFsManager(fileSystemPool.getFileSystemManager());
             Parameter lckFlagParam = transportOut.getParameter(VFSConstants.TRANSPORT_FILE_LOCKING);
             if (lckFlagParam != null) {
                 String strLockingFlag = lckFlagParam.getValue().toString();
@@ -163,6 +163,13 @@ public class VFSTransportSender extends AbstractTransportSender implements Manag
         }
     }
 
+    @Override
+    public void stop() {
+        super.stop();
+        FileSystemPool.releaseSharedPool(fileSystemPool);
+        fileSystemPool = null;
+    }
+
     /**
      * Send the given message over the VFS transport
      *
@@ -236,7 +243,7 @@ public class VFSTransportSender extends AbstractTransportSender implements Manag
                     
                     try {
                         retryCount++;
-                        replyFile = getFsManager().resolveFile(vfsOutInfo.getOutFileURI(), fso);
+                        replyFile = fileSystemPool.resolveFile(vfsOutInfo.getOutFileURI(), fso);
                         if (replyFile == null) {
                             VFSTransportErrorHandler.logException(log, LogType.ERROR, "replyFile is null", configName);
                             throw new FileSystemException("replyFile is null");
@@ -348,6 +355,7 @@ public class VFSTransportSender extends AbstractTransportSender implements Manag
                             fileSystem = replyFile.getParent().getFileSystem();
                         }
                         getFsManager().getFilesCache().clear(fileSystem);
+                        fileSystemPool.release(replyFile);
                         replyFile.close();
                     } catch (Exception ex) {
                         VFSTransportErrorHandler.logException(log, LogType.WARN,
@@ -479,7 +487,7 @@ public class VFSTransportSender extends AbstractTransportSender implements Manag
         try {
             //Close the File system if it is not already closed
             if (fileObject != null && getFsManager() != null && fileObject.getParent() != null && fileObject.getParent().getFileSystem() != null) {
-                getFsManager().closeFileSystem(fileObject.getFileSystem());
+                fileSystemPool.closeFileSystem(fileObject.getFileSystem());
             }
             fileObject.close();
         } catch (FileSystemException warn) {
@@ -0,0 +1,99 @@
+/*
+ *     Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package org.apache.synapse.transport.vfs;
+
+import junit.framework.TestCase;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemManager;
+import org.apache.commons.vfs2.VFS;
+import org.apache.synapse.commons.vfs.VFSConstants;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * Unit testcase to test sorting the children of a polled directory with {@link FileAttributesSnapshot}
+ */
+public class FileAttributesSnapshotTest extends TestCase {
+
+    private File directory;
+    private FileObject[] children;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("vfs-snapshot").toFile();
+        // b is the largest and oldest file, c the smallest and newest
+        writeFile("a.txt", 20, 2000);
+        writeFile("b.txt", 30, 1000);
+        writeFile("c.txt", 10, 3000);
+        FileSystemManager fsManager = VFS.getManager();
+        children = fsManager.resolveFile(directory.toURI().toString()).getChildren();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    public void testSortByName() throws Exception {
+        assertOrder(VFSConstants.FILE_SORT_VALUE_NAME, true, "a.txt", "b.txt", "c.txt");
+        assertOrder(VFSConstants.FILE_SORT_VALUE_NAME, false, "c.txt", "b.txt", "a.txt");
+    }
+
+    public void testSortBySize() throws Exception {
+        assertOrder(VFSConstants.FILE_SORT_VALUE_SIZE, true, "c.txt", "a.txt", "b.txt");
+        assertOrder(VFSConstants.FILE_SORT_VALUE_SIZE, false, "b.txt", "a.txt", "c.txt");
+    }
+
+    public void testSortByLastModifiedTime() throws Exception {
+        assertOrder(VFSConstants.FILE_SORT_VALUE_LASTMODIFIEDTIMESTAMP, true, "b.txt", "a.txt", "c.txt");
+        assertOrder(VFSConstants.FILE_SORT_VALUE_LASTMODIFIEDTIMESTAMP, false, "c.txt", "a.txt", "b.txt");
+    }
+
+    public void testAttributesReadOnce() throws Exception {
+        PollTableEntry entry = new PollTableEntry(false);
+        entry.setFileSortParam(VFSConstants.FILE_SORT_VALUE_SIZE);
+        FileAttributesSnapshot[] snapshots = FileAttributesSnapshot.snapshot(entry, children);
+        // changes made after the snapshot was taken are not seen
+        FileUtils.writeStringToFile(new File(directory, "a.txt"), "", "UTF-8");
+        for (FileAttributesSnapshot snapshot : snapshots) {
+            if ("a.txt".equals(snapshot.getFile().getName().getBaseName())) {
+                assertEquals(20, snapshot.getSize());
+            }
+        }
+    }
+
+    private void assertOrder(String sortParam, boolean ascending, String... expected) throws Exception {
+        PollTableEntry entry = new PollTableEntry(false);
+        entry.setFileSortParam(sortParam);
+        FileAttributesSnapshot[] snapshots = FileAttributesSnapshot.snapshot(entry, children);
+        FileAttributesSnapshot.sort(snapshots, sortParam, ascending);
+        assertEquals(expected.length, snapshots.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], snapshots[i].getFile().getName().getBaseName());
+        }
+    }
+
+    private void writeFile(String name, int size, long lastModified) throws Exception {
+        File file = new File(directory, name);
+        FileUtils.writeStringToFile(file, new String(new char[size]).replace('\0', 'x'), "UTF-8");
+        assertTrue(file.setLastModified(lastModified * 1000));
+    }
+}
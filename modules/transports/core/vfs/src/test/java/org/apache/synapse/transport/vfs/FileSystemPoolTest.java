@@ -0,0 +1,122 @@
+/*
+ *     Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package org.apache.synapse.transport.vfs;
+
+import junit.framework.TestCase;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
+import org.apache.commons.vfs2.provider.ram.RamFileProvider;
+
+/**
+ * Unit testcase to test functionality of {@link FileSystemPool}, using in memory file systems
+ * in place of remote ones
+ */
+public class FileSystemPoolTest extends TestCase {
+
+    private DefaultFileSystemManager fsManager;
+
+    @Override
+    protected void setUp() throws Exception {
+        fsManager = new DefaultFileSystemManager();
+        fsManager.addProvider("ram", new RamFileProvider());
+        fsManager.init();
+    }
+
+    public void testFileSystemReused() throws Exception {
+        FileSystemPool pool = new FileSystemPool(fsManager, 10, 60000, -1, 60000);
+        try {
+            FileObject first = pool.resolveFile("ram:///out/first.xml", new FileSystemOptions());
+            pool.release(first);
+            FileObject second = pool.resolveFile("ram:///out/second.xml", new FileSystemOptions());
+            pool.release(second);
+            assertSame(first.getFileSystem(), second.getFileSystem());
+            assertEquals(1, pool.size());
+        } finally {
+            pool.close();
+        }
+    }
+
+    public void testIdleFileSystemEvicted() throws Exception {
+        FileSystemPool pool = new FileSystemPool(fsManager, 10, 0, -1, 60000);
+        try {
+            FileObject inUse = pool.resolveFile("ram:///out/file.xml", new FileSystemOptions());
+            pool.evict();
+            // a file system in use is never closed
+            assertEquals(1, pool.size());
+
+            pool.release(inUse);
+            pool.evict();
+            assertEquals(0, pool.size());
+            FileObject reopened = pool.resolveFile("ram:///out/file.xml", new FileSystemOptions());
+            assertNotSame(inUse.getFileSystem(), reopened.getFileSystem());
+            pool.release(reopened);
+        } finally {
+            pool.close();
+        }
+    }
+
+    public void testExpiredFileSystemEvicted() throws Exception {
+        FileSystemPool pool = new FileSystemPool(fsManager, 10, 60000, 0, 60000);
+        try {
+            pool.release(pool.resolveFile("ram:///out/file.xml", new FileSystemOptions()));
+            pool.evict();
+            assertEquals(0, pool.size());
+        } finally {
+            pool.close();
+        }
+    }
+
+    public void testClosedFileSystemReopened() throws Exception {
+        FileSystemPool pool = new FileSystemPool(fsManager, 10, 60000, -1, 60000);
+        try {
+            FileObject file = pool.resolveFile("ram:///out/file.xml", new FileSystemOptions());
+            pool.release(file);
+            pool.closeFileSystem(file.getFileSystem());
+            assertEquals(0, pool.size());
+            FileObject reopened = pool.resolveFile("ram:///out/file.xml", new FileSystemOptions());
+            assertNotSame(file.getFileSystem(), reopened.getFileSystem());
+            assertEquals(1, pool.size());
+            pool.release(reopened);
+        } finally {
+            pool.close();
+        }
+    }
+
+    public void testFileSystemInUseClosedByLastUser() throws Exception {
+        FileSystemPool pool = new FileSystemPool(fsManager, 10, 60000, -1, 60000);
+        try {
+            FileObject first = pool.resolveFile("ram:///out/first.xml", new FileSystemOptions());
+            FileObject second = pool.resolveFile("ram:///out/second.xml", new FileSystemOptions());
+            pool.closeFileSystem(first.getFileSystem());
+            // still in use by both files
+            assertEquals(1, pool.size());
+
+            pool.release(first);
+            assertEquals(1, pool.size());
+            pool.release(second);
+            assertEquals(0, pool.size());
+            FileObject reopened = pool.resolveFile("ram:///out/first.xml", new FileSystemOptions());
+            assertNotSame(first.getFileSystem(), reopened.getFileSystem());
+            pool.release(reopened);
+        } finally {
+            pool.close();
+        }
+    }
+}
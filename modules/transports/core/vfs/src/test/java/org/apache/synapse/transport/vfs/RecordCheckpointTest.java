@@ -0,0 +1,99 @@
+/*
+ *     Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package org.apache.synapse.transport.vfs;
+
+import junit.framework.TestCase;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * Unit testcase to test saving and resuming the progress of a file split in to records with {@link RecordCheckpoint}
+ */
+public class RecordCheckpointTest extends TestCase {
+
+    private File directory;
+    private File checkpointFile;
+    private FileObject file;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("vfs-checkpoint").toFile();
+        File records = new File(directory, "records.csv");
+        FileUtils.writeStringToFile(records, "a\nb\nc\nd\n", "UTF-8");
+        checkpointFile = new File(directory, "records.csv" + RecordCheckpoint.CHECKPOINT_SUFFIX);
+        file = VFS.getManager().resolveFile(records.toURI().toString());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    public void testOffsetFollowsContiguousMessages() throws Exception {
+        RecordCheckpoint checkpoint = RecordCheckpoint.open(file, 1);
+        assertEquals(0, checkpoint.getStartOffset());
+        checkpoint.completed(1, 4, true);
+        assertEquals(0, checkpoint.getOffset());
+        assertFalse(checkpointFile.exists());
+        checkpoint.completed(0, 2, true);
+        assertEquals(4, checkpoint.getOffset());
+        assertEquals("4", FileUtils.readFileToString(checkpointFile, "UTF-8"));
+    }
+
+    public void testResume() throws Exception {
+        RecordCheckpoint checkpoint = RecordCheckpoint.open(file, 2);
+        checkpoint.completed(0, 2, true);
+        assertFalse(checkpointFile.exists());
+        checkpoint.completed(1, 4, true);
+        checkpoint.completed(2, 6, false);
+        assertTrue(checkpoint.isFailed());
+        assertEquals(4, RecordCheckpoint.open(file, 2).getStartOffset());
+
+        checkpoint.delete();
+        assertFalse(checkpointFile.exists());
+        assertEquals(0, RecordCheckpoint.open(file, 2).getStartOffset());
+    }
+
+    public void testFailedCheckpointKept() throws Exception {
+        RecordCheckpoint checkpoint = RecordCheckpoint.open(file, 10);
+        checkpoint.completed(0, 2, true);
+        checkpoint.completed(1, 4, false);
+        checkpoint.completed(2, 6, true);
+        assertFalse(checkpointFile.exists());
+        checkpoint.close();
+        assertEquals("offset reached before the failure should be saved", "2",
+                FileUtils.readFileToString(checkpointFile, "UTF-8"));
+        assertEquals(2, RecordCheckpoint.open(file, 10).getStartOffset());
+
+        RecordCheckpoint.delete(file);
+        assertFalse(checkpointFile.exists());
+        RecordCheckpoint.delete(file);
+    }
+
+    public void testInvalidCheckpointIgnored() throws Exception {
+        FileUtils.writeStringToFile(checkpointFile, "100", "UTF-8");
+        assertEquals(0, RecordCheckpoint.open(file, 1).getStartOffset());
+        FileUtils.writeStringToFile(checkpointFile, "x", "UTF-8");
+        assertEquals(0, RecordCheckpoint.open(file, 1).getStartOffset());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *     Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package org.apache.synapse.transport.vfs;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit testcase to test splitting files in to records with {@link RecordSplitter}
+ */
+public class RecordSplitterTest extends TestCase {
+
+    public void testSplitLines() throws Exception {
+        RecordSplitter splitter = splitter("a,1\r\nb,2\n\n c,3", RecordSplitter.Mode.LINE, null);
+        assertRecord(splitter.next(), "a,1", 5);
+        assertRecord(splitter.next(), "b,2", 9);
+        assertRecord(splitter.next(), " c,3", 14);
+        assertNull(splitter.next());
+    }
+
+    public void testSplitByDelimiter() throws Exception {
+        RecordSplitter splitter = splitter("one||two||||three||", RecordSplitter.Mode.DELIMITER, "||");
+        assertRecord(splitter.next(), "one", 5);
+        assertRecord(splitter.next(), "two", 10);
+        assertRecord(splitter.next(), "three", 19);
+        assertNull(splitter.next());
+    }
+
+    public void testSplitJsonArray() throws Exception {
+        String json = " [ {\"a\": [1, 2], \"b\": \"x, ] \\\" }\"} , 42,\"s\" ,[3] ] ";
+        RecordSplitter splitter = splitter(json, RecordSplitter.Mode.JSON_ARRAY, null);
+        RecordSplitter.Record record = splitter.next();
+        assertEquals("{\"a\": [1, 2], \"b\": \"x, ] \\\" }\"}", new String(record.getData(), StandardCharsets.UTF_8));
+        assertEquals(json.indexOf('}', json.indexOf("\"}")) + 1, record.getEndOffset());
+        assertEquals("42", new String(splitter.next().getData(), StandardCharsets.UTF_8));
+        assertEquals("\"s\"", new String(splitter.next().getData(), StandardCharsets.UTF_8));
+        assertEquals("[3]", new String(splitter.next().getData(), StandardCharsets.UTF_8));
+        assertNull(splitter.next());
+    }
+
+    public void testEmptyJsonArray() throws Exception {
+        assertNull(splitter("[ ]", RecordSplitter.Mode.JSON_ARRAY, null).next());
+    }
+
+    public void testNotAJsonArray() throws Exception {
+        try {
+            splitter("{\"a\": 1}", RecordSplitter.Mode.JSON_ARRAY, null).next();
+            fail("A JSON object should not be split");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    public void testJoin() throws Exception {
+        List<byte[]> records = new ArrayList<byte[]>(Arrays.asList(bytes("{\"a\":1}"), bytes("2")));
+        assertEquals("[{\"a\":1},2]", new String(splitter("", RecordSplitter.Mode.JSON_ARRAY, null).join(records),
+                                                 StandardCharsets.UTF_8));
+        assertEquals("{\"a\":1}\n2", new String(splitter("", RecordSplitter.Mode.LINE, null).join(records),
+                                               StandardCharsets.UTF_8));
+        assertEquals("2", new String(splitter("", RecordSplitter.Mode.LINE, null).join(records.subList(1, 2)),
+                                     StandardCharsets.UTF_8));
+    }
+
+    private static RecordSplitter splitter(String content, RecordSplitter.Mode mode, String delimiter) {
+        return new RecordSplitter(new ByteArrayInputStream(bytes(content)), mode, delimiter);
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void assertRecord(RecordSplitter.Record record, String data, long endOffset) {
+        assertNotNull(record);
+        assertEquals(data, new String(record.getData(), StandardCharsets.UTF_8));
+        assertEquals(endOffset, record.getEndOffset());
+    }
+}
@@ -19,11 +19,14 @@
 package org.apache.synapse.transport.vfs;
 
 import junit.framework.TestCase;
+import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.description.AxisService;
 import org.apache.axis2.description.Parameter;
 import org.apache.axis2.description.TransportInDescription;
 import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.format.PlainTextBuilder;
 import org.apache.axis2.transport.base.ProtocolEndpoint;
 import org.apache.axis2.transport.testkit.axis2.TransportDescriptionFactory;
 import org.apache.commons.logging.Log;
@@ -34,7 +37,17 @@ import org.junit.Assert;
 import org.wso2.carbon.inbound.endpoint.protocol.file.MockFile;
 import org.wso2.carbon.inbound.endpoint.protocol.file.MockFileHolder;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Unit testcase to test functionality {@link VFSTransportListener} and {@link PollTableEntry}
@@ -113,6 +126,104 @@ public class VFSTransportListenerTest extends TestCase {
 
     }
 
+    /**
+     * Testcase to test that a file is split in to records injected as messages of the configured
+     * batch size, and that its checkpoint is not left behind
+     * @throws Exception
+     */
+    public void testRecordsInjectedAsMessages() throws Exception {
+        File directory = Files.createTempDirectory("vfs-records").toFile();
+        File file = new File(directory, "records.txt");
+        writeFile(file, "first\nsecond\n\nthird\r\n");
+
+        AxisService axisService = createPlainTextService(directory, ".*\\.txt");
+        axisService.addParameter(new Parameter(VFSConstants.TRANSPORT_FILE_RECORD_SPLIT_MODE, "line"));
+        axisService.addParameter(new Parameter(VFSConstants.TRANSPORT_FILE_RECORD_BATCH_SIZE, "2"));
+
+        List<String> payloads = new ArrayList<String>();
+        List<Object> offsets = new ArrayList<Object>();
+        pollOnce(axisService, payloads, offsets);
+
+        Assert.assertEquals(Arrays.asList("first\nsecond", "third"), payloads);
+        Assert.assertEquals(Arrays.<Object>asList(13L, 21L), offsets);
+        Assert.assertFalse("Processed file is not deleted", file.exists());
+        Assert.assertEquals("Checkpoint of the file is left behind", 0, directory.list().length);
+        Assert.assertTrue(directory.delete());
+    }
+
+    /**
+     * Testcase to test that files named like checkpoints are processed when files are not split in to records
+     * @throws Exception
+     */
+    public void testCheckpointNamedFileProcessedWithoutRecords() throws Exception {
+        File directory = Files.createTempDirectory("vfs-records").toFile();
+        File file = new File(directory, "data" + RecordCheckpoint.CHECKPOINT_SUFFIX);
+        writeFile(file, "first\nsecond\n");
+
+        List<String> payloads = new ArrayList<String>();
+        pollOnce(createPlainTextService(directory, ".*"), payloads, new ArrayList<Object>());
+
+        Assert.assertEquals(Arrays.asList("first\nsecond\n"), payloads);
+        Assert.assertFalse("Processed file is not deleted", file.exists());
+        Assert.assertTrue(directory.delete());
+    }
+
+    private AxisService createPlainTextService(File directory, String fileNamePattern) throws AxisFault {
+        AxisService axisService = new AxisService("testVFSRecordService");
+        axisService.addParameter(new Parameter(VFSConstants.TRANSPORT_FILE_FILE_URI, directory.toURI().toString()));
+        axisService.addParameter(new Parameter(VFSConstants.TRANSPORT_FILE_CONTENT_TYPE, "text/plain"));
+        axisService.addParameter(new Parameter(VFSConstants.TRANSPORT_FILE_FILE_NAME_PATTERN, fileNamePattern));
+        axisService.addParameter(new Parameter(VFSConstants.TRANSPORT_FILE_ACTION_AFTER_PROCESS, VFSTransportListener.DELETE));
+        axisService.addParameter(new Parameter(VFSConstants.TRANSPORT_FILE_LOCKING, VFSConstants.TRANSPORT_FILE_LOCKING_DISABLED));
+        axisService.addParameter(new Parameter(VFSConstants.TRANSPORT_FILE_INTERVAL, "1000"));
+        return axisService;
+    }
+
+    /**
+     * Poll the directory of a service once, collecting the messages injected instead of mediating them
+     * @param axisService the service polling the directory
+     * @param payloads the text payloads of the messages injected
+     * @param offsets the record offsets of the messages injected
+     * @throws Exception
+     */
+    private void pollOnce(AxisService axisService, final List<String> payloads, final List<Object> offsets)
+            throws Exception {
+        VFSTransportListener vfsTransportListener = new VFSTransportListener() {
+            @Override
+            public void handleIncomingMessage(MessageContext msgCtx, Map trpHeaders, String soapAction,
+                                              String contentType) {
+                synchronized (payloads) {
+                    payloads.add(msgCtx.getEnvelope().getBody().getFirstElement().getText());
+                    offsets.add(trpHeaders.get(VFSConstants.RECORD_OFFSET));
+                }
+            }
+        };
+        TransportInDescription transportInDescription = new TransportInDescription("vfs");
+        transportInDescription.setReceiver(vfsTransportListener);
+        AxisConfiguration axisConfiguration = new AxisConfiguration();
+        axisConfiguration.addMessageBuilder("text/plain", new PlainTextBuilder());
+
+        vfsTransportListener.init(new ConfigurationContext(axisConfiguration), transportInDescription);
+        vfsTransportListener.doInit();
+        vfsTransportListener.start();
+        try {
+            PollTableEntry pollTableEntry = vfsTransportListener.createEndpoint();
+            pollTableEntry.loadConfiguration(axisService);
+            populatePollTableEntry(pollTableEntry, axisService, vfsTransportListener);
+
+            vfsTransportListener.poll(pollTableEntry);
+        } finally {
+            vfsTransportListener.stop();
+            vfsTransportListener.destroy();
+        }
+    }
+
+    private void writeFile(File file, String content) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
     /**
      * Function to extract {@link VFSTransportListener} object resides as private field withing
      * {@link TransportInDescription} object